@@ -0,0 +1,10 @@
+#!/bin/sh
+
+# Runs the JMH benchmarks of the engines. The arguments are passed to JMH, e.g.,
+#   run_benchmarks.sh TestInputBenchmark -p engine=TopDownJustificationComputation -prof gc
+
+MAIN_CLASS=org.openjdk.jmh.Main
+
+POM="$(dirname "$(cd "$(dirname "$0")" && pwd)")/pom.xml"
+
+mvn -f $POM -P benchmarks test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test -Dexec.args="-classpath %classpath $MAIN_CLASS $*"
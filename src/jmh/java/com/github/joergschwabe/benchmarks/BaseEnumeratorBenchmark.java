@@ -0,0 +1,195 @@
+package com.github.joergschwabe.benchmarks;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.liveontologies.puli.pinpointing.MinimalSubsetEnumerator;
+import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.joergschwabe.BinarizedJustificationComputation;
+import com.github.joergschwabe.BottomUpJustificationComputation;
+import com.github.joergschwabe.EnumeratorTestInput;
+
+/**
+ * Measures the enumeration of all justifications and of the first
+ * justification of an {@link EnumeratorTestInput} by every engine named in
+ * {@link #engine}. Subclasses provide the input.
+ * <p>
+ * An engine is the simple name of a class in {@code com.github.joergschwabe}
+ * with a static method {@code getFactory()}, as for
+ * {@link com.github.joergschwabe.experiments.SatFactoryJustificationExperiment}.
+ * {@value #BINARIZED} runs {@link BottomUpJustificationComputation} on the
+ * binarized proof. The allocation rate is reported when the benchmarks are run
+ * with {@code -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class BaseEnumeratorBenchmark {
+
+	public static final String ENGINE_PACKAGE = "com.github.joergschwabe";
+
+	public static final String BINARIZED = "BinarizedJustificationComputation";
+
+	// @formatter:off
+	@Param({
+			"SatJustificationComp_Sat4j",
+			"SatJustificationComp_Sat4j_SAT",
+			"SatJustificationComp_Sat4j_bestHT",
+			"SatJustificationComp_Sat4j_bestWL",
+			"SatJustificationComp_Sat4j_glucose",
+			"SatJustificationComp_Sat4j_glucose21",
+			"SatJustificationComp_Sat4j_greedy",
+			"SatJustificationComp_Sat4j_light",
+			"SatJustificationComp_Sat4j_miniLearningHeap",
+			"SatJustificationComp_Sat4j_miniSATHeap",
+			"SatJustificationComp_LogicNg",
+			"SatJustificationComp_LogicNg_cleaneling_min",
+			"SatJustificationComp_LogicNg_glucose",
+			"SatJustificationComp_LogicNg_miniCard",
+			"SatJustificationComp_LogicNg_miniSat",
+			"SatJRComp_Justification_Sat4j",
+			"SatJRComp_Justification_LogicNg",
+			"BottomUpJustificationComputation",
+			"TopDownJustificationComputation",
+			"MinPremisesBottomUp",
+			BINARIZED,
+		})
+	// @formatter:on
+	public String engine;
+
+	private MinimalSubsetsFromProofs.Factory<?, ?, ?> factory_;
+
+	private EnumeratorTestInput<?, ?, ?> input_;
+
+	/**
+	 * @return the input on which the engines are run, called once per trial
+	 * @throws Exception
+	 */
+	protected abstract EnumeratorTestInput<?, ?, ?> createInput()
+			throws Exception;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		factory_ = getFactory(engine);
+		input_ = createInput();
+	}
+
+	@Benchmark
+	public int allJustifications(final Blackhole blackhole) {
+		return enumerate(factory_, input_, blackhole, false);
+	}
+
+	/**
+	 * The enumeration is interrupted after the first justification, so this
+	 * measures the time until the engine reacts to the interrupt.
+	 */
+	@Benchmark
+	public int firstJustification(final Blackhole blackhole) {
+		return enumerate(factory_, input_, blackhole, true);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <C, I extends Inference<? extends C>, A> int enumerate(
+			final MinimalSubsetsFromProofs.Factory<?, ?, ?> factory,
+			final EnumeratorTestInput<C, I, A> input,
+			final Blackhole blackhole, final boolean onlyFirst) {
+		final FirstResultMonitor<A> listener = new FirstResultMonitor<A>(
+				blackhole, onlyFirst);
+		((MinimalSubsetsFromProofs.Factory<C, I, A>) factory)
+				.create(input.getProof(), input.getJustifier(), listener)
+				.newEnumerator(input.getQuery()).enumerate(listener);
+		return listener.count_;
+	}
+
+	public static MinimalSubsetsFromProofs.Factory<?, ?, ?> getFactory(
+			final String engine) throws ClassNotFoundException,
+			NoSuchMethodException, IllegalAccessException,
+			InvocationTargetException {
+		if (BINARIZED.equals(engine)) {
+			return BinarizedJustificationComputation.getFactory(
+					BottomUpJustificationComputation.<List<Object>, Inference<List<Object>>, Object> getFactory());
+		}
+		// else
+		final Class<?> engineClass = Class
+				.forName(ENGINE_PACKAGE + "." + engine);
+		final Method getFactory = engineClass.getMethod("getFactory");
+		return (MinimalSubsetsFromProofs.Factory<?, ?, ?>) getFactory
+				.invoke(null);
+	}
+
+	/**
+	 * Passes the justifications to the {@link Blackhole} and interrupts the
+	 * enumeration after the first one if requested.
+	 */
+	private static class FirstResultMonitor<A>
+			implements MinimalSubsetEnumerator.Listener<A>, InterruptMonitor {
+
+		private final Blackhole blackhole_;
+		private final boolean onlyFirst_;
+
+		private int count_ = 0;
+
+		FirstResultMonitor(final Blackhole blackhole,
+				final boolean onlyFirst) {
+			this.blackhole_ = blackhole;
+			this.onlyFirst_ = onlyFirst;
+		}
+
+		@Override
+		public void newMinimalSubset(final Set<A> set) {
+			blackhole_.consume(set);
+			count_++;
+		}
+
+		@Override
+		public boolean isInterrupted() {
+			return onlyFirst_ && count_ > 0;
+		}
+
+	}
+
+}
@@ -0,0 +1,107 @@
+package com.github.joergschwabe.benchmarks;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.Collection;
+import java.util.Set;
+
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Proof;
+import org.openjdk.jmh.annotations.Param;
+
+import com.github.joergschwabe.EnumeratorTestInput;
+import com.github.joergschwabe.JustifiedInference;
+import com.github.joergschwabe.ProofAndJustifierBuilder;
+
+/**
+ * Runs the engines on proofs of parameterized size. The proof is a chain of
+ * {@link #depth} + 1 conclusions, each derived in {@link #branching}
+ * alternative ways using a different axiom, so the last conclusion has
+ * {@link #branching}^({@link #depth} + 1) justifications. If {@link #cycles}
+ * is set, each conclusion of the chain is also derived from the next one
+ * without axioms, which does not change the justifications but makes the
+ * whole chain one strongly connected component.
+ */
+public class SyntheticProofBenchmark extends BaseEnumeratorBenchmark {
+
+	@Param({ "3", "6" })
+	public int depth;
+
+	@Param({ "2", "3" })
+	public int branching;
+
+	@Param({ "false", "true" })
+	public boolean cycles;
+
+	@Override
+	protected EnumeratorTestInput<?, ?, ?> createInput() {
+		return new Chain(depth, branching, cycles);
+	}
+
+	static class Chain implements
+			EnumeratorTestInput<Integer, JustifiedInference<Integer, Integer>, Integer> {
+
+		private final ProofAndJustifierBuilder<Integer, Integer> builder_ = new ProofAndJustifierBuilder<Integer, Integer>();
+		private final int depth_;
+
+		Chain(final int depth, final int branching, final boolean cycles) {
+			this.depth_ = depth;
+			int axiom = 0;
+			for (int i = 0; i < branching; i++) {
+				builder_.conclusion(0).axiom(axiom++).add();
+			}
+			for (int conclusion = 1; conclusion <= depth; conclusion++) {
+				for (int i = 0; i < branching; i++) {
+					builder_.conclusion(conclusion).premise(conclusion - 1)
+							.axiom(axiom++).add();
+				}
+				if (cycles) {
+					builder_.conclusion(conclusion - 1).premise(conclusion)
+							.add();
+				}
+			}
+		}
+
+		@Override
+		public Integer getQuery() {
+			return depth_;
+		}
+
+		@Override
+		public Proof<? extends JustifiedInference<Integer, Integer>> getProof() {
+			return builder_.build();
+		}
+
+		@Override
+		public InferenceJustifier<? super JustifiedInference<Integer, Integer>, ? extends Set<? extends Integer>> getJustifier() {
+			return builder_.buildJustifier();
+		}
+
+		@Override
+		public Collection<? extends Set<? extends Integer>> getExpectedResult() {
+			throw new UnsupportedOperationException(
+					"The justifications are not computed.");
+		}
+
+	}
+
+}
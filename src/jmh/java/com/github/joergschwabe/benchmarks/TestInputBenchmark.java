@@ -0,0 +1,63 @@
+package com.github.joergschwabe.benchmarks;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.openjdk.jmh.annotations.Param;
+
+import com.github.joergschwabe.EnumeratorTestInput;
+import com.github.joergschwabe.JustificationEnumeratorTest;
+
+/**
+ * Runs the engines on the inputs of the justification tests.
+ */
+public class TestInputBenchmark extends BaseEnumeratorBenchmark {
+
+	public static final String INPUT_PACKAGE = "com.github.joergschwabe."
+			+ JustificationEnumeratorTest.TEST_INPUT_SUBPKG;
+
+	public static final String INPUT_SUFFIX = "Justifications";
+
+	// @formatter:off
+	@Param({
+			"ComplexCycle",
+			"Cycles",
+			"Cycles_2",
+			"Exponential",
+			"Linear",
+			"Minimization",
+			"NotDeriv",
+			"SeveralCycles",
+			"Tautologies",
+			"Tautology",
+			"TwoCycles",
+		})
+	// @formatter:on
+	public String input;
+
+	@Override
+	protected EnumeratorTestInput<?, ?, ?> createInput() throws Exception {
+		return (EnumeratorTestInput<?, ?, ?>) Class
+				.forName(INPUT_PACKAGE + "." + input + INPUT_SUFFIX)
+				.newInstance();
+	}
+
+}
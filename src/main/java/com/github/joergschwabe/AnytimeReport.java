@@ -0,0 +1,216 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.joergschwabe.experiments.BaseJustificationExperiment;
+
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.annotation.Arg;
+import net.sourceforge.argparse4j.impl.Arguments;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+
+/**
+ * Aggregates the histograms of arrival times of justifications recorded by
+ * {@link BaseJustificationExperiment} into anytime-performance curves, one
+ * curve for every record file, e.g., for every compared computation.
+ * <p>
+ * The curves are sampled at times 1, 2, 5, 10, 20, 50, ... milliseconds up to
+ * the latest arrival in any of the files. For every file and every time the
+ * output contains the number of queries that have at least one justification
+ * by that time, the number of all justifications found by that time, and the
+ * mean over the queries with some justification of the fraction of their
+ * justifications found by that time. The times are precise up to the
+ * resolution of {@link LogHistogram}.
+ */
+public class AnytimeReport {
+
+	private static final Logger LOGGER_ = LoggerFactory
+			.getLogger(AnytimeReport.class);
+
+	public static final String OUTPUT_OPT = "output";
+	public static final String RECORDS_OPT = "records";
+	public static final String HISTOGRAM_NAME_OPT = "hname";
+
+	public static final String DEFAULT_HISTOGRAM_NAME = "justTimeHistogram";
+
+	private static final long MICROS_IN_MILLIS = 1000l;
+
+	private static final long[] STEPS_ = { 1l, 2l, 5l };
+
+	public static class Options {
+		@Arg(dest = OUTPUT_OPT)
+		public File outputFile;
+		@Arg(dest = RECORDS_OPT)
+		public List<File> recordFiles;
+		@Arg(dest = HISTOGRAM_NAME_OPT)
+		public String histogramName;
+	}
+
+	public static void main(final String[] args) {
+
+		final ArgumentParser parser = ArgumentParsers
+				.newArgumentParser(AnytimeReport.class.getSimpleName())
+				.description(
+						"Aggregate arrival times of justifications into anytime-performance curves.");
+		parser.addArgument(OUTPUT_OPT).type(File.class)
+				.help("file with the curves");
+		parser.addArgument(RECORDS_OPT).nargs("+")
+				.type(Arguments.fileType().verifyExists().verifyCanRead())
+				.help("record files, each is aggregated into one curve");
+		parser.addArgument("--" + HISTOGRAM_NAME_OPT)
+				.setDefault(DEFAULT_HISTOGRAM_NAME)
+				.help("name of the value containing the histogram");
+
+		PrintWriter output = null;
+
+		try {
+
+			final Options opt = new Options();
+			parser.parseArgs(args, opt);
+
+			LOGGER_.info("outputFile: {}", opt.outputFile);
+			LOGGER_.info("recordFiles: {}", opt.recordFiles);
+			LOGGER_.info("histogramName: {}", opt.histogramName);
+
+			final List<List<LogHistogram>> histograms = new ArrayList<>();
+			final List<Integer> queryCounts = new ArrayList<>();
+			long maxMicros = 0l;
+			for (final File recordFile : opt.recordFiles) {
+				final List<LogHistogram> fileHistograms = new ArrayList<>();
+				int queryCount = 0;
+				RecordReader reader = null;
+				try {
+					reader = new RecordReader(recordFile);
+					if (!reader.getAllNames().contains(opt.histogramName)) {
+						LOGGER_.warn("{} has no value {}", recordFile,
+								opt.histogramName);
+					}
+					Map<String, String> record;
+					while ((record = reader.next()) != null) {
+						queryCount++;
+						final String encoded = RecordReader
+								.unquote(record.get(opt.histogramName));
+						if (encoded == null || encoded.isEmpty()
+								|| encoded.equals("null")) {
+							continue;
+						}
+						// else
+						final LogHistogram histogram = LogHistogram
+								.decode(encoded);
+						if (histogram.getTotalCount() > 0) {
+							fileHistograms.add(histogram);
+							maxMicros = Math.max(maxMicros,
+									histogram.getMax());
+						}
+					}
+				} finally {
+					Utils.closeQuietly(reader);
+				}
+				histograms.add(fileHistograms);
+				queryCounts.add(queryCount);
+			}
+
+			final List<Long> timesMillis = timeGrid(maxMicros);
+
+			output = new PrintWriter(opt.outputFile);
+			final Recorder recorder = new Recorder(output);
+			for (int i = 0; i < opt.recordFiles.size(); i++) {
+				final List<LogHistogram> fileHistograms = histograms.get(i);
+				for (final long timeMillis : timesMillis) {
+					final long timeMicros = timeMillis * MICROS_IN_MILLIS;
+					int queriesWithJust = 0;
+					long justs = 0l;
+					double fractionSum = 0.0;
+					for (final LogHistogram histogram : fileHistograms) {
+						final long count = histogram
+								.getCountAtOrBelow(timeMicros);
+						if (count > 0) {
+							queriesWithJust++;
+						}
+						justs += count;
+						fractionSum += count
+								/ (double) histogram.getTotalCount();
+					}
+					final Recorder.RecordBuilder record = recorder.newRecord();
+					record.put("file", opt.recordFiles.get(i).getPath());
+					record.put("time", timeMillis);
+					record.put("nQueries", queryCounts.get(i));
+					record.put("nQueriesWithJust", queriesWithJust);
+					record.put("nJusts", justs);
+					record.put("meanFraction", fileHistograms.isEmpty() ? null
+							: fractionSum / fileHistograms.size());
+					recorder.commit();
+				}
+			}
+
+		} catch (final FileNotFoundException e) {
+			LOGGER_.error("File not found!", e);
+			System.exit(2);
+		} catch (final IOException e) {
+			LOGGER_.error("Cannot read the records!", e);
+			System.exit(2);
+		} catch (final IllegalArgumentException e) {
+			LOGGER_.error("Cannot read the histograms!", e);
+			System.exit(2);
+		} catch (final ArgumentParserException e) {
+			parser.handleError(e);
+			System.exit(2);
+		} finally {
+			Utils.closeQuietly(output);
+		}
+
+	}
+
+	/**
+	 * @param maxMicros
+	 * @return the times 1, 2, 5, 10, 20, 50, ... milliseconds up to the first
+	 *         one that is not smaller than the specified time
+	 */
+	private static List<Long> timeGrid(final long maxMicros) {
+		final List<Long> times = new ArrayList<>();
+		long magnitude = 1l;
+		for (;;) {
+			for (final long step : STEPS_) {
+				final long time = step * magnitude;
+				times.add(time);
+				if (time * MICROS_IN_MILLIS >= maxMicros) {
+					return times;
+				}
+			}
+			magnitude *= 10;
+		}
+	}
+
+}
@@ -38,9 +38,15 @@ import com.google.common.collect.ImmutableSet.Builder;
 import com.google.common.collect.Sets;
 
 /**
- * A set enhanced with a Bloom filter to quickly check set inclusion. The Bloom
- * filter uses just one hash function; containment of elements is not optimized.
- * As it is common with Bloom filters, removal of elements is not supported.
+ * A set enhanced with a Bloom filter to quickly check set inclusion. The width
+ * of the filter grows with the size of the set from 64 to 512 bits, so that
+ * the filters of large sets do not fill up, and every element sets the same
+ * number of bits. The filters of sets of different sizes are compared after
+ * folding the wider one to the width of the narrower one. As it is common with
+ * Bloom filters, removal of elements is not supported.
+ * <p>
+ * Use {@link #create(Object, Collection...)} to get an {@link IntBloomSet}
+ * when the elements are {@link Integer}s.
  * 
  * @see Set#contains(Object)
  * @see Set#containsAll(Collection)
@@ -61,7 +67,9 @@ public class BloomSet<C, A> extends ForwardingSet<A>
 	private static final boolean COLLECT_STATS_ = true;
 
 	private static long STATS_CONTAINS_ALL_COUNT_ = 0,
-			STATS_CONTAINS_ALL_POSITIVE_ = 0, STATS_CONTAINS_ALL_FILTERED_ = 0;
+			STATS_CONTAINS_ALL_POSITIVE_ = 0, STATS_CONTAINS_ALL_FILTERED_ = 0,
+			STATS_CONTAINS_ALL_SIZE_FILTERED_ = 0,
+			STATS_CONTAINS_ALL_MERGED_ = 0;
 
 	@Stat
 	public static long containsAllCount() {
@@ -73,16 +81,80 @@ public class BloomSet<C, A> extends ForwardingSet<A>
 		return STATS_CONTAINS_ALL_POSITIVE_;
 	}
 
+	/**
+	 * @return how many negative tests were decided by the Bloom filters
+	 */
 	@Stat
 	public static long containsAllFiltered() {
 		return STATS_CONTAINS_ALL_FILTERED_;
 	}
 
-	private static final short SHIFT_ = 6; // 2^6 = 64 bits is good enough
+	/**
+	 * @return how many negative tests were decided by the sizes of the sets
+	 */
+	@Stat
+	public static long containsAllSizeFiltered() {
+		return STATS_CONTAINS_ALL_SIZE_FILTERED_;
+	}
+
+	/**
+	 * @return how many tests compared sorted arrays of {@link IntBloomSet}s
+	 */
+	@Stat
+	public static long containsAllMerged() {
+		return STATS_CONTAINS_ALL_MERGED_;
+	}
+
+	// the counters are updated also by IntBloomSet
+
+	static void countContainsAll() {
+		if (COLLECT_STATS_) {
+			STATS_CONTAINS_ALL_COUNT_++;
+		}
+	}
+
+	static void countContainsAllPositive() {
+		if (COLLECT_STATS_) {
+			STATS_CONTAINS_ALL_POSITIVE_++;
+		}
+	}
+
+	static void countContainsAllFiltered() {
+		if (COLLECT_STATS_) {
+			STATS_CONTAINS_ALL_FILTERED_++;
+		}
+	}
+
+	static void countContainsAllSizeFiltered() {
+		if (COLLECT_STATS_) {
+			STATS_CONTAINS_ALL_SIZE_FILTERED_++;
+		}
+	}
+
+	static void countContainsAllMerged() {
+		if (COLLECT_STATS_) {
+			STATS_CONTAINS_ALL_MERGED_++;
+		}
+	}
+
+	private static final short SHIFT_ = 6; // 2^6 = 64 bits in a word
 
 	// = 11..1 SHIFT_ times
 	private static final int MASK_ = (1 << SHIFT_) - 1;
 
+	/**
+	 * the filter has about this many bits for every element
+	 */
+	private static final int BITS_PER_ELEMENT_ = 8;
+
+	private static final int MAX_FILTER_WORDS_ = 8; // 512 bits
+
+	/**
+	 * how many bits every element sets in the filter; must be the same for
+	 * all sets, otherwise their filters cannot be compared
+	 */
+	private static final int HASH_COUNT_ = 2;
+
 	private final C conclusion_;
 
 	private final Set<A> elements_;
@@ -99,13 +171,13 @@ public class BloomSet<C, A> extends ForwardingSet<A>
 	private final int priority2_;
 
 	/**
-	 * filter for subset tests of SHIFT_ bits, each elements in the set sets one
-	 * bit to 1
+	 * filter for subset tests of a power of two words, each element in the set
+	 * sets {@link #HASH_COUNT_} bits to 1
 	 */
-	private final long filter_;
+	private final long[] filter_;
 
 	private BloomSet(C conclusion, Set<A> elements, int size, int priority2,
-			long filter) {
+			long[] filter) {
 		this.conclusion_ = conclusion;
 		this.elements_ = elements;
 		this.size_ = size;
@@ -124,7 +196,33 @@ public class BloomSet<C, A> extends ForwardingSet<A>
 		this.size_ = elements_.size();
 		// try to group justifications for the same conclusions together
 		this.priority2_ = conclusion.hashCode();
-		this.filter_ = buildFilter();
+		this.filter_ = buildFilter(elements_);
+	}
+
+	/**
+	 * @param conclusion
+	 * @param collections
+	 * @return an {@link IntBloomSet} if the collections contain some elements
+	 *         and all of them are {@link Integer}s, otherwise a
+	 *         {@link BloomSet}
+	 */
+	@SafeVarargs
+	@SuppressWarnings("unchecked")
+	public static <C, A> Justification<C, A> create(C conclusion,
+			Collection<? extends A>... collections) {
+		final int[] ints = IntBloomSet.toSortedInts(collections);
+		if (ints == null || ints.length == 0) {
+			// the array must not be passed on to keep the varargs safe
+			final Builder<A> elementsBuilder = new ImmutableSet.Builder<A>();
+			for (int i = 0; i < collections.length; i++) {
+				elementsBuilder.addAll(collections[i]);
+			}
+			final Set<A> elements = elementsBuilder.build();
+			return new BloomSet<C, A>(conclusion, elements, elements.size(),
+					conclusion.hashCode(), buildFilter(elements));
+		}
+		// else
+		return (Justification<C, A>) new IntBloomSet<C>(conclusion, ints);
 	}
 
 	@Override
@@ -149,7 +247,7 @@ public class BloomSet<C, A> extends ForwardingSet<A>
 			return this;
 		}
 		// else
-		return new BloomSet<C, A>(conclusion_, Sets.union(this, added));
+		return create(conclusion_, Sets.union(this, added));
 	}
 
 	@Override
@@ -158,22 +256,91 @@ public class BloomSet<C, A> extends ForwardingSet<A>
 			return this;
 		}
 		// else
-		return new BloomSet<C, A>(conclusion_,
-				Sets.difference(this, removed));
+		return create(conclusion_, Sets.difference(this, removed));
 	}
 
-	private long buildFilter() {
-		long result = 0;
-		for (A e : elements_) {
-			result |= 1 << (e.hashCode() & MASK_);
+	/**
+	 * @return the number of words of the filter of a set of the given size
+	 */
+	private static int filterWords(final int size) {
+		int words = 1;
+		while (words < MAX_FILTER_WORDS_
+				&& (words << SHIFT_) < size * BITS_PER_ELEMENT_) {
+			words <<= 1;
 		}
-		return result;
+		return words;
 	}
-	
+
+	private static long[] buildFilter(final Collection<?> elements) {
+		final long[] filter = new long[filterWords(elements.size())];
+		for (final Object e : elements) {
+			addToFilter(filter, e.hashCode());
+		}
+		return filter;
+	}
+
+	static long[] buildFilter(final int[] ints) {
+		final long[] filter = new long[filterWords(ints.length)];
+		for (final int e : ints) {
+			// the hash code of an Integer is its value
+			addToFilter(filter, e);
+		}
+		return filter;
+	}
+
+	private static void addToFilter(final long[] filter, final int hashCode) {
+		final int bitMask = (filter.length << SHIFT_) - 1;
+		final int hash1 = mix(hashCode);
+		final int hash2 = (hash1 >>> 16) | 1;
+		for (int i = 0; i < HASH_COUNT_; i++) {
+			final int bit = (hash1 + i * hash2) & bitMask;
+			filter[bit >>> SHIFT_] |= 1l << (bit & MASK_);
+		}
+	}
+
+	static boolean mayContain(final long[] filter, final int hashCode) {
+		final int bitMask = (filter.length << SHIFT_) - 1;
+		final int hash1 = mix(hashCode);
+		final int hash2 = (hash1 >>> 16) | 1;
+		for (int i = 0; i < HASH_COUNT_; i++) {
+			final int bit = (hash1 + i * hash2) & bitMask;
+			if ((filter[bit >>> SHIFT_] & (1l << (bit & MASK_))) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * spreads consecutive hash codes, e.g., of {@link Integer}s, over the bits
+	 */
+	private static int mix(final int hashCode) {
+		final int h = hashCode * 0x9E3779B9;
+		return h ^ (h >>> 15);
+	}
+
+	/**
+	 * @return {@code false} if the filter shows that the set with the filter
+	 *         {@code sub} is not a subset of the set with the filter
+	 *         {@code sup}, which must not be narrower
+	 */
+	static boolean mayContainAll(final long[] sup, final long[] sub) {
+		// fold the wider filter to the width of the narrower one
+		for (int i = 0; i < sub.length; i++) {
+			long word = 0l;
+			for (int j = i; j < sup.length; j += sub.length) {
+				word |= sup[j];
+			}
+			if ((word & sub[i]) != sub[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public boolean contains(Object object) {
-		int mask = 1 << object.hashCode() & MASK_;
-		if ((filter_ & mask) != mask) {
+		if (!mayContain(filter_, object.hashCode())) {
 			return false;
 		}
 		// else
@@ -182,22 +349,20 @@ public class BloomSet<C, A> extends ForwardingSet<A>
 
 	@Override
 	public boolean containsAll(Collection<?> c) {
-		if (COLLECT_STATS_) {
-			STATS_CONTAINS_ALL_COUNT_++;
+		countContainsAll();
+		if (c instanceof Set<?> && c.size() > size_) {
+			countContainsAllSizeFiltered();
+			return false;
 		}
 		if (c instanceof BloomSet<?, ?>) {
 			BloomSet<?, ?> other = (BloomSet<?, ?>) c;
-			if ((filter_ & other.filter_) != other.filter_) {
-				if (COLLECT_STATS_) {
-					STATS_CONTAINS_ALL_FILTERED_++;
-				}
+			if (!mayContainAll(filter_, other.filter_)) {
+				countContainsAllFiltered();
 				return false;
 			}
 		}
 		if (super.containsAll(c)) {
-			if (COLLECT_STATS_) {
-				STATS_CONTAINS_ALL_POSITIVE_++;
-			}
+			countContainsAllPositive();
 			return true;
 		}
 		// else
@@ -239,10 +404,11 @@ public class BloomSet<C, A> extends ForwardingSet<A>
 					float negativeSuccessRatio = (float) STATS_CONTAINS_ALL_FILTERED_
 							/ negativeTests;
 					LOGGER_.debug(
-							"{} containsAll tests, {} negative, {} ({}%) filtered",
+							"{} containsAll tests, {} negative, {} ({}%) filtered, {} by size",
 							STATS_CONTAINS_ALL_COUNT_, negativeTests,
 							STATS_CONTAINS_ALL_FILTERED_,
-							String.format("%.2f", negativeSuccessRatio * 100));
+							String.format("%.2f", negativeSuccessRatio * 100),
+							STATS_CONTAINS_ALL_SIZE_FILTERED_);
 				} else {
 					LOGGER_.debug("{} containsAll tests, all positive",
 							STATS_CONTAINS_ALL_COUNT_);
@@ -256,6 +422,8 @@ public class BloomSet<C, A> extends ForwardingSet<A>
 		STATS_CONTAINS_ALL_COUNT_ = 0;
 		STATS_CONTAINS_ALL_FILTERED_ = 0;
 		STATS_CONTAINS_ALL_POSITIVE_ = 0;
+		STATS_CONTAINS_ALL_SIZE_FILTERED_ = 0;
+		STATS_CONTAINS_ALL_MERGED_ = 0;
 	}
 
 	@Override
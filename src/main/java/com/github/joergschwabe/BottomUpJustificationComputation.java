@@ -24,9 +24,11 @@ package com.github.joergschwabe;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
@@ -45,6 +47,7 @@ import org.liveontologies.puli.statistics.Stat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.joergschwabe.PhaseProfiler.Phase;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
@@ -69,6 +72,12 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 	private final ListMultimap<C, Justification<C, A>> justifications_ = ArrayListMultimap
 			.create();
 
+	/**
+	 * the justifications from {@link #justifications_} indexed for the
+	 * minimality checks
+	 */
+	private final Map<C, SubsetIndex<Justification<C, A>>> justificationIndex_ = new HashMap<>();
+
 	/**
 	 * justifications blocked from propagation because they are not needed for
 	 * computing justifications for the goal conclusion
@@ -96,6 +105,7 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 	private void reset() {
 		initialized_.clear();
 		justifications_.clear();
+		justificationIndex_.clear();
 		blockedJustifications_.clear();
 	}
 
@@ -154,17 +164,27 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 		return BloomSet.class;
 	}
 
+	@NestedStats
+	public static Class<?> getIndexStats() {
+		return SubsetIndex.class;
+	}
+
+	private SubsetIndex<Justification<C, A>> getJustificationIndex(
+			final C conclusion) {
+		SubsetIndex<Justification<C, A>> index = justificationIndex_
+				.get(conclusion);
+		if (index == null) {
+			index = new SubsetIndex<>();
+			justificationIndex_.put(conclusion, index);
+		}
+		return index;
+	}
+
 	@SuppressWarnings("unchecked")
 	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory() {
 		return (Factory<C, I, A>) FACTORY_;
 	}
 
-	@SafeVarargs
-	private static <C, A> Justification<C, A> createJustification(C conclusion,
-			Collection<? extends A>... collections) {
-		return new BloomSet<C, A>(conclusion, collections);
-	}
-
 	/**
 	 * Performs computation of justifications for the given conclusion. Can
 	 * compute and reuse justifications for other conclusions.
@@ -193,19 +213,12 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 		 */
 		private PriorityQueue<JobFactory<C, A, ?>.Job> toDoJustifications_;
 
-		/**
-		 * the justifications will be returned here, they come in increasing
-		 * size order
-		 */
-		private final List<? extends Set<A>> result_;
-
 		private Listener<A> listener_ = null;
 
 		private JobFactory<C, A, ?> jobFactory_;
 
 		JustificationEnumerator(C conclusion) {
 			this.conclusion_ = conclusion;
-			this.result_ = justifications_.get(conclusion);
 		}
 
 		@Override
@@ -236,7 +249,9 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 			this.toDoJustifications_ = new PriorityQueue<JobFactory<C, A, ?>.Job>();
 
 			toDo(conclusion_);
+			PhaseProfiler.start(Phase.UNFOLDING);
 			initialize();
+			PhaseProfiler.stop(Phase.UNFOLDING);
 			process();
 
 			this.listener_ = null;
@@ -271,10 +286,11 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 							"{}: computation of justifiations initialized",
 							conclusion);
 					// propagate existing justifications for premises
+					PhaseProfiler.start(Phase.PROPAGATION);
 					for (final I inf : infs) {
 						List<Justification<C, A>> conclusionJusts = new ArrayList<>();
 						conclusionJusts.add(
-								createJustification((C) inf.getConclusion(),
+								BloomSet.<C, A> create((C) inf.getConclusion(),
 										getJustification(inf)));
 						for (final C premise : inf.getPremises()) {
 							conclusionJusts = Utils.join(conclusionJusts,
@@ -284,6 +300,7 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 							produce(just);
 						}
 					}
+					PhaseProfiler.stop(Phase.PROPAGATION);
 				} else {
 					// conclusion has already been initialized.
 					final List<Justification<C, A>> blocked = blockedJustifications_
@@ -326,19 +343,27 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 				}
 				List<Justification<C, A>> justs = justifications_
 						.get(conclusion);
-				if (!Utils.isMinimal(just, justs)) {
+				PhaseProfiler.start(Phase.MINIMIZATION);
+				if (!Utils.isMinimal(just, getJustificationIndex(conclusion))) {
+					PhaseProfiler.stop(Phase.MINIMIZATION);
 					continue;
 				}
-				if (!Utils.isMinimal(just, result_)) {
+				if (!Utils.isMinimal(just,
+						getJustificationIndex(conclusion_))) {
+					PhaseProfiler.stop(Phase.MINIMIZATION);
 					blockedJustifications_.put(conclusion, just);
 					LOGGER_.trace("blocked {}", just);
 					continue;
 				}
 				// else
+				PhaseProfiler.stop(Phase.MINIMIZATION);
 				justs.add(just);
+				getJustificationIndex(conclusion).add(just);
 				LOGGER_.trace("new {}", just);
 				if (conclusion_.equals(conclusion) && listener_ != null) {
+					PhaseProfiler.start(Phase.LISTENER);
 					listener_.newMinimalSubset(just);
+					PhaseProfiler.stop(Phase.LISTENER);
 				}
 
 				if (just.isEmpty()) {
@@ -354,6 +379,7 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 				/*
 				 * propagating justification over inferences
 				 */
+				PhaseProfiler.start(Phase.PROPAGATION);
 				for (final I inf : inferencesByPremises_.get(conclusion)) {
 
 					Collection<Justification<C, A>> conclusionJusts = new ArrayList<>();
@@ -373,6 +399,7 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 					}
 
 				}
+				PhaseProfiler.stop(Phase.PROPAGATION);
 
 			}
 
@@ -385,7 +412,11 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 
 	}
 
-	private static class JobFactory<C, A, P> {
+	/**
+	 * Creates jobs ordering justifications by the priority comparator, used
+	 * for the queues of justifications to be propagated
+	 */
+	static class JobFactory<C, A, P> {
 
 		private final PriorityComparator<? super Set<A>, P> priorityComparator_;
 
@@ -404,7 +435,7 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 					justification);
 		}
 
-		private class Job implements Comparable<Job> {
+		class Job implements Comparable<Job> {
 
 			private final P priority_;
 
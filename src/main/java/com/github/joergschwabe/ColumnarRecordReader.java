@@ -0,0 +1,247 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads records written by {@link ColumnarRecordWriter}. The values are
+ * returned as {@link Recorder} would write them into a CSV file, so they can
+ * be processed in the same way as the values returned by
+ * {@link RecordReader}. An incomplete block at the end of the file is
+ * ignored.
+ */
+public class ColumnarRecordReader implements Closeable {
+
+	private final DataInputStream input_;
+
+	private String[] names_ = new String[0];
+	private String[][] values_ = new String[0][];
+	private int size_ = 0;
+	private int next_ = 0;
+
+	public ColumnarRecordReader(final InputStream input) throws IOException {
+		this.input_ = new DataInputStream(input);
+		final int magic;
+		final byte version;
+		try {
+			magic = input_.readInt();
+			version = input_.readByte();
+		} catch (final EOFException e) {
+			throw new IOException("Not a columnar record file!", e);
+		}
+		if (magic != ColumnarRecordWriter.MAGIC) {
+			throw new IOException("Not a columnar record file!");
+		}
+		if (version != ColumnarRecordWriter.VERSION) {
+			throw new IOException(
+					"Unsupported version of columnar records: " + version);
+		}
+	}
+
+	public ColumnarRecordReader(final File file) throws IOException {
+		this(new BufferedInputStream(new FileInputStream(file)));
+	}
+
+	/**
+	 * @return the next record as a map from the names of its columns to the
+	 *         values as {@link Recorder} would write them, or {@code null} if
+	 *         there are no more records; the columns that appeared in the
+	 *         block of the record but have no value in it are mapped to
+	 *         {@code "null"}
+	 * @throws IOException
+	 */
+	public Map<String, String> next() throws IOException {
+		while (next_ >= size_) {
+			if (!readBlock(true)) {
+				return null;
+			}
+		}
+		final Map<String, String> record = new LinkedHashMap<>();
+		for (int i = 0; i < names_.length; i++) {
+			final String value = values_[i][next_];
+			record.put(names_[i], value == null ? "null" : value);
+		}
+		next_++;
+		return record;
+	}
+
+	/**
+	 * Reads the names of all columns in the file without decoding the
+	 * values.
+	 *
+	 * @param file
+	 * @return the names of the columns in the order in which they appeared
+	 * @throws IOException
+	 */
+	public static List<String> readNames(final File file) throws IOException {
+		final Set<String> names = new LinkedHashSet<>();
+		ColumnarRecordReader reader = null;
+		try {
+			reader = new ColumnarRecordReader(file);
+			while (reader.readBlock(false)) {
+				for (final String name : reader.names_) {
+					names.add(name);
+				}
+			}
+		} finally {
+			Utils.closeQuietly(reader);
+		}
+		return new ArrayList<>(names);
+	}
+
+	/**
+	 * @param decodeValues
+	 *            whether the values should be decoded, if not, only the names
+	 *            of the columns are read
+	 * @return {@code false} if there are no more complete blocks
+	 * @throws IOException
+	 */
+	private boolean readBlock(final boolean decodeValues) throws IOException {
+		final byte[] bytes;
+		try {
+			final int length = input_.readInt();
+			bytes = new byte[length];
+			input_.readFully(bytes);
+		} catch (final EOFException e) {
+			return false;
+		}
+		final DataInputStream block = new DataInputStream(
+				new ByteArrayInputStream(bytes));
+		size_ = readVarInt(block);
+		next_ = 0;
+		final int nColumns = readVarInt(block);
+		names_ = new String[nColumns];
+		final byte[] types = new byte[nColumns];
+		for (int i = 0; i < nColumns; i++) {
+			names_[i] = block.readUTF();
+			types[i] = block.readByte();
+		}
+		if (!decodeValues) {
+			size_ = 0;
+			return true;
+		}
+		// else
+		values_ = new String[nColumns][];
+		for (int i = 0; i < nColumns; i++) {
+			values_[i] = readColumn(block, types[i]);
+		}
+		return true;
+	}
+
+	private String[] readColumn(final DataInputStream block, final byte type)
+			throws IOException {
+		final byte[] present = new byte[(size_ + 7) / 8];
+		block.readFully(present);
+		int n = 0;
+		for (int i = 0; i < size_; i++) {
+			if (isSet(present, i)) {
+				n++;
+			}
+		}
+
+		final String[] values = new String[n];
+		switch (type) {
+		case ColumnarRecordWriter.TYPE_LONG:
+			for (int i = 0; i < n; i++) {
+				values[i] = Long.toString(readVarLong(block));
+			}
+			break;
+		case ColumnarRecordWriter.TYPE_DOUBLE:
+			for (int i = 0; i < n; i++) {
+				values[i] = Recorder.valueToString(block.readDouble());
+			}
+			break;
+		case ColumnarRecordWriter.TYPE_BOOLEAN:
+			final byte[] bits = new byte[(n + 7) / 8];
+			block.readFully(bits);
+			for (int i = 0; i < n; i++) {
+				values[i] = Recorder.valueToString(isSet(bits, i));
+			}
+			break;
+		case ColumnarRecordWriter.TYPE_STRING:
+		case ColumnarRecordWriter.TYPE_TEXT:
+			final String[] dictionary = new String[readVarInt(block)];
+			for (int i = 0; i < dictionary.length; i++) {
+				dictionary[i] = type == ColumnarRecordWriter.TYPE_STRING
+						? Recorder.valueToString(block.readUTF())
+						: block.readUTF();
+			}
+			for (int i = 0; i < n; i++) {
+				values[i] = dictionary[readVarInt(block)];
+			}
+			break;
+		default:
+			throw new IOException("Unknown type of a column: " + type);
+		}
+
+		final String[] column = new String[size_];
+		int next = 0;
+		for (int i = 0; i < size_; i++) {
+			if (isSet(present, i)) {
+				column[i] = values[next++];
+			}
+		}
+		return column;
+	}
+
+	private static boolean isSet(final byte[] bits, final int index) {
+		return (bits[index / 8] & (1 << (index % 8))) != 0;
+	}
+
+	static int readVarInt(final DataInputStream input) throws IOException {
+		return (int) readVarLong(input);
+	}
+
+	static long readVarLong(final DataInputStream input) throws IOException {
+		long zigZag = 0l;
+		int shift = 0;
+		byte b;
+		do {
+			b = input.readByte();
+			zigZag |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return (zigZag >>> 1) ^ -(zigZag & 1);
+	}
+
+	@Override
+	public void close() throws IOException {
+		input_.close();
+	}
+
+}
@@ -0,0 +1,285 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes records in a compact binary columnar format that can be read by
+ * {@link ColumnarRecordReader}. The records are buffered in blocks of a fixed
+ * number of records and each block is written column by column, so the memory
+ * needed does not depend on the number of records.
+ * <p>
+ * The file starts with {@link #MAGIC} and {@link #VERSION}. Each block
+ * consists of its length in bytes, the number of its records, the number of
+ * its columns, the names and types of the columns and the data of each
+ * column. The data of a column start with a bitmap of the records that have a
+ * value in this column followed by the values in the records that have one.
+ * Integers are written as variable length zig-zag encoded numbers, doubles
+ * as 8 bytes, booleans as bits, and strings as indices into a dictionary of
+ * the block. Values of other types, or columns with values of different
+ * types, are written as the text that {@link Recorder} would write. Each
+ * block has its own columns, so columns may appear at any time.
+ * <p>
+ * A block is written when it is full, on {@link #flush()} and on
+ * {@link #close()}. When the writing is interrupted, the records of the
+ * incomplete block are lost, the previous blocks can still be read.
+ */
+public class ColumnarRecordWriter implements Closeable {
+
+	public static final int MAGIC = 0x50524543; // "PREC"
+	public static final byte VERSION = 1;
+
+	public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+	static final byte TYPE_LONG = 1;
+	static final byte TYPE_DOUBLE = 2;
+	static final byte TYPE_BOOLEAN = 3;
+	static final byte TYPE_STRING = 4;
+	static final byte TYPE_TEXT = 5;
+
+	private final DataOutputStream output_;
+	private final int blockSize_;
+
+	/**
+	 * the values of the buffered records indexed by the names of the columns
+	 * in the order in which the columns appeared; the list of a column is
+	 * filled with {@code null} up to the last buffered record
+	 */
+	private final Map<String, List<Object>> columns_ = new LinkedHashMap<>();
+	private int size_ = 0;
+
+	public ColumnarRecordWriter(final OutputStream output,
+			final int blockSize) throws IOException {
+		if (blockSize < 1) {
+			throw new IllegalArgumentException(
+					"Block size must be positive! blockSize=" + blockSize);
+		}
+		this.output_ = new DataOutputStream(output);
+		this.blockSize_ = blockSize;
+		output_.writeInt(MAGIC);
+		output_.writeByte(VERSION);
+	}
+
+	public ColumnarRecordWriter(final OutputStream output)
+			throws IOException {
+		this(output, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Appends a record. The values that are {@code null} are not written.
+	 *
+	 * @param record
+	 *            the values indexed by the names of their columns
+	 * @throws IOException
+	 */
+	public void write(final Map<String, ?> record) throws IOException {
+		for (final Map.Entry<String, ?> entry : record.entrySet()) {
+			if (entry.getValue() == null) {
+				continue;
+			}
+			// else
+			List<Object> column = columns_.get(entry.getKey());
+			if (column == null) {
+				column = new ArrayList<>(blockSize_);
+				columns_.put(entry.getKey(), column);
+			}
+			while (column.size() < size_) {
+				column.add(null);
+			}
+			column.add(entry.getValue());
+		}
+		size_++;
+		if (size_ >= blockSize_) {
+			writeBlock();
+		}
+	}
+
+	/**
+	 * Writes the buffered records as a block and flushes the output.
+	 *
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		writeBlock();
+		output_.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			output_.close();
+		}
+	}
+
+	private void writeBlock() throws IOException {
+		if (size_ == 0) {
+			return;
+		}
+		// else
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream block = new DataOutputStream(bytes);
+		writeVarInt(block, size_);
+		writeVarInt(block, columns_.size());
+		final List<Byte> types = new ArrayList<>(columns_.size());
+		for (final Map.Entry<String, List<Object>> entry : columns_
+				.entrySet()) {
+			final byte type = typeOf(entry.getValue());
+			types.add(type);
+			block.writeUTF(entry.getKey());
+			block.writeByte(type);
+		}
+		int i = 0;
+		for (final List<Object> column : columns_.values()) {
+			writeColumn(block, types.get(i++), column);
+		}
+		block.flush();
+		output_.writeInt(bytes.size());
+		bytes.writeTo(output_);
+		columns_.clear();
+		size_ = 0;
+	}
+
+	private static byte typeOf(final List<Object> column) {
+		byte type = 0;
+		for (final Object value : column) {
+			if (value == null) {
+				continue;
+			}
+			// else
+			final byte valueType;
+			if (value instanceof Long || value instanceof Integer
+					|| value instanceof Short || value instanceof Byte) {
+				valueType = TYPE_LONG;
+			} else if (value instanceof Double || value instanceof Float) {
+				valueType = TYPE_DOUBLE;
+			} else if (value instanceof Boolean) {
+				valueType = TYPE_BOOLEAN;
+			} else if (value instanceof String) {
+				valueType = TYPE_STRING;
+			} else {
+				return TYPE_TEXT;
+			}
+			if (type == 0) {
+				type = valueType;
+			} else if (type != valueType) {
+				return TYPE_TEXT;
+			}
+		}
+		return type == 0 ? TYPE_TEXT : type;
+	}
+
+	private void writeColumn(final DataOutputStream block, final byte type,
+			final List<Object> column) throws IOException {
+		final byte[] present = new byte[(size_ + 7) / 8];
+		for (int i = 0; i < column.size(); i++) {
+			if (column.get(i) != null) {
+				present[i / 8] |= 1 << (i % 8);
+			}
+		}
+		block.write(present);
+
+		switch (type) {
+		case TYPE_LONG:
+			for (final Object value : column) {
+				if (value != null) {
+					writeVarLong(block, ((Number) value).longValue());
+				}
+			}
+			break;
+		case TYPE_DOUBLE:
+			for (final Object value : column) {
+				if (value != null) {
+					block.writeDouble(((Number) value).doubleValue());
+				}
+			}
+			break;
+		case TYPE_BOOLEAN:
+			final byte[] bits = new byte[(column.size() + 7) / 8];
+			int n = 0;
+			for (final Object value : column) {
+				if (value != null) {
+					if ((Boolean) value) {
+						bits[n / 8] |= 1 << (n % 8);
+					}
+					n++;
+				}
+			}
+			block.write(bits, 0, (n + 7) / 8);
+			break;
+		default:
+			final Map<String, Integer> dictionary = new HashMap<>();
+			final List<String> entries = new ArrayList<>();
+			final List<Integer> indices = new ArrayList<>(column.size());
+			for (final Object value : column) {
+				if (value == null) {
+					continue;
+				}
+				// else
+				final String string = type == TYPE_STRING ? (String) value
+						: Recorder.valueToString(value);
+				Integer index = dictionary.get(string);
+				if (index == null) {
+					index = entries.size();
+					dictionary.put(string, index);
+					entries.add(string);
+				}
+				indices.add(index);
+			}
+			writeVarInt(block, entries.size());
+			for (final String entry : entries) {
+				block.writeUTF(entry);
+			}
+			for (final int index : indices) {
+				writeVarInt(block, index);
+			}
+		}
+	}
+
+	static void writeVarInt(final DataOutputStream output, final int value)
+			throws IOException {
+		writeVarLong(output, value);
+	}
+
+	static void writeVarLong(final DataOutputStream output, final long value)
+			throws IOException {
+		long zigZag = (value << 1) ^ (value >> 63);
+		while ((zigZag & ~0x7FL) != 0) {
+			output.writeByte((int) ((zigZag & 0x7F) | 0x80));
+			zigZag >>>= 7;
+		}
+		output.writeByte((int) zigZag);
+	}
+
+}
@@ -0,0 +1,145 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.annotation.Arg;
+import net.sourceforge.argparse4j.impl.Arguments;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+
+/**
+ * Converts a record file written in the binary columnar format by
+ * {@link ColumnarRecordWriter} into the CSV format written by
+ * {@link Recorder}. The names of the values are the names of all columns in
+ * the order in which they first occur; values missing in some records are
+ * written as {@code null}. The file is read twice, first the names and then
+ * the values, so that the records do not need to be kept in memory.
+ */
+public class ColumnarRecordsToCsv {
+
+	private static final Logger LOGGER_ = LoggerFactory
+			.getLogger(ColumnarRecordsToCsv.class);
+
+	public static final String INPUT_OPT = "input";
+	public static final String OUTPUT_OPT = "output";
+
+	public static class Options {
+		@Arg(dest = INPUT_OPT)
+		public File inputFile;
+		@Arg(dest = OUTPUT_OPT)
+		public File outputFile;
+	}
+
+	public static void main(final String[] args) {
+
+		final ArgumentParser parser = ArgumentParsers
+				.newArgumentParser(ColumnarRecordsToCsv.class.getSimpleName())
+				.description(
+						"Convert a binary columnar record file into a CSV record file.");
+		parser.addArgument(INPUT_OPT)
+				.type(Arguments.fileType().verifyExists().verifyCanRead())
+				.help("binary columnar record file");
+		parser.addArgument(OUTPUT_OPT).type(File.class)
+				.help("CSV record file");
+
+		ColumnarRecordReader reader = null;
+		PrintWriter output = null;
+
+		try {
+
+			final Options opt = new Options();
+			parser.parseArgs(args, opt);
+
+			LOGGER_.info("inputFile: {}", opt.inputFile);
+			LOGGER_.info("outputFile: {}", opt.outputFile);
+
+			final List<String> names = ColumnarRecordReader
+					.readNames(opt.inputFile);
+
+			output = new PrintWriter(opt.outputFile);
+			writeLine(output, names.iterator());
+
+			reader = new ColumnarRecordReader(opt.inputFile);
+			int count = 0;
+			Map<String, String> record;
+			while ((record = reader.next()) != null) {
+				final Iterator<String> iter = names.iterator();
+				if (iter.hasNext()) {
+					output.print(valueOf(record, iter.next()));
+					while (iter.hasNext()) {
+						output.print(",");
+						output.print(valueOf(record, iter.next()));
+					}
+				}
+				output.println();
+				count++;
+			}
+			LOGGER_.info("{} records converted", count);
+
+		} catch (final FileNotFoundException e) {
+			LOGGER_.error("File not found!", e);
+			System.exit(2);
+		} catch (final IOException e) {
+			LOGGER_.error("Cannot read the records!", e);
+			System.exit(2);
+		} catch (final ArgumentParserException e) {
+			parser.handleError(e);
+			System.exit(2);
+		} finally {
+			Utils.closeQuietly(reader);
+			Utils.closeQuietly(output);
+		}
+
+	}
+
+	private static String valueOf(final Map<String, String> record,
+			final String name) {
+		final String value = record.get(name);
+		return value == null ? "null" : value;
+	}
+
+	private static void writeLine(final PrintWriter output,
+			final Iterator<String> values) {
+		if (values.hasNext()) {
+			output.print(values.next());
+			while (values.hasNext()) {
+				output.print(",");
+				output.print(values.next());
+			}
+		}
+		output.println();
+	}
+
+}
@@ -73,7 +73,8 @@ public class CycleComputator {
 		for(List<Integer> scc : sccs) {
 			this.scc = new HashSet<Integer>(scc);
 			this.scc.retainAll(conclusionSet);
-			if(this.scc.size() > 1) {
+			// a single conclusion can be a cycle using itself as a premise
+			if(!this.scc.isEmpty()) {
 				for(Integer concl : this.scc) {
 					clear();
 					addObject(concl);
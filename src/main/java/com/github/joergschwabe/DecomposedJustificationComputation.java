@@ -0,0 +1,576 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Inferences;
+import org.liveontologies.puli.Proof;
+import org.liveontologies.puli.pinpointing.AbstractMinimalSubsetEnumerator;
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.liveontologies.puli.pinpointing.MinimalSubsetEnumerator;
+import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
+import org.liveontologies.puli.pinpointing.PriorityComparator;
+import org.liveontologies.puli.statistics.NestedStats;
+import org.liveontologies.puli.statistics.ResetStats;
+import org.liveontologies.puli.statistics.Stat;
+
+import com.github.joergschwabe.PhaseProfiler.Phase;
+import com.google.common.base.Preconditions;
+
+/**
+ * Provided justification computation applied to the independent parts of the
+ * proof of the query. If the query is derived by only one inference, its
+ * premises are grouped so that no axiom used in the proof of a premise of one
+ * group is used in the proof of a premise of another group or in the
+ * justification of this inference. The justifications of the query are then
+ * the unions of the justifications of the groups (and of the inference), one
+ * for each group. The justifications of every group are computed separately
+ * and their unions are enumerated lazily, in the order of the priority, if the
+ * priority of a union does not decrease when one of its parts is replaced by a
+ * part with a greater priority, e.g., for the cardinality.
+ * <p>
+ * The justifications of a group with several premises are the justifications
+ * of the {@link Conjunction} of these premises, which is derived from them by
+ * an additional inference. If some axiom of the justification of the inference
+ * of the query is used in the proof of some premises, these premises form one
+ * group whose additional inference has this justification.
+ * <p>
+ * The provided computation is named by the system property
+ * {@value #MAIN_FACTORY_PROPERTY}, like the computations used in the
+ * experiments, or is {@link BottomUpJustificationComputation} if it is not
+ * set.
+ *
+ * @param <C>
+ *            the type of conclusion and premises used by the inferences
+ * @param <I>
+ *            the type of inferences used in proofs
+ * @param <A>
+ *            the type of axioms used by the inferences
+ */
+public class DecomposedJustificationComputation<C, I extends Inference<? extends C>, A>
+		extends MinimalSubsetsFromProofs<C, I, A> {
+
+	/**
+	 * the system property with the name of the class providing the factory
+	 * of the computation applied to the groups of premises
+	 */
+	public static final String MAIN_FACTORY_PROPERTY = "pinpointing.decomposedMainFactory";
+
+	private final MinimalSubsetEnumerator.Factory<Object, A> enumeratorFactory_;
+
+	// Statistics
+
+	private int countDecomposedQueries_ = 0, countGroups_ = 0;
+
+	DecomposedJustificationComputation(
+			final MinimalSubsetsFromProofs.Factory<Object, Inference<?>, A> mainFactory,
+			final Proof<? extends I> proof,
+			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			final InterruptMonitor monitor) {
+		super(proof, justifier, monitor);
+		this.enumeratorFactory_ = mainFactory.create(
+				new ConjunctionProof<I>(proof),
+				new ConjunctionJustifier<I, A>(justifier), monitor);
+	}
+
+	@Override
+	public MinimalSubsetEnumerator<A> newEnumerator(final C query) {
+		return new JustificationEnumerator(query);
+	}
+
+	/**
+	 * @return the number of queries whose justifications were computed as
+	 *         unions of justifications of several groups
+	 */
+	@Stat
+	public int nDecomposedQueries() {
+		return countDecomposedQueries_;
+	}
+
+	/**
+	 * @return the number of groups of the decomposed queries
+	 */
+	@Stat
+	public int nGroups() {
+		return countGroups_;
+	}
+
+	@ResetStats
+	public void resetStats() {
+		countDecomposedQueries_ = 0;
+		countGroups_ = 0;
+	}
+
+	@NestedStats
+	public MinimalSubsetEnumerator.Factory<Object, A> getDelegate() {
+		return enumeratorFactory_;
+	}
+
+	/**
+	 * @return the factory using the computation named by the system property
+	 *         {@value #MAIN_FACTORY_PROPERTY} or
+	 *         {@link BottomUpJustificationComputation} if it is not set
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory() {
+		final String className = System.getProperty(MAIN_FACTORY_PROPERTY);
+		if (className == null) {
+			return getFactory(BottomUpJustificationComputation
+					.<Object, Inference<?>, A> getFactory());
+		}
+		// else
+		return getFactory(Utils
+				.<MinimalSubsetsFromProofs.Factory<Object, Inference<?>, A>> getFactory(
+						className));
+	}
+
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
+			final MinimalSubsetsFromProofs.Factory<Object, Inference<?>, A> mainFactory) {
+		return new Factory<C, I, A>(mainFactory);
+	}
+
+	private class JustificationEnumerator
+			extends AbstractMinimalSubsetEnumerator<A> {
+
+		private final C query_;
+
+		JustificationEnumerator(final C query) {
+			this.query_ = query;
+		}
+
+		@Override
+		public void enumerate(final Listener<A> listener,
+				final PriorityComparator<? super Set<A>, ?> priorityComparator) {
+			Preconditions.checkNotNull(listener);
+			if (priorityComparator == null) {
+				enumerate(listener);
+				return;
+			}
+			// else
+			final List<Object> groups = getGroups();
+			if (groups == null) {
+				enumeratorFactory_.newEnumerator(query_).enumerate(listener,
+						priorityComparator);
+				return;
+			}
+			// else
+			countDecomposedQueries_++;
+			countGroups_ += groups.size();
+			final List<List<Set<A>>> parts = new ArrayList<List<Set<A>>>(
+					groups.size());
+			for (final Object group : groups) {
+				final List<Set<A>> justs = new ArrayList<Set<A>>();
+				enumeratorFactory_.newEnumerator(group).enumerate(
+						new MinimalSubsetEnumerator.Listener<A>() {
+							@Override
+							public void newMinimalSubset(final Set<A> set) {
+								justs.add(set);
+							}
+						}, priorityComparator);
+				if (isInterrupted()) {
+					return;
+				}
+				// else
+				parts.add(justs);
+			}
+			PhaseProfiler.start(Phase.LISTENER);
+			final Iterator<Set<A>> product = newProduct(parts,
+					priorityComparator);
+			while (product.hasNext() && !isInterrupted()) {
+				listener.newMinimalSubset(product.next());
+			}
+			PhaseProfiler.stop(Phase.LISTENER);
+		}
+
+		/**
+		 * @return the premises and {@link Conjunction}s whose justifications
+		 *         should be combined to obtain the justifications of the
+		 *         query, or {@code null} if the query cannot be decomposed
+		 *         into at least two of them
+		 */
+		private List<Object> getGroups() {
+			final Collection<? extends I> infs = getInferences(query_);
+			if (infs.size() != 1) {
+				return null;
+			}
+			// else
+			PhaseProfiler.start(Phase.UNFOLDING);
+			final I inf = infs.iterator().next();
+			final List<C> premises = new ArrayList<C>(
+					new LinkedHashSet<C>(inf.getPremises()));
+			final Set<? extends A> justification = getJustification(inf);
+			// the owner of the justification is the last index
+			final UnionFind groups = new UnionFind(premises.size() + 1);
+			// the premise indexes of the proofs using conclusions and axioms;
+			// the query is not used in minimal proofs of the premises
+			final Map<C, Integer> conclusionOwners = new HashMap<C, Integer>();
+			final Map<A, Integer> axiomOwners = new HashMap<A, Integer>();
+			conclusionOwners.put(query_, -1);
+			for (final A axiom : justification) {
+				axiomOwners.put(axiom, premises.size());
+			}
+			final Deque<C> toDo = new ArrayDeque<C>();
+			for (int i = 0; i < premises.size(); i++) {
+				if (visit(premises.get(i), i, conclusionOwners, groups)) {
+					toDo.push(premises.get(i));
+				}
+				while (!toDo.isEmpty()) {
+					for (final I premiseInf : getInferences(toDo.pop())) {
+						for (final A axiom : getJustification(premiseInf)) {
+							visit(axiom, i, axiomOwners, groups);
+						}
+						for (final C premise : premiseInf.getPremises()) {
+							if (visit(premise, i, conclusionOwners, groups)) {
+								toDo.push(premise);
+							}
+						}
+					}
+				}
+			}
+			final Map<Integer, List<C>> groupPremises = new HashMap<Integer, List<C>>();
+			for (int i = 0; i < premises.size(); i++) {
+				final int group = groups.find(i);
+				List<C> members = groupPremises.get(group);
+				if (members == null) {
+					members = new ArrayList<C>();
+					groupPremises.put(group, members);
+				}
+				members.add(premises.get(i));
+			}
+			final int justificationGroup = groups.find(premises.size());
+			final List<Object> result = new ArrayList<Object>();
+			for (final Map.Entry<Integer, List<C>> e : groupPremises
+					.entrySet()) {
+				if (e.getKey() == justificationGroup) {
+					result.add(new Conjunction<A>(e.getValue(), justification));
+				} else if (e.getValue().size() == 1) {
+					result.add(e.getValue().get(0));
+				} else {
+					result.add(new Conjunction<A>(e.getValue(),
+							Collections.<A> emptySet()));
+				}
+			}
+			if (!justification.isEmpty()
+					&& !groupPremises.containsKey(justificationGroup)) {
+				result.add(new Conjunction<A>(Collections.<C> emptyList(),
+						justification));
+			}
+			PhaseProfiler.stop(Phase.UNFOLDING);
+			return result.size() < 2 ? null : result;
+		}
+
+		/**
+		 * Records that the object (a conclusion or an axiom) is used in the
+		 * proof of the premise with the given index
+		 * 
+		 * @return {@code true} if the object was not used before
+		 */
+		private <O> boolean visit(final O object, final int index,
+				final Map<O, Integer> owners, final UnionFind groups) {
+			final Integer owner = owners.get(object);
+			if (owner == null) {
+				owners.put(object, index);
+				return true;
+			}
+			// else
+			if (owner >= 0) {
+				groups.union(owner, index);
+			}
+			return false;
+		}
+
+	}
+
+	/**
+	 * @return an iterator over the unions of the sets, one from each part,
+	 *         in the order of their priority
+	 */
+	static <A, P> Iterator<Set<A>> newProduct(final List<List<Set<A>>> parts,
+			final PriorityComparator<? super Set<A>, P> priorityComparator) {
+		return new Product<A, P>(parts, priorityComparator);
+	}
+
+	/**
+	 * Enumerates the unions of the sets, one from each part, starting from
+	 * the union of the first sets; the successors of a union are obtained by
+	 * taking the next set of one part, not before the part changed last
+	 */
+	private static class Product<A, P> implements Iterator<Set<A>> {
+
+		private final List<List<Set<A>>> parts_;
+
+		private final PriorityComparator<? super Set<A>, P> priorityComparator_;
+
+		private final PriorityQueue<Tuple<A, P>> queue_;
+
+		Product(final List<List<Set<A>>> parts,
+				final PriorityComparator<? super Set<A>, P> priorityComparator) {
+			this.parts_ = parts;
+			this.priorityComparator_ = priorityComparator;
+			this.queue_ = new PriorityQueue<Tuple<A, P>>(11,
+					new Comparator<Tuple<A, P>>() {
+						@Override
+						public int compare(final Tuple<A, P> first,
+								final Tuple<A, P> second) {
+							return priorityComparator.compare(first.priority_,
+									second.priority_);
+						}
+					});
+			for (final List<Set<A>> part : parts) {
+				if (part.isEmpty()) {
+					return;
+				}
+			}
+			// else
+			offer(new int[parts.size()], 0);
+		}
+
+		private void offer(final int[] indices, final int changed) {
+			final Set<A> union = new HashSet<A>();
+			for (int i = 0; i < indices.length; i++) {
+				union.addAll(parts_.get(i).get(indices[i]));
+			}
+			queue_.add(new Tuple<A, P>(indices, changed, union,
+					priorityComparator_.getPriority(union)));
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !queue_.isEmpty();
+		}
+
+		@Override
+		public Set<A> next() {
+			final Tuple<A, P> next = queue_.poll();
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			// else
+			for (int i = next.changed_; i < next.indices_.length; i++) {
+				if (next.indices_[i] + 1 < parts_.get(i).size()) {
+					final int[] indices = Arrays.copyOf(next.indices_,
+							next.indices_.length);
+					indices[i]++;
+					offer(indices, i);
+				}
+			}
+			return next.union_;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+	private static class Tuple<A, P> {
+
+		/**
+		 * the indexes of the sets in the parts
+		 */
+		final int[] indices_;
+
+		/**
+		 * the part whose index was increased last
+		 */
+		final int changed_;
+
+		final Set<A> union_;
+
+		final P priority_;
+
+		Tuple(final int[] indices, final int changed, final Set<A> union,
+				final P priority) {
+			this.indices_ = indices;
+			this.changed_ = changed;
+			this.union_ = union;
+			this.priority_ = priority;
+		}
+
+	}
+
+	private static class UnionFind {
+
+		private final int[] parents_;
+
+		UnionFind(final int size) {
+			this.parents_ = new int[size];
+			for (int i = 0; i < size; i++) {
+				parents_[i] = i;
+			}
+		}
+
+		int find(int i) {
+			while (parents_[i] != i) {
+				parents_[i] = parents_[parents_[i]];
+				i = parents_[i];
+			}
+			return i;
+		}
+
+		void union(final int first, final int second) {
+			parents_[find(first)] = find(second);
+		}
+
+	}
+
+	/**
+	 * A conclusion derived from the given premises using the given
+	 * justification
+	 *
+	 * @param <A>
+	 *            the type of axioms
+	 */
+	static class Conjunction<A> {
+
+		private final List<?> premises_;
+
+		private final Set<? extends A> justification_;
+
+		Conjunction(final List<?> premises,
+				final Set<? extends A> justification) {
+			this.premises_ = premises;
+			this.justification_ = justification;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof Conjunction<?>)) {
+				return false;
+			}
+			// else
+			final Conjunction<?> other = (Conjunction<?>) o;
+			return premises_.equals(other.premises_)
+					&& justification_.equals(other.justification_);
+		}
+
+		@Override
+		public int hashCode() {
+			return Conjunction.class.hashCode() + 31 * premises_.hashCode()
+					+ justification_.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return "AND" + premises_ + justification_;
+		}
+
+	}
+
+	/**
+	 * The original proof extended with the inferences deriving
+	 * {@link Conjunction}s
+	 * 
+	 * @param <I>
+	 *            the type of the original inferences
+	 */
+	private static class ConjunctionProof<I extends Inference<?>>
+			implements Proof<Inference<?>> {
+
+		private static final String INFERENCE_NAME_ = "Conjunction Introduction";
+
+		private final Proof<? extends I> original_;
+
+		ConjunctionProof(final Proof<? extends I> original) {
+			this.original_ = original;
+		}
+
+		@Override
+		public Collection<? extends Inference<?>> getInferences(
+				final Object conclusion) {
+			if (conclusion instanceof Conjunction<?>) {
+				return Collections.singleton(Inferences.create(INFERENCE_NAME_,
+						conclusion, ((Conjunction<?>) conclusion).premises_));
+			}
+			// else
+			return original_.getInferences(conclusion);
+		}
+
+	}
+
+	private static class ConjunctionJustifier<I extends Inference<?>, A>
+			implements InferenceJustifier<Inference<?>, Set<? extends A>> {
+
+		private final InferenceJustifier<? super I, ? extends Set<? extends A>> original_;
+
+		ConjunctionJustifier(
+				final InferenceJustifier<? super I, ? extends Set<? extends A>> original) {
+			this.original_ = original;
+		}
+
+		@Override
+		public Set<? extends A> getJustification(
+				final Inference<?> inference) {
+			final Object conclusion = inference.getConclusion();
+			if (conclusion instanceof Conjunction<?>) {
+				@SuppressWarnings("unchecked")
+				final Conjunction<A> conjunction = (Conjunction<A>) conclusion;
+				return conjunction.justification_;
+			}
+			// else
+			@SuppressWarnings("unchecked")
+			final I original = (I) inference;
+			return original_.getJustification(original);
+		}
+
+	}
+
+	private static class Factory<C, I extends Inference<? extends C>, A>
+			implements MinimalSubsetsFromProofs.Factory<C, I, A> {
+
+		private final MinimalSubsetsFromProofs.Factory<Object, Inference<?>, A> mainFactory_;
+
+		Factory(final MinimalSubsetsFromProofs.Factory<Object, Inference<?>, A> mainFactory) {
+			this.mainFactory_ = mainFactory;
+		}
+
+		@Override
+		public MinimalSubsetEnumerator.Factory<C, A> create(
+				final Proof<? extends I> proof,
+				final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+				final InterruptMonitor monitor) {
+			return new DecomposedJustificationComputation<C, I, A>(mainFactory_,
+					proof, justifier, monitor);
+		}
+
+	}
+
+}
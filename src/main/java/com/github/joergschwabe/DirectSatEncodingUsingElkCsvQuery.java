@@ -121,6 +121,7 @@ public class DirectSatEncodingUsingElkCsvQuery {
 	public static final String OPT_OUTDIR = "outdir";
 	public static final String OPT_MINIMAL = "minimal";
 	public static final String OPT_PROGRESS = "progress";
+	public static final String OPT_SHARD = "shard";
 
 	public static class Options {
 		@Arg(dest = OPT_ONTOLOGY)
@@ -133,6 +134,8 @@ public class DirectSatEncodingUsingElkCsvQuery {
 		public boolean minimal;
 		@Arg(dest = OPT_PROGRESS)
 		public boolean progress;
+		@Arg(dest = OPT_SHARD)
+		public Shard shard;
 	}
 
 	public static void main(final String[] args) {
@@ -154,6 +157,9 @@ public class DirectSatEncodingUsingElkCsvQuery {
 				.help("generate only necessary files");
 		parser.addArgument("--" + OPT_PROGRESS).action(Arguments.storeTrue())
 				.help("print progress to stdout");
+		parser.addArgument("--" + OPT_SHARD).type(Shard.ARGUMENT_TYPE)
+				.metavar("i/n")
+				.help("encode only the queries of shard i of n (0 <= i < n)");
 
 		final OWLOntologyManager manager = OWLManager
 				.createOWLOntologyManager();
@@ -164,6 +170,7 @@ public class DirectSatEncodingUsingElkCsvQuery {
 
 			final Options opt = new Options();
 			parser.parseArgs(args, opt);
+			final Shard shard = opt.shard == null ? Shard.ALL : opt.shard;
 
 			if (!Utils.cleanDir(opt.outDir)) {
 				LOG_.error("Could not prepare the output directory!");
@@ -193,7 +200,9 @@ public class DirectSatEncodingUsingElkCsvQuery {
 			int queryCount = 0;
 			String line;
 			while ((line = queryReader.readLine()) != null) {
-				queryCount++;
+				if (shard.contains(line)) {
+					queryCount++;
+				}
 			}
 			queryReader.close();
 
@@ -210,6 +219,10 @@ public class DirectSatEncodingUsingElkCsvQuery {
 			int queryIndex = 0;
 			while ((line = queryReader.readLine()) != null) {
 
+				if (!shard.contains(line)) {
+					continue;
+				}
+
 				LOG_.debug("Encoding {} of {}: {}", queryIndex, queryCount,
 						line);
 
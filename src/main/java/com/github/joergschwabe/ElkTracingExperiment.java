@@ -32,6 +32,7 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -81,6 +82,9 @@ public class ElkTracingExperiment {
 		final long warmUpTimeoutMillis = Long.valueOf(args[2]);
 		final String ontologyFileName = args[3];
 		final String queryFileName = args[4];
+		// optional threshold of the coefficient of variation of the warm up
+		final Double warmUpCv = args.length > 5 ? Double.valueOf(args[5])
+				: null;
 
 		final OWLOntologyManager manager = OWLManager
 				.createOWLOntologyManager();
@@ -94,20 +98,25 @@ public class ElkTracingExperiment {
 					new File(ontologyFileName), manager);
 
 			LOG.info("Warm up ...");
-			long warmUpEndTimeMillis = System.currentTimeMillis()
-					+ warmUpTimeoutMillis;
+			// without the threshold, warm up until the timeout
+			final WarmUp warmUp = new WarmUp(readQueries(queryFileName),
+					warmUpCv == null ? 0.0 : warmUpCv, WarmUp.DEFAULT_WINDOW,
+					warmUpTimeoutMillis);
 			int iteration = 0;
-			while (warmUpEndTimeMillis < System.currentTimeMillis()) {
+			while (warmUpTimeoutMillis > 0 && !warmUp.isDone()) {
 				run(elkProofProvider, queryFileName, iteration,
 						new RecordProducer() {
 							@Override
 							public void produce(final Record record) {
-								// Empty.
+								warmUp.queryFinished(record.query, record.time);
 							}
 						});
 				iteration++;
 			}
-			LOG.info("... and now the real stuff B-)");
+			final Map<String, Object> warmUpValues = new LinkedHashMap<>();
+			warmUp.putInto(warmUpValues);
+			LOG.info("... and now the real stuff B-) warm up: {}",
+					warmUpValues);
 
 			final Set<String> queries = new LinkedHashSet<>();
 			final ArrayListMultimap<String, Record> recordsPerQuery = ArrayListMultimap
@@ -131,6 +140,10 @@ public class ElkTracingExperiment {
 					+ "nConclusionsInAllProofs," + "nInferencesInAllProofs,"
 					+ "time");
 			// @formatter:on
+			for (final String name : warmUpValues.keySet()) {
+				stats.print(",");
+				stats.print(name);
+			}
 			List<String> statNames = null;
 			for (final String query : queries) {
 				Integer nAxiomsInAllProofs = null;
@@ -199,6 +212,12 @@ public class ElkTracingExperiment {
 				stats.print(",");
 				Collections.sort(times);
 				stats.print(median(times));
+				for (final Object value : warmUpValues.values()) {
+					stats.print(",");
+					stats.print(value instanceof Boolean
+							? ((Boolean) value ? "TRUE" : "FALSE")
+							: value);
+				}
 				for (final String name : statNames) {
 					stats.print(",");
 					final List<Double> values = new ArrayList<>();
@@ -229,6 +248,22 @@ public class ElkTracingExperiment {
 
 	}
 
+	private static List<String> readQueries(final String queryFileName)
+			throws IOException {
+		final List<String> queries = new ArrayList<>();
+		BufferedReader queryReader = null;
+		try {
+			queryReader = new BufferedReader(new FileReader(queryFileName));
+			String line;
+			while ((line = queryReader.readLine()) != null) {
+				queries.add(line);
+			}
+		} finally {
+			Utils.closeQuietly(queryReader);
+		}
+		return queries;
+	}
+
 	private static void run(final ElkProofProvider elkProofProvider,
 			final String queryFileName, final int iteration,
 			final RecordProducer producer)
@@ -0,0 +1,247 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.liveontologies.puli.statistics.Stats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.joergschwabe.experiments.ExperimentException;
+import com.github.joergschwabe.experiments.JustificationExperiment;
+
+/**
+ * The child JVM of {@link ForkedWorker}. Initializes the experiment and then
+ * runs the queries sent over the standard input, reporting the results over
+ * the standard output, until it is told to exit. Everything else the
+ * experiment prints to the standard output is redirected to the standard
+ * error.
+ * <p>
+ * If the thread of a computation had to be killed, the JVM exits after
+ * reporting the result, because the state of the experiment cannot be
+ * trusted anymore.
+ */
+public class ForkedQueryServer {
+
+	public static void main(final String[] args) {
+		// the standard output is reserved for the protocol
+		final DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(
+						new FileOutputStream(FileDescriptor.out)));
+		System.setOut(System.err);
+		final DataInputStream input = new DataInputStream(
+				new BufferedInputStream(
+						new FileInputStream(FileDescriptor.in)));
+		// only after the redirection, so that no log gets into the protocol
+		final Logger logger = LoggerFactory
+				.getLogger(ForkedQueryServer.class);
+
+		int status = 0;
+		JustificationExperiment experiment = null;
+		try {
+			if (args.length < 1) {
+				throw new ExperimentException(
+						"The experiment class is not specified!");
+			}
+			experiment = RunJustificationExperiments.newExperiment(args[0]);
+			experiment.init(Arrays.copyOfRange(args, 1, args.length));
+		} catch (final ExperimentException e) {
+			logger.error("Cannot initialize the experiment!", e);
+			try {
+				output.writeByte(ForkedWorker.EVENT_FAILURE);
+				output.writeUTF(String.valueOf(e.getMessage()));
+				output.flush();
+			} catch (final IOException f) {
+				logger.error("Cannot report the failure!", f);
+			}
+			System.exit(1);
+		}
+
+		// measures also the threads created by the computation
+		final ResourceMeter meter = ResourceMeter.forThreadsStartedLater();
+		final QueryWorker worker = new QueryWorker("forked-query",
+				RunJustificationExperiments.KILL_DELAY_MILLIS);
+		MemoryBudget memoryBudget = null;
+		try {
+			output.writeByte(ForkedWorker.EVENT_READY);
+			output.flush();
+			for (;;) {
+				final byte command;
+				try {
+					command = input.readByte();
+				} catch (final EOFException e) {
+					// the parent is gone
+					break;
+				}
+				if (command == ForkedWorker.COMMAND_EXIT) {
+					break;
+				}
+				if (command != ForkedWorker.COMMAND_RUN) {
+					throw new IOException("Unknown command: " + command);
+				}
+				final String query = input.readUTF();
+				final long timeOutMillis = input.readLong();
+				final long memoryBudgetBytes = input.readLong();
+				final boolean onlyOneJustification = input.readBoolean();
+				final boolean runGc = input.readBoolean();
+
+				if (memoryBudget != null
+						&& memoryBudget.getBudgetBytes() != memoryBudgetBytes) {
+					memoryBudget.dispose();
+					memoryBudget = null;
+				}
+				if (memoryBudget == null && memoryBudgetBytes > 0) {
+					memoryBudget = new MemoryBudget(memoryBudgetBytes);
+				}
+
+				final boolean healthy;
+				try {
+					healthy = runQuery(experiment, worker, meter, query,
+							timeOutMillis, memoryBudget, onlyOneJustification,
+							runGc, output);
+				} catch (final ExperimentException e) {
+					logger.error("Query failed: " + query, e);
+					synchronized (output) {
+						output.writeByte(ForkedWorker.EVENT_FAILURE);
+						output.writeUTF(String.valueOf(e.getMessage()));
+						output.flush();
+					}
+					continue;
+				}
+				if (!healthy) {
+					logger.info("exiting after a computation was killed");
+					break;
+				}
+			}
+		} catch (final IOException e) {
+			logger.error("Communication with the parent JVM failed!", e);
+			status = 1;
+		} finally {
+			worker.close();
+			experiment.dispose();
+		}
+		System.exit(status);
+	}
+
+	/**
+	 * @return whether the experiment can be used for further queries
+	 */
+	private static boolean runQuery(final JustificationExperiment experiment,
+			final QueryWorker worker, final ResourceMeter meter,
+			final String query,
+			final long timeOutMillis, final MemoryBudget memoryBudget,
+			final boolean onlyOneJustification, final boolean runGc,
+			final DataOutputStream output)
+			throws ExperimentException, IOException {
+
+		experiment.before(query);
+
+		if (runGc) {
+			System.gc();
+		}
+
+		final long localStartTimeMillis = System.currentTimeMillis();
+		final long stopTimeMillis = timeOutMillis > 0
+				? localStartTimeMillis + timeOutMillis
+				: Long.MAX_VALUE;
+		final MemoryBudget.Query memory = memoryBudget == null ? null
+				: memoryBudget.queryStarted();
+		final RunJustificationExperiments.TimeOutMonitor monitor = new RunJustificationExperiments.TimeOutMonitor(
+				stopTimeMillis, onlyOneJustification, memory);
+		final JustificationExperiment.Listener reporter = new JustificationExperiment.Listener() {
+			@Override
+			public void newJustification() {
+				// so that the parent knows the count even if it kills us
+				synchronized (output) {
+					try {
+						output.writeByte(ForkedWorker.EVENT_JUSTIFICATION);
+						output.flush();
+					} catch (final IOException e) {
+						throw new RuntimeException(e);
+					}
+				}
+			}
+		};
+		experiment.addJustificationListener(monitor);
+		experiment.addJustificationListener(reporter);
+
+		final RunJustificationExperiments.QueryRunner runner = new RunJustificationExperiments.QueryRunner(
+				experiment, monitor, meter);
+		final long startTimeNanos = System.nanoTime();
+		final boolean finished = worker.run(runner,
+				timeOutMillis > 0
+						? timeOutMillis
+								+ RunJustificationExperiments.TIMEOUT_DELAY_MILLIS
+						: 0,
+				monitor);
+		final long runTimeNanos = System.nanoTime() - startTimeNanos;
+		if (memory != null) {
+			memoryBudget.queryFinished(memory);
+		}
+		experiment.removeJustificationListener(monitor);
+		experiment.removeJustificationListener(reporter);
+
+		final Map<String, Object> record = new LinkedHashMap<>();
+		final Runtime runtime = Runtime.getRuntime();
+		final long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+		final boolean didTimeOut = localStartTimeMillis + (runTimeNanos
+				/ RunJustificationExperiments.NANOS_IN_MILLIS) > stopTimeMillis;
+		record.put("didTimeOut", didTimeOut);
+		record.put(MemoryBudget.EXCEEDED_NAME,
+				runner.isOutOfMemory() || monitor.isOutOfBudget());
+		record.put("time",
+				runTimeNanos / RunJustificationExperiments.NANOS_IN_MILLIS);
+		meter.putInto(record);
+		record.put("nJust", monitor.getJustificationCount());
+		record.put("usedMemory", usedMemory);
+
+		if (finished) {
+			experiment.after();
+		}
+
+		record.putAll(
+				Stats.copyIntoMap(experiment, new TreeMap<String, Object>()));
+
+		synchronized (output) {
+			output.writeByte(ForkedWorker.EVENT_RESULT);
+			ForkedWorker.writeRecord(output, record);
+			output.writeBoolean(finished);
+			output.flush();
+		}
+		return finished;
+	}
+
+}
@@ -0,0 +1,477 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.joergschwabe.experiments.ExperimentException;
+import com.github.joergschwabe.experiments.JustificationExperiment;
+
+/**
+ * Runs queries of an experiment in a child JVM executing
+ * {@link ForkedQueryServer}, so that the experiment cannot leak state into
+ * the computations of other experiments and a computation that ignores its
+ * timeout can be killed together with its JVM. The child JVM is started when
+ * the first query is run and then reused, so that the experiment is
+ * initialized only once for many queries. The child JVM is replaced by a new
+ * one after a given number of queries, when the heap used after a query
+ * exceeds a given threshold, and when it had to be killed.
+ * <p>
+ * The parent and the child communicate over the standard input and output of
+ * the child: the parent sends a command and the child answers with
+ * {@link #EVENT_JUSTIFICATION} for every justification found during the
+ * computation followed by {@link #EVENT_RESULT} with the record of the query
+ * or {@link #EVENT_FAILURE} with a message. A child that had to kill the
+ * thread of a computation exits after reporting its result. The standard error of the child is
+ * inherited, so its log appears in the log of the parent.
+ */
+public class ForkedWorker implements Closeable {
+
+	private static final Logger LOGGER_ = LoggerFactory
+			.getLogger(ForkedWorker.class);
+
+	public static final String KILLED_NAME = "forkKilled";
+
+	static final byte COMMAND_RUN = 1;
+	static final byte COMMAND_EXIT = 2;
+
+	static final byte EVENT_READY = 1;
+	static final byte EVENT_JUSTIFICATION = 2;
+	static final byte EVENT_RESULT = 3;
+	static final byte EVENT_FAILURE = 4;
+
+	private static final byte TYPE_NULL = 0;
+	private static final byte TYPE_LONG = 1;
+	private static final byte TYPE_DOUBLE = 2;
+	private static final byte TYPE_BOOLEAN = 3;
+	private static final byte TYPE_STRING = 4;
+
+	/**
+	 * how long to wait for a cancelled computation in the child JVM before
+	 * killing the JVM, in addition to the time the child JVM waits before
+	 * killing the thread of the computation
+	 */
+	public static final long KILL_DELAY_MILLIS = 10000l;
+
+	private final String name_;
+	private final List<String> command_;
+	private final int maxQueries_;
+	private final long maxUsedMemory_;
+
+	private final ExecutorService reader_;
+
+	private Process process_ = null;
+	private DataOutputStream toChild_ = null;
+	private DataInputStream fromChild_ = null;
+	private int queryCount_ = 0;
+
+	private int startCount_ = 0;
+	private int killCount_ = 0;
+
+	/**
+	 * @param name
+	 *            the name of the worker
+	 * @param jvmArgs
+	 *            the arguments of the child JVM, e.g., {@code -Xmx4g}
+	 * @param experimentClassName
+	 * @param experimentArgs
+	 * @param maxQueries
+	 *            after how many queries the child JVM should be replaced, if
+	 *            not positive, it is not replaced because of the number of
+	 *            queries
+	 * @param maxUsedMemory
+	 *            the child JVM is replaced when more bytes of its heap are
+	 *            used after a query, if not positive, it is not replaced
+	 *            because of the used memory
+	 */
+	public ForkedWorker(final String name, final List<String> jvmArgs,
+			final String experimentClassName, final String[] experimentArgs,
+			final int maxQueries, final long maxUsedMemory) {
+		this.name_ = name;
+		this.maxQueries_ = maxQueries;
+		this.maxUsedMemory_ = maxUsedMemory;
+
+		final List<String> command = new ArrayList<>();
+		command.add(new File(new File(System.getProperty("java.home"), "bin"),
+				"java").getPath());
+		command.addAll(jvmArgs);
+		command.add("-cp");
+		command.add(getClassPath());
+		command.add(ForkedQueryServer.class.getName());
+		command.add(experimentClassName);
+		command.addAll(Arrays.asList(experimentArgs));
+		this.command_ = command;
+
+		this.reader_ = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, name + "-reader");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * @return the class path of this class, which may be different from the
+	 *         class path of the JVM, e.g., when run by Maven
+	 */
+	private static String getClassPath() {
+		final Set<String> entries = new LinkedHashSet<>();
+		ClassLoader loader = ForkedWorker.class.getClassLoader();
+		while (loader != null) {
+			if (loader instanceof URLClassLoader) {
+				for (final URL url : ((URLClassLoader) loader).getURLs()) {
+					if ("file".equals(url.getProtocol())) {
+						try {
+							entries.add(new File(url.toURI()).getPath());
+						} catch (final Exception e) {
+							entries.add(url.getPath());
+						}
+					}
+				}
+			}
+			loader = loader.getParent();
+		}
+		for (final String entry : System.getProperty("java.class.path")
+				.split(File.pathSeparator)) {
+			entries.add(entry);
+		}
+		final StringBuilder classPath = new StringBuilder();
+		for (final String entry : entries) {
+			if (classPath.length() > 0) {
+				classPath.append(File.pathSeparator);
+			}
+			classPath.append(entry);
+		}
+		return classPath.toString();
+	}
+
+	private void start() throws ExperimentException {
+		LOGGER_.info("{}: starting a child JVM", name_);
+		final ProcessBuilder builder = new ProcessBuilder(command_);
+		builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+		try {
+			process_ = builder.start();
+			toChild_ = new DataOutputStream(
+					new BufferedOutputStream(process_.getOutputStream()));
+			fromChild_ = new DataInputStream(
+					new BufferedInputStream(process_.getInputStream()));
+			final byte event = fromChild_.readByte();
+			if (event == EVENT_FAILURE) {
+				throw new ExperimentException(
+						"Child JVM failed: " + fromChild_.readUTF());
+			}
+			if (event != EVENT_READY) {
+				throw new ExperimentException(
+						"Unexpected message from the child JVM: " + event);
+			}
+		} catch (final IOException e) {
+			kill();
+			throw new ExperimentException("Cannot start the child JVM!", e);
+		} catch (final ExperimentException e) {
+			kill();
+			throw e;
+		}
+		startCount_++;
+		queryCount_ = 0;
+	}
+
+	/**
+	 * Runs the query in the child JVM and waits until it finishes. If the
+	 * computation does not finish within the timeout and the kill delay, the
+	 * child JVM is killed.
+	 *
+	 * @param query
+	 * @param timeOutMillis
+	 *            the timeout of the computation, if not positive, wait until
+	 *            it finishes
+	 * @param memoryBudgetBytes
+	 *            how much heap the computation may retain, see
+	 *            {@link MemoryBudget}, if not positive, the memory is not
+	 *            limited
+	 * @param onlyOneJustification
+	 * @param runGc
+	 * @param listener
+	 *            notified about the justifications as the child finds them
+	 * @return the record of the query as produced by the child JVM, or, if it
+	 *         was killed, the time, the number of justifications found until
+	 *         then and {@value #KILLED_NAME}
+	 * @throws ExperimentException
+	 *             if the experiment failed
+	 */
+	public Map<String, Object> run(final String query,
+			final long timeOutMillis, final long memoryBudgetBytes,
+			final boolean onlyOneJustification,
+			final boolean runGc,
+			final JustificationExperiment.Listener listener)
+			throws ExperimentException {
+		if (process_ == null) {
+			start();
+		}
+		// else
+		final long startTimeNanos = System.nanoTime();
+		final int[] nJust = { 0 };
+		final boolean[] healthy = { true };
+		final Future<Map<String, Object>> result;
+		try {
+			toChild_.writeByte(COMMAND_RUN);
+			toChild_.writeUTF(query);
+			toChild_.writeLong(timeOutMillis);
+			toChild_.writeLong(memoryBudgetBytes);
+			toChild_.writeBoolean(onlyOneJustification);
+			toChild_.writeBoolean(runGc);
+			toChild_.flush();
+			result = reader_.submit(new Callable<Map<String, Object>>() {
+				@Override
+				public Map<String, Object> call() throws Exception {
+					for (;;) {
+						final byte event = fromChild_.readByte();
+						switch (event) {
+						case EVENT_JUSTIFICATION:
+							synchronized (nJust) {
+								nJust[0]++;
+							}
+							listener.newJustification();
+							break;
+						case EVENT_RESULT:
+							final Map<String, Object> record = readRecord(
+									fromChild_);
+							healthy[0] = fromChild_.readBoolean();
+							return record;
+						case EVENT_FAILURE:
+							throw new ExperimentException(
+									fromChild_.readUTF());
+						default:
+							throw new IOException(
+									"Unexpected message from the child JVM: "
+											+ event);
+						}
+					}
+				}
+			});
+		} catch (final IOException e) {
+			kill();
+			throw new ExperimentException("Child JVM not responding!", e);
+		}
+
+		Map<String, Object> record;
+		try {
+			if (timeOutMillis > 0) {
+				record = result.get(timeOutMillis
+						+ RunJustificationExperiments.KILL_DELAY_MILLIS
+						+ KILL_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+			} else {
+				record = result.get();
+			}
+			record.put(KILLED_NAME, false);
+		} catch (final TimeoutException e) {
+			LOGGER_.info("{}: killing the child JVM", name_);
+			result.cancel(true);
+			kill();
+			killCount_++;
+			record = new LinkedHashMap<>();
+			record.put("didTimeOut", true);
+			record.put("time", (System.nanoTime() - startTimeNanos)
+					/ RunJustificationExperiments.NANOS_IN_MILLIS);
+			synchronized (nJust) {
+				record.put("nJust", nJust[0]);
+			}
+			record.put(KILLED_NAME, true);
+			return record;
+		} catch (final InterruptedException e) {
+			kill();
+			throw new ExperimentException(
+					"Waiting for the child JVM interrupted!", e);
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof ExperimentException) {
+				throw (ExperimentException) e.getCause();
+			}
+			// else
+			kill();
+			throw new ExperimentException("Child JVM failed!", e.getCause());
+		}
+
+		queryCount_++;
+		if (!healthy[0]) {
+			// the child exits by itself
+			LOGGER_.info("{}: the child JVM killed a computation", name_);
+			kill();
+			return record;
+		}
+		// else
+		final Object usedMemory = record.get("usedMemory");
+		if ((maxQueries_ > 0 && queryCount_ >= maxQueries_)
+				|| (maxUsedMemory_ > 0 && usedMemory instanceof Number
+						&& ((Number) usedMemory).longValue() > maxUsedMemory_)) {
+			LOGGER_.info("{}: recycling the child JVM after {} queries",
+					name_, queryCount_);
+			exit();
+		}
+		return record;
+	}
+
+	/**
+	 * Asks the child JVM to exit and waits until it does.
+	 */
+	private void exit() {
+		if (process_ == null) {
+			return;
+		}
+		// else
+		try {
+			toChild_.writeByte(COMMAND_EXIT);
+			toChild_.flush();
+			if (!process_.waitFor(KILL_DELAY_MILLIS, TimeUnit.MILLISECONDS)) {
+				LOGGER_.warn("{}: the child JVM did not exit", name_);
+			}
+		} catch (final IOException e) {
+			LOGGER_.warn("{}: cannot stop the child JVM", name_, e);
+		} catch (final InterruptedException e) {
+			LOGGER_.warn("{}: waiting for the child JVM interrupted", name_,
+					e);
+		}
+		kill();
+	}
+
+	private void kill() {
+		if (process_ == null) {
+			return;
+		}
+		// else
+		process_.destroyForcibly();
+		try {
+			process_.waitFor(KILL_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+		} catch (final InterruptedException e) {
+			LOGGER_.warn("{}: waiting for the killed JVM interrupted", name_,
+					e);
+		}
+		Utils.closeQuietly(toChild_);
+		Utils.closeQuietly(fromChild_);
+		process_ = null;
+		toChild_ = null;
+		fromChild_ = null;
+	}
+
+	/**
+	 * @return how many child JVMs were started
+	 */
+	public int getStartCount() {
+		return startCount_;
+	}
+
+	/**
+	 * @return how many child JVMs had to be killed
+	 */
+	public int getKillCount() {
+		return killCount_;
+	}
+
+	@Override
+	public void close() {
+		exit();
+		reader_.shutdownNow();
+	}
+
+	static void writeRecord(final DataOutputStream output,
+			final Map<String, Object> record) throws IOException {
+		output.writeInt(record.size());
+		for (final Map.Entry<String, Object> entry : record.entrySet()) {
+			output.writeUTF(entry.getKey());
+			final Object value = entry.getValue();
+			if (value == null) {
+				output.writeByte(TYPE_NULL);
+			} else if (value instanceof Long || value instanceof Integer
+					|| value instanceof Short || value instanceof Byte) {
+				output.writeByte(TYPE_LONG);
+				output.writeLong(((Number) value).longValue());
+			} else if (value instanceof Number) {
+				output.writeByte(TYPE_DOUBLE);
+				output.writeDouble(((Number) value).doubleValue());
+			} else if (value instanceof Boolean) {
+				output.writeByte(TYPE_BOOLEAN);
+				output.writeBoolean((Boolean) value);
+			} else {
+				output.writeByte(TYPE_STRING);
+				output.writeUTF(value.toString());
+			}
+		}
+	}
+
+	static Map<String, Object> readRecord(final DataInputStream input)
+			throws IOException {
+		final int size = input.readInt();
+		final Map<String, Object> record = new LinkedHashMap<>();
+		for (int i = 0; i < size; i++) {
+			final String name = input.readUTF();
+			final byte type = input.readByte();
+			switch (type) {
+			case TYPE_NULL:
+				record.put(name, null);
+				break;
+			case TYPE_LONG:
+				record.put(name, input.readLong());
+				break;
+			case TYPE_DOUBLE:
+				record.put(name, input.readDouble());
+				break;
+			case TYPE_BOOLEAN:
+				record.put(name, input.readBoolean());
+				break;
+			case TYPE_STRING:
+				record.put(name, input.readUTF());
+				break;
+			default:
+				throw new IOException("Unknown type of a value: " + type);
+			}
+		}
+		return record;
+	}
+
+}
@@ -0,0 +1,241 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.joergschwabe.proofs.SatProofProvider;
+import com.github.joergschwabe.proofs.SyntheticProof;
+import com.github.joergschwabe.proofs.SyntheticProofGenerator;
+
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.annotation.Arg;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+
+/**
+ * Generates synthetic proofs by {@link SyntheticProofGenerator} and writes
+ * them in the layout of {@link DirectSatEncodingUsingElkCsvQuery}, so that
+ * they can be read by {@link SatProofProvider}. The queries are written into
+ * the query file and their sizes and numbers of justifications, if known,
+ * into the record file {@value #INFO_FILE_NAME} in the output directory.
+ * <p>
+ * Several proofs of a family with known number of justifications have the
+ * size parameter {@code depth}, {@code 2*depth}, {@code 3*depth}, ..., so
+ * they form a scaling series. Several random proofs differ in the seed.
+ */
+public class GenerateSyntheticProofs {
+
+	private static final Logger LOGGER_ = LoggerFactory
+			.getLogger(GenerateSyntheticProofs.class);
+
+	public static final String INFO_FILE_NAME = "proofs.csv";
+
+	public static final String OPT_OUTDIR = "outdir";
+	public static final String OPT_QUERIES = "queries";
+	public static final String OPT_FAMILY = "family";
+	public static final String OPT_COUNT = "count";
+	public static final String OPT_SEED = "seed";
+	public static final String OPT_DEPTH = "depth";
+	public static final String OPT_BRANCHING = "branching";
+	public static final String OPT_CONCLUSIONS = "conclusions";
+	public static final String OPT_PREMISES = "premises";
+	public static final String OPT_AXIOMS = "axioms";
+	public static final String OPT_SHARING = "sharing";
+	public static final String OPT_SCC = "scc";
+	public static final String OPT_CYCLES = "cycles";
+
+	public static final String FAMILY_RANDOM = "random";
+	public static final String FAMILY_CHAIN = "chain";
+	public static final String FAMILY_PRODUCT = "product";
+	public static final String FAMILY_PARALLEL = "parallel";
+	public static final String FAMILY_CYCLE = "cycle";
+
+	public static class Options {
+		@Arg(dest = OPT_OUTDIR)
+		public File outDir;
+		@Arg(dest = OPT_QUERIES)
+		public File queriesFile;
+		@Arg(dest = OPT_FAMILY)
+		public String family;
+		@Arg(dest = OPT_COUNT)
+		public int count;
+		@Arg(dest = OPT_SEED)
+		public long seed;
+		@Arg(dest = OPT_DEPTH)
+		public int depth;
+		@Arg(dest = OPT_BRANCHING)
+		public int branching;
+		@Arg(dest = OPT_CONCLUSIONS)
+		public int conclusions;
+		@Arg(dest = OPT_PREMISES)
+		public int maxPremises;
+		@Arg(dest = OPT_AXIOMS)
+		public int maxAxioms;
+		@Arg(dest = OPT_SHARING)
+		public double axiomSharing;
+		@Arg(dest = OPT_SCC)
+		public double meanSccSize;
+		@Arg(dest = OPT_CYCLES)
+		public double cycleDensity;
+	}
+
+	public static void main(final String[] args) {
+
+		final SyntheticProofGenerator.Parameters defaults = new SyntheticProofGenerator.Parameters();
+
+		final ArgumentParser parser = ArgumentParsers
+				.newArgumentParser(
+						GenerateSyntheticProofs.class.getSimpleName())
+				.description(
+						"Generate synthetic proofs and export them into CNF files as produced by EL+SAT.");
+		parser.addArgument(OPT_OUTDIR).type(File.class)
+				.help("output directory");
+		parser.addArgument(OPT_QUERIES).type(File.class)
+				.help("query file to write");
+		parser.addArgument("--" + OPT_FAMILY)
+				.choices(FAMILY_RANDOM, FAMILY_CHAIN, FAMILY_PRODUCT,
+						FAMILY_PARALLEL, FAMILY_CYCLE)
+				.setDefault(FAMILY_RANDOM).help("kind of the proofs");
+		parser.addArgument("--" + OPT_COUNT).type(Integer.class).setDefault(1)
+				.help("number of proofs");
+		parser.addArgument("--" + OPT_SEED).type(Long.class).setDefault(0l)
+				.help("random seed of the first random proof");
+		parser.addArgument("--" + OPT_DEPTH).type(Integer.class).setDefault(4)
+				.help("depth of a chain, number of factors of a product, size of justifications of parallel, length of a cycle");
+		parser.addArgument("--" + OPT_BRANCHING).type(Integer.class)
+				.setDefault(defaults.branching)
+				.help("inferences per conclusion of a chain or random proof, alternatives of a product, number of justifications of parallel");
+		parser.addArgument("--" + OPT_CONCLUSIONS).type(Integer.class)
+				.setDefault(defaults.conclusions)
+				.help("number of conclusions of a random proof");
+		parser.addArgument("--" + OPT_PREMISES).type(Integer.class)
+				.setDefault(defaults.maxPremises)
+				.help("maximal number of premises of an inference of a random proof");
+		parser.addArgument("--" + OPT_AXIOMS).type(Integer.class)
+				.setDefault(defaults.maxAxioms)
+				.help("maximal number of axioms of an inference of a random proof");
+		parser.addArgument("--" + OPT_SHARING).type(Double.class)
+				.setDefault(defaults.axiomSharing)
+				.help("probability that an axiom of a random proof is reused");
+		parser.addArgument("--" + OPT_SCC).type(Double.class)
+				.setDefault(defaults.meanSccSize)
+				.help("mean size of strongly connected components of a random proof");
+		parser.addArgument("--" + OPT_CYCLES).type(Double.class)
+				.setDefault(defaults.cycleDensity)
+				.help("probability that a premise of a random proof is from the component of the conclusion");
+
+		PrintWriter queryWriter = null;
+		PrintWriter infoWriter = null;
+
+		try {
+
+			final Options opt = new Options();
+			parser.parseArgs(args, opt);
+
+			if (!Utils.cleanDir(opt.outDir)) {
+				LOGGER_.error("Could not prepare the output directory!");
+				System.exit(2);
+			}
+
+			final SyntheticProofGenerator.Parameters parameters = new SyntheticProofGenerator.Parameters();
+			parameters.conclusions = opt.conclusions;
+			parameters.branching = opt.branching;
+			parameters.maxPremises = opt.maxPremises;
+			parameters.maxAxioms = opt.maxAxioms;
+			parameters.axiomSharing = opt.axiomSharing;
+			parameters.meanSccSize = opt.meanSccSize;
+			parameters.cycleDensity = opt.cycleDensity;
+
+			queryWriter = new PrintWriter(opt.queriesFile);
+			infoWriter = new PrintWriter(
+					new File(opt.outDir, INFO_FILE_NAME));
+			final Recorder info = new Recorder(infoWriter);
+
+			for (int i = 1; i <= opt.count; i++) {
+
+				final String query;
+				final SyntheticProof proof;
+				if (FAMILY_RANDOM.equals(opt.family)) {
+					final long seed = opt.seed + i - 1;
+					query = FAMILY_RANDOM + "_" + opt.conclusions + "_" + seed;
+					proof = SyntheticProofGenerator.random(parameters,
+							new Random(seed));
+				} else {
+					final int depth = i * opt.depth;
+					query = opt.family + "_" + depth + "_" + opt.branching;
+					if (FAMILY_CHAIN.equals(opt.family)) {
+						proof = SyntheticProofGenerator.chain(depth,
+								opt.branching);
+					} else if (FAMILY_PRODUCT.equals(opt.family)) {
+						proof = SyntheticProofGenerator.product(depth,
+								opt.branching);
+					} else if (FAMILY_PARALLEL.equals(opt.family)) {
+						proof = SyntheticProofGenerator.parallel(opt.branching,
+								depth);
+					} else {
+						proof = SyntheticProofGenerator.cycle(depth);
+					}
+				}
+				LOGGER_.info("{}: {} inferences", query,
+						proof.getInferenceCount());
+
+				proof.writeDirectSatEncoding(
+						new File(opt.outDir, Utils.sha1hex(query)), query);
+				queryWriter.println(query);
+
+				final Recorder.RecordBuilder record = info.newRecord();
+				record.put("query", query);
+				record.put("nInferences", proof.getInferenceCount());
+				record.put("nConclusions", proof.getConclusionCount());
+				record.put("nAxioms", proof.getAxioms().size());
+				record.put("nJust",
+						proof.getJustificationCount() == SyntheticProof.UNKNOWN_COUNT
+								? null
+								: proof.getJustificationCount());
+				info.commit();
+			}
+
+		} catch (final FileNotFoundException e) {
+			LOGGER_.error("File Not Found!", e);
+			System.exit(2);
+		} catch (final IllegalArgumentException e) {
+			LOGGER_.error(e.getMessage(), e);
+			System.exit(2);
+		} catch (final ArgumentParserException e) {
+			parser.handleError(e);
+			System.exit(2);
+		} finally {
+			Utils.closeQuietly(queryWriter);
+			Utils.closeQuietly(infoWriter);
+		}
+
+	}
+
+}
@@ -0,0 +1,755 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Inferences;
+import org.liveontologies.puli.Proof;
+import org.liveontologies.puli.pinpointing.AbstractMinimalSubsetEnumerator;
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.liveontologies.puli.pinpointing.MinimalSubsetEnumerator;
+import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
+import org.liveontologies.puli.pinpointing.PriorityComparator;
+import org.liveontologies.puli.statistics.NestedStats;
+import org.liveontologies.puli.statistics.ResetStats;
+import org.liveontologies.puli.statistics.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.joergschwabe.PhaseProfiler.Phase;
+import com.google.common.base.Preconditions;
+
+/**
+ * Computes justifications by processing the strongly connected components of
+ * the proof bottom-up. The justifications of a conclusion in an acyclic
+ * component are obtained by joining the justifications of the premises of its
+ * inferences, which is what resolution amounts to without cycles. A cyclic
+ * component is turned into a proof of its own in which every premise from
+ * another component is replaced by a placeholder axiom; the minimal subsets
+ * of this proof are enumerated by the engine for cyclic components, by default
+ * {@link SatJustificationComp_Sat4j}, and the placeholders are then replaced
+ * by the justifications of their premises. Inferences that cannot be used
+ * because some of their premises cannot be derived are left out of this
+ * proof, and the engine is not queried for conclusions that are left without
+ * inferences.
+ * <p>
+ * The engine for cyclic components can be selected by the system property
+ * {@value #CYCLIC_FACTORY_PROPERTY}, which names a class with a static method
+ * {@code getFactory()} like the engines used in the experiments. The engine
+ * created for a cyclic component is kept for the queries of its other
+ * conclusions, and the justifications of the computed conclusions are reused
+ * for later queries. They are reported once all of them are computed, except
+ * if the query belongs to a cyclic component without premises from other
+ * components: then the minimal subsets are reported as soon as the engine for
+ * cyclic components finds them.
+ *
+ * @param <C>
+ *            the type of conclusions used in inferences
+ * @param <I>
+ *            the type of inferences used in the proof
+ * @param <A>
+ *            the type of axioms used by the inferences
+ */
+public class HybridJustificationComputation<C, I extends Inference<? extends C>, A>
+		extends MinimalSubsetsFromProofs<C, I, A> {
+
+	private static final Logger LOGGER_ = LoggerFactory
+			.getLogger(HybridJustificationComputation.class);
+
+	/**
+	 * the system property with the name of the class providing the factory
+	 * of the engine for cyclic components
+	 */
+	public static final String CYCLIC_FACTORY_PROPERTY = "pinpointing.hybridCyclicFactory";
+
+	/**
+	 * @return the factory using the engine for cyclic components named by the
+	 *         system property {@value #CYCLIC_FACTORY_PROPERTY} or
+	 *         {@link SatJustificationComp_Sat4j} if it is not set
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory() {
+		final String className = System.getProperty(CYCLIC_FACTORY_PROPERTY);
+		if (className == null) {
+			return getFactory(SatJustificationComp_Sat4j
+					.<Object, Inference<Object>, Object> getFactory());
+		}
+		// else
+		return getFactory(Utils
+				.<MinimalSubsetsFromProofs.Factory<Object, Inference<Object>, Object>> getFactory(
+						className));
+	}
+
+	/**
+	 * @param cyclicFactory
+	 *            the factory of the engine for cyclic components
+	 * @return the factory using the given engine for cyclic components
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
+			final MinimalSubsetsFromProofs.Factory<Object, Inference<Object>, Object> cyclicFactory) {
+		return new Factory<>(cyclicFactory);
+	}
+
+	private final MinimalSubsetsFromProofs.Factory<Object, Inference<Object>, Object> cyclicFactory_;
+
+	/**
+	 * a map from computed conclusions to all their minimal justifications
+	 */
+	private final Map<C, List<Justification<C, A>>> justifications_ = new HashMap<>();
+
+	/**
+	 * a map from the conclusions of the translated cyclic components to their
+	 * translations
+	 */
+	private final Map<C, CyclicComponent> cyclicComponents_ = new HashMap<>();
+
+	private final InterruptMonitor monitor_ = new InterruptMonitor() {
+		@Override
+		public boolean isInterrupted() {
+			return HybridJustificationComputation.this.isInterrupted();
+		}
+	};
+
+	// Statistics
+
+	private int countAcyclicConclusions_ = 0, countCyclicComponents_ = 0,
+			countCyclicQueries_ = 0, countCyclicSubsets_ = 0;
+
+	private HybridJustificationComputation(final Proof<? extends I> proof,
+			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			final InterruptMonitor monitor,
+			final MinimalSubsetsFromProofs.Factory<Object, Inference<Object>, Object> cyclicFactory) {
+		super(proof, justifier, monitor);
+		this.cyclicFactory_ = cyclicFactory;
+	}
+
+	@Override
+	public MinimalSubsetEnumerator<A> newEnumerator(final C query) {
+		return new JustificationEnumerator(query);
+	}
+
+	/**
+	 * @return the number of conclusions of acyclic components whose
+	 *         justifications were computed by joining
+	 */
+	@Stat
+	public int nAcyclicConclusions() {
+		return countAcyclicConclusions_;
+	}
+
+	@Stat
+	public int nCyclicComponents() {
+		return countCyclicComponents_;
+	}
+
+	/**
+	 * @return how many times the engine for cyclic components was queried
+	 */
+	@Stat
+	public int nCyclicQueries() {
+		return countCyclicQueries_;
+	}
+
+	/**
+	 * @return the number of minimal subsets, possibly with placeholders,
+	 *         returned by the engine for cyclic components
+	 */
+	@Stat
+	public int nCyclicSubsets() {
+		return countCyclicSubsets_;
+	}
+
+	@ResetStats
+	public void resetStats() {
+		countAcyclicConclusions_ = 0;
+		countCyclicComponents_ = 0;
+		countCyclicQueries_ = 0;
+		countCyclicSubsets_ = 0;
+	}
+
+	@NestedStats
+	public static Class<?> getNestedStats() {
+		return BloomSet.class;
+	}
+
+	private static <A, P> void sort(final List<? extends Set<A>> justs,
+			final PriorityComparator<? super Set<A>, P> priorityComparator) {
+		Collections.sort(justs, new Comparator<Set<A>>() {
+			@Override
+			public int compare(final Set<A> first, final Set<A> second) {
+				return priorityComparator.compare(
+						priorityComparator.getPriority(first),
+						priorityComparator.getPriority(second));
+			}
+		});
+	}
+
+	private class JustificationEnumerator
+			extends AbstractMinimalSubsetEnumerator<A> {
+
+		private final C conclusion_;
+
+		JustificationEnumerator(final C conclusion) {
+			this.conclusion_ = conclusion;
+		}
+
+		@Override
+		public void enumerate(final Listener<A> listener,
+				final PriorityComparator<? super Set<A>, ?> priorityComparator) {
+			Preconditions.checkNotNull(listener);
+			if (priorityComparator == null) {
+				enumerate(listener);
+				return;
+			}
+			// else
+			if (!justifications_.containsKey(conclusion_) && !compute()) {
+				return;
+			}
+			// else
+			if (!justifications_.containsKey(conclusion_)) {
+				// left to the engine for the component of the query
+				stream(listener, priorityComparator);
+				return;
+			}
+			// else
+			final List<Justification<C, A>> justs = new ArrayList<>(
+					justifications_.get(conclusion_));
+			sort(justs, priorityComparator);
+			PhaseProfiler.start(Phase.LISTENER);
+			for (final Justification<C, A> just : justs) {
+				listener.newMinimalSubset(just);
+			}
+			PhaseProfiler.stop(Phase.LISTENER);
+		}
+
+		/**
+		 * computes the justifications of the conclusions needed for the
+		 * query, components with premises first; the justifications of the
+		 * query are not computed if they can be streamed, see
+		 * {@link #stream(Listener, PriorityComparator)}
+		 * 
+		 * @return {@code false} if the computation was interrupted
+		 */
+		private boolean compute() {
+			PhaseProfiler.start(Phase.UNFOLDING);
+			final List<List<C>> components = StronglyConnectedComponentsComputation
+					.computeComponents(getProof(), conclusion_)
+					.getComponents();
+			final Set<C> needed = new HashSet<>();
+			needed.add(conclusion_);
+			for (int i = components.size() - 1; i >= 0; i--) {
+				final List<C> component = components.get(i);
+				final List<C> toCompute = getToCompute(component, needed);
+				if (toCompute.isEmpty()) {
+					continue;
+				}
+				// else the inferences of all conclusions of a cyclic
+				// component are used
+				for (final C conclusion : isCyclic(component) ? component
+						: toCompute) {
+					for (final I inf : getInferences(conclusion)) {
+						needed.addAll(inf.getPremises());
+					}
+				}
+			}
+			PhaseProfiler.stop(Phase.UNFOLDING);
+
+			for (final List<C> component : components) {
+				final List<C> toCompute = getToCompute(component, needed);
+				if (toCompute.isEmpty()) {
+					continue;
+				}
+				// else
+				if (isInterrupted()) {
+					return false;
+				}
+				// else
+				if (isCyclic(component)) {
+					final CyclicComponent cyclic = getCyclicComponent(
+							component);
+					if (component.contains(conclusion_)
+							&& !cyclic.proof_.hasPlaceholders()) {
+						// the query is streamed
+						return true;
+					}
+					// else
+					if (!computeCyclic(cyclic, toCompute)) {
+						return false;
+					}
+				} else {
+					computeAcyclic(component.get(0));
+				}
+			}
+			return true;
+		}
+
+		private List<C> getToCompute(final List<C> component,
+				final Set<C> needed) {
+			final List<C> result = new ArrayList<>();
+			for (final C conclusion : component) {
+				if (needed.contains(conclusion)
+						&& !justifications_.containsKey(conclusion)) {
+					result.add(conclusion);
+				}
+			}
+			return result;
+		}
+
+		private boolean isCyclic(final List<C> component) {
+			if (component.size() > 1) {
+				return true;
+			}
+			// else
+			final C conclusion = component.get(0);
+			for (final I inf : getInferences(conclusion)) {
+				if (inf.getPremises().contains(conclusion)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void computeAcyclic(final C conclusion) {
+			countAcyclicConclusions_++;
+			PhaseProfiler.start(Phase.PROPAGATION);
+			final SubsetIndex<Justification<C, A>> result = new SubsetIndex<>();
+			for (final I inf : getInferences(conclusion)) {
+				List<Justification<C, A>> conclusionJusts = Collections
+						.singletonList(BloomSet.create(conclusion,
+								getJustification(inf)));
+				for (final C premise : inf.getPremises()) {
+					conclusionJusts = Utils.join(conclusionJusts,
+							justifications_.get(premise));
+				}
+				for (final Justification<C, A> just : conclusionJusts) {
+					result.merge(just);
+				}
+			}
+			justifications_.put(conclusion, new ArrayList<>(result));
+			PhaseProfiler.stop(Phase.PROPAGATION);
+		}
+
+		/**
+		 * @return the translation of the cyclic component, which is created
+		 *         when it is needed for the first time
+		 */
+		private CyclicComponent getCyclicComponent(final List<C> component) {
+			CyclicComponent result = cyclicComponents_.get(component.get(0));
+			if (result != null) {
+				return result;
+			}
+			// else
+			countCyclicComponents_++;
+			PhaseProfiler.start(Phase.TRANSLATION);
+			final ComponentProof<C, I> componentProof = new ComponentProof<>(
+					component);
+			for (final I inf : getDerivingInferences(component)) {
+				componentProof.add(inf, getJustification(inf));
+			}
+			PhaseProfiler.stop(Phase.TRANSLATION);
+			result = new CyclicComponent(componentProof, cyclicFactory_
+					.create(componentProof, ComponentProof.JUSTIFIER,
+							monitor_));
+			for (final C conclusion : component) {
+				cyclicComponents_.put(conclusion, result);
+			}
+			return result;
+		}
+
+		/**
+		 * @return the inferences of the cyclic component whose premises can
+		 *         be derived: the premises from other components have
+		 *         justifications and the premises from the component are
+		 *         derived by such inferences
+		 */
+		private List<I> getDerivingInferences(final List<C> component) {
+			final Set<C> conclusions = new HashSet<>(component);
+			final List<I> infs = new ArrayList<>();
+			final List<Integer> underived = new ArrayList<>();
+			final Map<C, List<Integer>> uses = new HashMap<>();
+			final Set<C> derived = new HashSet<>();
+			final Deque<C> toDerive = new ArrayDeque<>();
+			for (final C conclusion : component) {
+				nextInference: for (final I inf : getInferences(conclusion)) {
+					final Set<C> premises = new HashSet<>();
+					for (final C premise : inf.getPremises()) {
+						if (conclusions.contains(premise)) {
+							premises.add(premise);
+						} else if (justifications_.get(premise).isEmpty()) {
+							continue nextInference;
+						}
+					}
+					final int index = infs.size();
+					infs.add(inf);
+					underived.add(premises.size());
+					if (premises.isEmpty()) {
+						toDerive.add(conclusion);
+					}
+					for (final C premise : premises) {
+						List<Integer> premiseUses = uses.get(premise);
+						if (premiseUses == null) {
+							premiseUses = new ArrayList<>();
+							uses.put(premise, premiseUses);
+						}
+						premiseUses.add(index);
+					}
+				}
+			}
+			while (!toDerive.isEmpty()) {
+				final C next = toDerive.poll();
+				if (!derived.add(next)) {
+					continue;
+				}
+				// else
+				final List<Integer> nextUses = uses.get(next);
+				if (nextUses == null) {
+					continue;
+				}
+				// else
+				for (final int index : nextUses) {
+					final int count = underived.get(index) - 1;
+					underived.set(index, count);
+					if (count == 0) {
+						toDerive.add(infs.get(index).getConclusion());
+					}
+				}
+			}
+			final List<I> result = new ArrayList<>();
+			for (int i = 0; i < infs.size(); i++) {
+				if (underived.get(i) == 0) {
+					result.add(infs.get(i));
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * @return {@code false} if the computation was interrupted
+		 */
+		private boolean computeCyclic(final CyclicComponent component,
+				final List<C> toCompute) {
+			for (final C conclusion : toCompute) {
+				if (component.proof_.getInferences(conclusion).isEmpty()) {
+					// cannot be derived
+					justifications_.put(conclusion,
+							Collections.<Justification<C, A>> emptyList());
+					continue;
+				}
+				// else
+				countCyclicQueries_++;
+				final List<Set<Object>> subsets = new ArrayList<>();
+				component.enumerators_.newEnumerator(conclusion)
+						.enumerate(new MinimalSubsetEnumerator.Listener<Object>() {
+							@Override
+							public void newMinimalSubset(
+									final Set<Object> set) {
+								subsets.add(set);
+							}
+						});
+				if (isInterrupted()) {
+					return false;
+				}
+				// else
+				countCyclicSubsets_ += subsets.size();
+				PhaseProfiler.start(Phase.PROPAGATION);
+				final SubsetIndex<Justification<C, A>> result = new SubsetIndex<>();
+				for (final Set<Object> subset : subsets) {
+					for (final Justification<C, A> just : expand(conclusion,
+							subset)) {
+						result.merge(just);
+					}
+				}
+				justifications_.put(conclusion, new ArrayList<>(result));
+				PhaseProfiler.stop(Phase.PROPAGATION);
+				LOGGER_.trace("{}: {} justifications from {} subsets",
+						conclusion, result.size(), subsets.size());
+			}
+			return true;
+		}
+
+		/**
+		 * @return the justifications obtained from the subset by replacing
+		 *         the placeholders by the justifications of their premises
+		 */
+		@SuppressWarnings("unchecked")
+		private List<Justification<C, A>> expand(final C conclusion,
+				final Set<Object> subset) {
+			final List<A> axioms = new ArrayList<>(subset.size());
+			final List<C> premises = new ArrayList<>();
+			for (final Object element : subset) {
+				if (element instanceof Placeholder) {
+					premises.add((C) ((Placeholder) element).premise_);
+				} else {
+					axioms.add((A) element);
+				}
+			}
+			List<Justification<C, A>> result = Collections
+					.singletonList(BloomSet.create(conclusion, axioms));
+			for (final C premise : premises) {
+				result = Utils.join(result, justifications_.get(premise));
+			}
+			return result;
+		}
+
+		/**
+		 * reports the minimal subsets of the query found by the engine for
+		 * its cyclic component without buffering them; they are the
+		 * justifications of the query since the component has no premises
+		 * from other components
+		 */
+		@SuppressWarnings("unchecked")
+		private void stream(final Listener<A> listener,
+				final PriorityComparator<? super Set<A>, ?> priorityComparator) {
+			final CyclicComponent component = cyclicComponents_
+					.get(conclusion_);
+			if (component.proof_.getInferences(conclusion_).isEmpty()) {
+				// cannot be derived
+				justifications_.put(conclusion_,
+						Collections.<Justification<C, A>> emptyList());
+				return;
+			}
+			// else the subsets contain only axioms
+			final PriorityComparator<? super Set<Object>, ?> subsetComparator = (PriorityComparator<? super Set<Object>, ?>) (PriorityComparator<?, ?>) priorityComparator;
+			countCyclicQueries_++;
+			final List<Justification<C, A>> justs = new ArrayList<>();
+			component.enumerators_.newEnumerator(conclusion_)
+					.enumerate(new MinimalSubsetEnumerator.Listener<Object>() {
+						@Override
+						public void newMinimalSubset(final Set<Object> set) {
+							countCyclicSubsets_++;
+							final Justification<C, A> just = BloomSet
+									.create(conclusion_, (Set<A>) set);
+							justs.add(just);
+							PhaseProfiler.start(Phase.LISTENER);
+							listener.newMinimalSubset(just);
+							PhaseProfiler.stop(Phase.LISTENER);
+						}
+					}, subsetComparator);
+			if (!isInterrupted()) {
+				justifications_.put(conclusion_, justs);
+			}
+		}
+
+	}
+
+	/**
+	 * A cyclic component translated to a {@link ComponentProof} together with
+	 * the engine created for it
+	 */
+	private static class CyclicComponent {
+
+		private final ComponentProof<?, ?> proof_;
+
+		private final MinimalSubsetEnumerator.Factory<Object, Object> enumerators_;
+
+		CyclicComponent(final ComponentProof<?, ?> proof,
+				final MinimalSubsetEnumerator.Factory<Object, Object> enumerators) {
+			this.proof_ = proof;
+			this.enumerators_ = enumerators;
+		}
+
+	}
+
+	/**
+	 * Stands for the justifications of a premise from a component below the
+	 * cyclic component
+	 */
+	private static class Placeholder {
+
+		private final Object premise_;
+
+		Placeholder(final Object premise) {
+			this.premise_ = premise;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			return o instanceof Placeholder
+					&& premise_.equals(((Placeholder) o).premise_);
+		}
+
+		@Override
+		public int hashCode() {
+			return Placeholder.class.hashCode() + premise_.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return "[" + premise_ + "]";
+		}
+
+	}
+
+	/**
+	 * The inferences of the conclusions of one component without the premises
+	 * from other components, which are replaced by {@link Placeholder}s in the
+	 * justifications of the inferences
+	 */
+	private static class ComponentProof<C, I extends Inference<? extends C>>
+			implements Proof<ComponentInference> {
+
+		static final InferenceJustifier<Inference<Object>, Set<Object>> JUSTIFIER = new InferenceJustifier<Inference<Object>, Set<Object>>() {
+			@Override
+			public Set<Object> getJustification(
+					final Inference<Object> inference) {
+				return ((ComponentInference) inference).justification_;
+			}
+		};
+
+		private final Set<C> conclusions_;
+
+		private final Map<C, List<ComponentInference>> inferences_ = new HashMap<>();
+
+		private boolean hasPlaceholders_ = false;
+
+		ComponentProof(final Collection<C> conclusions) {
+			this.conclusions_ = new HashSet<>(conclusions);
+		}
+
+		void add(final I inference,
+				final Set<? extends Object> justification) {
+			final List<Object> premises = new ArrayList<>();
+			final Set<Object> componentJustification = new HashSet<>(
+					justification);
+			for (final C premise : inference.getPremises()) {
+				if (conclusions_.contains(premise)) {
+					premises.add(premise);
+				} else {
+					componentJustification.add(new Placeholder(premise));
+					hasPlaceholders_ = true;
+				}
+			}
+			final C conclusion = inference.getConclusion();
+			List<ComponentInference> infs = inferences_.get(conclusion);
+			if (infs == null) {
+				infs = new ArrayList<>();
+				inferences_.put(conclusion, infs);
+			}
+			infs.add(new ComponentInference(inference.getName(), conclusion,
+					premises, componentJustification));
+		}
+
+		/**
+		 * @return whether some premises are from other components
+		 */
+		boolean hasPlaceholders() {
+			return hasPlaceholders_;
+		}
+
+		@Override
+		public Collection<? extends ComponentInference> getInferences(
+				final Object conclusion) {
+			final List<ComponentInference> infs = inferences_.get(conclusion);
+			return infs == null ? Collections.<ComponentInference> emptyList()
+					: infs;
+		}
+
+	}
+
+	/**
+	 * An inference of a {@link ComponentProof}; different instances are
+	 * different inferences, even if they have the same premises
+	 */
+	private static class ComponentInference implements Inference<Object> {
+
+		private final String name_;
+
+		private final Object conclusion_;
+
+		private final List<Object> premises_;
+
+		private final Set<Object> justification_;
+
+		ComponentInference(final String name, final Object conclusion,
+				final List<Object> premises, final Set<Object> justification) {
+			this.name_ = name;
+			this.conclusion_ = conclusion;
+			this.premises_ = premises;
+			this.justification_ = justification;
+		}
+
+		@Override
+		public String getName() {
+			return name_;
+		}
+
+		@Override
+		public Object getConclusion() {
+			return conclusion_;
+		}
+
+		@Override
+		public List<Object> getPremises() {
+			return premises_;
+		}
+
+		@Override
+		public String toString() {
+			return Inferences.toString(this) + " " + justification_;
+		}
+
+	}
+
+	/**
+	 * The factory for creating a {@link HybridJustificationComputation}
+	 *
+	 * @param <C>
+	 *            the type of conclusions used in inferences
+	 * @param <I>
+	 *            the type of inferences used in the proof
+	 * @param <A>
+	 *            the type of axioms used by the inferences
+	 */
+	private static class Factory<C, I extends Inference<? extends C>, A>
+			implements MinimalSubsetsFromProofs.Factory<C, I, A> {
+
+		private final MinimalSubsetsFromProofs.Factory<Object, Inference<Object>, Object> cyclicFactory_;
+
+		Factory(final MinimalSubsetsFromProofs.Factory<Object, Inference<Object>, Object> cyclicFactory) {
+			this.cyclicFactory_ = cyclicFactory;
+		}
+
+		@Override
+		public MinimalSubsetEnumerator.Factory<C, A> create(
+				final Proof<? extends I> proof,
+				final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+				final InterruptMonitor monitor) {
+			return new HybridJustificationComputation<>(proof, justifier,
+					monitor, cyclicFactory_);
+		}
+
+	}
+
+}
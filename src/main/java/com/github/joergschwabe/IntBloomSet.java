@@ -0,0 +1,348 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A {@link Justification} of {@link Integer} axioms backed by a sorted array of
+ * distinct ints and a Bloom filter of the same kind as the one of
+ * {@link BloomSet}. The union with another such set is a linear merge, the
+ * subset test is a linear scan of both arrays, and the hash code is computed
+ * only once. Instances are created by
+ * {@link BloomSet#create(Object, Collection...)} when all axioms are
+ * {@link Integer}s.
+ *
+ * @param <C>
+ *            the type of the conclusion for which the justification is computed
+ */
+public class IntBloomSet<C> extends AbstractSet<Integer>
+		implements Justification<C, Integer>, Comparable<IntBloomSet<C>> {
+
+	private final C conclusion_;
+
+	/**
+	 * the elements sorted in the increasing order without duplicates
+	 */
+	private final int[] ints_;
+
+	/**
+	 * use this value for the second priority in the comparator (the first
+	 * priority is size)
+	 */
+	private final int priority2_;
+
+	private final long[] filter_;
+
+	/**
+	 * the hash code of the set, i.e., the sum of the elements
+	 */
+	private final int hash_;
+
+	private IntBloomSet(C conclusion, int[] ints, int priority2,
+			long[] filter, int hash) {
+		this.conclusion_ = conclusion;
+		this.ints_ = ints;
+		this.priority2_ = priority2;
+		this.filter_ = filter;
+		this.hash_ = hash;
+	}
+
+	IntBloomSet(C conclusion, int[] ints) {
+		this.conclusion_ = conclusion;
+		this.ints_ = ints;
+		// try to group justifications for the same conclusions together
+		this.priority2_ = conclusion.hashCode();
+		this.filter_ = BloomSet.buildFilter(ints);
+		int hash = 0;
+		for (final int e : ints) {
+			hash += e;
+		}
+		this.hash_ = hash;
+	}
+
+	/**
+	 * @param collections
+	 * @return the sorted array of distinct elements of the collections, or
+	 *         {@code null} if some element is not an {@link Integer}
+	 */
+	static int[] toSortedInts(final Collection<?>... collections) {
+		int size = 0;
+		for (final Collection<?> collection : collections) {
+			size += collection.size();
+		}
+		final int[] result = new int[size];
+		int i = 0;
+		for (final Collection<?> collection : collections) {
+			if (collection instanceof IntBloomSet<?>) {
+				final int[] ints = ((IntBloomSet<?>) collection).ints_;
+				System.arraycopy(ints, 0, result, i, ints.length);
+				i += ints.length;
+				continue;
+			}
+			// else
+			for (final Object e : collection) {
+				if (!(e instanceof Integer) || i == size) {
+					return null;
+				}
+				// else
+				result[i++] = (Integer) e;
+			}
+		}
+		if (i < size) {
+			return null;
+		}
+		// else
+		Arrays.sort(result);
+		return distinct(result);
+	}
+
+	/**
+	 * @return the array without the repeated elements of the given sorted
+	 *         array; the given array is returned if there are none
+	 */
+	private static int[] distinct(final int[] sorted) {
+		int size = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (size == 0 || sorted[i] != sorted[size - 1]) {
+				sorted[size++] = sorted[i];
+			}
+		}
+		return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+	}
+
+	private static int[] mergeSorted(final int[] first, final int[] second) {
+		final int[] result = new int[first.length + second.length];
+		int i = 0, j = 0, size = 0;
+		while (i < first.length && j < second.length) {
+			if (first[i] < second[j]) {
+				result[size++] = first[i++];
+			} else if (first[i] > second[j]) {
+				result[size++] = second[j++];
+			} else {
+				result[size++] = first[i++];
+				j++;
+			}
+		}
+		while (i < first.length) {
+			result[size++] = first[i++];
+		}
+		while (j < second.length) {
+			result[size++] = second[j++];
+		}
+		return size == result.length ? result : Arrays.copyOf(result, size);
+	}
+
+	/**
+	 * @return {@code true} if every element of the sorted array {@code sub}
+	 *         occurs in the sorted array {@code sup}
+	 */
+	private static boolean containsAllSorted(final int[] sup,
+			final int[] sub) {
+		int i = 0;
+		for (int j = 0; j < sub.length; j++) {
+			final int e = sub[j];
+			while (i < sup.length && sup[i] < e) {
+				i++;
+			}
+			if (i == sup.length || sup[i] != e) {
+				return false;
+			}
+			// else
+			i++;
+		}
+		return true;
+	}
+
+	@Override
+	public C getConclusion() {
+		return conclusion_;
+	}
+
+	@Override
+	public int size() {
+		return ints_.length;
+	}
+
+	@Override
+	public Iterator<Integer> iterator() {
+		return new Iterator<Integer>() {
+
+			private int next_ = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next_ < ints_.length;
+			}
+
+			@Override
+			public Integer next() {
+				if (next_ == ints_.length) {
+					throw new NoSuchElementException();
+				}
+				// else
+				return ints_[next_++];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+
+		};
+	}
+
+	@Override
+	public Justification<C, Integer> copyTo(C conclusion) {
+		return new IntBloomSet<C>(conclusion, ints_, conclusion.hashCode(),
+				filter_, hash_);
+	}
+
+	@Override
+	public Justification<C, Integer> addElements(
+			Set<? extends Integer> added) {
+		if (containsAll(added)) {
+			return this;
+		}
+		// else
+		if (added instanceof IntBloomSet<?>) {
+			return new IntBloomSet<C>(conclusion_,
+					mergeSorted(ints_, ((IntBloomSet<?>) added).ints_));
+		}
+		// else
+		return BloomSet.create(conclusion_, this, added);
+	}
+
+	@Override
+	public Justification<C, Integer> removeElements(
+			Set<? extends Integer> removed) {
+		final int[] result = new int[ints_.length];
+		int size = 0;
+		for (final int e : ints_) {
+			if (!removed.contains(e)) {
+				result[size++] = e;
+			}
+		}
+		if (size == ints_.length) {
+			return this;
+		}
+		// else
+		if (size == 0) {
+			return BloomSet.create(conclusion_,
+					Collections.<Integer> emptySet());
+		}
+		// else
+		return new IntBloomSet<C>(conclusion_, Arrays.copyOf(result, size));
+	}
+
+	@Override
+	public boolean contains(Object object) {
+		if (!(object instanceof Integer)) {
+			return false;
+		}
+		// else
+		final int e = (Integer) object;
+		if (!BloomSet.mayContain(filter_, e)) {
+			return false;
+		}
+		// else
+		return Arrays.binarySearch(ints_, e) >= 0;
+	}
+
+	@Override
+	public boolean containsAll(Collection<?> c) {
+		BloomSet.countContainsAll();
+		if (c instanceof Set<?> && c.size() > ints_.length) {
+			BloomSet.countContainsAllSizeFiltered();
+			return false;
+		}
+		final boolean result;
+		if (c instanceof IntBloomSet<?>) {
+			final IntBloomSet<?> other = (IntBloomSet<?>) c;
+			if (!BloomSet.mayContainAll(filter_, other.filter_)) {
+				BloomSet.countContainsAllFiltered();
+				return false;
+			}
+			// else
+			BloomSet.countContainsAllMerged();
+			result = containsAllSorted(ints_, other.ints_);
+		} else {
+			result = super.containsAll(c);
+		}
+		if (result) {
+			BloomSet.countContainsAllPositive();
+		}
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (o instanceof IntBloomSet<?>) {
+			final IntBloomSet<?> other = (IntBloomSet<?>) o;
+			return hash_ == other.hash_ && Arrays.equals(ints_, other.ints_);
+		}
+		// else
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash_;
+	}
+
+	@Override
+	public String toString() {
+		Object[] elements = toArray();
+		Arrays.sort(elements, new Comparator<Object>() {
+			@Override
+			public int compare(Object o1, Object o2) {
+				return String.valueOf(o1).compareTo(String.valueOf(o2));
+			}
+		});
+		return getConclusion() + ": " + Arrays.toString(elements);
+	}
+
+	@Override
+	public int compareTo(IntBloomSet<C> o) {
+		// first prioritize smaller justifications
+		int sizeDiff = ints_.length - o.ints_.length;
+		if (sizeDiff != 0) {
+			return sizeDiff;
+		}
+		// this makes sure that justifications for
+		// the same conclusions of the same size
+		// are processed consequently, if possible
+		return priority2_ - o.priority2_;
+	}
+
+}
@@ -0,0 +1,198 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+
+import org.liveontologies.puli.statistics.ResetStats;
+import org.liveontologies.puli.statistics.Stat;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Keeps the complete lists of minimal justifications of conclusions across
+ * queries. The weight of an entry is the total number of axioms in its
+ * justifications plus the number of justifications; the least recently used
+ * entries are evicted when the total weight exceeds the maximum.
+ * <p>
+ * The cached justifications are only valid for the proof from which they were
+ * computed, e.g., the conclusions of the proofs of
+ * {@link com.github.joergschwabe.proofs.SatProofProvider} are numbered
+ * separately for every query. So {@link #useFor(Object)} must be called with
+ * the proof before the cache is used, which clears the cache when the proof
+ * changes.
+ *
+ * @param <C>
+ *            the type of conclusions
+ * @param <A>
+ *            the type of axioms
+ */
+public class JustificationCache<C, A> {
+
+	/**
+	 * the system property with the maximal total weight of the cache; the
+	 * cache is not used if the property is not set
+	 */
+	public static final String MAX_WEIGHT_PROPERTY = "pinpointing.justificationCacheWeight";
+
+	private final long maxWeight_;
+
+	private final Cache<C, List<Justification<C, A>>> cache_;
+
+	/**
+	 * the proof from which the cached justifications were computed
+	 */
+	private Object proof_ = null;
+
+	// Statistics
+
+	private volatile long countHits_ = 0, countMisses_ = 0,
+			countEvictions_ = 0;
+
+	/**
+	 * @param maxWeight
+	 *            the maximal total weight of the cache; if it is not
+	 *            positive, nothing is cached
+	 */
+	public JustificationCache(final long maxWeight) {
+		this.maxWeight_ = Math.max(maxWeight, 0l);
+		this.cache_ = CacheBuilder.newBuilder().maximumWeight(maxWeight_)
+				.weigher(new Weigher<C, List<Justification<C, A>>>() {
+					@Override
+					public int weigh(final C conclusion,
+							final List<Justification<C, A>> justs) {
+						int weight = justs.size();
+						for (final Justification<C, A> just : justs) {
+							weight += just.size();
+						}
+						return weight;
+					}
+				})
+				.removalListener(
+						new RemovalListener<C, List<Justification<C, A>>>() {
+							@Override
+							public void onRemoval(
+									final RemovalNotification<C, List<Justification<C, A>>> notification) {
+								if (notification.wasEvicted()) {
+									countEvictions_++;
+								}
+							}
+						})
+				.build();
+	}
+
+	/**
+	 * @return the cache with the maximal weight from the system property
+	 *         {@value #MAX_WEIGHT_PROPERTY}, which is not enabled if the
+	 *         property is not set
+	 */
+	public static <C, A> JustificationCache<C, A> fromSystemProperty() {
+		return new JustificationCache<>(Long.getLong(MAX_WEIGHT_PROPERTY, 0l));
+	}
+
+	/**
+	 * @return whether the cache may keep some justifications, i.e., whether
+	 *         its maximal weight is positive
+	 */
+	public boolean isEnabled() {
+		return maxWeight_ > 0;
+	}
+
+	/**
+	 * Clears the cache unless the proof is the same object as the one from
+	 * the previous call.
+	 * 
+	 * @param proof
+	 *            the proof from which the justifications are computed next
+	 */
+	public synchronized void useFor(final Object proof) {
+		if (proof != proof_) {
+			cache_.invalidateAll();
+			proof_ = proof;
+		}
+	}
+
+	/**
+	 * @param conclusion
+	 * @return all minimal justifications of the conclusion or {@code null} if
+	 *         they are not cached
+	 */
+	public List<Justification<C, A>> get(final C conclusion) {
+		final List<Justification<C, A>> justs = cache_
+				.getIfPresent(conclusion);
+		if (justs == null) {
+			countMisses_++;
+		} else {
+			countHits_++;
+		}
+		return justs;
+	}
+
+	/**
+	 * @param conclusion
+	 * @param justs
+	 *            all minimal justifications of the conclusion
+	 */
+	public void put(final C conclusion,
+			final List<? extends Justification<C, A>> justs) {
+		cache_.put(conclusion, ImmutableList.<Justification<C, A>> copyOf(justs));
+	}
+
+	public synchronized void clear() {
+		cache_.invalidateAll();
+		proof_ = null;
+	}
+
+	@Stat
+	public long nCacheHits() {
+		return countHits_;
+	}
+
+	@Stat
+	public long nCacheMisses() {
+		return countMisses_;
+	}
+
+	@Stat
+	public long nCacheEvictions() {
+		return countEvictions_;
+	}
+
+	@Stat
+	public long nCachedConclusions() {
+		return cache_.size();
+	}
+
+	@ResetStats
+	public void resetStats() {
+		countHits_ = 0;
+		countMisses_ = 0;
+		countEvictions_ = 0;
+	}
+
+}
@@ -0,0 +1,238 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+
+/**
+ * Histogram of non-negative values with buckets of logarithmically growing
+ * width, similar to HdrHistogram. Values smaller than {@link #SUB_BUCKETS}
+ * get a bucket each; larger values fall into buckets whose width is at most
+ * 1/{@link #SUB_BUCKETS} of the values in them, so that the relative error of
+ * the reported values is bounded by about 3% regardless of their magnitude.
+ * The number of buckets grows only logarithmically with the largest value,
+ * so the histogram stays small even for long series.
+ * <p>
+ * The count, the minimum and the maximum of the values are exact.
+ * Histograms can be encoded into a string without commas, so that they can be
+ * written into a record file, decoded and merged.
+ */
+public class LogHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+
+	public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private static final String ENTRY_SEPARATOR = ";";
+	private static final String COUNT_SEPARATOR = ":";
+
+	private long[] counts_ = new long[2 * SUB_BUCKETS];
+	private long totalCount_ = 0;
+	private long min_ = Long.MAX_VALUE;
+	private long max_ = -1;
+
+	public void add(final long value) {
+		add(value, 1);
+	}
+
+	public void add(final long value, final long count) {
+		if (value < 0) {
+			throw new IllegalArgumentException(
+					"Negative value cannot be recorded: " + value);
+		}
+		// else
+		if (count <= 0) {
+			return;
+		}
+		// else
+		addToBucket(bucketIndex(value), count);
+		min_ = Math.min(min_, value);
+		max_ = Math.max(max_, value);
+	}
+
+	private void addToBucket(final int index, final long count) {
+		if (index >= counts_.length) {
+			counts_ = Arrays.copyOf(counts_,
+					Math.max(index + 1, 2 * counts_.length));
+		}
+		counts_[index] += count;
+		totalCount_ += count;
+	}
+
+	/**
+	 * Adds all values of the other histogram to this one.
+	 * 
+	 * @param other
+	 */
+	public void add(final LogHistogram other) {
+		for (int i = 0; i < other.counts_.length; i++) {
+			if (other.counts_[i] > 0) {
+				addToBucket(i, other.counts_[i]);
+			}
+		}
+		if (other.totalCount_ > 0) {
+			min_ = Math.min(min_, other.min_);
+			max_ = Math.max(max_, other.max_);
+		}
+	}
+
+	public long getTotalCount() {
+		return totalCount_;
+	}
+
+	/**
+	 * @return the smallest value, or {@code -1} if the histogram is empty
+	 */
+	public long getMin() {
+		return totalCount_ == 0 ? -1 : min_;
+	}
+
+	/**
+	 * @return the largest value, or {@code -1} if the histogram is empty
+	 */
+	public long getMax() {
+		return max_;
+	}
+
+	/**
+	 * @param percentile
+	 *            between 0 and 100
+	 * @return the smallest value such that at least the specified percentage
+	 *         of values are smaller or equal to it, up to the precision of the
+	 *         buckets, or {@code -1} if the histogram is empty
+	 */
+	public long getValueAtPercentile(final double percentile) {
+		if (totalCount_ == 0) {
+			return -1;
+		}
+		// else
+		final double fraction = Math.min(Math.max(percentile, 0.0), 100.0)
+				/ 100.0;
+		final long rank = Math.max(1, (long) Math.ceil(fraction * totalCount_));
+		long count = 0;
+		for (int i = 0; i < counts_.length; i++) {
+			count += counts_[i];
+			if (count >= rank) {
+				return Math.max(min_, Math.min(max_, highestValueInBucket(i)));
+			}
+		}
+		// unreachable
+		return max_;
+	}
+
+	/**
+	 * @param value
+	 * @return the number of values that are smaller or equal to the specified
+	 *         value, up to the precision of the buckets
+	 */
+	public long getCountAtOrBelow(final long value) {
+		if (value < 0) {
+			return 0;
+		}
+		// else
+		if (value >= max_) {
+			return totalCount_;
+		}
+		// else
+		final int last = Math.min(bucketIndex(value), counts_.length - 1);
+		long count = 0;
+		for (int i = 0; i <= last; i++) {
+			count += counts_[i];
+		}
+		return count;
+	}
+
+	/**
+	 * @return the non-empty buckets in the form
+	 *         {@code min:max;index:count;index:count;...}
+	 */
+	public String encode() {
+		final StringBuilder result = new StringBuilder();
+		result.append(getMin()).append(COUNT_SEPARATOR).append(getMax());
+		for (int i = 0; i < counts_.length; i++) {
+			if (counts_[i] > 0) {
+				result.append(ENTRY_SEPARATOR).append(i)
+						.append(COUNT_SEPARATOR).append(counts_[i]);
+			}
+		}
+		return result.toString();
+	}
+
+	/**
+	 * @param encoded
+	 *            a string produced by {@link #encode()}
+	 * @return the histogram that was encoded
+	 * @throws IllegalArgumentException
+	 *             if the string cannot be decoded
+	 */
+	public static LogHistogram decode(final String encoded) {
+		final LogHistogram result = new LogHistogram();
+		final String[] entries = encoded.trim().split(ENTRY_SEPARATOR);
+		try {
+			for (int i = 1; i < entries.length; i++) {
+				final String[] entry = entries[i].split(COUNT_SEPARATOR);
+				if (entry.length != 2) {
+					throw new IllegalArgumentException(
+							"Cannot decode histogram: " + encoded);
+				}
+				result.addToBucket(Integer.parseInt(entry[0]),
+						Long.parseLong(entry[1]));
+			}
+			final String[] minMax = entries[0].split(COUNT_SEPARATOR);
+			if (minMax.length != 2) {
+				throw new IllegalArgumentException(
+						"Cannot decode histogram: " + encoded);
+			}
+			if (result.totalCount_ > 0) {
+				result.min_ = Long.parseLong(minMax[0]);
+				result.max_ = Long.parseLong(minMax[1]);
+			}
+		} catch (final NumberFormatException e) {
+			throw new IllegalArgumentException(
+					"Cannot decode histogram: " + encoded, e);
+		}
+		return result;
+	}
+
+	static int bucketIndex(final long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		// else
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+		final int shift = exponent - SUB_BUCKET_BITS;
+		final long mantissa = value >>> shift;
+		return (shift + 1) * SUB_BUCKETS + (int) (mantissa - SUB_BUCKETS);
+	}
+
+	static long highestValueInBucket(final int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		// else
+		final int shift = index / SUB_BUCKETS - 1;
+		final long mantissa = SUB_BUCKETS + index % SUB_BUCKETS;
+		return ((mantissa + 1) << shift) - 1;
+	}
+
+}
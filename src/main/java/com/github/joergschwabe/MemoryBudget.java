@@ -0,0 +1,262 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits how much heap the running queries may retain. The heap retained by
+ * a query is the growth of the heap used after garbage collection since the
+ * query started, as reported by
+ * {@link MemoryPoolMXBean#getCollectionUsage()}. The collection usage
+ * thresholds of the heap pools are set so that the JVM notifies this object
+ * after a garbage collection that left a query over its budget in a single
+ * pool. The growth spread over several pools does not cross any threshold, so
+ * the usage is also checked by {@link Query#isExceeded()}, at most once per
+ * {@value #CHECK_INTERVAL_MILLIS} milliseconds. A query over its budget is
+ * then marked as exceeded, which should make the
+ * {@link org.liveontologies.puli.pinpointing.InterruptMonitor
+ * InterruptMonitor} of its computation report an interrupt.
+ * <p>
+ * The heap is shared by all queries running in the JVM, so when queries run
+ * concurrently, the growth caused by any of them counts against the budget of
+ * all of them.
+ */
+public class MemoryBudget implements NotificationListener {
+
+	private static final Logger LOGGER_ = LoggerFactory
+			.getLogger(MemoryBudget.class);
+
+	public static final String EXCEEDED_NAME = "didExceedMemory";
+
+	/**
+	 * how often {@link Query#isExceeded()} checks the usage of the heap
+	 */
+	public static final long CHECK_INTERVAL_MILLIS = 100l;
+
+	private final long budgetBytes_;
+
+	private final List<MemoryPoolMXBean> pools_ = new ArrayList<>();
+
+	/**
+	 * The running queries, a query is identified by the object and not by its
+	 * string, because the same query may run concurrently.
+	 */
+	private final Map<Query, Boolean> running_ = new IdentityHashMap<>();
+
+	/**
+	 * @param budgetBytes
+	 *            how many bytes of heap a query may retain
+	 */
+	public MemoryBudget(final long budgetBytes) {
+		this.budgetBytes_ = budgetBytes;
+		for (final MemoryPoolMXBean pool : ManagementFactory
+				.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP
+					&& pool.isCollectionUsageThresholdSupported()) {
+				pools_.add(pool);
+			}
+		}
+		if (pools_.isEmpty()) {
+			LOGGER_.warn(
+					"The JVM does not report heap usage after garbage collection, the memory budget is not enforced!");
+		}
+		final long maxHeapBytes = Runtime.getRuntime().maxMemory();
+		if (maxHeapBytes != Long.MAX_VALUE && budgetBytes > maxHeapBytes) {
+			LOGGER_.warn("The memory budget {} is larger than the heap {}!",
+					budgetBytes, maxHeapBytes);
+		}
+		final NotificationEmitter emitter = (NotificationEmitter) ManagementFactory
+				.getMemoryMXBean();
+		emitter.addNotificationListener(this, null, null);
+	}
+
+	public long getBudgetBytes() {
+		return budgetBytes_;
+	}
+
+	/**
+	 * Starts measuring a query. The returned object must be passed to
+	 * {@link #queryFinished(Query)} when the query finishes.
+	 *
+	 * @return the measured query
+	 */
+	public synchronized Query queryStarted() {
+		final Query query = new Query(this, collectionUsages());
+		running_.put(query, Boolean.TRUE);
+		updateThresholds();
+		return query;
+	}
+
+	public synchronized void queryFinished(final Query query) {
+		running_.remove(query);
+		updateThresholds();
+	}
+
+	/**
+	 * Stops listening to the notifications of the JVM and resets the
+	 * thresholds.
+	 */
+	public synchronized void dispose() {
+		running_.clear();
+		updateThresholds();
+		try {
+			((NotificationEmitter) ManagementFactory.getMemoryMXBean())
+					.removeNotificationListener(this);
+		} catch (final Exception e) {
+			LOGGER_.warn("Cannot remove the memory listener!", e);
+		}
+	}
+
+	@Override
+	public void handleNotification(final Notification notification,
+			final Object handback) {
+		if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED
+				.equals(notification.getType())) {
+			check();
+		}
+	}
+
+	/**
+	 * Marks the queries that retained more than the budget.
+	 */
+	private synchronized void check() {
+		final long[] usages = collectionUsages();
+		for (final Query query : running_.keySet()) {
+			long retained = 0l;
+			for (int i = 0; i < usages.length; i++) {
+				retained += usages[i] - query.startUsages_[i];
+			}
+			if (retained > budgetBytes_ && !query.exceeded_) {
+				LOGGER_.info("query retained {} bytes, over the budget {}",
+						retained, budgetBytes_);
+				query.exceeded_ = true;
+			}
+		}
+	}
+
+	private long[] collectionUsages() {
+		final long[] usages = new long[pools_.size()];
+		for (int i = 0; i < usages.length; i++) {
+			final MemoryUsage usage = pools_.get(i).getCollectionUsage();
+			usages[i] = usage == null ? 0l : usage.getUsed();
+		}
+		return usages;
+	}
+
+	/**
+	 * Sets the threshold of each pool so that it is crossed when the pool
+	 * alone makes the query that started with the least usage of the pool
+	 * retain more than the budget. The sum over all pools is then checked
+	 * in {@link #check()}, which is also called periodically by
+	 * {@link Query#isExceeded()}.
+	 */
+	private void updateThresholds() {
+		for (int i = 0; i < pools_.size(); i++) {
+			final MemoryPoolMXBean pool = pools_.get(i);
+			long minStartUsage = Long.MAX_VALUE;
+			for (final Query query : running_.keySet()) {
+				minStartUsage = Math.min(minStartUsage,
+						query.startUsages_[i]);
+			}
+			final long max = pool.getUsage().getMax();
+			long threshold = 0l;
+			if (minStartUsage != Long.MAX_VALUE) {
+				if (budgetBytes_ > Long.MAX_VALUE - minStartUsage) {
+					// no pool can exceed the budget
+					threshold = 0l;
+				} else {
+					threshold = minStartUsage + budgetBytes_;
+					if (max >= 0 && threshold > max) {
+						// the pool alone cannot exceed the budget
+						threshold = 0l;
+					}
+				}
+			}
+			try {
+				pool.setCollectionUsageThreshold(threshold);
+			} catch (final IllegalArgumentException e) {
+				LOGGER_.warn("Cannot set the threshold of {}!",
+						pool.getName(), e);
+			}
+		}
+		if (!running_.isEmpty()) {
+			// the thresholds were maybe already crossed
+			check();
+		}
+	}
+
+	/**
+	 * A query measured by {@link MemoryBudget}.
+	 */
+	public static class Query {
+
+		private final MemoryBudget budget_;
+
+		private final long[] startUsages_;
+
+		private volatile boolean exceeded_ = false;
+
+		private volatile long lastCheckMillis_;
+
+		private Query(final MemoryBudget budget, final long[] startUsages) {
+			this.budget_ = budget;
+			this.startUsages_ = startUsages;
+			this.lastCheckMillis_ = System.currentTimeMillis();
+		}
+
+		/**
+		 * Checks the usage of the heap if it was not checked during the last
+		 * {@value MemoryBudget#CHECK_INTERVAL_MILLIS} milliseconds.
+		 * 
+		 * @return whether the query retained more heap than the budget
+		 */
+		public boolean isExceeded() {
+			if (!exceeded_) {
+				final long now = System.currentTimeMillis();
+				if (now - lastCheckMillis_ >= CHECK_INTERVAL_MILLIS) {
+					lastCheckMillis_ = now;
+					budget_.check();
+				}
+			}
+			return exceeded_;
+		}
+
+	}
+
+}
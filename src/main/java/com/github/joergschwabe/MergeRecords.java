@@ -0,0 +1,249 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.annotation.Arg;
+import net.sourceforge.argparse4j.impl.Arguments;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+
+/**
+ * Merges record files, e.g., the ones produced for different {@link Shard}s
+ * of a query file, into one record file. The names of the values in the
+ * merged file are the union of the names in the input files in the order in
+ * which they first occur; values missing in some input file are written as
+ * {@code null}, the same way as {@link Recorder} writes missing values.
+ * <p>
+ * If a query file is provided, the records are ordered by the position of
+ * their query in this file, otherwise they are written in the order of the
+ * input files.
+ */
+public class MergeRecords {
+
+	private static final Logger LOGGER_ = LoggerFactory
+			.getLogger(MergeRecords.class);
+
+	public static final String OUTPUT_OPT = "output";
+	public static final String RECORDS_OPT = "records";
+	public static final String QUERIES_OPT = "queries";
+	public static final String QUERY_NAME_OPT = "qname";
+
+	public static final String DEFAULT_QUERY_NAME = "query";
+
+	public static class Options {
+		@Arg(dest = OUTPUT_OPT)
+		public File outputFile;
+		@Arg(dest = RECORDS_OPT)
+		public List<File> recordFiles;
+		@Arg(dest = QUERIES_OPT)
+		public File queryFile;
+		@Arg(dest = QUERY_NAME_OPT)
+		public String queryName;
+	}
+
+	public static void main(final String[] args) {
+
+		final ArgumentParser parser = ArgumentParsers
+				.newArgumentParser(MergeRecords.class.getSimpleName())
+				.description("Merge record files into one.");
+		parser.addArgument(OUTPUT_OPT).type(File.class)
+				.help("merged record file");
+		parser.addArgument(RECORDS_OPT).nargs("+")
+				.type(Arguments.fileType().verifyExists().verifyCanRead())
+				.help("record files to merge");
+		parser.addArgument("--" + QUERIES_OPT)
+				.type(Arguments.fileType().verifyExists().verifyCanRead())
+				.help("query file according to which the records are ordered");
+		parser.addArgument("--" + QUERY_NAME_OPT)
+				.setDefault(DEFAULT_QUERY_NAME)
+				.help("name of the value containing the query");
+
+		PrintWriter output = null;
+
+		try {
+
+			final Options opt = new Options();
+			parser.parseArgs(args, opt);
+
+			LOGGER_.info("outputFile: {}", opt.outputFile);
+			LOGGER_.info("recordFiles: {}", opt.recordFiles);
+			LOGGER_.info("queryFile: {}", opt.queryFile);
+			LOGGER_.info("queryName: {}", opt.queryName);
+
+			final Set<String> names = new LinkedHashSet<>();
+			for (final File recordFile : opt.recordFiles) {
+				RecordReader reader = null;
+				try {
+					reader = new RecordReader(recordFile);
+					names.addAll(reader.getAllNames());
+				} finally {
+					Utils.closeQuietly(reader);
+				}
+			}
+
+			output = new PrintWriter(opt.outputFile);
+			writeLine(output, names);
+
+			if (opt.queryFile == null) {
+				for (final File recordFile : opt.recordFiles) {
+					RecordReader reader = null;
+					try {
+						reader = new RecordReader(recordFile);
+						Map<String, String> record;
+						while ((record = reader.next()) != null) {
+							writeRecord(output, names, record);
+						}
+					} finally {
+						Utils.closeQuietly(reader);
+					}
+				}
+			} else {
+				final List<Map<String, String>> records = new ArrayList<>();
+				for (final File recordFile : opt.recordFiles) {
+					RecordReader reader = null;
+					try {
+						reader = new RecordReader(recordFile);
+						Map<String, String> record;
+						while ((record = reader.next()) != null) {
+							records.add(record);
+						}
+					} finally {
+						Utils.closeQuietly(reader);
+					}
+				}
+				Collections.sort(records, new QueryOrder(
+						readQueryIndex(opt.queryFile), opt.queryName));
+				for (final Map<String, String> record : records) {
+					writeRecord(output, names, record);
+				}
+			}
+
+		} catch (final FileNotFoundException e) {
+			LOGGER_.error("File not found!", e);
+			System.exit(2);
+		} catch (final IOException e) {
+			LOGGER_.error("Cannot read the records!", e);
+			System.exit(2);
+		} catch (final ArgumentParserException e) {
+			parser.handleError(e);
+			System.exit(2);
+		} finally {
+			Utils.closeQuietly(output);
+		}
+
+	}
+
+	private static Map<String, Integer> readQueryIndex(final File queryFile)
+			throws IOException {
+		final Map<String, Integer> index = new HashMap<>();
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new FileReader(queryFile));
+			String query;
+			while ((query = reader.readLine()) != null) {
+				// Recorder drops quotes from strings
+				final String key = query.replace("\"", "");
+				if (!index.containsKey(key)) {
+					index.put(key, index.size());
+				}
+			}
+		} finally {
+			Utils.closeQuietly(reader);
+		}
+		return index;
+	}
+
+	private static void writeRecord(final PrintWriter output,
+			final Set<String> names, final Map<String, String> record) {
+		final List<String> values = new ArrayList<>(names.size());
+		for (final String name : names) {
+			final String value = record.get(name);
+			values.add(value == null ? "null" : value);
+		}
+		writeLine(output, values);
+	}
+
+	private static void writeLine(final PrintWriter output,
+			final Iterable<String> values) {
+		final Iterator<String> iter = values.iterator();
+		if (iter.hasNext()) {
+			output.print(iter.next());
+			while (iter.hasNext()) {
+				output.print(",");
+				output.print(iter.next());
+			}
+		}
+		output.println();
+	}
+
+	/**
+	 * Orders records by the index of their query. Records whose query is not
+	 * indexed come last.
+	 */
+	private static class QueryOrder
+			implements Comparator<Map<String, String>> {
+
+		private final Map<String, Integer> queryIndex_;
+		private final String queryName_;
+
+		QueryOrder(final Map<String, Integer> queryIndex,
+				final String queryName) {
+			this.queryIndex_ = queryIndex;
+			this.queryName_ = queryName;
+		}
+
+		@Override
+		public int compare(final Map<String, String> record1,
+				final Map<String, String> record2) {
+			return Integer.compare(indexOf(record1), indexOf(record2));
+		}
+
+		private int indexOf(final Map<String, String> record) {
+			final Integer index = queryIndex_
+					.get(RecordReader.unquote(record.get(queryName_)));
+			return index == null ? Integer.MAX_VALUE : index;
+		}
+
+	}
+
+}
@@ -0,0 +1,256 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import fi.iki.elonen.NanoHTTPD;
+
+/**
+ * Serves the {@link RunMetrics} of the running experiments over HTTP on the
+ * loopback interface, so that long runs can be monitored by scraping:
+ * <ul>
+ * <li>{@value #TEXT_PATH} in the plain-text format of Prometheus,
+ * <li>{@value #JSON_PATH} as JSON.
+ * </ul>
+ * Only numeric and boolean statistics of the last finished query are
+ * included in the plain-text format.
+ */
+public class MetricsServer extends NanoHTTPD {
+
+	private static final Logger LOGGER_ = LoggerFactory
+			.getLogger(MetricsServer.class);
+
+	public static final String HOST = "127.0.0.1";
+	public static final String TEXT_PATH = "/metrics";
+	public static final String JSON_PATH = "/metrics.json";
+
+	public static final String MIME_JSON = "application/json";
+	public static final String MIME_PROMETHEUS = "text/plain; version=0.0.4";
+
+	private static final String PREFIX = "pinpointing_";
+
+	private volatile RunMetrics metrics_;
+
+	public MetricsServer(final int port, final RunMetrics metrics) {
+		super(HOST, port);
+		this.metrics_ = metrics;
+	}
+
+	/**
+	 * Starts serving on a daemon thread.
+	 * 
+	 * @throws IOException
+	 *             if the port cannot be bound
+	 */
+	@Override
+	public void start() throws IOException {
+		start(SOCKET_READ_TIMEOUT, true);
+		LOGGER_.info("serving metrics on http://{}:{}{}", HOST,
+				getListeningPort(), TEXT_PATH);
+	}
+
+	/**
+	 * @param metrics
+	 *            the metrics that should be served from now on
+	 */
+	public void setMetrics(final RunMetrics metrics) {
+		this.metrics_ = metrics;
+	}
+
+	@Override
+	public Response serve(final IHTTPSession session) {
+		final RunMetrics metrics = metrics_;
+		final String uri = session.getUri();
+		if (TEXT_PATH.equals(uri) || "/".equals(uri)) {
+			return newFixedLengthResponse(Response.Status.OK, MIME_PROMETHEUS,
+					toText(metrics));
+		}
+		if (JSON_PATH.equals(uri)) {
+			return newFixedLengthResponse(Response.Status.OK, MIME_JSON,
+					toJson(metrics));
+		}
+		// else
+		return newFixedLengthResponse(Response.Status.NOT_FOUND,
+				MIME_PLAINTEXT, "Not found: " + uri + "\n");
+	}
+
+	static String toText(final RunMetrics metrics) {
+		final StringBuilder out = new StringBuilder();
+		final String run = "{run=\"" + escape(metrics.getName()) + "\"}";
+		appendText(out, "queries_total", run, metrics.getTotal());
+		appendText(out, "queries_done", run, metrics.getDone());
+		appendText(out, "queries_remaining", run, metrics.getRemaining());
+		appendText(out, "queries_timed_out", run, metrics.getTimeOuts());
+		appendText(out, "elapsed_seconds", run,
+				metrics.getElapsedMillis() / 1000.0);
+		appendText(out, "throughput_queries_per_second", run,
+				metrics.getThroughput());
+		appendText(out, "justifications", run, metrics.getJustifications());
+		appendText(out, "justifications_per_second", run,
+				metrics.getJustificationRate());
+		appendText(out, "heap_used_bytes", run, RunMetrics.getHeapUsed());
+		appendText(out, "heap_committed_bytes", run,
+				RunMetrics.getHeapCommitted());
+		appendText(out, "heap_max_bytes", run, RunMetrics.getHeapMax());
+		for (final RunMetrics.Query query : metrics.getRunning()) {
+			final String labels = "{run=\"" + escape(metrics.getName())
+					+ "\",worker=\"" + escape(query.getWorker())
+					+ "\",query=\"" + escape(query.getQuery()) + "\"}";
+			appendText(out, "query_elapsed_seconds", labels,
+					query.getElapsedMillis() / 1000.0);
+			appendText(out, "query_justifications", labels,
+					query.getJustifications());
+			appendText(out, "query_justifications_per_second", labels,
+					query.getJustificationRate());
+		}
+		for (final Map.Entry<String, Object> entry : metrics.getLastStats()
+				.entrySet()) {
+			final Object value = entry.getValue();
+			final Object number;
+			if (value instanceof Number) {
+				number = value;
+			} else if (value instanceof Boolean) {
+				number = (Boolean) value ? 1 : 0;
+			} else {
+				continue;
+			}
+			final String labels = "{run=\"" + escape(metrics.getName())
+					+ "\",name=\"" + escape(entry.getKey()) + "\"}";
+			appendText(out, "last_query_stat", labels, number);
+		}
+		return out.toString();
+	}
+
+	private static void appendText(final StringBuilder out, final String name,
+			final String labels, final Object value) {
+		out.append(PREFIX).append(name).append(labels).append(' ')
+				.append(value).append('\n');
+	}
+
+	static String toJson(final RunMetrics metrics) {
+		final StringBuilder out = new StringBuilder();
+		out.append('{');
+		appendJson(out, "run", metrics.getName()).append(',');
+		appendJson(out, "queriesTotal", metrics.getTotal()).append(',');
+		appendJson(out, "queriesDone", metrics.getDone()).append(',');
+		appendJson(out, "queriesRemaining", metrics.getRemaining())
+				.append(',');
+		appendJson(out, "timeOuts", metrics.getTimeOuts()).append(',');
+		appendJson(out, "elapsedMillis", metrics.getElapsedMillis())
+				.append(',');
+		appendJson(out, "throughput", metrics.getThroughput()).append(',');
+		appendJson(out, "justifications", metrics.getJustifications())
+				.append(',');
+		appendJson(out, "justificationsPerSecond",
+				metrics.getJustificationRate()).append(',');
+		appendJson(out, "heapUsed", RunMetrics.getHeapUsed()).append(',');
+		appendJson(out, "heapCommitted", RunMetrics.getHeapCommitted())
+				.append(',');
+		appendJson(out, "heapMax", RunMetrics.getHeapMax()).append(',');
+		out.append("\"running\":[");
+		boolean first = true;
+		for (final RunMetrics.Query query : metrics.getRunning()) {
+			if (!first) {
+				out.append(',');
+			}
+			first = false;
+			out.append('{');
+			appendJson(out, "worker", query.getWorker()).append(',');
+			appendJson(out, "query", query.getQuery()).append(',');
+			appendJson(out, "elapsedMillis", query.getElapsedMillis())
+					.append(',');
+			appendJson(out, "justifications", query.getJustifications())
+					.append(',');
+			appendJson(out, "justificationsPerSecond",
+					query.getJustificationRate());
+			out.append('}');
+		}
+		out.append("],\"lastStats\":{");
+		first = true;
+		for (final Map.Entry<String, Object> entry : metrics.getLastStats()
+				.entrySet()) {
+			if (!first) {
+				out.append(',');
+			}
+			first = false;
+			appendJson(out, entry.getKey(), entry.getValue());
+		}
+		out.append("}}");
+		return out.toString();
+	}
+
+	private static StringBuilder appendJson(final StringBuilder out,
+			final String name, final Object value) {
+		out.append('"').append(escape(name)).append("\":");
+		if (value == null) {
+			out.append("null");
+		} else if (value instanceof Boolean) {
+			out.append(value);
+		} else if (value instanceof Number) {
+			final double number = ((Number) value).doubleValue();
+			if (Double.isNaN(number) || Double.isInfinite(number)) {
+				out.append("null");
+			} else {
+				out.append(value);
+			}
+		} else {
+			out.append('"').append(escape(value.toString())).append('"');
+		}
+		return out;
+	}
+
+	/**
+	 * Escapes a string so that it can be enclosed in double quotes in JSON
+	 * and in label values of the Prometheus format.
+	 */
+	private static String escape(final String string) {
+		final StringBuilder result = new StringBuilder(string.length());
+		for (int i = 0; i < string.length(); i++) {
+			final char c = string.charAt(i);
+			switch (c) {
+			case '"':
+				result.append("\\\"");
+				break;
+			case '\\':
+				result.append("\\\\");
+				break;
+			case '\n':
+				result.append("\\n");
+				break;
+			default:
+				if (c < 0x20) {
+					result.append(String.format("\\u%04x", (int) c));
+				} else {
+					result.append(c);
+				}
+			}
+		}
+		return result.toString();
+	}
+
+}
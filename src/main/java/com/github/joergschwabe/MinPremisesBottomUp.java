@@ -24,10 +24,12 @@ package com.github.joergschwabe;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
@@ -47,13 +49,18 @@ import org.semanticweb.elk.util.collections.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.joergschwabe.PhaseProfiler.Phase;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
 
 /**
- * Resets the whole context, does not cache anything!
+ * Resets the whole context for every query. The complete justifications of
+ * conclusions can be kept across queries over the same proof in a
+ * {@link JustificationCache} that is enabled by the system property
+ * {@value JustificationCache#MAX_WEIGHT_PROPERTY}; the premises of the cached
+ * conclusions are then not traversed.
  * 
  * @author Peter Skocovsky
  *
@@ -67,7 +74,11 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 	private static final Logger LOGGER_ = LoggerFactory
 			.getLogger(MinPremisesBottomUp.class);
 
-	private static final MinPremisesBottomUp.Factory<?, ?, ?> FACTORY_ = new Factory<>();
+	/**
+	 * justifications of conclusions kept across queries if the cache is
+	 * enabled
+	 */
+	private final JustificationCache<C, A> cache_;
 
 	/**
 	 * a map from conclusions to their justifications
@@ -75,6 +86,12 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 	private final ListMultimap<C, Justification<C, A>> justifications_ = ArrayListMultimap
 			.create();
 
+	/**
+	 * the justifications from {@link #justifications_} indexed for the
+	 * minimality checks
+	 */
+	private final Map<C, SubsetIndex<Justification<C, A>>> justificationIndex_ = new HashMap<>();
+
 	/**
 	 * a map from premises to inferences for relevant conclusions
 	 */
@@ -85,8 +102,7 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 	 * a map from premises and inferences for which they are used to their
 	 * justifications
 	 */
-	private final Multimap<Pair<I, C>, Justification<C, A>> premiseJustifications_ = ArrayListMultimap
-			.create();
+	private final Map<Pair<I, C>, SubsetIndex<Justification<C, A>>> premiseJustifications_ = new HashMap<>();
 
 	// Statistics
 
@@ -95,12 +111,15 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 
 	private MinPremisesBottomUp(final Proof<? extends I> proof,
 			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
-			final InterruptMonitor monitor) {
+			final InterruptMonitor monitor,
+			final JustificationCache<C, A> cache) {
 		super(proof, justifier, monitor);
+		this.cache_ = cache;
 	}
 
 	private void reset() {
 		justifications_.clear();
+		justificationIndex_.clear();
 		inferencesByPremises_.clear();
 		premiseJustifications_.clear();
 	}
@@ -161,15 +180,45 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 		return BloomSet.class;
 	}
 
-	@SuppressWarnings("unchecked")
-	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory() {
-		return (Factory<C, I, A>) FACTORY_;
+	@NestedStats
+	public static Class<?> getIndexStats() {
+		return SubsetIndex.class;
 	}
 
-	@SafeVarargs
-	private static <C, A> Justification<C, A> createJustification(C conclusion,
-			Collection<? extends A>... collections) {
-		return new BloomSet<C, A>(conclusion, collections);
+	@NestedStats(name = "cache")
+	public JustificationCache<C, A> getCacheStats() {
+		return cache_;
+	}
+
+	private SubsetIndex<Justification<C, A>> getPremiseJustifications(
+			final Pair<I, C> key) {
+		SubsetIndex<Justification<C, A>> justs = premiseJustifications_
+				.get(key);
+		if (justs == null) {
+			justs = new SubsetIndex<>();
+			premiseJustifications_.put(key, justs);
+		}
+		return justs;
+	}
+
+	private SubsetIndex<Justification<C, A>> getJustificationIndex(
+			final C conclusion) {
+		SubsetIndex<Justification<C, A>> index = justificationIndex_
+				.get(conclusion);
+		if (index == null) {
+			index = new SubsetIndex<>();
+			justificationIndex_.put(conclusion, index);
+		}
+		return index;
+	}
+
+	/**
+	 * @return the factory of computations sharing a new
+	 *         {@link JustificationCache}, which is enabled by the system
+	 *         property {@value JustificationCache#MAX_WEIGHT_PROPERTY}
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory() {
+		return new Factory<>(JustificationCache.<C, A> fromSystemProperty());
 	}
 
 	/**
@@ -195,6 +244,18 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 		 */
 		private final Queue<C> toInitialize_ = new LinkedList<C>();
 
+		/**
+		 * the conclusions whose justifications were taken from
+		 * {@link #cache_}
+		 */
+		private final Set<C> cached_ = new HashSet<C>();
+
+		/**
+		 * the conclusions some of whose justifications were blocked because
+		 * they are not needed for the justifications of the query
+		 */
+		private final Set<C> blocked_ = new HashSet<C>();
+
 		/**
 		 * newly computed justifications to be propagated
 		 */
@@ -204,15 +265,8 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 
 		private JobFactory<C, A, ?> jobFactory_;
 
-		/**
-		 * the justifications will be returned here, they come in increasing
-		 * size order
-		 */
-		private final List<? extends Set<A>> result_;
-
 		JustificationEnumerator(C conclusion) {
 			this.conclusion_ = conclusion;
-			this.result_ = justifications_.get(conclusion);
 		}
 
 		@Override
@@ -243,8 +297,12 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 			this.toDoJustifications_ = new PriorityQueue<JobFactory<C, A, ?>.Job>();
 
 			toInitialize(conclusion_);
+			PhaseProfiler.start(Phase.UNFOLDING);
 			initialize();
-			process();
+			PhaseProfiler.stop(Phase.UNFOLDING);
+			if (process() && cache_.isEnabled()) {
+				cacheJustifications();
+			}
 
 			this.listener_ = null;
 		}
@@ -261,6 +319,19 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 				countConclusions_++;
 				LOGGER_.trace("{}: computation of justifiations initialized",
 						conclusion);
+				if (cache_.isEnabled()) {
+					final List<Justification<C, A>> justs = cache_
+							.get(conclusion);
+					if (justs != null) {
+						LOGGER_.trace("{}: justifications cached", conclusion);
+						cached_.add(conclusion);
+						for (final Justification<C, A> just : justs) {
+							toDoJustifications_.add(jobFactory_.newJob(just));
+							countJustificationCandidates_++;
+						}
+						continue;
+					}
+				}
 				boolean derived = false;
 				for (final I inf : getInferences(conclusion)) {
 					LOGGER_.trace("{}: new inference", inf);
@@ -272,7 +343,7 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 					}
 					if (inf.getPremises().isEmpty()) {
 						toDoJustifications_.add(jobFactory_.newJob(
-								createJustification((C) inf.getConclusion(),
+								BloomSet.<C, A> create((C) inf.getConclusion(),
 										getJustification(inf))));
 						countJustificationCandidates_++;
 					}
@@ -294,13 +365,16 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 
 		/**
 		 * process new justifications until the fixpoint
+		 * 
+		 * @return {@code false} if the computation was interrupted before the
+		 *         fixpoint
 		 */
-		private void process() {
+		private boolean process() {
 			JobFactory<C, A, ?>.Job job;
 			while ((job = toDoJustifications_.poll()) != null) {
 				Justification<C, A> just = job.justification;
 				if (isInterrupted()) {
-					return;
+					return false;
 				}
 
 				C conclusion = just.getConclusion();
@@ -311,19 +385,28 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 				}
 				List<Justification<C, A>> justs = justifications_
 						.get(conclusion);
-				if (!Utils.isMinimal(just, justs)) {
+				PhaseProfiler.start(Phase.MINIMIZATION);
+				if (!Utils.isMinimal(just, getJustificationIndex(conclusion))) {
+					PhaseProfiler.stop(Phase.MINIMIZATION);
 					continue;
 				}
-				if (!Utils.isMinimal(just, result_)) {
+				if (!Utils.isMinimal(just,
+						getJustificationIndex(conclusion_))) {
+					PhaseProfiler.stop(Phase.MINIMIZATION);
 					countBlocked_++;
+					blocked_.add(conclusion);
 					LOGGER_.trace("blocked {}", just);
 					continue;
 				}
 				// else
+				PhaseProfiler.stop(Phase.MINIMIZATION);
 				justs.add(just);
+				getJustificationIndex(conclusion).add(just);
 				LOGGER_.trace("new {}", just);
 				if (conclusion_.equals(conclusion) && listener_ != null) {
+					PhaseProfiler.start(Phase.LISTENER);
 					listener_.newMinimalSubset(just);
+					PhaseProfiler.stop(Phase.LISTENER);
 				}
 
 				if (just.isEmpty()) {
@@ -333,10 +416,10 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 					for (final I inf : getInferences(conclusion)) {
 						for (C premise : inf.getPremises()) {
 							inferencesByPremises_.remove(premise, inf);
-							final Pair<I, C> key = Pair.create(inf, premise);
-							premiseJustifications_.removeAll(key);
-							premiseJustifications_.put(key,
-									just.copyTo(premise));
+							final SubsetIndex<Justification<C, A>> premiseJusts = getPremiseJustifications(
+									Pair.create(inf, premise));
+							premiseJusts.clear();
+							premiseJusts.add(just.copyTo(premise));
 						}
 					}
 
@@ -350,21 +433,19 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 					 * removed, there is no need to minimize their premise
 					 * justifications
 					 */
+					PhaseProfiler.start(Phase.MINIMIZATION);
 					for (final I inf : getInferences(conclusion)) {
 						final Justification<C, A> justLessInf = just
 								.removeElements(getJustification(inf));
 						for (final C premise : inf.getPremises()) {
-							final Iterator<Justification<C, A>> premiseJustIt = premiseJustifications_
-									.get(Pair.create(inf, premise)).iterator();
-							while (premiseJustIt.hasNext()) {
-								final Justification<C, A> premiseJust = premiseJustIt
-										.next();
-								if (premiseJust.containsAll(justLessInf)) {
-									premiseJustIt.remove();
-								}
+							final SubsetIndex<Justification<C, A>> premiseJusts = premiseJustifications_
+									.get(Pair.create(inf, premise));
+							if (premiseJusts != null) {
+								premiseJusts.removeSupersetsOf(justLessInf);
 							}
 						}
 					}
+					PhaseProfiler.stop(Phase.MINIMIZATION);
 
 				}
 
@@ -378,25 +459,28 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 				if (inferences == null || inferences.isEmpty()) {
 					continue;
 				}
+				PhaseProfiler.start(Phase.MINIMIZATION);
 				final List<I> infsToPropagate = new ArrayList<>(
 						inferences.size());
 				for (final I inf : inferences) {
-					final Collection<Justification<C, A>> premiseJusts = premiseJustifications_
-							.get(Pair.create(inf, conclusion));
+					final Collection<Justification<C, A>> premiseJusts = getPremiseJustifications(
+							Pair.create(inf, conclusion));
 
 					final Justification<C, A> justWithInf = just
 							.addElements(getJustification(inf));
 					if (Utils.isMinimal(justWithInf,
-							justifications_.get(inf.getConclusion()))) {
+							getJustificationIndex(inf.getConclusion()))) {
 						premiseJusts.add(just);
 						infsToPropagate.add(inf);
 					}
 
 				}
+				PhaseProfiler.stop(Phase.MINIMIZATION);
 
 				/*
 				 * propagating justification over inferences
 				 */
+				PhaseProfiler.start(Phase.PROPAGATION);
 				for (final I inf : infsToPropagate) {
 
 					Collection<Justification<C, A>> conclusionJusts = new ArrayList<Justification<C, A>>();
@@ -406,9 +490,12 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 					conclusionJusts.add(conclusionJust);
 					for (final C premise : inf.getPremises()) {
 						if (!premise.equals(conclusion)) {
+							final Collection<Justification<C, A>> premiseJusts = premiseJustifications_
+									.get(Pair.create(inf, premise));
 							conclusionJusts = Utils.join(conclusionJusts,
-									premiseJustifications_
-											.get(Pair.create(inf, premise)));
+									premiseJusts == null
+											? Collections.<Justification<C, A>> emptyList()
+											: premiseJusts);
 						}
 					}
 
@@ -418,9 +505,63 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 					}
 
 				}
+				PhaseProfiler.stop(Phase.PROPAGATION);
+
+			}
+
+			return true;
+		}
 
+		/**
+		 * puts the justifications of the relevant conclusions that are
+		 * complete into {@link #cache_}; the justifications of conclusions
+		 * derived from the conclusions with blocked justifications may be
+		 * incomplete, except for the query and for conclusions with the empty
+		 * justification
+		 */
+		private void cacheJustifications() {
+			final Multimap<C, C> conclusionsByPremises = ArrayListMultimap
+					.create();
+			for (final C conclusion : relevant_) {
+				if (cached_.contains(conclusion)) {
+					continue;
+				}
+				// else
+				for (final I inf : getInferences(conclusion)) {
+					for (final C premise : inf.getPremises()) {
+						conclusionsByPremises.put(premise, conclusion);
+					}
+				}
+			}
+			final Set<C> incomplete = new HashSet<C>();
+			final Queue<C> toDo = new LinkedList<C>(blocked_);
+			C conclusion;
+			while ((conclusion = toDo.poll()) != null) {
+				if (conclusion.equals(conclusion_)
+						|| hasEmptyJustification(conclusion)
+						|| !incomplete.add(conclusion)) {
+					continue;
+				}
+				// else
+				toDo.addAll(conclusionsByPremises.get(conclusion));
 			}
+			for (final C relevant : relevant_) {
+				if (!cached_.contains(relevant)
+						&& !incomplete.contains(relevant)) {
+					cache_.put(relevant, justifications_.get(relevant));
+				}
+			}
+		}
 
+		private boolean hasEmptyJustification(final C conclusion) {
+			for (final Justification<C, A> just : justifications_
+					.get(conclusion)) {
+				if (just.isEmpty()) {
+					return true;
+				}
+			}
+			// else
+			return false;
 		}
 
 	}
@@ -488,12 +629,22 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 	private static class Factory<C, I extends Inference<? extends C>, A>
 			implements MinimalSubsetsFromProofs.Factory<C, I, A> {
 
+		private final JustificationCache<C, A> cache_;
+
+		Factory(final JustificationCache<C, A> cache) {
+			this.cache_ = cache;
+		}
+
 		@Override
 		public MinimalSubsetEnumerator.Factory<C, A> create(
 				final Proof<? extends I> proof,
 				final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
 				final InterruptMonitor monitor) {
-			return new MinPremisesBottomUp<>(proof, justifier, monitor);
+			if (cache_.isEnabled()) {
+				cache_.useFor(proof);
+			}
+			return new MinPremisesBottomUp<>(proof, justifier, monitor,
+					cache_);
 		}
 
 	}
@@ -0,0 +1,94 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Thread-safe front-end of a {@link Recorder} that can be fed from several
+ * threads. Each record is submitted together with its index and the records
+ * are passed to the {@link Recorder} strictly in the order of their indices,
+ * so the output does not depend on the order in which the records were
+ * completed.
+ * <p>
+ * A record is held back until all records with smaller indices are
+ * submitted. {@link #flushRemaining()} writes the held back records even if
+ * some indices are missing.
+ */
+public class OrderedRecorder {
+
+	private final Recorder recorder_;
+
+	private final TreeMap<Integer, Map<String, Object>> pending_ = new TreeMap<>();
+
+	private int nextIndex_;
+
+	public OrderedRecorder(final Recorder recorder, final int firstIndex) {
+		this.recorder_ = recorder;
+		this.nextIndex_ = firstIndex;
+	}
+
+	public OrderedRecorder(final Recorder recorder) {
+		this(recorder, 0);
+	}
+
+	/**
+	 * Submits a record with the specified index. The values are written in
+	 * the iteration order of the provided map.
+	 *
+	 * @param index
+	 * @param record
+	 */
+	public synchronized void record(final int index,
+			final Map<String, Object> record) {
+		pending_.put(index, record);
+		Map<String, Object> next;
+		while ((next = pending_.remove(nextIndex_)) != null) {
+			write(next);
+			nextIndex_++;
+		}
+	}
+
+	/**
+	 * Writes all records that are held back because some records with
+	 * smaller indices were not submitted.
+	 */
+	public synchronized void flushRemaining() {
+		for (final Map.Entry<Integer, Map<String, Object>> entry : pending_
+				.entrySet()) {
+			write(entry.getValue());
+			nextIndex_ = entry.getKey() + 1;
+		}
+		pending_.clear();
+	}
+
+	private void write(final Map<String, Object> record) {
+		final Recorder.RecordBuilder builder = recorder_.newRecord();
+		for (final Map.Entry<String, Object> entry : record.entrySet()) {
+			builder.put(entry.getKey(), entry.getValue());
+		}
+		recorder_.commit();
+	}
+
+}
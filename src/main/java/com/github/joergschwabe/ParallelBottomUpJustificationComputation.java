@@ -0,0 +1,538 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Proof;
+import org.liveontologies.puli.pinpointing.AbstractMinimalSubsetEnumerator;
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.liveontologies.puli.pinpointing.MinimalSubsetEnumerator;
+import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
+import org.liveontologies.puli.pinpointing.PriorityComparator;
+import org.liveontologies.puli.statistics.NestedStats;
+import org.liveontologies.puli.statistics.ResetStats;
+import org.liveontologies.puli.statistics.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.joergschwabe.PhaseProfiler.Phase;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+
+/**
+ * Computes justifications bottom-up like
+ * {@link BottomUpJustificationComputation}, but processes the strongly
+ * connected components of the proof concurrently on the common
+ * {@link ForkJoinPool}. A component is scheduled once the justifications of
+ * all components containing premises of its inferences are computed; the
+ * justifications of the cyclic components are computed by a fixpoint local to
+ * the component. The justifications of computed components are reused for
+ * later queries.
+ * <p>
+ * Unlike {@link BottomUpJustificationComputation}, justifications are reported
+ * only after all of them are computed. The inferences and their
+ * justifications are retrieved from the proof on the thread calling
+ * {@link MinimalSubsetEnumerator#enumerate(MinimalSubsetEnumerator.Listener, PriorityComparator)},
+ * so the proof does not need to be thread safe. The parallelism can be set by
+ * the system property
+ * {@code java.util.concurrent.ForkJoinPool.common.parallelism}.
+ *
+ * @param <C>
+ *            the type of conclusions used in inferences
+ * @param <I>
+ *            the type of inferences used in the proof
+ * @param <A>
+ *            the type of axioms used by the inferences
+ */
+public class ParallelBottomUpJustificationComputation<C, I extends Inference<? extends C>, A>
+		extends MinimalSubsetsFromProofs<C, I, A> {
+
+	private static final Logger LOGGER_ = LoggerFactory
+			.getLogger(ParallelBottomUpJustificationComputation.class);
+
+	private static final ParallelBottomUpJustificationComputation.Factory<?, ?, ?> FACTORY_ = new Factory<>();
+
+	/**
+	 * a map from conclusions of the computed components to their
+	 * justifications; the lists are not modified after they are put here
+	 */
+	private final Map<C, List<Justification<C, A>>> justifications_ = new ConcurrentHashMap<>();
+
+	/**
+	 * the comparator with which {@link #justifications_} were computed
+	 */
+	private PriorityComparator<? super Set<A>, ?> priorityComparator_ = null;
+
+	// Statistics
+
+	private int countComponents_ = 0, countCyclicComponents_ = 0;
+
+	private final AtomicInteger countJustificationCandidates_ = new AtomicInteger();
+
+	private ParallelBottomUpJustificationComputation(
+			final Proof<? extends I> proof,
+			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			final InterruptMonitor monitor) {
+		super(proof, justifier, monitor);
+	}
+
+	@Override
+	public MinimalSubsetEnumerator<A> newEnumerator(final C query) {
+		return new JustificationEnumerator(query);
+	}
+
+	@Stat
+	public int nProcessedComponents() {
+		return countComponents_;
+	}
+
+	@Stat
+	public int nProcessedCyclicComponents() {
+		return countCyclicComponents_;
+	}
+
+	@Stat
+	public int nProcessedJustificationCandidates() {
+		return countJustificationCandidates_.get();
+	}
+
+	@Stat
+	public int nConclusionsWithJustifications() {
+		return justifications_.size();
+	}
+
+	@ResetStats
+	public void resetStats() {
+		countComponents_ = 0;
+		countCyclicComponents_ = 0;
+		countJustificationCandidates_.set(0);
+	}
+
+	@NestedStats
+	public static Class<?> getNestedStats() {
+		return BloomSet.class;
+	}
+
+	@NestedStats
+	public static Class<?> getIndexStats() {
+		return SubsetIndex.class;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory() {
+		return (Factory<C, I, A>) FACTORY_;
+	}
+
+	private static <A, P> void sort(final List<? extends Set<A>> justs,
+			final PriorityComparator<? super Set<A>, P> priorityComparator) {
+		Collections.sort(justs, new Comparator<Set<A>>() {
+			@Override
+			public int compare(final Set<A> first, final Set<A> second) {
+				return priorityComparator.compare(
+						priorityComparator.getPriority(first),
+						priorityComparator.getPriority(second));
+			}
+		});
+	}
+
+	private class JustificationEnumerator
+			extends AbstractMinimalSubsetEnumerator<A> {
+
+		private final C conclusion_;
+
+		JustificationEnumerator(final C conclusion) {
+			this.conclusion_ = conclusion;
+		}
+
+		@Override
+		public void enumerate(final Listener<A> listener,
+				final PriorityComparator<? super Set<A>, ?> priorityComparator) {
+			Preconditions.checkNotNull(listener);
+			if (priorityComparator == null) {
+				enumerate(listener);
+				return;
+			}
+			// else
+			if (!priorityComparator.equals(priorityComparator_)) {
+				justifications_.clear();
+				priorityComparator_ = priorityComparator;
+			}
+
+			List<Justification<C, A>> justs = justifications_.get(conclusion_);
+			if (justs == null) {
+				PhaseProfiler.start(Phase.UNFOLDING);
+				final Schedule schedule = new Schedule(conclusion_,
+						priorityComparator);
+				PhaseProfiler.stop(Phase.UNFOLDING);
+				if (!schedule.run()) {
+					return;
+				}
+				// else
+				justs = justifications_.get(conclusion_);
+			}
+
+			justs = new ArrayList<>(justs);
+			sort(justs, priorityComparator);
+			PhaseProfiler.start(Phase.LISTENER);
+			for (final Justification<C, A> just : justs) {
+				listener.newMinimalSubset(just);
+			}
+			PhaseProfiler.stop(Phase.LISTENER);
+		}
+
+	}
+
+	/**
+	 * The components of the proof of a query that still need to be computed,
+	 * with the dependencies between them
+	 */
+	private class Schedule {
+
+		private final BottomUpJustificationComputation.JobFactory<C, A, ?> jobFactory_;
+
+		private final List<ComponentTask> tasks_ = new ArrayList<>();
+
+		/**
+		 * the number of tasks that are not finished
+		 */
+		private final AtomicInteger remaining_ = new AtomicInteger();
+
+		/**
+		 * released when all tasks are finished or the computation is stopped
+		 */
+		private final CountDownLatch done_ = new CountDownLatch(1);
+
+		private volatile boolean cancelled_ = false;
+
+		private volatile Throwable failure_ = null;
+
+		Schedule(final C query,
+				final PriorityComparator<? super Set<A>, ?> priorityComparator) {
+			this.jobFactory_ = BottomUpJustificationComputation.JobFactory
+					.create(priorityComparator);
+			final StronglyConnectedComponents<C> components = StronglyConnectedComponentsComputation
+					.computeComponents(getProof(), query);
+			// components are listed premises first
+			final Map<Integer, ComponentTask> taskByComponent = new HashMap<>();
+			int componentId = 0;
+			for (final List<C> component : components.getComponents()) {
+				if (!justifications_.keySet().containsAll(component)) {
+					final ComponentTask task = new ComponentTask(component);
+					for (final C conclusion : component) {
+						for (final I inf : getInferences(conclusion)) {
+							task.addInference(inf);
+							for (final C premise : inf.getPremises()) {
+								final Integer premiseId = components
+										.getComponentId(premise);
+								if (premiseId == componentId) {
+									task.cyclic_ = true;
+									continue;
+								}
+								// else
+								final ComponentTask premiseTask = taskByComponent
+										.get(premiseId);
+								if (premiseTask != null && premiseTask
+										.addDependent(task)) {
+									task.pending_.incrementAndGet();
+								}
+							}
+						}
+					}
+					if (component.size() > 1) {
+						task.cyclic_ = true;
+					}
+					countComponents_++;
+					if (task.cyclic_) {
+						countCyclicComponents_++;
+					}
+					taskByComponent.put(componentId, task);
+					tasks_.add(task);
+				}
+				componentId++;
+			}
+			remaining_.set(tasks_.size());
+		}
+
+		/**
+		 * computes the justifications of all components
+		 * 
+		 * @return {@code false} if the computation was interrupted
+		 */
+		boolean run() {
+			if (tasks_.isEmpty()) {
+				return true;
+			}
+			// else
+			for (final ComponentTask task : tasks_) {
+				if (task.pending_.get() == 0) {
+					ForkJoinPool.commonPool().execute(task);
+				}
+			}
+			try {
+				done_.await();
+			} catch (final InterruptedException e) {
+				cancelled_ = true;
+				Thread.currentThread().interrupt();
+				return false;
+			}
+			if (failure_ != null) {
+				throw new RuntimeException(failure_);
+			}
+			// else
+			return !cancelled_;
+		}
+
+		private void finished(final ComponentTask task) {
+			for (final ComponentTask dependent : task.dependents_) {
+				if (dependent.pending_.decrementAndGet() == 0) {
+					dependent.fork();
+				}
+			}
+			if (remaining_.decrementAndGet() == 0) {
+				done_.countDown();
+			}
+		}
+
+		private void stop(final Throwable failure) {
+			failure_ = failure;
+			cancelled_ = true;
+			done_.countDown();
+		}
+
+		/**
+		 * Computes the justifications of the conclusions of one component
+		 * from the justifications of the premises in the components on which
+		 * it depends.
+		 */
+		private class ComponentTask extends RecursiveAction {
+
+			private static final long serialVersionUID = 1L;
+
+			private final List<C> conclusions_;
+
+			private final List<I> inferences_ = new ArrayList<>();
+
+			/**
+			 * the justifications of {@link #inferences_} at the same
+			 * positions
+			 */
+			private final List<Justification<C, A>> inferenceJustifications_ = new ArrayList<>();
+
+			/**
+			 * the tasks of components with premises in this component
+			 */
+			private final List<ComponentTask> dependents_ = new ArrayList<>();
+
+			/**
+			 * the number of components on which this component depends and
+			 * which are not finished
+			 */
+			private final AtomicInteger pending_ = new AtomicInteger();
+
+			private boolean cyclic_ = false;
+
+			ComponentTask(final List<C> conclusions) {
+				this.conclusions_ = conclusions;
+			}
+
+			void addInference(final I inf) {
+				inferences_.add(inf);
+				inferenceJustifications_.add(BloomSet.create(
+						(C) inf.getConclusion(), getJustification(inf)));
+			}
+
+			boolean addDependent(final ComponentTask task) {
+				if (!dependents_.isEmpty()
+						&& dependents_.get(dependents_.size() - 1) == task) {
+					// dependencies of a task are added consecutively
+					return false;
+				}
+				// else
+				dependents_.add(task);
+				return true;
+			}
+
+			@Override
+			protected void compute() {
+				try {
+					if (cancelled_) {
+						return;
+					}
+					// else
+					if (process()) {
+						finished(this);
+					} else {
+						stop(null);
+					}
+				} catch (final Throwable e) {
+					LOGGER_.error("computation of a component failed", e);
+					stop(e);
+				}
+			}
+
+			/**
+			 * @return {@code false} if the computation was interrupted
+			 */
+			private boolean process() {
+				final Map<C, List<Justification<C, A>>> justs = new HashMap<>();
+				final Map<C, SubsetIndex<Justification<C, A>>> index = new HashMap<>();
+				for (final C conclusion : conclusions_) {
+					justs.put(conclusion,
+							new ArrayList<Justification<C, A>>());
+					index.put(conclusion,
+							new SubsetIndex<Justification<C, A>>());
+				}
+				/*
+				 * positions of the inferences with premises in this component
+				 * by these premises
+				 */
+				final ListMultimap<C, Integer> inferencesByPremises = ArrayListMultimap
+						.create();
+				final PriorityQueue<BottomUpJustificationComputation.JobFactory<C, A, ?>.Job> toDo = new PriorityQueue<>();
+				int countCandidates = 0;
+
+				PhaseProfiler.start(Phase.PROPAGATION);
+				for (int i = 0; i < inferences_.size(); i++) {
+					final I inf = inferences_.get(i);
+					List<Justification<C, A>> conclusionJusts = Collections
+							.singletonList(inferenceJustifications_.get(i));
+					boolean external = true;
+					for (final C premise : inf.getPremises()) {
+						if (justs.containsKey(premise)) {
+							inferencesByPremises.put(premise, i);
+							external = false;
+						} else if (external) {
+							conclusionJusts = Utils.join(conclusionJusts,
+									justifications_.get(premise));
+						}
+					}
+					if (external) {
+						for (final Justification<C, A> just : conclusionJusts) {
+							countCandidates++;
+							toDo.add(jobFactory_.newJob(just));
+						}
+					}
+				}
+				PhaseProfiler.stop(Phase.PROPAGATION);
+
+				BottomUpJustificationComputation.JobFactory<C, A, ?>.Job job;
+				while ((job = toDo.poll()) != null) {
+					if (cancelled_ || isInterrupted()) {
+						return false;
+					}
+					// else
+					final Justification<C, A> just = job.justification;
+					final C conclusion = just.getConclusion();
+					PhaseProfiler.start(Phase.MINIMIZATION);
+					final SubsetIndex<Justification<C, A>> conclusionIndex = index
+							.get(conclusion);
+					if (!conclusionIndex.isMinimal(just)) {
+						PhaseProfiler.stop(Phase.MINIMIZATION);
+						continue;
+					}
+					// else
+					PhaseProfiler.stop(Phase.MINIMIZATION);
+					justs.get(conclusion).add(just);
+					conclusionIndex.add(just);
+
+					PhaseProfiler.start(Phase.PROPAGATION);
+					for (final int i : inferencesByPremises.get(conclusion)) {
+						final I inf = inferences_.get(i);
+						List<Justification<C, A>> conclusionJusts = Collections
+								.singletonList(just.copyTo(inf.getConclusion())
+										.addElements(
+												inferenceJustifications_
+														.get(i)));
+						for (final C premise : inf.getPremises()) {
+							if (premise.equals(conclusion)) {
+								continue;
+							}
+							// else
+							List<Justification<C, A>> premiseJusts = justs
+									.get(premise);
+							if (premiseJusts == null) {
+								premiseJusts = justifications_.get(premise);
+							}
+							conclusionJusts = Utils.join(conclusionJusts,
+									premiseJusts);
+						}
+						for (final Justification<C, A> conclJust : conclusionJusts) {
+							countCandidates++;
+							toDo.add(jobFactory_.newJob(conclJust));
+						}
+					}
+					PhaseProfiler.stop(Phase.PROPAGATION);
+				}
+
+				justifications_.putAll(justs);
+				countJustificationCandidates_.addAndGet(countCandidates);
+				LOGGER_.trace("{}: component computed", conclusions_);
+				return true;
+			}
+
+		}
+
+	}
+
+	/**
+	 * The factory for creating a
+	 * {@link ParallelBottomUpJustificationComputation}
+	 *
+	 * @param <C>
+	 *            the type of conclusions used in inferences
+	 * @param <I>
+	 *            the type of inferences used in the proof
+	 * @param <A>
+	 *            the type of axioms used by the inferences
+	 */
+	private static class Factory<C, I extends Inference<? extends C>, A>
+			implements MinimalSubsetsFromProofs.Factory<C, I, A> {
+
+		@Override
+		public MinimalSubsetEnumerator.Factory<C, A> create(
+				final Proof<? extends I> proof,
+				final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+				final InterruptMonitor monitor) {
+			return new ParallelBottomUpJustificationComputation<>(proof,
+					justifier, monitor);
+		}
+
+	}
+
+}
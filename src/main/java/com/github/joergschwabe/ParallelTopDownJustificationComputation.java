@@ -0,0 +1,570 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Proof;
+import org.liveontologies.puli.collections.BloomTrieCollection2;
+import org.liveontologies.puli.collections.Collection2;
+import org.liveontologies.puli.pinpointing.AbstractMinimalSubsetEnumerator;
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.liveontologies.puli.pinpointing.MinimalSubsetEnumerator;
+import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
+import org.liveontologies.puli.pinpointing.PriorityComparator;
+import org.liveontologies.puli.statistics.NestedStats;
+import org.liveontologies.puli.statistics.ResetStats;
+import org.liveontologies.puli.statistics.Stat;
+
+import com.github.joergschwabe.PhaseProfiler.Phase;
+import com.google.common.base.Preconditions;
+
+/**
+ * Computes justifications top-down like
+ * {@link TopDownJustificationComputation}, but expands the jobs on the workers
+ * of the common {@link ForkJoinPool}. Every job is expanded by a
+ * {@link RecursiveAction} that forks the actions for the jobs it produces, so
+ * idle workers steal the jobs of busy ones. The minimality of the jobs is
+ * checked against a shared store of minimal jobs. The justifications found by
+ * the actions are kept in a reorder buffer and reported on the thread calling
+ * the enumerator once no unfinished job has a smaller priority, so they are
+ * reported in the order of the {@link PriorityComparator}.
+ * <p>
+ * The inferences are retrieved from the proof under a lock and kept, so the
+ * proof and the justifier do not need to be thread safe. The parallelism can be
+ * set by the system property
+ * {@code java.util.concurrent.ForkJoinPool.common.parallelism}.
+ *
+ * @param <C>
+ *            the type of conclusion and premises used by the inferences
+ * @param <I>
+ *            the type of inferences used in the proof
+ * @param <A>
+ *            the type of axioms used by the inferences
+ */
+public class ParallelTopDownJustificationComputation<C, I extends Inference<? extends C>, A>
+		extends MinimalSubsetsFromProofs<C, I, A> {
+
+	private static final ParallelTopDownJustificationComputation.Factory<?, ?, ?> FACTORY_ = new Factory<>();
+
+	@SuppressWarnings("unchecked")
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory() {
+		return (Factory<C, I, A>) FACTORY_;
+	}
+
+	/**
+	 * the inferences of the conclusions retrieved from the proof
+	 */
+	private final ConcurrentMap<C, List<InferenceRecord<I, A>>> inferences_ = new ConcurrentHashMap<>();
+
+	/**
+	 * guards the access to the proof and the justifier
+	 */
+	private final Object proofLock_ = new Object();
+
+	/**
+	 * used to select the conclusion to expand
+	 */
+	private final Comparator<C> rank_;
+
+	// Statistics, updated by the workers
+	private final AtomicInteger producedJobsCount_ = new AtomicInteger(),
+			nonMinimalJobsCount_ = new AtomicInteger(),
+			expansionCount_ = new AtomicInteger(),
+			expandedInferencesCount_ = new AtomicInteger();
+
+	private ParallelTopDownJustificationComputation(
+			final Proof<? extends I> proof,
+			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			final InterruptMonitor monitor) {
+		super(proof, justifier, monitor);
+		this.rank_ = new Comparator<C>() {
+			@Override
+			public int compare(final C first, final C second) {
+				int result = Integer.compare(getInferenceRecords(first).size(),
+						getInferenceRecords(second).size());
+				if (result != 0) {
+					return result;
+				}
+				// else
+				return Integer.compare(first.hashCode(), second.hashCode());
+			}
+		};
+	}
+
+	@Override
+	public MinimalSubsetEnumerator<A> newEnumerator(final C query) {
+		return new JustificationEnumerator(query);
+	}
+
+	private List<InferenceRecord<I, A>> getInferenceRecords(
+			final C conclusion) {
+		List<InferenceRecord<I, A>> result = inferences_.get(conclusion);
+		if (result != null) {
+			return result;
+		}
+		// else
+		synchronized (proofLock_) {
+			result = inferences_.get(conclusion);
+			if (result != null) {
+				return result;
+			}
+			// else
+			final Collection<? extends I> infs = getInferences(conclusion);
+			result = new ArrayList<>(infs.size());
+			for (final I inf : infs) {
+				result.add(new InferenceRecord<I, A>(inf,
+						getJustification(inf)));
+			}
+			inferences_.put(conclusion, result);
+			return result;
+		}
+	}
+
+	private class JustificationEnumerator
+			extends AbstractMinimalSubsetEnumerator<A> {
+
+		private final C conclusion_;
+
+		/**
+		 * guards {@link #pending_} and {@link #toReport_}; notified when a
+		 * justification is found and when the smallest priority of the
+		 * pending jobs changes
+		 */
+		private final Object lock_ = new Object();
+
+		/**
+		 * the jobs whose actions are not finished yet with their numbers;
+		 * the jobs with the same priority are counted together
+		 */
+		private TreeMap<TopDownJustificationComputation.JobFactory<C, I, A, ?>.Job, Integer> pending_;
+
+		/**
+		 * justifications found by the actions that are not reported yet
+		 */
+		private PriorityQueue<TopDownJustificationComputation.JobFactory<C, I, A, ?>.Job> toReport_;
+
+		/**
+		 * Used to minimize the jobs
+		 */
+		private final MinimalSets<Set<Object>> minimalJobs_ = new MinimalSets<>();
+
+		private final MinimalSets<Set<A>> minimalJustifications_ = new MinimalSets<>();
+
+		/**
+		 * the first exception thrown by an action
+		 */
+		private volatile Throwable failure_ = null;
+
+		private Listener<A> listener_ = null;
+
+		private TopDownJustificationComputation.JobFactory<C, I, A, ?> jobFactory_;
+
+		JustificationEnumerator(final C query) {
+			this.conclusion_ = query;
+		}
+
+		@Override
+		public void enumerate(final Listener<A> listener,
+				final PriorityComparator<? super Set<A>, ?> priorityComparator) {
+			Preconditions.checkNotNull(listener);
+			if (priorityComparator == null) {
+				enumerate(listener);
+				return;
+			}
+			// else
+
+			this.pending_ = new TreeMap<>();
+			this.toReport_ = new PriorityQueue<>();
+			this.minimalJobs_.clear();
+			this.minimalJustifications_.clear();
+			this.failure_ = null;
+			this.jobFactory_ = TopDownJustificationComputation.JobFactory
+					.create(priorityComparator);
+			this.listener_ = listener;
+
+			final TopDownJustificationComputation.JobFactory<C, I, A, ?>.Job job = jobFactory_
+					.newJob(conclusion_);
+			producedJobsCount_.incrementAndGet();
+			synchronized (lock_) {
+				addPending(job);
+			}
+			ForkJoinPool.commonPool().execute(new ExpansionTask(job));
+			process();
+
+			this.listener_ = null;
+			if (failure_ instanceof RuntimeException) {
+				throw (RuntimeException) failure_;
+			}
+			if (failure_ instanceof Error) {
+				throw (Error) failure_;
+			}
+		}
+
+		/**
+		 * Reports the justifications until all actions are finished. After
+		 * an interruption, the actions do not expand their jobs and the
+		 * justifications are not reported any more.
+		 */
+		private void process() {
+			final List<TopDownJustificationComputation.JobFactory<C, I, A, ?>.Job> ready = new ArrayList<>();
+			boolean threadInterrupted = false;
+			boolean finished = false;
+			while (!finished) {
+				synchronized (lock_) {
+					for (;;) {
+						finished = pending_.isEmpty();
+						TopDownJustificationComputation.JobFactory<C, I, A, ?>.Job job;
+						while ((job = toReport_.peek()) != null && (finished
+								|| compare(job, pending_.firstKey()) <= 0)) {
+							ready.add(toReport_.poll());
+						}
+						if (finished || !ready.isEmpty()) {
+							break;
+						}
+						// else
+						try {
+							lock_.wait();
+						} catch (final InterruptedException e) {
+							// the actions must finish before returning
+							threadInterrupted = true;
+						}
+					}
+				}
+				if (!isInterrupted()) {
+					report(ready);
+				}
+				ready.clear();
+			}
+			if (threadInterrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		private void report(
+				final List<TopDownJustificationComputation.JobFactory<C, I, A, ?>.Job> jobs) {
+			for (final TopDownJustificationComputation.JobFactory<C, I, A, ?>.Job job : jobs) {
+				PhaseProfiler.start(Phase.MINIMIZATION);
+				final boolean isMinimal = minimalJustifications_
+						.addIfMinimal(job.justification_);
+				PhaseProfiler.stop(Phase.MINIMIZATION);
+				if (!isMinimal) {
+					nonMinimalJobsCount_.incrementAndGet();
+					continue;
+				}
+				// else
+				if (listener_ != null) {
+					PhaseProfiler.start(Phase.LISTENER);
+					listener_.newMinimalSubset(job.justification_);
+					PhaseProfiler.stop(Phase.LISTENER);
+				}
+			}
+		}
+
+		/**
+		 * must be called while holding {@link #lock_}
+		 */
+		private void addPending(
+				final TopDownJustificationComputation.JobFactory<C, I, A, ?>.Job job) {
+			final Integer count = pending_.get(job);
+			pending_.put(job, count == null ? 1 : count + 1);
+		}
+
+		/**
+		 * must be called while holding {@link #lock_}
+		 */
+		private void removePending(
+				final TopDownJustificationComputation.JobFactory<C, I, A, ?>.Job job) {
+			final Integer count = pending_.get(job);
+			if (count > 1) {
+				pending_.put(job, count - 1);
+				return;
+			}
+			// else
+			final boolean wasFirst = compare(pending_.firstKey(), job) == 0;
+			pending_.remove(job);
+			if (wasFirst) {
+				lock_.notifyAll();
+			}
+		}
+
+		/**
+		 * compares jobs created by {@link #jobFactory_}
+		 */
+		@SuppressWarnings("unchecked")
+		private int compare(final Comparable<?> first, final Object second) {
+			return ((Comparable<Object>) first).compareTo(second);
+		}
+
+		private final Comparator<Comparable<?>> jobOrder_ = new Comparator<Comparable<?>>() {
+			@Override
+			public int compare(final Comparable<?> first,
+					final Comparable<?> second) {
+				return JustificationEnumerator.this.compare(first, second);
+			}
+		};
+
+		private C chooseConclusion(final Collection<C> conclusions) {
+			// select the conclusion with the smallest rank
+			C result = null;
+			for (C c : conclusions) {
+				if (result == null || rank_.compare(c, result) < 0) {
+					result = c;
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Expands one job and forks the actions for the produced jobs
+		 */
+		private class ExpansionTask extends RecursiveAction {
+
+			private static final long serialVersionUID = 1L;
+
+			private final TopDownJustificationComputation.JobFactory<C, I, A, ?>.Job job_;
+
+			ExpansionTask(
+					final TopDownJustificationComputation.JobFactory<C, I, A, ?>.Job job) {
+				this.job_ = job;
+			}
+
+			@Override
+			protected void compute() {
+				List<TopDownJustificationComputation.JobFactory<C, I, A, ?>.Job> produced = Collections
+						.emptyList();
+				try {
+					produced = expand();
+				} catch (final RuntimeException | Error e) {
+					if (failure_ == null) {
+						failure_ = e;
+					}
+				}
+				synchronized (lock_) {
+					// the produced jobs must be pending before this one is
+					// finished, so that no smaller priority is missed
+					for (final TopDownJustificationComputation.JobFactory<C, I, A, ?>.Job job : produced) {
+						addPending(job);
+					}
+					removePending(job_);
+				}
+				// the first job is forked last, so that it is taken first
+				for (int i = produced.size() - 1; i >= 0; i--) {
+					new ExpansionTask(produced.get(i)).fork();
+				}
+			}
+
+			/**
+			 * @return the jobs produced from {@link #job_} in the order of
+			 *         their priorities
+			 */
+			private List<TopDownJustificationComputation.JobFactory<C, I, A, ?>.Job> expand() {
+				if (isInterrupted() || failure_ != null) {
+					return Collections.emptyList();
+				}
+				// else
+				PhaseProfiler.start(Phase.MINIMIZATION);
+				final boolean isMinimal = minimalJustifications_
+						.isMinimal(job_.justification_)
+						&& minimalJobs_.addIfMinimal(job_);
+				PhaseProfiler.stop(Phase.MINIMIZATION);
+				if (!isMinimal) {
+					nonMinimalJobsCount_.incrementAndGet();
+					return Collections.emptyList();
+				}
+				// else
+				if (job_.premises_.isEmpty()) {
+					synchronized (lock_) {
+						toReport_.add(job_);
+						lock_.notifyAll();
+					}
+					return Collections.emptyList();
+				}
+				// else
+				PhaseProfiler.start(Phase.UNFOLDING);
+				final List<InferenceRecord<I, A>> infs = getInferenceRecords(
+						chooseConclusion(job_.premises_));
+				final List<TopDownJustificationComputation.JobFactory<C, I, A, ?>.Job> produced = new ArrayList<>(
+						infs.size());
+				for (final InferenceRecord<I, A> inf : infs) {
+					produced.add(job_.expand(inf.inference_,
+							inf.justification_));
+				}
+				Collections.sort(produced, jobOrder_);
+				PhaseProfiler.stop(Phase.UNFOLDING);
+				expansionCount_.incrementAndGet();
+				expandedInferencesCount_.addAndGet(produced.size());
+				producedJobsCount_.addAndGet(produced.size());
+				return produced;
+			}
+
+		}
+
+	}
+
+	@Stat
+	public int nProducedJobs() {
+		return producedJobsCount_.get();
+	}
+
+	@Stat
+	public int nNonMinimalJobs() {
+		return nonMinimalJobsCount_.get();
+	}
+
+	@Stat
+	public double ratioInferencesPerExpansion() {
+		return ((double) expandedInferencesCount_.get())
+				/ expansionCount_.get();
+	}
+
+	@ResetStats
+	public void resetStats() {
+		producedJobsCount_.set(0);
+		nonMinimalJobsCount_.set(0);
+		expansionCount_.set(0);
+		expandedInferencesCount_.set(0);
+	}
+
+	@NestedStats
+	public static Class<?> getNestedStats() {
+		return BloomTrieCollection2.class;
+	}
+
+	private static class InferenceRecord<I, A> {
+
+		private final I inference_;
+
+		private final Set<? extends A> justification_;
+
+		InferenceRecord(final I inference,
+				final Set<? extends A> justification) {
+			this.inference_ = inference;
+			this.justification_ = justification;
+		}
+
+	}
+
+	/**
+	 * A collection of sets none of which contains another one that was added
+	 * before. Minimality checks of different threads run concurrently;
+	 * additions are exclusive.
+	 *
+	 * @param <J>
+	 *            the type of sets
+	 */
+	private static class MinimalSets<J extends Set<?>> {
+
+		private final Collection2<J> sets_ = new BloomTrieCollection2<>();
+
+		private final ReadWriteLock lock_ = new ReentrantReadWriteLock();
+
+		/**
+		 * @param set
+		 * @return {@code true} if no subset of the set was added before
+		 */
+		boolean isMinimal(final J set) {
+			lock_.readLock().lock();
+			try {
+				return sets_.isMinimal(set);
+			} finally {
+				lock_.readLock().unlock();
+			}
+		}
+
+		/**
+		 * @param set
+		 * @return {@code true} if no subset of the set was added before; in
+		 *         this case the set is added
+		 */
+		boolean addIfMinimal(final J set) {
+			if (!isMinimal(set)) {
+				return false;
+			}
+			// else
+			lock_.writeLock().lock();
+			try {
+				if (!sets_.isMinimal(set)) {
+					return false;
+				}
+				// else
+				sets_.add(set);
+				return true;
+			} finally {
+				lock_.writeLock().unlock();
+			}
+		}
+
+		void clear() {
+			lock_.writeLock().lock();
+			try {
+				sets_.clear();
+			} finally {
+				lock_.writeLock().unlock();
+			}
+		}
+
+	}
+
+	/**
+	 * The factory for creating a
+	 * {@link ParallelTopDownJustificationComputation}
+	 *
+	 * @param <C>
+	 *            the type of conclusion and premises used by the inferences
+	 * @param <I>
+	 *            the type of inferences used in proofs
+	 * @param <A>
+	 *            the type of axioms used by the inferences
+	 */
+	private static class Factory<C, I extends Inference<? extends C>, A>
+			implements MinimalSubsetsFromProofs.Factory<C, I, A> {
+
+		@Override
+		public MinimalSubsetEnumerator.Factory<C, A> create(
+				final Proof<? extends I> proof,
+				final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+				final InterruptMonitor monitor) {
+			return new ParallelTopDownJustificationComputation<>(proof,
+					justifier, monitor);
+		}
+
+	}
+
+}
@@ -0,0 +1,244 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.liveontologies.puli.statistics.ResetStats;
+import org.liveontologies.puli.statistics.Stat;
+
+/**
+ * Measures how much time the minimal subset enumerators spend in the
+ * {@link Phase}s of their computation. A phase is measured between
+ * {@link #start(Phase)} and {@link #stop(Phase)} called on the same thread.
+ * Phases may be nested; the time of a phase does not include the time of the
+ * phases nested in it, so the times of different phases can be summed up.
+ * <p>
+ * {@link #stop(Phase)} closes the innermost open occurrence of the phase and
+ * drops the phases opened inside of it that were not stopped, e.g., because
+ * of an exception. Stopping a phase that is not open has no effect.
+ * <p>
+ * The profiler is enabled by the system property {@value #ENABLED_PROPERTY}.
+ * When it is disabled, {@link #start(Phase)} and {@link #stop(Phase)} return
+ * immediately and are eliminated by the JIT compiler.
+ * <p>
+ * The times are summed up over all threads of the JVM and the experiments
+ * reset them before each query, so they are meaningful only when one query
+ * is computed at a time in the JVM. This is why
+ * {@link RunJustificationExperiments} does not allow several threads when
+ * the profiler is enabled.
+ */
+public class PhaseProfiler {
+
+	public static final String ENABLED_PROPERTY = "pinpointing.profilePhases";
+
+	public static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+
+	public static enum Phase {
+		/**
+		 * traversal of the inferences relevant for the query
+		 */
+		UNFOLDING,
+		/**
+		 * translation between the proof and its encoding
+		 */
+		TRANSLATION,
+		/**
+		 * adding clauses to a SAT solver
+		 */
+		CLAUSE_GENERATION,
+		/**
+		 * SAT solving including retrieval of the model
+		 */
+		SOLVING,
+		/**
+		 * checking whether the query is derivable from a set of axioms
+		 */
+		DERIVABILITY_CHECK,
+		/**
+		 * minimization of a candidate and minimality checks
+		 */
+		MINIMIZATION,
+		/**
+		 * search for cycles in a model
+		 */
+		CYCLE_SEARCH,
+		/**
+		 * combination of the subsets of premises into the subsets of
+		 * conclusions
+		 */
+		PROPAGATION,
+		/**
+		 * notification of the listeners about new minimal subsets
+		 */
+		LISTENER,
+	}
+
+	private static final double NANOS_IN_MILLIS = 1000000.0d;
+
+	private static final AtomicLongArray TIMES_NANOS_ = new AtomicLongArray(
+			Phase.values().length);
+
+	/**
+	 * incremented on reset, so that the phases started before the reset on
+	 * any thread are dropped
+	 */
+	private static volatile int GENERATION_ = 0;
+
+	private static final ThreadLocal<PhaseStack> STACKS_ = new ThreadLocal<PhaseStack>() {
+		@Override
+		protected PhaseStack initialValue() {
+			return new PhaseStack();
+		}
+	};
+
+	private PhaseProfiler() {
+		// Forbid instantiation of a utility class.
+	}
+
+	public static void start(final Phase phase) {
+		if (!ENABLED) {
+			return;
+		}
+		// else
+		STACKS_.get().push(phase, System.nanoTime());
+	}
+
+	public static void stop(final Phase phase) {
+		if (!ENABLED) {
+			return;
+		}
+		// else
+		STACKS_.get().pop(phase, System.nanoTime());
+	}
+
+	private static double getTimeMillis(final Phase phase) {
+		return TIMES_NANOS_.get(phase.ordinal()) / NANOS_IN_MILLIS;
+	}
+
+	@Stat
+	public static double unfoldingTime() {
+		return getTimeMillis(Phase.UNFOLDING);
+	}
+
+	@Stat
+	public static double translationTime() {
+		return getTimeMillis(Phase.TRANSLATION);
+	}
+
+	@Stat
+	public static double clauseGenerationTime() {
+		return getTimeMillis(Phase.CLAUSE_GENERATION);
+	}
+
+	@Stat
+	public static double solvingTime() {
+		return getTimeMillis(Phase.SOLVING);
+	}
+
+	@Stat
+	public static double derivabilityCheckTime() {
+		return getTimeMillis(Phase.DERIVABILITY_CHECK);
+	}
+
+	@Stat
+	public static double minimizationTime() {
+		return getTimeMillis(Phase.MINIMIZATION);
+	}
+
+	@Stat
+	public static double cycleSearchTime() {
+		return getTimeMillis(Phase.CYCLE_SEARCH);
+	}
+
+	@Stat
+	public static double propagationTime() {
+		return getTimeMillis(Phase.PROPAGATION);
+	}
+
+	@Stat
+	public static double listenerTime() {
+		return getTimeMillis(Phase.LISTENER);
+	}
+
+	@ResetStats
+	public static void resetStats() {
+		GENERATION_++;
+		for (int i = 0; i < TIMES_NANOS_.length(); i++) {
+			TIMES_NANOS_.set(i, 0l);
+		}
+	}
+
+	/**
+	 * The phases open on one thread.
+	 */
+	private static class PhaseStack {
+
+		private int generation_ = GENERATION_;
+		private Phase[] phases_ = new Phase[8];
+		private long[] startNanos_ = new long[8];
+		private long[] nestedNanos_ = new long[8];
+		private int size_ = 0;
+
+		void push(final Phase phase, final long nanoTime) {
+			if (generation_ != GENERATION_) {
+				generation_ = GENERATION_;
+				size_ = 0;
+			}
+			if (size_ == phases_.length) {
+				final int capacity = 2 * size_;
+				phases_ = Arrays.copyOf(phases_, capacity);
+				startNanos_ = Arrays.copyOf(startNanos_, capacity);
+				nestedNanos_ = Arrays.copyOf(nestedNanos_, capacity);
+			}
+			phases_[size_] = phase;
+			startNanos_[size_] = nanoTime;
+			nestedNanos_[size_] = 0l;
+			size_++;
+		}
+
+		void pop(final Phase phase, final long nanoTime) {
+			if (generation_ != GENERATION_) {
+				return;
+			}
+			// else
+			int i = size_ - 1;
+			while (i >= 0 && phases_[i] != phase) {
+				i--;
+			}
+			if (i < 0) {
+				return;
+			}
+			// else
+			final long elapsed = nanoTime - startNanos_[i];
+			TIMES_NANOS_.addAndGet(phase.ordinal(), elapsed - nestedNanos_[i]);
+			size_ = i;
+			if (i > 0) {
+				nestedNanos_[i - 1] += elapsed;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,381 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Orders queries by their predicted cost and splits them into shards with
+ * balanced total cost.
+ * <p>
+ * The costs are read from a record file, which may be a record of a previous
+ * run of an experiment or a record written by {@link StatisticsCollector}. The
+ * cost of a query is the value of the specified column of its record. If no
+ * column is specified, the column {@value #TIME_NAME} is used if present and
+ * otherwise the cost is estimated from the size of the proof, the number of
+ * axioms and the strongly connected components collected by
+ * {@link StatisticsCollector}. Queries without a record get the median cost of
+ * the other queries.
+ * <p>
+ * The order depends only on the costs and the text of the queries, not on
+ * their order in the query file.
+ */
+public class QueryScheduler {
+
+	private static final Logger LOGGER_ = LoggerFactory
+			.getLogger(QueryScheduler.class);
+
+	public static final String QUERY_NAME = "query";
+	public static final String TIME_NAME = "time";
+	public static final String INFERENCES_NAME = "nInferencesInAllProofs";
+	public static final String AXIOMS_NAME = "nAxiomsInAllProofs";
+	public static final String MAX_COMPONENT_NAME = "sizeOfMaxComponentInInferenceGraph";
+	public static final String COMPONENTS_NAME = "nNonSingletonComponentsInInferenceGraph";
+
+	public static final String ORDER_FILE = "file";
+	public static final String ORDER_SHORTEST = "shortest";
+	public static final String ORDER_LONGEST = "longest";
+	public static final String ORDER_INTERLEAVED = "interleaved";
+
+	public static final String[] ORDERS = { ORDER_FILE, ORDER_SHORTEST,
+			ORDER_LONGEST, ORDER_INTERLEAVED };
+
+	/**
+	 * Schedules the queries in the order of the query file and splits them
+	 * into shards by {@link Shard#contains(String)}.
+	 */
+	public static final QueryScheduler FILE_ORDER = new QueryScheduler(
+			ORDER_FILE, null);
+
+	private final String order_;
+
+	/**
+	 * The predicted costs of the queries without quotes, or {@code null} if
+	 * the costs are not known.
+	 */
+	private final Map<String, Double> costs_;
+
+	private final double defaultCost_;
+
+	private QueryScheduler(final String order, final Map<String, Double> costs) {
+		this.order_ = order;
+		this.costs_ = costs;
+		if (costs == null || costs.isEmpty()) {
+			this.defaultCost_ = 0.0;
+		} else {
+			final double[] values = new double[costs.size()];
+			int i = 0;
+			for (final Double cost : costs.values()) {
+				values[i++] = cost;
+			}
+			Arrays.sort(values);
+			this.defaultCost_ = values[values.length / 2];
+		}
+	}
+
+	/**
+	 * @param order
+	 *            one of {@link #ORDERS}
+	 * @param costFile
+	 *            the record file with the costs, may be {@code null} only if
+	 *            the order is {@link #ORDER_FILE}
+	 * @param costName
+	 *            the name of the column with the costs, or {@code null} if it
+	 *            should be chosen automatically
+	 * @return the scheduler
+	 * @throws IOException
+	 *             if the cost file cannot be read
+	 * @throws IllegalArgumentException
+	 *             if the order is unknown, the costs are needed but not
+	 *             provided or the cost file does not contain the costs
+	 */
+	public static QueryScheduler create(final String order,
+			final File costFile, final String costName) throws IOException {
+		if (!Arrays.asList(ORDERS).contains(order)) {
+			throw new IllegalArgumentException("Unknown order: " + order);
+		}
+		if (costFile == null) {
+			if (!ORDER_FILE.equals(order)) {
+				throw new IllegalArgumentException(
+						"The order " + order + " requires a cost file!");
+			}
+			return FILE_ORDER;
+		}
+		// else
+		return new QueryScheduler(order, readCosts(costFile, costName));
+	}
+
+	/**
+	 * @param costFile
+	 * @param costName
+	 *            the name of the column with the costs, or {@code null} if it
+	 *            should be chosen automatically
+	 * @return the costs of the queries in the record file indexed by the
+	 *         queries without quotes
+	 * @throws IOException
+	 */
+	public static Map<String, Double> readCosts(final File costFile,
+			final String costName) throws IOException {
+		RecordReader reader = null;
+		try {
+			reader = new RecordReader(costFile);
+			final List<String> names = reader.getAllNames();
+			if (!names.contains(QUERY_NAME)) {
+				throw new IllegalArgumentException(
+						"No column " + QUERY_NAME + " in " + costFile);
+			}
+			final String name;
+			if (costName != null) {
+				name = costName;
+			} else if (names.contains(TIME_NAME)) {
+				name = TIME_NAME;
+			} else if (names.contains(INFERENCES_NAME)) {
+				name = null;
+			} else {
+				throw new IllegalArgumentException(
+						"Cannot determine the costs from " + costFile);
+			}
+			if (name != null && !names.contains(name)) {
+				throw new IllegalArgumentException(
+						"No column " + name + " in " + costFile);
+			}
+			LOGGER_.info("costs of queries: {}",
+					name == null ? "estimated from proof statistics" : name);
+
+			final Map<String, Double> costs = new HashMap<>();
+			Map<String, String> record;
+			while ((record = reader.next()) != null) {
+				final String query = record.get(QUERY_NAME);
+				if (query == null) {
+					continue;
+				}
+				// else
+				final Double cost = name == null ? estimateCost(record)
+						: parseDouble(record.get(name));
+				if (cost != null) {
+					costs.put(RecordReader.unquote(query), cost);
+				}
+			}
+			return costs;
+		} finally {
+			Utils.closeQuietly(reader);
+		}
+	}
+
+	/**
+	 * Estimates the cost of computing the justifications from the statistics
+	 * of the proof. The number of justifications tends to grow with the
+	 * number of inferences and axioms, and the cycles in the proof make their
+	 * computation harder.
+	 *
+	 * @param record
+	 *            a record written by {@link StatisticsCollector}
+	 * @return the estimated cost or {@code null} if the record does not
+	 *         contain the necessary values
+	 */
+	static Double estimateCost(final Map<String, String> record) {
+		final Double nInferences = parseDouble(record.get(INFERENCES_NAME));
+		if (nInferences == null) {
+			return null;
+		}
+		// else
+		final Double nAxioms = parseDouble(record.get(AXIOMS_NAME));
+		final Double maxComponent = parseDouble(
+				record.get(MAX_COMPONENT_NAME));
+		final Double nComponents = parseDouble(record.get(COMPONENTS_NAME));
+		double cost = nInferences;
+		if (nAxioms != null) {
+			cost += nAxioms;
+		}
+		if (maxComponent != null && maxComponent > 1) {
+			cost *= maxComponent;
+		}
+		if (nComponents != null) {
+			cost *= 1 + nComponents;
+		}
+		return cost;
+	}
+
+	private static Double parseDouble(final String value) {
+		if (value == null) {
+			return null;
+		}
+		// else
+		try {
+			return Double.parseDouble(RecordReader.unquote(value));
+		} catch (final NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @param query
+	 * @return the predicted cost of the query
+	 */
+	public double getCost(final String query) {
+		if (costs_ == null) {
+			return 0.0;
+		}
+		// else
+		// Recorder drops quotes from strings
+		final Double cost = costs_.get(query.replace("\"", ""));
+		return cost == null ? defaultCost_ : cost;
+	}
+
+	/**
+	 * Selects the queries of the shard. Without costs, the queries are
+	 * selected by {@link Shard#contains(String)}. Otherwise, the queries are
+	 * distributed among the shards so that their total costs are balanced:
+	 * starting from the most expensive one, each query is assigned to the
+	 * shard with the smallest total cost so far. All shards must then be run
+	 * with the same queries and costs.
+	 *
+	 * @param queries
+	 *            all queries in the order of the query file
+	 * @param shard
+	 * @return the queries of the shard in the order of the query file
+	 */
+	public List<String> select(final List<String> queries,
+			final Shard shard) {
+		final List<String> result = new ArrayList<>();
+		if (costs_ == null || shard.getCount() == 1) {
+			for (final String query : queries) {
+				if (shard.contains(query)) {
+					result.add(query);
+				}
+			}
+			return result;
+		}
+		// else
+		final List<String> sorted = new ArrayList<>(queries);
+		Collections.sort(sorted,
+				Collections.reverseOrder(new CostComparator()));
+		final double[] load = new double[shard.getCount()];
+		final Map<String, Integer> assignment = new HashMap<>();
+		for (final String query : sorted) {
+			int min = 0;
+			for (int i = 1; i < load.length; i++) {
+				if (load[i] < load[min]) {
+					min = i;
+				}
+			}
+			load[min] += getCost(query);
+			assignment.put(query, min);
+		}
+		LOGGER_.info("predicted cost of shard {}: {} of {}", shard,
+				load[shard.getIndex()], sum(load));
+		for (final String query : queries) {
+			if (assignment.get(query) == shard.getIndex()) {
+				result.add(query);
+			}
+		}
+		return result;
+	}
+
+	private static double sum(final double[] values) {
+		double sum = 0.0;
+		for (final double value : values) {
+			sum += value;
+		}
+		return sum;
+	}
+
+	/**
+	 * @param queries
+	 * @return the queries in the order in which they should be run
+	 */
+	public List<String> schedule(final List<String> queries) {
+		if (ORDER_FILE.equals(order_)) {
+			return new ArrayList<>(queries);
+		}
+		// else
+		final List<String> sorted = new ArrayList<>(queries);
+		Collections.sort(sorted, new CostComparator());
+		if (ORDER_SHORTEST.equals(order_)) {
+			return sorted;
+		}
+		// else
+		if (ORDER_LONGEST.equals(order_)) {
+			Collections.reverse(sorted);
+			return sorted;
+		}
+		// else interleaved: the cheapest, the most expensive, the second
+		// cheapest, the second most expensive, ...
+		final List<String> result = new ArrayList<>(sorted.size());
+		int first = 0;
+		int last = sorted.size() - 1;
+		while (first <= last) {
+			result.add(sorted.get(first++));
+			if (first <= last) {
+				result.add(sorted.get(last--));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param queries
+	 * @return the queries ordered by their predicted costs starting from the
+	 *         cheapest one, or in the provided order if the costs are not
+	 *         known
+	 */
+	public List<String> sortByCost(final List<String> queries) {
+		final List<String> sorted = new ArrayList<>(queries);
+		if (costs_ != null) {
+			Collections.sort(sorted, new CostComparator());
+		}
+		return sorted;
+	}
+
+	/**
+	 * Compares queries by their costs and the queries with the same cost by
+	 * their text.
+	 */
+	private class CostComparator implements Comparator<String> {
+
+		@Override
+		public int compare(final String query1, final String query2) {
+			final int result = Double.compare(getCost(query1),
+					getCost(query2));
+			return result != 0 ? result : query1.compareTo(query2);
+		}
+
+	}
+
+	@Override
+	public String toString() {
+		return order_;
+	}
+
+}
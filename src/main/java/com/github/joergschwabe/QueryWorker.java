@@ -0,0 +1,181 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.Closeable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the computations of queries one after another on the same thread, so
+ * that the thread does not need to be created for every query.
+ * <p>
+ * A computation that does not finish within its timeout is first cancelled
+ * cooperatively by {@link Cancellable#cancel()}, which should make the
+ * {@link org.liveontologies.puli.pinpointing.InterruptMonitor InterruptMonitor}
+ * of the computation report an interrupt. If the computation ignores this and
+ * does not finish within the cancel delay, the thread is killed and replaced
+ * by a new one. <strong>Killing breaks any synchronization with the
+ * thread.</strong>
+ */
+public class QueryWorker implements Closeable {
+
+	private static final Logger LOGGER_ = LoggerFactory
+			.getLogger(QueryWorker.class);
+
+	/**
+	 * Something that can be asked to stop the computation.
+	 */
+	public static interface Cancellable {
+		void cancel();
+	}
+
+	private final String name_;
+	private final long cancelDelayMillis_;
+
+	private ExecutorService executor_;
+	private volatile Thread thread_ = null;
+	private int killCount_ = 0;
+
+	/**
+	 * @param name
+	 *            the name of the worker thread
+	 * @param cancelDelayMillis
+	 *            how long to wait for a cancelled computation before killing
+	 *            its thread
+	 */
+	public QueryWorker(final String name, final long cancelDelayMillis) {
+		this.name_ = name;
+		this.cancelDelayMillis_ = cancelDelayMillis;
+		this.executor_ = newExecutor();
+	}
+
+	private ExecutorService newExecutor() {
+		final String threadName = killCount_ == 0 ? name_
+				: name_ + "-" + killCount_;
+		return Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, threadName);
+				thread.setDaemon(true);
+				thread_ = thread;
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Runs the computation on the worker thread and waits until it finishes.
+	 * If the computation does not finish within the timeout, it is cancelled
+	 * and if it does not finish even within the cancel delay, it is killed.
+	 * Exceptions thrown by the computation are logged.
+	 *
+	 * @param computation
+	 * @param timeOutMillis
+	 *            how long to wait before cancelling the computation, if not
+	 *            positive, wait until it finishes
+	 * @param cancellable
+	 *            used to cancel the computation
+	 * @return {@code true} if the computation finished by itself or after it
+	 *         was cancelled, {@code false} if it had to be killed
+	 */
+	public boolean run(final Runnable computation, final long timeOutMillis,
+			final Cancellable cancellable) {
+		final Future<?> future = executor_.submit(computation);
+		if (await(future, timeOutMillis > 0 ? timeOutMillis : 0)) {
+			return true;
+		}
+		// else
+		cancellable.cancel();
+		if (await(future, cancelDelayMillis_)) {
+			return true;
+		}
+		// else
+		kill();
+		return false;
+	}
+
+	/**
+	 * @return {@code true} if the computation finished, {@code false} if the
+	 *         timeout expired or waiting was interrupted
+	 */
+	private boolean await(final Future<?> future, final long timeOutMillis) {
+		try {
+			if (timeOutMillis > 0) {
+				future.get(timeOutMillis, TimeUnit.MILLISECONDS);
+			} else {
+				future.get();
+			}
+			return true;
+		} catch (final TimeoutException e) {
+			return false;
+		} catch (final ExecutionException e) {
+			LOGGER_.error("The computation failed!", e.getCause());
+			return true;
+		} catch (final InterruptedException e) {
+			LOGGER_.warn("Waiting for the worker thread interruptet!", e);
+			return false;
+		}
+	}
+
+	/**
+	 * Calls {@link Thread#stop()} on the worker thread and starts a new one.
+	 */
+	@SuppressWarnings("deprecation")
+	private void kill() {
+		final Thread thread = thread_;
+		executor_.shutdownNow();
+		if (thread != null && thread.isAlive()) {
+			LOGGER_.info("killing the thread {}", thread.getName());
+			thread.stop();
+			try {
+				thread.join(cancelDelayMillis_);
+			} catch (final InterruptedException e) {
+				LOGGER_.warn("Waiting for the killed thread interruptet!", e);
+			}
+		}
+		killCount_++;
+		executor_ = newExecutor();
+	}
+
+	/**
+	 * @return how many times the worker thread had to be killed
+	 */
+	public int getKillCount() {
+		return killCount_;
+	}
+
+	@Override
+	public void close() {
+		executor_.shutdownNow();
+	}
+
+}
@@ -0,0 +1,198 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads record files written by {@link Recorder}. The first line contains the
+ * names of the values and each following line contains one record. The values
+ * are returned as they are written in the file, i.e., strings stay enclosed in
+ * quotes, so that they can be written back without any change.
+ * <p>
+ * A record may have fewer values than there are names, e.g., when the
+ * experiment was interrupted while the record was written. Such a record
+ * contains only the values that were written.
+ * <p>
+ * When a record file is read by {@link #RecordReader(File)}, the names that
+ * {@link Recorder} wrote into its schema file are added to the names when the
+ * first record that may have their values is read. All names, including those
+ * of the records not read yet, are returned by {@link #getAllNames()}.
+ */
+public class RecordReader implements Closeable {
+
+	public static final String SCHEMA_RECORD_NAME = "record";
+	public static final String SCHEMA_NAME_NAME = "name";
+
+	private final BufferedReader reader_;
+
+	private final List<String> names_ = new ArrayList<>();
+
+	/**
+	 * the names introduced later indexed by the index of the first record
+	 * that may have their values
+	 */
+	private final TreeMap<Integer, List<String>> laterNames_ = new TreeMap<>();
+
+	private int recordIndex_ = 0;
+
+	public RecordReader(final Reader reader) throws IOException {
+		this.reader_ = reader instanceof BufferedReader
+				? (BufferedReader) reader
+				: new BufferedReader(reader);
+		final String header = reader_.readLine();
+		if (header != null && !header.isEmpty()) {
+			names_.addAll(split(header));
+		}
+	}
+
+	public RecordReader(final File file) throws IOException {
+		this(new FileReader(file));
+		final File schemaFile = Recorder.getSchemaFile(file);
+		if (schemaFile.exists()) {
+			RecordReader schemaReader = null;
+			try {
+				schemaReader = new RecordReader(schemaFile);
+				Map<String, String> entry;
+				while ((entry = schemaReader.next()) != null) {
+					final int index = Integer
+							.parseInt(entry.get(SCHEMA_RECORD_NAME));
+					List<String> names = laterNames_.get(index);
+					if (names == null) {
+						names = new ArrayList<>();
+						laterNames_.put(index, names);
+					}
+					names.add(unquote(entry.get(SCHEMA_NAME_NAME)));
+				}
+			} catch (final NumberFormatException e) {
+				throw new IOException("Invalid schema file: " + schemaFile, e);
+			} finally {
+				Utils.closeQuietly(schemaReader);
+			}
+		}
+	}
+
+	/**
+	 * @return the names of the values in the order in which they are written,
+	 *         including the names from the schema file introduced up to the
+	 *         last record that was read
+	 */
+	public List<String> getNames() {
+		return Collections.unmodifiableList(names_);
+	}
+
+	/**
+	 * @return the names of the values in the order in which they are written,
+	 *         including all names from the schema file
+	 */
+	public List<String> getAllNames() {
+		final List<String> result = new ArrayList<>(names_);
+		for (final List<String> names : laterNames_.values()) {
+			result.addAll(names);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the next record as a map from names to the values as they are
+	 *         written in the file, or {@code null} if there are no more
+	 *         records
+	 * @throws IOException
+	 */
+	public Map<String, String> next() throws IOException {
+		String line;
+		do {
+			line = reader_.readLine();
+			if (line == null) {
+				return null;
+			}
+		} while (line.isEmpty());
+		while (!laterNames_.isEmpty()
+				&& laterNames_.firstKey() <= recordIndex_) {
+			names_.addAll(laterNames_.pollFirstEntry().getValue());
+		}
+		recordIndex_++;
+		final List<String> values = split(line);
+		final Map<String, String> record = new LinkedHashMap<>();
+		final int size = Math.min(values.size(), names_.size());
+		for (int i = 0; i < size; i++) {
+			record.put(names_.get(i), values.get(i));
+		}
+		return record;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader_.close();
+	}
+
+	/**
+	 * Splits a line of a record file at the delimiters that are not enclosed
+	 * in quotes.
+	 *
+	 * @param line
+	 * @return the values in the line as they are written
+	 */
+	public static List<String> split(final String line) {
+		final List<String> values = new ArrayList<>();
+		boolean quoted = false;
+		int start = 0;
+		for (int i = 0; i < line.length(); i++) {
+			final char c = line.charAt(i);
+			if (c == '"') {
+				quoted = !quoted;
+			} else if (c == ',' && !quoted) {
+				values.add(line.substring(start, i));
+				start = i + 1;
+			}
+		}
+		values.add(line.substring(start));
+		return values;
+	}
+
+	/**
+	 * @param value
+	 *            a value as written in a record file
+	 * @return the value without the enclosing quotes, if there are any
+	 */
+	public static String unquote(final String value) {
+		if (value != null && value.length() >= 2 && value.startsWith("\"")
+				&& value.endsWith("\"")) {
+			return value.substring(1, value.length() - 1);
+		}
+		// else
+		return value;
+	}
+
+}
@@ -22,10 +22,17 @@ package com.github.joergschwabe;
  * #L%
  */
 
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileWriter;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.SyncFailedException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ListIterator;
@@ -48,11 +55,33 @@ import org.slf4j.LoggerFactory;
  * Calling {@link #flush()} writes the entered records that were not printed yet
  * into the {@link PrintWriter} provided to the constructor. The records are
  * written in the CSV format (delimiter is "," and quote character is "\""). The
- * first line are the names of the values in the records, so if a new name is
- * introduces after the first call to {@link #flush()}, behavior is undefined.
- * Also the record that is just being entered is written, so if its values are
- * entered in a different order as for the previous records, behavior is
- * undefined.
+ * first line are the names of the values in the records. If a new name is
+ * introduced after the first line was written, its values are written after
+ * the values of the previous names and, if the recorder was created with
+ * {@link #Recorder(PrintWriter, File)}, the name is written into the schema
+ * file (see {@link #getSchemaFile(File)}) together with the index of
+ * the first record that may have its value; {@link RecordReader} reads such
+ * names from the schema file. Also the record that is just being entered is
+ * written, so if its values are entered in a different order as for the
+ * previous records, behavior is undefined. The written records are not kept
+ * in memory.
+ * <p>
+ * Calling {@link #commit()} finishes entering the current record and writes
+ * it completely.
+ * <p>
+ * A recorder created with
+ * {@link #Recorder(PrintWriter, Collection, FileDescriptor, File, int)} appends
+ * to an existing record file. Such a recorder never writes a record partially:
+ * {@link #flush()} does nothing and each record is written as one line when it
+ * is committed, either explicitly or by {@link #newRecord()}. After each line
+ * the output is synchronized with the underlying device, so the file always
+ * contains only complete records. The names introduced after the header are
+ * written into the schema file like above, with the indexes of the records
+ * counted from the beginning of the file.
+ * <p>
+ * A recorder created with {@link #Recorder(ColumnarRecordWriter)} passes each
+ * record to the {@link ColumnarRecordWriter} when it is committed and
+ * {@link #flush()} does nothing.
  * 
  * @author Peter Skocovsky
  */
@@ -69,7 +98,9 @@ public class Recorder {
 
 			LOGGER_.info("{}: {}", name, value);
 
-			names_.add(name);
+			if (names_.add(name) && headerWritten_) {
+				writeSchema(name);
+			}
 			return currentRecord_.put(name, value);
 		}
 
@@ -78,7 +109,13 @@ public class Recorder {
 	private static final Logger LOGGER_ = LoggerFactory
 			.getLogger(Recorder.class);
 
+	public static final String SCHEMA_FILE_SUFFIX = ".schema";
+
 	private final PrintWriter output_;
+	private final boolean appending_;
+	private final FileDescriptor syncDescriptor_;
+	private final File schemaFile_;
+	private final ColumnarRecordWriter columnarOutput_;
 
 	private final Set<String> names_ = new LinkedHashSet<>();
 	private final List<List<Object>> records_ = new ArrayList<>();
@@ -87,9 +124,79 @@ public class Recorder {
 
 	private int recordIndex_ = 0;
 	private int valueIndex_ = 0;
+	private boolean headerWritten_;
+
+	/**
+	 * the number of finished records, i.e., the index of the current one
+	 */
+	private int recordCount_ = 0;
 
 	public Recorder(final PrintWriter output) {
+		this(output, (File) null);
+	}
+
+	/**
+	 * Creates a recorder that writes the names introduced after the header
+	 * was written into a schema file. The schema file is created only if there
+	 * are such names.
+	 * 
+	 * @param output
+	 * @param schemaFile
+	 *            the schema file, if {@code null}, the names are not written
+	 */
+	public Recorder(final PrintWriter output, final File schemaFile) {
+		this.output_ = output;
+		this.appending_ = false;
+		this.syncDescriptor_ = null;
+		this.schemaFile_ = schemaFile;
+		this.columnarOutput_ = null;
+		this.headerWritten_ = false;
+	}
+
+	/**
+	 * Creates a recorder that writes the records in the binary columnar
+	 * format.
+	 * 
+	 * @param output
+	 */
+	public Recorder(final ColumnarRecordWriter output) {
+		this.output_ = null;
+		this.appending_ = true;
+		this.syncDescriptor_ = null;
+		this.schemaFile_ = null;
+		this.columnarOutput_ = output;
+		this.headerWritten_ = false;
+	}
+
+	/**
+	 * Creates a recorder that appends complete records to a record file.
+	 * 
+	 * @param output
+	 *            the output appending to the record file
+	 * @param names
+	 *            the names of the values that are already written in the
+	 *            header of the record file, if this is empty, the header is
+	 *            written before the first record
+	 * @param syncDescriptor
+	 *            if not {@code null}, this descriptor is synchronized after
+	 *            each written record
+	 * @param schemaFile
+	 *            the schema file of the record file, if {@code null}, the new
+	 *            names are not written
+	 * @param recordCount
+	 *            the number of records already in the record file
+	 */
+	public Recorder(final PrintWriter output, final Collection<String> names,
+			final FileDescriptor syncDescriptor, final File schemaFile,
+			final int recordCount) {
 		this.output_ = output;
+		this.appending_ = true;
+		this.syncDescriptor_ = syncDescriptor;
+		this.schemaFile_ = schemaFile;
+		this.columnarOutput_ = null;
+		this.names_.addAll(names);
+		this.headerWritten_ = !names.isEmpty();
+		this.recordCount_ = recordCount;
 	}
 
 	public RecordBuilder newRecord() {
@@ -97,33 +204,96 @@ public class Recorder {
 			return recordBuilder_;
 		}
 		// else
+		if (appending_) {
+			commit();
+			return recordBuilder_;
+		}
+		// else
 		final List<Object> record = new ArrayList<>(currentRecord_.size());
 		for (final String name : names_) {
 			final Object value = currentRecord_.get(name);
 			record.add(value);
 		}
-		records_.add(record);
+		if (output_ != null) {
+			records_.add(record);
+		}
 		currentRecord_.clear();
+		recordCount_++;
 		return recordBuilder_;
 	}
 
-	public void flush() {
+	/**
+	 * Finishes entering the current record and writes all records that were
+	 * not written yet.
+	 */
+	public void commit() {
+		if (!appending_) {
+			newRecord();
+			flush();
+			return;
+		}
+		// else
+		if (currentRecord_.isEmpty()) {
+			return;
+		}
+		// else
+		recordCount_++;
+		if (columnarOutput_ != null) {
+			final Map<String, Object> record = new LinkedHashMap<>();
+			for (final String name : names_) {
+				record.put(name, currentRecord_.get(name));
+			}
+			currentRecord_.clear();
+			try {
+				columnarOutput_.write(record);
+			} catch (final IOException e) {
+				LOGGER_.error("Error while writing a record!", e);
+			}
+			return;
+		}
+		// else
 		if (output_ == null) {
+			currentRecord_.clear();
 			return;
 		}
 		// else
 
-		if (recordIndex_ == 0 && valueIndex_ == 0) {
-			// Write header
-			final Iterator<String> iter = names_.iterator();
-			if (iter.hasNext()) {
-				output_.print(iter.next());
-				while (iter.hasNext()) {
-					output_.print(",");
-					output_.print(iter.next());
-				}
+		if (!headerWritten_) {
+			writeHeader();
+		}
+
+		final Iterator<String> iter = names_.iterator();
+		if (iter.hasNext()) {
+			output_.print(valueToString(currentRecord_.get(iter.next())));
+			while (iter.hasNext()) {
+				output_.print(",");
+				output_.print(valueToString(currentRecord_.get(iter.next())));
 			}
-			output_.println();
+		}
+		output_.println();
+		currentRecord_.clear();
+
+		output_.flush();
+		if (output_.checkError()) {
+			LOGGER_.error("Error while writing a record!");
+		}
+		if (syncDescriptor_ != null) {
+			try {
+				syncDescriptor_.sync();
+			} catch (final SyncFailedException e) {
+				LOGGER_.error("Could not synchronize the record!", e);
+			}
+		}
+	}
+
+	public void flush() {
+		if (output_ == null || appending_) {
+			return;
+		}
+		// else
+
+		if (!headerWritten_) {
+			writeHeader();
 		}
 
 		for (; recordIndex_ < records_.size(); recordIndex_++) {
@@ -137,6 +307,9 @@ public class Recorder {
 			valueIndex_ = 0;
 			output_.println();
 		}
+		// the written records are not needed any more
+		records_.clear();
+		recordIndex_ = 0;
 
 		final List<Object> record = new ArrayList<>(currentRecord_.size());
 		for (final String name : names_) {
@@ -162,7 +335,74 @@ public class Recorder {
 		output_.flush();
 	}
 
-	private String valueToString(final Object value) {
+	/**
+	 * @param recordFile
+	 * @return the file into which the names introduced after the header of
+	 *         the record file was written are written
+	 */
+	public static File getSchemaFile(final File recordFile) {
+		return new File(recordFile.getPath() + SCHEMA_FILE_SUFFIX);
+	}
+
+	private void writeSchema(final String name) {
+		if (schemaFile_ == null) {
+			return;
+		}
+		// else
+		final boolean isNew = !schemaFile_.exists();
+		PrintWriter schemaOutput = null;
+		try {
+			schemaOutput = new PrintWriter(new FileWriter(schemaFile_, true));
+			if (isNew) {
+				writeSchemaHeader(schemaOutput);
+			}
+			writeSchemaEntry(schemaOutput, recordCount_, name);
+		} catch (final IOException e) {
+			LOGGER_.error("Could not write the schema file!", e);
+		} finally {
+			Utils.closeQuietly(schemaOutput);
+		}
+	}
+
+	static void writeSchemaHeader(final PrintWriter schemaOutput) {
+		schemaOutput.println(RecordReader.SCHEMA_RECORD_NAME + ","
+				+ RecordReader.SCHEMA_NAME_NAME);
+	}
+
+	/**
+	 * Writes a line of a schema file.
+	 * 
+	 * @param schemaOutput
+	 * @param recordIndex
+	 *            the index of the first record that may have a value of the
+	 *            name
+	 * @param name
+	 */
+	static void writeSchemaEntry(final PrintWriter schemaOutput,
+			final int recordIndex, final String name) {
+		schemaOutput.print(recordIndex);
+		schemaOutput.print(",");
+		schemaOutput.println(valueToString(name));
+	}
+
+	private void writeHeader() {
+		final Iterator<String> iter = names_.iterator();
+		if (iter.hasNext()) {
+			output_.print(iter.next());
+			while (iter.hasNext()) {
+				output_.print(",");
+				output_.print(iter.next());
+			}
+		}
+		output_.println();
+		headerWritten_ = true;
+	}
+
+	/**
+	 * @param value
+	 * @return the value as it is written into the record file
+	 */
+	static String valueToString(final Object value) {
 		if (value == null) {
 			return "" + value;
 		}
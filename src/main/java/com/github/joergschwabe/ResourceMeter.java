@@ -0,0 +1,303 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Measures the resources used by a computation between {@link #start()} and
+ * {@link #stop()}: CPU time, user time and allocated bytes of the measured
+ * threads and the time spent in and the number of garbage collections.
+ * <p>
+ * {@link #forCurrentThread()} measures only the thread calling
+ * {@link #start()} and {@link #stop()}.
+ * {@link #forThreadsStartedLater()} measures all threads started after the
+ * meter was created, so that the worker threads created by the computation
+ * are included. Threads that terminate before {@link #stop()} cannot be
+ * measured. The garbage collections are counted for the whole JVM, so they
+ * include the collections caused by other computations running concurrently.
+ * <p>
+ * The values that the JVM cannot measure are {@code null}.
+ */
+public class ResourceMeter {
+
+	public static final String CPU_TIME_NAME = "cpuTime";
+	public static final String USER_TIME_NAME = "userTime";
+	public static final String ALLOCATED_BYTES_NAME = "allocatedBytes";
+	public static final String GC_TIME_NAME = "gcTime";
+	public static final String GC_COUNT_NAME = "gcCount";
+
+	private static final ThreadMXBean THREAD_MX_BEAN_ = ManagementFactory
+			.getThreadMXBean();
+
+	private static final double NANOS_IN_MILLIS = 1000000.0d;
+
+	private static final int CPU_ = 0, USER_ = 1, ALLOCATED_ = 2;
+
+	/**
+	 * The threads that are not measured, or {@code null} if only the current
+	 * thread is measured.
+	 */
+	private final Set<Long> ignoredThreadIds_;
+
+	private Map<Long, long[]> startValues_ = Collections.emptyMap();
+	private long startGcTimeMillis_ = -1l;
+	private long startGcCount_ = -1l;
+
+	private Double cpuTimeMillis_ = null;
+	private Double userTimeMillis_ = null;
+	private Long allocatedBytes_ = null;
+	private Long gcTimeMillis_ = null;
+	private Long gcCount_ = null;
+
+	private ResourceMeter(final Set<Long> ignoredThreadIds) {
+		this.ignoredThreadIds_ = ignoredThreadIds;
+	}
+
+	/**
+	 * @return a meter measuring only the thread on which {@link #start()} and
+	 *         {@link #stop()} are called
+	 */
+	public static ResourceMeter forCurrentThread() {
+		return new ResourceMeter(null);
+	}
+
+	/**
+	 * @return a meter measuring all threads that are not alive at the moment
+	 *         of this call
+	 */
+	public static ResourceMeter forThreadsStartedLater() {
+		final Set<Long> ignored = new HashSet<>();
+		for (final long id : THREAD_MX_BEAN_.getAllThreadIds()) {
+			ignored.add(id);
+		}
+		return new ResourceMeter(ignored);
+	}
+
+	public void start() {
+		cpuTimeMillis_ = null;
+		userTimeMillis_ = null;
+		allocatedBytes_ = null;
+		gcTimeMillis_ = null;
+		gcCount_ = null;
+		startValues_ = snapshot();
+		startGcTimeMillis_ = gcTimeMillis();
+		startGcCount_ = gcCount();
+	}
+
+	public void stop() {
+		final Map<Long, long[]> stopValues = snapshot();
+		final long[] sums = { 0l, 0l, 0l };
+		final boolean[] supported = { true, true, true };
+		for (final Map.Entry<Long, long[]> entry : stopValues.entrySet()) {
+			final long[] stop = entry.getValue();
+			final long[] start = startValues_.get(entry.getKey());
+			for (int i = 0; i < sums.length; i++) {
+				if (stop[i] < 0 || (start != null && start[i] < 0)) {
+					supported[i] = false;
+				} else {
+					sums[i] += start == null ? stop[i] : stop[i] - start[i];
+				}
+			}
+		}
+		final boolean measured = !stopValues.isEmpty();
+		cpuTimeMillis_ = measured && supported[CPU_]
+				? sums[CPU_] / NANOS_IN_MILLIS
+				: null;
+		userTimeMillis_ = measured && supported[USER_]
+				? sums[USER_] / NANOS_IN_MILLIS
+				: null;
+		allocatedBytes_ = measured && supported[ALLOCATED_] ? sums[ALLOCATED_]
+				: null;
+
+		final long stopGcTimeMillis = gcTimeMillis();
+		gcTimeMillis_ = startGcTimeMillis_ < 0 || stopGcTimeMillis < 0 ? null
+				: stopGcTimeMillis - startGcTimeMillis_;
+		final long stopGcCount = gcCount();
+		gcCount_ = startGcCount_ < 0 || stopGcCount < 0 ? null
+				: stopGcCount - startGcCount_;
+	}
+
+	/**
+	 * @return CPU time in milliseconds
+	 */
+	public Double getCpuTimeMillis() {
+		return cpuTimeMillis_;
+	}
+
+	/**
+	 * @return CPU time spent in user mode in milliseconds
+	 */
+	public Double getUserTimeMillis() {
+		return userTimeMillis_;
+	}
+
+	/**
+	 * @return the number of bytes allocated on the heap
+	 */
+	public Long getAllocatedBytes() {
+		return allocatedBytes_;
+	}
+
+	/**
+	 * @return the time spent in garbage collections in milliseconds
+	 */
+	public Long getGcTimeMillis() {
+		return gcTimeMillis_;
+	}
+
+	/**
+	 * @return the number of garbage collections
+	 */
+	public Long getGcCount() {
+		return gcCount_;
+	}
+
+	/**
+	 * Puts the measured values into the record.
+	 *
+	 * @param record
+	 */
+	public void putInto(final Map<String, Object> record) {
+		record.put(CPU_TIME_NAME, cpuTimeMillis_);
+		record.put(USER_TIME_NAME, userTimeMillis_);
+		record.put(ALLOCATED_BYTES_NAME, allocatedBytes_);
+		record.put(GC_TIME_NAME, gcTimeMillis_);
+		record.put(GC_COUNT_NAME, gcCount_);
+	}
+
+	/**
+	 * Puts the measured values into the record.
+	 *
+	 * @param record
+	 */
+	public void putInto(final Recorder.RecordBuilder record) {
+		record.put(CPU_TIME_NAME, cpuTimeMillis_);
+		record.put(USER_TIME_NAME, userTimeMillis_);
+		record.put(ALLOCATED_BYTES_NAME, allocatedBytes_);
+		record.put(GC_TIME_NAME, gcTimeMillis_);
+		record.put(GC_COUNT_NAME, gcCount_);
+	}
+
+	/**
+	 * @return the values of the measured threads that are alive, indexed by
+	 *         {@link #CPU_}, {@link #USER_} and {@link #ALLOCATED_}, negative
+	 *         if not supported
+	 */
+	private Map<Long, long[]> snapshot() {
+		final long[] ids;
+		if (ignoredThreadIds_ == null) {
+			ids = new long[] { Thread.currentThread().getId() };
+		} else {
+			final long[] allIds = THREAD_MX_BEAN_.getAllThreadIds();
+			int size = 0;
+			for (final long id : allIds) {
+				if (!ignoredThreadIds_.contains(id)) {
+					allIds[size++] = id;
+				}
+			}
+			ids = new long[size];
+			System.arraycopy(allIds, 0, ids, 0, size);
+		}
+
+		final long[] cpu;
+		final long[] user;
+		long[] allocated = null;
+		if (THREAD_MX_BEAN_ instanceof com.sun.management.ThreadMXBean) {
+			final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN_;
+			if (isCpuTimeEnabled()) {
+				cpu = bean.getThreadCpuTime(ids);
+				user = bean.getThreadUserTime(ids);
+			} else {
+				cpu = null;
+				user = null;
+			}
+			if (bean.isThreadAllocatedMemorySupported()
+					&& bean.isThreadAllocatedMemoryEnabled()) {
+				allocated = bean.getThreadAllocatedBytes(ids);
+			}
+		} else if (isCpuTimeEnabled()) {
+			cpu = new long[ids.length];
+			user = new long[ids.length];
+			for (int i = 0; i < ids.length; i++) {
+				cpu[i] = THREAD_MX_BEAN_.getThreadCpuTime(ids[i]);
+				user[i] = THREAD_MX_BEAN_.getThreadUserTime(ids[i]);
+			}
+		} else {
+			cpu = null;
+			user = null;
+		}
+
+		final Map<Long, long[]> values = new HashMap<>();
+		for (int i = 0; i < ids.length; i++) {
+			final long cpuTime = cpu == null ? -1l : cpu[i];
+			if (cpu != null && cpuTime < 0) {
+				// the thread is not alive
+				continue;
+			}
+			values.put(ids[i],
+					new long[] { cpuTime, user == null ? -1l : user[i],
+							allocated == null ? -1l : allocated[i] });
+		}
+		return values;
+	}
+
+	private static boolean isCpuTimeEnabled() {
+		return THREAD_MX_BEAN_.isThreadCpuTimeSupported()
+				&& THREAD_MX_BEAN_.isThreadCpuTimeEnabled();
+	}
+
+	private static long gcTimeMillis() {
+		long sum = 0l;
+		for (final GarbageCollectorMXBean gc : ManagementFactory
+				.getGarbageCollectorMXBeans()) {
+			final long time = gc.getCollectionTime();
+			if (time < 0) {
+				return -1l;
+			}
+			sum += time;
+		}
+		return sum;
+	}
+
+	private static long gcCount() {
+		long sum = 0l;
+		for (final GarbageCollectorMXBean gc : ManagementFactory
+				.getGarbageCollectorMXBeans()) {
+			final long count = gc.getCollectionCount();
+			if (count < 0) {
+				return -1l;
+			}
+			sum += count;
+		}
+		return sum;
+	}
+
+}
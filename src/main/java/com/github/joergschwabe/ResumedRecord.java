@@ -0,0 +1,268 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The complete records of a record file written by a previous, possibly
+ * crashed, run of an experiment, which should be resumed.
+ * <p>
+ * {@link #open(File)} drops the incomplete records from the file, so that a
+ * {@link Recorder} created with
+ * {@link Recorder#Recorder(PrintWriter, java.util.Collection, java.io.FileDescriptor, File, int)},
+ * the names from {@link #getNames()} and the number of records from
+ * {@link #getRecordCount()} can append to it.
+ */
+public class ResumedRecord {
+
+	private static final Logger LOGGER_ = LoggerFactory
+			.getLogger(ResumedRecord.class);
+
+	public static final String QUERY_NAME = "query";
+	public static final String TIME_NAME = "time";
+	/**
+	 * Name of the value with the milliseconds elapsed since the start of the
+	 * whole run until the record was completed, including the time of the
+	 * resumed runs.
+	 */
+	public static final String GLOBAL_TIME_NAME = "globalTime";
+
+	public static final ResumedRecord EMPTY = new ResumedRecord(
+			Collections.<String> emptyList(), Collections.<String> emptySet(),
+			0, 0l);
+
+	private final List<String> names_;
+	private final Set<String> queries_;
+	private final int recordCount_;
+	private final long elapsedMillis_;
+
+	private ResumedRecord(final List<String> names, final Set<String> queries,
+			final int recordCount, final long elapsedMillis) {
+		this.names_ = names;
+		this.queries_ = queries;
+		this.recordCount_ = recordCount;
+		this.elapsedMillis_ = elapsedMillis;
+	}
+
+	/**
+	 * Reads the record file and rewrites it so that it contains only complete
+	 * records. A record is complete if it has a value for each name in the
+	 * header. The file is replaced atomically, so an interruption leaves
+	 * either the original or the rewritten file. If the file has a schema
+	 * file, it is rewritten in the same way, so that the indexes of the
+	 * records in it skip the dropped records.
+	 *
+	 * @param recordFile
+	 * @return the complete records of the file, or {@link #EMPTY} if the file
+	 *         does not exist
+	 * @throws IOException
+	 */
+	public static ResumedRecord open(final File recordFile)
+			throws IOException {
+		if (!recordFile.exists()) {
+			return EMPTY;
+		}
+		// else
+
+		final File tmpFile = new File(recordFile.getPath() + ".tmp");
+		final File schemaFile = Recorder.getSchemaFile(recordFile);
+		final File tmpSchemaFile = new File(schemaFile.getPath() + ".tmp");
+		final Set<String> queries = new HashSet<>();
+		// the names from the schema file and the indexes of the first
+		// complete records that may have their values
+		final List<String> laterNames = new ArrayList<>();
+		final List<Integer> laterNameRecords = new ArrayList<>();
+		int nComplete = 0;
+		long globalTimeMillis = 0l;
+		double sumOfTimesMillis = 0.0;
+		boolean hasGlobalTime = false;
+		int nDropped = 0;
+
+		RecordReader reader = null;
+		FileOutputStream tmpStream = null;
+		PrintWriter tmpWriter = null;
+		final List<String> names;
+		final List<String> allNames;
+		try {
+			reader = new RecordReader(recordFile);
+			names = new ArrayList<>(reader.getNames());
+			hasGlobalTime = names.contains(GLOBAL_TIME_NAME);
+
+			tmpStream = new FileOutputStream(tmpFile);
+			tmpWriter = new PrintWriter(tmpStream);
+			if (!names.isEmpty()) {
+				writeLine(tmpWriter, names);
+			}
+
+			Map<String, String> record;
+			while ((record = reader.next()) != null) {
+				// the names from the schema file are added while reading
+				final List<String> currentNames = reader.getNames();
+				for (int i = names.size() + laterNames.size(); i < currentNames
+						.size(); i++) {
+					laterNames.add(currentNames.get(i));
+					laterNameRecords.add(nComplete);
+				}
+				if (record.size() < currentNames.size()) {
+					nDropped++;
+					continue;
+				}
+				// else
+				nComplete++;
+				writeLine(tmpWriter, record.values());
+				queries.add(RecordReader.unquote(record.get(QUERY_NAME)));
+				if (hasGlobalTime) {
+					globalTimeMillis = Math.max(globalTimeMillis,
+							(long) parseDouble(record.get(GLOBAL_TIME_NAME)));
+				} else {
+					sumOfTimesMillis += parseDouble(record.get(TIME_NAME));
+				}
+			}
+
+			allNames = new ArrayList<>(reader.getNames());
+
+			tmpWriter.flush();
+			tmpStream.getFD().sync();
+		} finally {
+			Utils.closeQuietly(reader);
+			Utils.closeQuietly(tmpWriter);
+		}
+		if (schemaFile.exists()) {
+			writeSchema(tmpSchemaFile, laterNames, laterNameRecords);
+			Files.move(tmpSchemaFile.toPath(), schemaFile.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+		Files.move(tmpFile.toPath(), recordFile.toPath(),
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+
+		final long elapsedMillis = hasGlobalTime ? globalTimeMillis
+				: (long) sumOfTimesMillis;
+		LOGGER_.info(
+				"resuming {}: {} complete records, {} incomplete dropped, {}ms elapsed",
+				recordFile, queries.size(), nDropped, elapsedMillis);
+		return new ResumedRecord(allNames, queries, nComplete, elapsedMillis);
+	}
+
+	private static void writeSchema(final File schemaFile,
+			final List<String> names, final List<Integer> recordIndexes)
+			throws IOException {
+		FileOutputStream schemaStream = null;
+		PrintWriter schemaWriter = null;
+		try {
+			schemaStream = new FileOutputStream(schemaFile);
+			schemaWriter = new PrintWriter(schemaStream);
+			Recorder.writeSchemaHeader(schemaWriter);
+			for (int i = 0; i < names.size(); i++) {
+				Recorder.writeSchemaEntry(schemaWriter, recordIndexes.get(i),
+						names.get(i));
+			}
+			schemaWriter.flush();
+			schemaStream.getFD().sync();
+		} finally {
+			Utils.closeQuietly(schemaWriter);
+		}
+	}
+
+	/**
+	 * @return the names in the header of the record file followed by the names
+	 *         from its schema file
+	 */
+	public List<String> getNames() {
+		return names_;
+	}
+
+	/**
+	 * @param query
+	 * @return whether the record file contains a complete record of the query
+	 */
+	public boolean isDone(final String query) {
+		// Recorder drops quotes from strings
+		return queries_.contains(query.replace("\"", ""));
+	}
+
+	/**
+	 * @return the number of complete records in the record file
+	 */
+	public int getRecordCount() {
+		return recordCount_;
+	}
+
+	/**
+	 * @return the number of queries with complete records
+	 */
+	public int getDoneCount() {
+		return queries_.size();
+	}
+
+	/**
+	 * @return how many milliseconds of the global timeout were used up by the
+	 *         resumed runs
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis_;
+	}
+
+	private static void writeLine(final PrintWriter output,
+			final Iterable<String> values) {
+		final Iterator<String> iter = values.iterator();
+		if (iter.hasNext()) {
+			output.print(iter.next());
+			while (iter.hasNext()) {
+				output.print(",");
+				output.print(iter.next());
+			}
+		}
+		output.println();
+	}
+
+	private static double parseDouble(final String value) {
+		if (value == null) {
+			return 0.0;
+		}
+		// else
+		try {
+			return Double.parseDouble(value);
+		} catch (final NumberFormatException e) {
+			return 0.0;
+		}
+	}
+
+}
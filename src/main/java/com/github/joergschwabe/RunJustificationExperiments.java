@@ -21,18 +21,26 @@
  */
 package com.github.joergschwabe;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.io.output.NullOutputStream;
 import org.liveontologies.puli.pinpointing.InterruptMonitor;
@@ -57,11 +65,27 @@ public class RunJustificationExperiments {
 	public static final String RECORD_OPT = "record";
 	public static final String TIMEOUT_OPT = "t";
 	public static final String GLOBAL_TIMEOUT_OPT = "g";
+	public static final String MEMORY_BUDGET_OPT = "mem";
 	public static final String WARMUP_TIMEOUT_OPT = "w";
+	public static final String WARMUP_CV_OPT = "wcv";
+	public static final String WARMUP_SAMPLE_OPT = "wsample";
+	public static final String WARMUP_WINDOW_OPT = "wwindow";
 	public static final String GC_OPT = "gc";
 	public static final String ONE_JUST_OPT = "only1just";
 	public static final String OPT_PROGRESS = "progress";
 	public static final String RESET_INTERVAL_OPT = "ri";
+	public static final String THREADS_OPT = "threads";
+	public static final String FORK_OPT = "fork";
+	public static final String RECYCLE_OPT = "recycle";
+	public static final String MAX_HEAP_OPT = "maxheap";
+	public static final String JVM_ARGS_OPT = "jvmargs";
+	public static final String SHARD_OPT = "shard";
+	public static final String RESUME_OPT = "resume";
+	public static final String BINARY_OPT = "binary";
+	public static final String METRICS_OPT = "metrics";
+	public static final String ORDER_OPT = "order";
+	public static final String COST_OPT = "cost";
+	public static final String COST_NAME_OPT = "costcol";
 	public static final String QUERIES_OPT = "queries";
 	public static final String EXPERIMENT_OPT = "exp";
 	public static final String EXPERIMENT_ARGS_OPT = "arg";
@@ -73,8 +97,16 @@ public class RunJustificationExperiments {
 		public Long timeOutMillis;
 		@Arg(dest = GLOBAL_TIMEOUT_OPT)
 		public Long globalTimeOutMillis;
+		@Arg(dest = MEMORY_BUDGET_OPT)
+		public Long memoryBudgetMb;
 		@Arg(dest = WARMUP_TIMEOUT_OPT)
 		public Long warmupTimeOut;
+		@Arg(dest = WARMUP_CV_OPT)
+		public Double warmupCv;
+		@Arg(dest = WARMUP_SAMPLE_OPT)
+		public Integer warmupSampleSize;
+		@Arg(dest = WARMUP_WINDOW_OPT)
+		public Integer warmupWindow;
 		@Arg(dest = GC_OPT)
 		public boolean runGc;
 		@Arg(dest = ONE_JUST_OPT)
@@ -83,6 +115,30 @@ public class RunJustificationExperiments {
 		public boolean progress;
 		@Arg(dest = RESET_INTERVAL_OPT)
 		public Integer resetInterval;
+		@Arg(dest = THREADS_OPT)
+		public Integer threads;
+		@Arg(dest = FORK_OPT)
+		public Integer forks;
+		@Arg(dest = RECYCLE_OPT)
+		public Integer recycleInterval;
+		@Arg(dest = MAX_HEAP_OPT)
+		public Long maxHeapMb;
+		@Arg(dest = JVM_ARGS_OPT)
+		public String jvmArgs;
+		@Arg(dest = SHARD_OPT)
+		public Shard shard;
+		@Arg(dest = RESUME_OPT)
+		public boolean resume;
+		@Arg(dest = BINARY_OPT)
+		public boolean binary;
+		@Arg(dest = METRICS_OPT)
+		public Integer metricsPort;
+		@Arg(dest = ORDER_OPT)
+		public String order;
+		@Arg(dest = COST_OPT)
+		public File costFile;
+		@Arg(dest = COST_NAME_OPT)
+		public String costName;
 		@Arg(dest = QUERIES_OPT)
 		public File queryFile;
 		@Arg(dest = EXPERIMENT_OPT)
@@ -92,8 +148,13 @@ public class RunJustificationExperiments {
 	}
 
 	public static final long TIMEOUT_DELAY_MILLIS = 10l;
+	/**
+	 * How long to wait for a cancelled computation before killing it.
+	 */
+	public static final long KILL_DELAY_MILLIS = 1000l;
 	public static final double NANOS_IN_MILLIS = 1000000.0d;
 	public static final double MILLIS_IN_SECOND = 1000.0d;
+	public static final long BYTES_IN_MB = 1024l * 1024l;
 
 	public static void main(final String[] args) {
 
@@ -106,8 +167,20 @@ public class RunJustificationExperiments {
 				.help("timeout per query in milliseconds");
 		parser.addArgument("-" + GLOBAL_TIMEOUT_OPT).type(Long.class)
 				.help("global timeout in milliseconds");
+		parser.addArgument("--" + MEMORY_BUDGET_OPT).type(Long.class)
+				.metavar("MB")
+				.help("interrupt a query when it retains more heap, measured after garbage collection");
 		parser.addArgument("-" + WARMUP_TIMEOUT_OPT).type(Long.class)
 				.help("how long should warm up in milliseconds");
+		parser.addArgument("--" + WARMUP_CV_OPT).type(Double.class)
+				.metavar("cv")
+				.help("repeat a sample of queries during the warm up until the mean coefficient of variation of their times falls below this value");
+		parser.addArgument("--" + WARMUP_SAMPLE_OPT).type(Integer.class)
+				.setDefault(WarmUp.DEFAULT_SAMPLE_SIZE)
+				.help("number of queries repeated during the warm up");
+		parser.addArgument("--" + WARMUP_WINDOW_OPT).type(Integer.class)
+				.setDefault(WarmUp.DEFAULT_WINDOW)
+				.help("number of last times of a query from which the coefficient of variation is computed");
 		parser.addArgument("--" + GC_OPT).action(Arguments.storeTrue())
 				.help("run garbage collector before every query");
 		parser.addArgument("--" + ONE_JUST_OPT).action(Arguments.storeTrue())
@@ -116,6 +189,36 @@ public class RunJustificationExperiments {
 				.help("print progress to stdout");
 		parser.addArgument("--" + RESET_INTERVAL_OPT).type(Integer.class)
 				.help("after how many queries should the experiment be reset");
+		parser.addArgument("--" + THREADS_OPT).type(Integer.class)
+				.help("number of experiment instances processing the queries concurrently");
+		parser.addArgument("--" + FORK_OPT).type(Integer.class)
+				.help("number of child JVMs processing the queries concurrently, each with its own experiment instance");
+		parser.addArgument("--" + RECYCLE_OPT).type(Integer.class)
+				.help("after how many queries should a child JVM be replaced");
+		parser.addArgument("--" + MAX_HEAP_OPT).type(Long.class)
+				.metavar("MB")
+				.help("replace a child JVM when more of its heap is used after a query");
+		parser.addArgument("--" + JVM_ARGS_OPT).metavar("args")
+				.help("arguments of the child JVMs separated by spaces, e.g., --" + JVM_ARGS_OPT + "=\"-Xmx4g -Xss16m\"");
+		parser.addArgument("--" + SHARD_OPT).type(Shard.ARGUMENT_TYPE)
+				.metavar("i/n")
+				.help("process only the queries of shard i of n (0 <= i < n), balanced by the costs if they are provided");
+		parser.addArgument("--" + RESUME_OPT).action(Arguments.storeTrue())
+				.help("keep the complete records in the record file and run only the remaining queries");
+		parser.addArgument("--" + BINARY_OPT).action(Arguments.storeTrue())
+				.help("write the record file in the binary columnar format");
+		parser.addArgument("--" + METRICS_OPT).type(Integer.class)
+				.metavar("port")
+				.help("serve metrics of the running experiments on http://localhost:<port>/metrics");
+		parser.addArgument("--" + ORDER_OPT)
+				.choices(QueryScheduler.ORDERS)
+				.setDefault(QueryScheduler.ORDER_FILE)
+				.help("order of the queries by their predicted costs");
+		parser.addArgument("--" + COST_OPT)
+				.type(Arguments.fileType().verifyExists().verifyCanRead())
+				.help("record file with the costs of the queries, e.g., a record of a previous run or proof statistics");
+		parser.addArgument("--" + COST_NAME_OPT).metavar("name")
+				.help("name of the column with the costs of the queries");
 		parser.addArgument(QUERIES_OPT)
 				.type(Arguments.fileType().verifyExists().verifyCanRead())
 				.help("query file");
@@ -125,6 +228,9 @@ public class RunJustificationExperiments {
 
 		BufferedReader queryReader = null;
 		PrintWriter recordWriter = null;
+		ColumnarRecordWriter columnarWriter = null;
+		MetricsServer metricsServer = null;
+		MemoryBudget memoryBudget = null;
 
 		try {
 
@@ -132,9 +238,13 @@ public class RunJustificationExperiments {
 			parser.parseArgs(args, opt);
 
 			final File recordFile = opt.recordFile;
-			if (recordFile.exists()) {
+			final File schemaFile = Recorder.getSchemaFile(recordFile);
+			if (!opt.resume && recordFile.exists()) {
 				Utils.recursiveDelete(recordFile);
 			}
+			if (!opt.resume && schemaFile.exists()) {
+				Utils.recursiveDelete(schemaFile);
+			}
 			LOGGER_.info("recordFile: {}", recordFile);
 			final long timeOutMillis = opt.timeOutMillis == null ? 0l
 					: opt.timeOutMillis;
@@ -143,9 +253,23 @@ public class RunJustificationExperiments {
 					? 0l
 					: opt.globalTimeOutMillis;
 			LOGGER_.info("globalTimeOutMillis: {}", globalTimeOutMillis);
+			final long memoryBudgetBytes = opt.memoryBudgetMb == null ? 0l
+					: opt.memoryBudgetMb * BYTES_IN_MB;
+			LOGGER_.info("memoryBudgetBytes: {}", memoryBudgetBytes);
 			final long warmupTimeOut = opt.warmupTimeOut == null ? 0l
 					: opt.warmupTimeOut;
 			LOGGER_.info("warmupTimeOut: {}", warmupTimeOut);
+			final Double warmupCv = opt.warmupCv;
+			LOGGER_.info("warmupCv: {}", warmupCv);
+			final int warmupSampleSize = opt.warmupSampleSize;
+			LOGGER_.info("warmupSampleSize: {}", warmupSampleSize);
+			final int warmupWindow = opt.warmupWindow;
+			LOGGER_.info("warmupWindow: {}", warmupWindow);
+			if (warmupCv != null && warmupWindow < 2) {
+				throw new ExperimentException(
+						"The warm up window must be at least 2! window="
+								+ warmupWindow);
+			}
 			final boolean runGc = opt.runGc;
 			LOGGER_.info("runGc: {}", runGc);
 			final boolean onlyOneJustification = opt.onlyOneJustification;
@@ -156,6 +280,55 @@ public class RunJustificationExperiments {
 					? Integer.MAX_VALUE
 					: opt.resetInterval;
 			LOGGER_.info("resetInterval: {}", resetInterval);
+			final int threads = opt.threads == null ? 1 : opt.threads;
+			if (threads < 1) {
+				throw new ExperimentException(
+						"The number of threads must be positive! threads="
+								+ threads);
+			}
+			if (threads > 1 && PhaseProfiler.ENABLED) {
+				// the phase times are global and reset before each query
+				throw new ExperimentException("Option --" + THREADS_OPT
+						+ " greater than 1 cannot be used with -D"
+						+ PhaseProfiler.ENABLED_PROPERTY
+						+ "=true, use --" + FORK_OPT + " instead!");
+			}
+			LOGGER_.info("threads: {}", threads);
+			final int forks = opt.forks == null ? 0 : opt.forks;
+			if (forks < 0) {
+				throw new ExperimentException(
+						"The number of child JVMs must not be negative! fork="
+								+ forks);
+			}
+			LOGGER_.info("forks: {}", forks);
+			final int recycleInterval = opt.recycleInterval == null ? 0
+					: opt.recycleInterval;
+			LOGGER_.info("recycleInterval: {}", recycleInterval);
+			final long maxHeapBytes = opt.maxHeapMb == null ? 0l
+					: opt.maxHeapMb * BYTES_IN_MB;
+			LOGGER_.info("maxHeapBytes: {}", maxHeapBytes);
+			final List<String> jvmArgs = opt.jvmArgs == null
+					? Collections.<String> emptyList()
+					: Arrays.asList(opt.jvmArgs.trim().split("\\s+"));
+			LOGGER_.info("jvmArgs: {}", jvmArgs);
+			final Shard shard = opt.shard == null ? Shard.ALL : opt.shard;
+			LOGGER_.info("shard: {}", shard);
+			final boolean resume = opt.resume;
+			LOGGER_.info("resume: {}", resume);
+			final boolean binary = opt.binary;
+			LOGGER_.info("binary: {}", binary);
+			if (resume && binary) {
+				throw new ExperimentException(
+						"Binary record files cannot be resumed!");
+			}
+			final Integer metricsPort = opt.metricsPort;
+			LOGGER_.info("metricsPort: {}", metricsPort);
+			final String order = opt.order;
+			LOGGER_.info("order: {}", order);
+			final File costFile = opt.costFile;
+			LOGGER_.info("costFile: {}", costFile);
+			final String costName = opt.costName;
+			LOGGER_.info("costName: {}", costName);
 			final File queryFile = opt.queryFile;
 			LOGGER_.info("queryFile: {}", queryFile);
 			final String experimentClassName = opt.experimentClassName;
@@ -163,26 +336,198 @@ public class RunJustificationExperiments {
 			final String[] experimentArgs = opt.experimentArgs;
 			LOGGER_.info("experimentArgs: {}", Arrays.toString(experimentArgs));
 
-			final JustificationExperiment experiment = newExperiment(
-					experimentClassName);
+			final QueryScheduler scheduler;
+			try {
+				scheduler = QueryScheduler.create(order, costFile, costName);
+			} catch (final IllegalArgumentException e) {
+				throw new ExperimentException(e.getMessage(), e);
+			}
+			final List<String> allQueries = new ArrayList<>();
+			queryReader = new BufferedReader(new FileReader(queryFile));
+			String line;
+			while ((line = queryReader.readLine()) != null) {
+				allQueries.add(line);
+			}
+			final List<String> shardQueries = scheduler
+					.schedule(scheduler.select(allQueries, shard));
+
+			final ResumedRecord resumed;
+			final Recorder recorder;
+			if (resume) {
+				resumed = ResumedRecord.open(recordFile);
+				final FileOutputStream recordStream = new FileOutputStream(
+						recordFile, true);
+				recordWriter = new PrintWriter(recordStream);
+				recorder = new Recorder(recordWriter, resumed.getNames(),
+						recordStream.getFD(), schemaFile,
+						resumed.getRecordCount());
+			} else if (binary) {
+				resumed = ResumedRecord.EMPTY;
+				columnarWriter = new ColumnarRecordWriter(
+						new BufferedOutputStream(
+								new FileOutputStream(recordFile)));
+				recorder = new Recorder(columnarWriter);
+			} else {
+				resumed = ResumedRecord.EMPTY;
+				recordWriter = new PrintWriter(recordFile);
+				recorder = new Recorder(recordWriter, schemaFile);
+			}
+			final List<String> queries = new ArrayList<>();
+			for (final String query : shardQueries) {
+				if (!resumed.isDone(query)) {
+					queries.add(query);
+				}
+			}
 
-			recordWriter = new PrintWriter(recordFile);
+			// without convergence detection, warm up on all queries once
+			final WarmUp warmUp;
+			final List<String> warmUpQueries;
+			final Map<String, Object> runValues = new LinkedHashMap<>();
+			if (warmupTimeOut > 0 && warmupCv != null) {
+				final List<String> sample = WarmUp.sample(
+						scheduler.sortByCost(shardQueries), warmupSampleSize);
+				LOGGER_.info("warm up sample: {}", sample);
+				warmUp = new WarmUp(sample, warmupCv, warmupWindow,
+						warmupTimeOut);
+				warmUpQueries = WarmUp.repeat(sample);
+			} else {
+				warmUp = null;
+				warmUpQueries = shardQueries;
+			}
 
 			final PrintStream nullPrintStream = new PrintStream(
 					new NullOutputStream());
 
+			final RunMetrics warmUpMetrics = new RunMetrics("warm-up");
+			final RunMetrics metrics = new RunMetrics("experiment");
+			if (metricsPort != null) {
+				metricsServer = new MetricsServer(metricsPort, warmUpMetrics);
+				try {
+					metricsServer.start();
+				} catch (final IOException e) {
+					throw new ExperimentException(
+							"Cannot start the metrics server!", e);
+				}
+			}
+
+			if (memoryBudgetBytes > 0 && forks == 0) {
+				memoryBudget = new MemoryBudget(memoryBudgetBytes);
+			}
+
+			if (forks > 0) {
+
+				final List<ForkedWorker> workers = new ArrayList<>(forks);
+				for (int i = 0; i < forks; i++) {
+					workers.add(new ForkedWorker("fork-" + i, jvmArgs,
+							experimentClassName, experimentArgs,
+							recycleInterval, maxHeapBytes));
+				}
+
+				try {
+
+					if (warmupTimeOut > 0) {
+						LOGGER_.info("Warm Up");
+						runForked(workers, warmUpQueries, ResumedRecord.EMPTY,
+								timeOutMillis, memoryBudgetBytes, warmupTimeOut,
+								runGc,
+								onlyOneJustification, nullPrintStream,
+								warmUpMetrics, new Recorder((PrintWriter) null),
+								warmUp, runValues);
+						if (warmUp != null) {
+							logWarmUp(warmUp);
+							warmUp.putInto(runValues);
+						}
+					}
+
+					LOGGER_.info("Actual Experiment Run");
+					if (metricsServer != null) {
+						metricsServer.setMetrics(metrics);
+					}
+					runForked(workers, queries, resumed, timeOutMillis,
+							memoryBudgetBytes, globalTimeOutMillis, runGc, onlyOneJustification,
+							progress ? System.out : nullPrintStream, metrics,
+							recorder, null, runValues);
+
+				} finally {
+					int startCount = 0;
+					int killCount = 0;
+					for (final ForkedWorker worker : workers) {
+						worker.close();
+						startCount += worker.getStartCount();
+						killCount += worker.getKillCount();
+					}
+					LOGGER_.info("started {} child JVMs, killed {}",
+							startCount, killCount);
+				}
+
+				return;
+			}
+			// else
+
+			if (threads > 1) {
+
+				final List<JustificationExperiment> experiments = new ArrayList<>(
+						threads);
+				for (int i = 0; i < threads; i++) {
+					experiments.add(newExperiment(experimentClassName));
+				}
+
+				if (warmupTimeOut > 0) {
+					LOGGER_.info("Warm Up");
+					runConcurrently(experiments, experimentArgs,
+							warmUpQueries, ResumedRecord.EMPTY, timeOutMillis,
+							memoryBudget, warmupTimeOut, runGc, onlyOneJustification,
+							resetInterval, nullPrintStream, warmUpMetrics,
+							new Recorder((PrintWriter) null), warmUp,
+							runValues);
+					if (warmUp != null) {
+						logWarmUp(warmUp);
+						warmUp.putInto(runValues);
+					}
+				}
+
+				LOGGER_.info("Actual Experiment Run");
+				if (metricsServer != null) {
+					metricsServer.setMetrics(metrics);
+				}
+				runConcurrently(experiments, experimentArgs, queries,
+						resumed, timeOutMillis, memoryBudget,
+						globalTimeOutMillis,
+						runGc, onlyOneJustification, resetInterval,
+						progress ? System.out : nullPrintStream, metrics,
+						recorder, null, runValues);
+
+				return;
+			}
+			// else
+
+			final JustificationExperiment experiment = newExperiment(
+					experimentClassName);
+
 			if (warmupTimeOut > 0) {
 				LOGGER_.info("Warm Up");
-				run(experiment, experimentArgs, queryFile, timeOutMillis,
-						warmupTimeOut, 0, runGc, onlyOneJustification,
-						resetInterval, nullPrintStream, null);
+				run(experiment, experimentArgs, warmUpQueries,
+						ResumedRecord.EMPTY, timeOutMillis, memoryBudget,
+						warmupTimeOut, 0,
+						runGc, onlyOneJustification, resetInterval,
+						nullPrintStream, warmUpMetrics,
+						new Recorder((PrintWriter) null), warmUp, runValues);
+				if (warmUp != null) {
+					logWarmUp(warmUp);
+					warmUp.putInto(runValues);
+				}
 			}
 
 			LOGGER_.info("Actual Experiment Run");
-			run(experiment, experimentArgs, queryFile, timeOutMillis,
-					globalTimeOutMillis, 0, runGc, onlyOneJustification,
-					resetInterval, progress ? System.out : nullPrintStream,
-					recordWriter);
+			if (metricsServer != null) {
+				metricsServer.setMetrics(metrics);
+			}
+			run(experiment, experimentArgs, queries, resumed,
+					timeOutMillis, memoryBudget, globalTimeOutMillis, 0,
+					runGc,
+					onlyOneJustification, resetInterval,
+					progress ? System.out : nullPrintStream, metrics,
+					recorder, null, runValues);
 
 		} catch (final ExperimentException e) {
 			LOGGER_.error(e.getMessage(), e);
@@ -199,11 +544,25 @@ public class RunJustificationExperiments {
 		} finally {
 			Utils.closeQuietly(queryReader);
 			Utils.closeQuietly(recordWriter);
+			Utils.closeQuietly(columnarWriter);
+			if (metricsServer != null) {
+				metricsServer.stop();
+			}
+			if (memoryBudget != null) {
+				memoryBudget.dispose();
+			}
 		}
 
 	}
 
-	private static JustificationExperiment newExperiment(
+	private static void logWarmUp(final WarmUp warmUp) {
+		LOGGER_.info(
+				"warm up {} after {} rounds and {}ms, coefficient of variation: {}",
+				warmUp.isConverged() ? "converged" : "did not converge",
+				warmUp.getRounds(), warmUp.getTimeMillis(), warmUp.getCv());
+	}
+
+	static JustificationExperiment newExperiment(
 			final String experimentClassName) throws ExperimentException {
 
 		try {
@@ -241,47 +600,42 @@ public class RunJustificationExperiments {
 	}
 
 	private static void run(final JustificationExperiment experiment,
-			final String[] experimentArgs, final File queryFile,
-			final long timeOutMillis, final long globalTimeOutMillis,
-			final int maxIterations, final boolean runGc,
+			final String[] experimentArgs, final List<String> queries,
+			final ResumedRecord resumed, final long timeOutMillis,
+			final MemoryBudget memoryBudget,
+			final long globalTimeOutMillis, final int maxIterations,
+			final boolean runGc,
 			final boolean onlyOneJustification, final int resetInterval,
-			final PrintStream progressOut, final PrintWriter recordWriter)
-			throws IOException, ExperimentException {
+			final PrintStream progressOut, final RunMetrics metrics,
+			final Recorder recorder, final WarmUp warmUp,
+			final Map<String, Object> runValues) throws ExperimentException {
 
 		experiment.init(experimentArgs);
 
 		Progress progress = null;
 
-		BufferedReader queryReader = null;
+		// measures also the threads created by the computation
+		final ResourceMeter meter = ResourceMeter.forThreadsStartedLater();
+		final QueryWorker worker = new QueryWorker("query-worker",
+				KILL_DELAY_MILLIS);
 
 		try {
 
-			queryReader = new BufferedReader(new FileReader(queryFile));
-			int queryCount = 0;
-			while (queryReader.readLine() != null) {
-				queryCount++;
-			}
-			queryReader.close();
-			final int total = maxIterations <= 0 ? queryCount
-					: Math.min(maxIterations, queryCount);
+			final int total = maxIterations <= 0 ? queries.size()
+					: Math.min(maxIterations, queries.size());
 			progress = new Progress(progressOut, total);
+			metrics.start(total);
 
-			queryReader = new BufferedReader(new FileReader(queryFile));
-
-			final Recorder recorder = new Recorder(recordWriter);
-
-			final long globalStartTimeMillis = System.currentTimeMillis();
+			// the resumed runs used up a part of the global timeout
+			final long globalStartTimeMillis = System.currentTimeMillis()
+					- resumed.getElapsedMillis();
 			final long globalStopTimeMillis = globalTimeOutMillis > 0
 					? globalStartTimeMillis + globalTimeOutMillis
 					: Long.MAX_VALUE;
 
 			boolean didSomeExperimentRun = false;
-			for (int nIter = 0; nIter < maxIterations
-					|| maxIterations <= 0; nIter++) {
-				final String query = queryReader.readLine();
-				if (query == null) {
-					break;
-				}
+			for (int nIter = 0; nIter < total; nIter++) {
+				final String query = queries.get(nIter);
 
 				if (maxIterations > 0) {
 					LOGGER_.info("Run number {} of {}", nIter + 1,
@@ -305,6 +659,7 @@ public class RunJustificationExperiments {
 					experiment.init(experimentArgs);
 				}
 
+				final RunMetrics.Query running = metrics.queryStarted(query);
 				experiment.before(query);
 
 				final Recorder.RecordBuilder record = recorder.newRecord();
@@ -323,35 +678,27 @@ public class RunJustificationExperiments {
 						: Long.MAX_VALUE;
 
 				final long stopTimeMillis = localStopTimeMillis;
+				final MemoryBudget.Query memory = memoryBudget == null ? null
+						: memoryBudget.queryStarted();
 				final TimeOutMonitor monitor = new TimeOutMonitor(
-						stopTimeMillis, onlyOneJustification);
+						stopTimeMillis, onlyOneJustification, memory);
 				experiment.addJustificationListener(monitor);
+				experiment.addJustificationListener(running);
 
-				final Runnable runnable = new Runnable() {
-					@Override
-					public void run() {
-						try {
-							experiment.run(monitor);
-						} catch (final ExperimentException e) {
-							throw new RuntimeException(e);
-						}
-					}
-				};
-				final Thread worker = new Thread(runnable);
+				final QueryRunner runnable = new QueryRunner(experiment,
+						monitor, meter);
 				final long startTimeNanos = System.nanoTime();
-				worker.start();
-				// wait for timeout
-				try {
-					worker.join();
-				} catch (final InterruptedException e) {
-					LOGGER_.warn("Waiting for the worker thread interruptet!",
-							e);
-				}
+				worker.run(runnable, timeOutMillis > 0
+						? timeOutMillis + TIMEOUT_DELAY_MILLIS
+						: 0, monitor);
 				final long runTimeNanos = System.nanoTime() - startTimeNanos;
+				if (memory != null) {
+					memoryBudget.queryFinished(memory);
+				}
 				experiment.removeJustificationListener(monitor);
+				experiment.removeJustificationListener(running);
 				final int nJust = monitor.getJustificationCount();
 				didSomeExperimentRun = true;
-				killIfAlive(worker);
 
 				final Runtime runtime = Runtime.getRuntime();
 				final long totalMemory = runtime.totalMemory();
@@ -359,25 +706,40 @@ public class RunJustificationExperiments {
 				final boolean didTimeOut = localStartTimeMillis
 						+ (runTimeNanos / NANOS_IN_MILLIS) > stopTimeMillis;
 				record.put("didTimeOut", didTimeOut);
+				record.put(MemoryBudget.EXCEEDED_NAME,
+						runnable.isOutOfMemory() || monitor.isOutOfBudget());
 				record.put("time", runTimeNanos / NANOS_IN_MILLIS);
+				meter.putInto(record);
 				record.put("nJust", nJust);
 				record.put("usedMemory", usedMemory);
 
 				experiment.after();
 
+				record.put(ResumedRecord.GLOBAL_TIME_NAME,
+						System.currentTimeMillis() - globalStartTimeMillis);
+				for (final Map.Entry<String, Object> entry : runValues
+						.entrySet()) {
+					record.put(entry.getKey(), entry.getValue());
+				}
 				final Map<String, Object> stats = Stats.copyIntoMap(experiment,
 						new TreeMap<String, Object>());
 				for (final Map.Entry<String, Object> entry : stats.entrySet()) {
 					record.put(entry.getKey(), entry.getValue());
 				}
-				recorder.flush();
+				recorder.commit();
+				metrics.queryFinished(running, didTimeOut, stats);
 
 				progress.update();
 
+				if (warmUp != null && warmUp.queryFinished(query,
+						runTimeNanos / NANOS_IN_MILLIS)) {
+					break;
+				}
+
 			}
 
 		} finally {
-			Utils.closeQuietly(queryReader);
+			worker.close();
 			experiment.dispose();
 			if (progress != null) {
 				progress.stop();
@@ -387,31 +749,482 @@ public class RunJustificationExperiments {
 	}
 
 	/**
-	 * If the specified thread is alive, calls {@link Thread#stop()} on it.
-	 * <strong>This breaks any synchronization with the thread.</strong>
-	 * 
-	 * @param thread
+	 * Runs the queries on the provided experiments concurrently, each
+	 * experiment on its own thread. The experiments take the queries from a
+	 * shared queue in the provided order and the records are written in the
+	 * same order. The timeout of a query applies only to the thread
+	 * that runs it, the global timeout stops all threads from taking further
+	 * queries.
+	 */
+	private static void runConcurrently(
+			final List<JustificationExperiment> experiments,
+			final String[] experimentArgs, final List<String> queries,
+			final ResumedRecord resumed, final long timeOutMillis,
+			final MemoryBudget memoryBudget,
+			final long globalTimeOutMillis, final boolean runGc,
+			final boolean onlyOneJustification, final int resetInterval,
+			final PrintStream progressOut,
+			final RunMetrics metrics, final Recorder recorder,
+			final WarmUp warmUp, final Map<String, Object> runValues)
+			throws ExperimentException {
+
+		final Progress progress = new Progress(progressOut, queries.size());
+		metrics.start(queries.size());
+		final OrderedRecorder orderedRecorder = new OrderedRecorder(recorder);
+
+		// the resumed runs used up a part of the global timeout
+		final long globalStartTimeMillis = System.currentTimeMillis()
+				- resumed.getElapsedMillis();
+		final long globalStopTimeMillis = globalTimeOutMillis > 0
+				? globalStartTimeMillis + globalTimeOutMillis
+				: Long.MAX_VALUE;
+
+		final AtomicInteger nextQuery = new AtomicInteger(0);
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		final List<Thread> workers = new ArrayList<>(experiments.size());
+		try {
+
+			for (final JustificationExperiment experiment : experiments) {
+				experiment.init(experimentArgs);
+			}
+
+			for (int i = 0; i < experiments.size(); i++) {
+				final Thread worker = new Thread(new ExperimentWorker(
+						experiments.get(i), experimentArgs, queries, nextQuery,
+						failure, timeOutMillis, memoryBudget,
+						globalStartTimeMillis,
+						globalStopTimeMillis, runGc, onlyOneJustification,
+						resetInterval, orderedRecorder, progress, metrics,
+						warmUp, runValues),
+						"experiment-worker-" + i);
+				workers.add(worker);
+				worker.start();
+			}
+
+			for (final Thread worker : workers) {
+				try {
+					worker.join();
+				} catch (final InterruptedException e) {
+					LOGGER_.warn("Waiting for the worker thread interruptet!",
+							e);
+				}
+			}
+
+		} finally {
+			orderedRecorder.flushRemaining();
+			for (final JustificationExperiment experiment : experiments) {
+				experiment.dispose();
+			}
+			progress.stop();
+		}
+
+		final Throwable e = failure.get();
+		if (e instanceof ExperimentException) {
+			throw (ExperimentException) e;
+		}
+		if (e != null) {
+			throw new ExperimentException(e);
+		}
+
+	}
+
+	/**
+	 * Runs queries taken from a shared queue on one experiment instance until
+	 * the queue is empty, the global timeout expires or some worker fails.
 	 */
-	@SuppressWarnings("deprecation")
-	private static void killIfAlive(final Thread thread) {
-		if (thread.isAlive()) {
-			LOGGER_.info("killing the thread {}", thread.getName());
-			thread.stop();
+	private static class ExperimentWorker implements Runnable {
+
+		private final JustificationExperiment experiment_;
+		private final String[] experimentArgs_;
+		private final List<String> queries_;
+		private final AtomicInteger nextQuery_;
+		private final AtomicReference<Throwable> failure_;
+		private final long timeOutMillis_;
+		private final MemoryBudget memoryBudget_;
+		private final long globalStartTimeMillis_;
+		private final long globalStopTimeMillis_;
+		private final boolean runGc_;
+		private final boolean onlyOneJustification_;
+		private final int resetInterval_;
+		private final OrderedRecorder recorder_;
+		private final Progress progress_;
+		private final RunMetrics metrics_;
+		private final WarmUp warmUp_;
+		private final Map<String, Object> runValues_;
+
+		ExperimentWorker(final JustificationExperiment experiment,
+				final String[] experimentArgs, final List<String> queries,
+				final AtomicInteger nextQuery,
+				final AtomicReference<Throwable> failure,
+				final long timeOutMillis, final MemoryBudget memoryBudget,
+				final long globalStartTimeMillis,
+				final long globalStopTimeMillis, final boolean runGc,
+				final boolean onlyOneJustification,
+				final int resetInterval, final OrderedRecorder recorder,
+				final Progress progress, final RunMetrics metrics,
+				final WarmUp warmUp, final Map<String, Object> runValues) {
+			this.experiment_ = experiment;
+			this.experimentArgs_ = experimentArgs;
+			this.queries_ = queries;
+			this.nextQuery_ = nextQuery;
+			this.failure_ = failure;
+			this.timeOutMillis_ = timeOutMillis;
+			this.memoryBudget_ = memoryBudget;
+			this.globalStartTimeMillis_ = globalStartTimeMillis;
+			this.globalStopTimeMillis_ = globalStopTimeMillis;
+			this.runGc_ = runGc;
+			this.onlyOneJustification_ = onlyOneJustification;
+			this.resetInterval_ = resetInterval;
+			this.recorder_ = recorder;
+			this.progress_ = progress;
+			this.metrics_ = metrics;
+			this.warmUp_ = warmUp;
+			this.runValues_ = runValues;
+		}
+
+		@Override
+		public void run() {
+			final QueryWorker worker = new QueryWorker(
+					Thread.currentThread().getName() + "-query",
+					KILL_DELAY_MILLIS);
+			try {
+				for (int nIter = 0; failure_.get() == null; nIter++) {
+
+					if (globalStopTimeMillis_ <= System.currentTimeMillis()
+							|| (warmUp_ != null && warmUp_.isDone())) {
+						break;
+					}
+					final int index = nextQuery_.getAndIncrement();
+					if (index >= queries_.size()) {
+						break;
+					}
+					final String query = queries_.get(index);
+					LOGGER_.info("Run number {}", index + 1);
+
+					if (nIter % resetInterval_ == resetInterval_ - 1) {
+						experiment_.dispose();
+						experiment_.init(experimentArgs_);
+					}
+
+					final Map<String, Object> record = runQuery(worker, query);
+					recorder_.record(index, record);
+
+					synchronized (progress_) {
+						progress_.update();
+					}
+
+					if (warmUp_ != null) {
+						warmUp_.queryFinished(query,
+								(Double) record.get("time"));
+					}
+
+				}
+			} catch (final Throwable e) {
+				LOGGER_.error("Worker failed!", e);
+				failure_.compareAndSet(null,
+						e instanceof RuntimeException
+								&& e.getCause() instanceof ExperimentException
+										? e.getCause()
+										: e);
+			} finally {
+				worker.close();
+			}
+		}
+
+		private Map<String, Object> runQuery(final QueryWorker worker,
+				final String query) throws ExperimentException {
+
+			final RunMetrics.Query running = metrics_.queryStarted(query);
+			experiment_.before(query);
+
+			final Map<String, Object> record = new LinkedHashMap<>();
+			record.put("query", query);
+
+			if (runGc_) {
+				System.gc();
+			}
+
+			final long localStartTimeMillis = System.currentTimeMillis();
+			final long stopTimeMillis = timeOutMillis_ > 0
+					? localStartTimeMillis + timeOutMillis_
+					: Long.MAX_VALUE;
+			final MemoryBudget.Query memory = memoryBudget_ == null ? null
+					: memoryBudget_.queryStarted();
+			final TimeOutMonitor monitor = new TimeOutMonitor(stopTimeMillis,
+					onlyOneJustification_, memory);
+			experiment_.addJustificationListener(monitor);
+			experiment_.addJustificationListener(running);
+
+			// other workers' threads cannot be told apart from own ones
+			final ResourceMeter meter = ResourceMeter.forCurrentThread();
+			final QueryRunner runner = new QueryRunner(experiment_, monitor,
+					meter);
+			final long startTimeNanos = System.nanoTime();
+			worker.run(runner, timeOutMillis_ > 0
+					? timeOutMillis_ + TIMEOUT_DELAY_MILLIS
+					: 0, monitor);
+			final long runTimeNanos = System.nanoTime() - startTimeNanos;
+			if (memory != null) {
+				memoryBudget_.queryFinished(memory);
+			}
+			experiment_.removeJustificationListener(monitor);
+			experiment_.removeJustificationListener(running);
+
+			final Runtime runtime = Runtime.getRuntime();
+			final long usedMemory = runtime.totalMemory()
+					- runtime.freeMemory();
+			final boolean didTimeOut = localStartTimeMillis
+					+ (runTimeNanos / NANOS_IN_MILLIS) > stopTimeMillis;
+			record.put("didTimeOut", didTimeOut);
+			record.put(MemoryBudget.EXCEEDED_NAME,
+					runner.isOutOfMemory() || monitor.isOutOfBudget());
+			record.put("time", runTimeNanos / NANOS_IN_MILLIS);
+			meter.putInto(record);
+			record.put("nJust", monitor.getJustificationCount());
+			record.put("usedMemory", usedMemory);
+
+			experiment_.after();
+
+			record.put(ResumedRecord.GLOBAL_TIME_NAME,
+					System.currentTimeMillis() - globalStartTimeMillis_);
+			record.putAll(runValues_);
+			record.putAll(Stats.copyIntoMap(experiment_,
+					new TreeMap<String, Object>()));
+			metrics_.queryFinished(running, didTimeOut, record);
+
+			return record;
 		}
+
 	}
 
 	/**
-	 * Interrupts when the global or local timeout expires. The global timeout
+	 * Runs the queries in the child JVMs of the provided workers, each worker
+	 * on its own thread, like {@link #runConcurrently}. A query that does not
+	 * finish even after its computation was cancelled and killed in the child
+	 * JVM is recorded as timed out and its JVM is killed.
+	 */
+	private static void runForked(final List<ForkedWorker> workers,
+			final List<String> queries, final ResumedRecord resumed,
+			final long timeOutMillis, final long memoryBudgetBytes,
+			final long globalTimeOutMillis, final boolean runGc,
+			final boolean onlyOneJustification,
+			final PrintStream progressOut, final RunMetrics metrics,
+			final Recorder recorder, final WarmUp warmUp,
+			final Map<String, Object> runValues) throws ExperimentException {
+
+		final Progress progress = new Progress(progressOut, queries.size());
+		metrics.start(queries.size());
+		final OrderedRecorder orderedRecorder = new OrderedRecorder(recorder);
+
+		// the resumed runs used up a part of the global timeout
+		final long globalStartTimeMillis = System.currentTimeMillis()
+				- resumed.getElapsedMillis();
+		final long globalStopTimeMillis = globalTimeOutMillis > 0
+				? globalStartTimeMillis + globalTimeOutMillis
+				: Long.MAX_VALUE;
+
+		final AtomicInteger nextQuery = new AtomicInteger(0);
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		final List<Thread> threads = new ArrayList<>(workers.size());
+		try {
+
+			for (int i = 0; i < workers.size(); i++) {
+				final Thread thread = new Thread(new ForkedExperimentWorker(
+						workers.get(i), queries, nextQuery, failure,
+						timeOutMillis, memoryBudgetBytes, globalStartTimeMillis,
+						globalStopTimeMillis, runGc, onlyOneJustification,
+						orderedRecorder, progress, metrics, warmUp,
+						runValues), "forked-worker-" + i);
+				threads.add(thread);
+				thread.start();
+			}
+
+			for (final Thread thread : threads) {
+				try {
+					thread.join();
+				} catch (final InterruptedException e) {
+					LOGGER_.warn("Waiting for the worker thread interruptet!",
+							e);
+				}
+			}
+
+		} finally {
+			orderedRecorder.flushRemaining();
+			progress.stop();
+		}
+
+		final Throwable e = failure.get();
+		if (e instanceof ExperimentException) {
+			throw (ExperimentException) e;
+		}
+		if (e != null) {
+			throw new ExperimentException(e);
+		}
+
+	}
+
+	/**
+	 * Runs queries taken from a shared queue in the child JVM of one
+	 * {@link ForkedWorker} until the queue is empty, the global timeout
+	 * expires or some worker fails.
+	 */
+	private static class ForkedExperimentWorker implements Runnable {
+
+		private final ForkedWorker worker_;
+		private final List<String> queries_;
+		private final AtomicInteger nextQuery_;
+		private final AtomicReference<Throwable> failure_;
+		private final long timeOutMillis_;
+		private final long memoryBudgetBytes_;
+		private final long globalStartTimeMillis_;
+		private final long globalStopTimeMillis_;
+		private final boolean runGc_;
+		private final boolean onlyOneJustification_;
+		private final OrderedRecorder recorder_;
+		private final Progress progress_;
+		private final RunMetrics metrics_;
+		private final WarmUp warmUp_;
+		private final Map<String, Object> runValues_;
+
+		ForkedExperimentWorker(final ForkedWorker worker,
+				final List<String> queries, final AtomicInteger nextQuery,
+				final AtomicReference<Throwable> failure,
+				final long timeOutMillis, final long memoryBudgetBytes,
+				final long globalStartTimeMillis,
+				final long globalStopTimeMillis, final boolean runGc,
+				final boolean onlyOneJustification,
+				final OrderedRecorder recorder, final Progress progress,
+				final RunMetrics metrics, final WarmUp warmUp,
+				final Map<String, Object> runValues) {
+			this.worker_ = worker;
+			this.queries_ = queries;
+			this.nextQuery_ = nextQuery;
+			this.failure_ = failure;
+			this.timeOutMillis_ = timeOutMillis;
+			this.memoryBudgetBytes_ = memoryBudgetBytes;
+			this.globalStartTimeMillis_ = globalStartTimeMillis;
+			this.globalStopTimeMillis_ = globalStopTimeMillis;
+			this.runGc_ = runGc;
+			this.onlyOneJustification_ = onlyOneJustification;
+			this.recorder_ = recorder;
+			this.progress_ = progress;
+			this.metrics_ = metrics;
+			this.warmUp_ = warmUp;
+			this.runValues_ = runValues;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (failure_.get() == null) {
+
+					if (globalStopTimeMillis_ <= System.currentTimeMillis()
+							|| (warmUp_ != null && warmUp_.isDone())) {
+						break;
+					}
+					final int index = nextQuery_.getAndIncrement();
+					if (index >= queries_.size()) {
+						break;
+					}
+					final String query = queries_.get(index);
+					LOGGER_.info("Run number {}", index + 1);
+
+					final RunMetrics.Query running = metrics_
+							.queryStarted(query);
+					final Map<String, Object> record = new LinkedHashMap<>();
+					record.put("query", query);
+					record.putAll(worker_.run(query, timeOutMillis_,
+							memoryBudgetBytes_, onlyOneJustification_, runGc_,
+							running));
+					record.put(ResumedRecord.GLOBAL_TIME_NAME,
+							System.currentTimeMillis()
+									- globalStartTimeMillis_);
+					record.putAll(runValues_);
+					metrics_.queryFinished(running,
+							Boolean.TRUE.equals(record.get("didTimeOut")),
+							record);
+					recorder_.record(index, record);
+
+					synchronized (progress_) {
+						progress_.update();
+					}
+
+					if (warmUp_ != null) {
+						warmUp_.queryFinished(query,
+								((Number) record.get("time")).doubleValue());
+					}
+
+				}
+			} catch (final Throwable e) {
+				LOGGER_.error("Worker failed!", e);
+				failure_.compareAndSet(null, e);
+			}
+		}
+
+	}
+
+	/**
+	 * Runs the experiment and measures the resources it uses. If the
+	 * computation fails, the failure is logged by the {@link QueryWorker} and
+	 * the query is recorded like any other one, whether the queries run
+	 * sequentially, concurrently or in forked JVMs.
+	 */
+	static class QueryRunner implements Runnable {
+
+		private final JustificationExperiment experiment_;
+		private final InterruptMonitor monitor_;
+		private final ResourceMeter meter_;
+
+		private volatile boolean outOfMemory_ = false;
+
+		QueryRunner(final JustificationExperiment experiment,
+				final InterruptMonitor monitor, final ResourceMeter meter) {
+			this.experiment_ = experiment;
+			this.monitor_ = monitor;
+			this.meter_ = meter;
+		}
+
+		@Override
+		public void run() {
+			meter_.start();
+			try {
+				experiment_.run(monitor_);
+			} catch (final ExperimentException e) {
+				throw new RuntimeException(e);
+			} catch (final OutOfMemoryError e) {
+				// the heap of the computation is released when it returns
+				outOfMemory_ = true;
+				LOGGER_.warn("The computation ran out of memory!");
+			} finally {
+				meter_.stop();
+			}
+		}
+
+		/**
+		 * @return whether the last run ended by {@link OutOfMemoryError}
+		 */
+		public boolean isOutOfMemory() {
+			return outOfMemory_;
+		}
+
+	}
+
+	/**
+	 * Interrupts when the global or local timeout expires or when the query
+	 * retained more heap than its memory budget. The global timeout
 	 * is counted from the passed global start time and the local from the
 	 * creation of this object.
 	 * 
 	 * @author Peter Skocovsky
 	 */
-	private static class TimeOutMonitor
-			implements InterruptMonitor, JustificationExperiment.Listener {
+	static class TimeOutMonitor implements InterruptMonitor,
+			JustificationExperiment.Listener, QueryWorker.Cancellable {
 
 		private final long stopTimeMillis_;
 		private final boolean onlyOneJustification_;
+		private final MemoryBudget.Query memory_;
 
 		private int count_ = 0;
 
@@ -419,18 +1232,40 @@ public class RunJustificationExperiments {
 
 		public TimeOutMonitor(final long stopTimeMillis,
 				final boolean onlyOneJustification) {
+			this(stopTimeMillis, onlyOneJustification, null);
+		}
+
+		/**
+		 * @param memory
+		 *            the query measured by a {@link MemoryBudget}, or
+		 *            {@code null} if the memory is not limited
+		 */
+		public TimeOutMonitor(final long stopTimeMillis,
+				final boolean onlyOneJustification,
+				final MemoryBudget.Query memory) {
 			this.stopTimeMillis_ = stopTimeMillis;
 			this.onlyOneJustification_ = onlyOneJustification;
+			this.memory_ = memory;
 		}
 
 		@Override
 		public boolean isInterrupted() {
-			if (stopTimeMillis_ < System.currentTimeMillis()) {
+			if (stopTimeMillis_ < System.currentTimeMillis()
+					|| isOutOfBudget()) {
 				cancelled = true;
 			}
 			return cancelled;
 		}
 
+		public boolean isOutOfBudget() {
+			return memory_ != null && memory_.isExceeded();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+		}
+
 		@Override
 		public void newJustification() {
 			count_++;
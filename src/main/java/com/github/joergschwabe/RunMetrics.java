@@ -0,0 +1,264 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.joergschwabe.experiments.JustificationExperiment;
+
+/**
+ * Progress of a run of experiments that can be read while the experiments are
+ * running, e.g., by {@link MetricsServer}. The runner calls
+ * {@link #start(int)} when it knows how many queries it will run,
+ * {@link #queryStarted(String)} before and
+ * {@link #queryFinished(Query, boolean, Map)} after each query. The methods
+ * may be called from several threads.
+ * <p>
+ * The statistics of the experiment are taken only from the records of
+ * finished queries, because experiments are not thread-safe and must not be
+ * asked for their statistics while they are running.
+ */
+public class RunMetrics {
+
+	private static final double MILLIS_IN_SECOND = 1000.0d;
+
+	private final String name_;
+
+	private volatile int total_ = 0;
+	private volatile long startTimeMillis_ = System.currentTimeMillis();
+	private final AtomicInteger done_ = new AtomicInteger();
+	private final AtomicInteger timeOuts_ = new AtomicInteger();
+	private final AtomicLong justifications_ = new AtomicLong();
+
+	private final ConcurrentMap<String, Query> running_ = new ConcurrentHashMap<>();
+	private volatile Map<String, Object> lastStats_ = Collections.emptyMap();
+
+	/**
+	 * @param name
+	 *            identifies the run, e.g., "warm-up"
+	 */
+	public RunMetrics(final String name) {
+		this.name_ = name;
+	}
+
+	public String getName() {
+		return name_;
+	}
+
+	/**
+	 * Resets the metrics.
+	 * 
+	 * @param total
+	 *            how many queries will be run
+	 */
+	public void start(final int total) {
+		total_ = total;
+		startTimeMillis_ = System.currentTimeMillis();
+		done_.set(0);
+		timeOuts_.set(0);
+		justifications_.set(0);
+		running_.clear();
+		lastStats_ = Collections.emptyMap();
+	}
+
+	/**
+	 * Registers a query that starts running on the current thread.
+	 * 
+	 * @param query
+	 * @return the listener that should be registered in the experiment for
+	 *         the time of the run
+	 */
+	public Query queryStarted(final String query) {
+		final Query result = new Query(Thread.currentThread().getName(),
+				query);
+		running_.put(result.worker_, result);
+		return result;
+	}
+
+	/**
+	 * Registers that the query finished.
+	 * 
+	 * @param query
+	 *            returned by {@link #queryStarted(String)}
+	 * @param didTimeOut
+	 * @param stats
+	 *            the statistics of the experiment after the run
+	 */
+	public void queryFinished(final Query query, final boolean didTimeOut,
+			final Map<String, Object> stats) {
+		running_.remove(query.worker_, query);
+		done_.incrementAndGet();
+		if (didTimeOut) {
+			timeOuts_.incrementAndGet();
+		}
+		lastStats_ = Collections
+				.unmodifiableMap(new LinkedHashMap<String, Object>(stats));
+	}
+
+	public int getTotal() {
+		return total_;
+	}
+
+	public int getDone() {
+		return done_.get();
+	}
+
+	public int getRemaining() {
+		return Math.max(0, total_ - done_.get());
+	}
+
+	public int getTimeOuts() {
+		return timeOuts_.get();
+	}
+
+	/**
+	 * @return the number of justifications found by all queries including the
+	 *         running ones
+	 */
+	public long getJustifications() {
+		return justifications_.get();
+	}
+
+	public long getElapsedMillis() {
+		return System.currentTimeMillis() - startTimeMillis_;
+	}
+
+	/**
+	 * @return finished queries per second
+	 */
+	public double getThroughput() {
+		return perSecond(getDone(), getElapsedMillis());
+	}
+
+	/**
+	 * @return justifications per second
+	 */
+	public double getJustificationRate() {
+		return perSecond(getJustifications(), getElapsedMillis());
+	}
+
+	/**
+	 * @return the queries that are running now
+	 */
+	public List<Query> getRunning() {
+		return new ArrayList<>(running_.values());
+	}
+
+	/**
+	 * @return the statistics recorded for the last finished query
+	 */
+	public Map<String, Object> getLastStats() {
+		return lastStats_;
+	}
+
+	private static double perSecond(final long count,
+			final long elapsedMillis) {
+		return elapsedMillis <= 0 ? 0.0
+				: count * MILLIS_IN_SECOND / elapsedMillis;
+	}
+
+	/**
+	 * @return the bytes of heap memory used
+	 */
+	public static long getHeapUsed() {
+		return heapUsage().getUsed();
+	}
+
+	/**
+	 * @return the bytes of heap memory committed by the JVM
+	 */
+	public static long getHeapCommitted() {
+		return heapUsage().getCommitted();
+	}
+
+	/**
+	 * @return the maximal bytes of heap memory, or -1 if not defined
+	 */
+	public static long getHeapMax() {
+		return heapUsage().getMax();
+	}
+
+	private static MemoryUsage heapUsage() {
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+	}
+
+	/**
+	 * A running query, counts the justifications found for it.
+	 */
+	public class Query implements JustificationExperiment.Listener {
+
+		private final String worker_;
+		private final String query_;
+		private final long startTimeMillis_ = System.currentTimeMillis();
+		private final AtomicInteger count_ = new AtomicInteger();
+
+		Query(final String worker, final String query) {
+			this.worker_ = worker;
+			this.query_ = query;
+		}
+
+		@Override
+		public void newJustification() {
+			count_.incrementAndGet();
+			justifications_.incrementAndGet();
+		}
+
+		/**
+		 * @return the name of the thread that started the query
+		 */
+		public String getWorker() {
+			return worker_;
+		}
+
+		public String getQuery() {
+			return query_;
+		}
+
+		public long getElapsedMillis() {
+			return System.currentTimeMillis() - startTimeMillis_;
+		}
+
+		public int getJustifications() {
+			return count_.get();
+		}
+
+		/**
+		 * @return justifications per second
+		 */
+		public double getJustificationRate() {
+			return perSecond(getJustifications(), getElapsedMillis());
+		}
+
+	}
+
+}
@@ -25,6 +25,7 @@ package com.github.joergschwabe;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintWriter;
@@ -63,6 +64,9 @@ public class RunRepeatingExperiments {
 	public static final String REPETITION_COUNT_OPT = "r";
 	public static final String SEED_OPT = "s";
 	public static final String GC_OPT = "gc";
+	public static final String SHARD_OPT = "shard";
+	public static final String RESUME_OPT = "resume";
+	public static final String METRICS_OPT = "metrics";
 	public static final String QUERIES_OPT = "queries";
 	public static final String EXPERIMENT_OPT = "exp";
 	public static final String EXPERIMENT_ARGS_OPT = "arg";
@@ -80,6 +84,12 @@ public class RunRepeatingExperiments {
 		public Long seed;
 		@Arg(dest = GC_OPT)
 		public boolean runGc;
+		@Arg(dest = SHARD_OPT)
+		public Shard shard;
+		@Arg(dest = RESUME_OPT)
+		public boolean resume;
+		@Arg(dest = METRICS_OPT)
+		public Integer metricsPort;
 		@Arg(dest = QUERIES_OPT)
 		public File queryFile;
 		@Arg(dest = EXPERIMENT_OPT)
@@ -89,6 +99,10 @@ public class RunRepeatingExperiments {
 	}
 
 	public static final long TIMEOUT_DELAY_MILLIS = 10l;
+	/**
+	 * How long to wait for a cancelled computation before killing it.
+	 */
+	public static final long KILL_DELAY_MILLIS = 1000l;
 	public static final double NANOS_IN_MILLIS = 1000000.0d;
 	public static final double MILLIS_IN_SECOND = 1000.0d;
 
@@ -108,6 +122,14 @@ public class RunRepeatingExperiments {
 		parser.addArgument("-" + SEED_OPT).type(Long.class).help("random seed");
 		parser.addArgument("--" + GC_OPT).action(Arguments.storeTrue())
 				.help("run garbage collector before every query");
+		parser.addArgument("--" + SHARD_OPT).type(Shard.ARGUMENT_TYPE)
+				.metavar("i/n")
+				.help("process only the queries of shard i of n (0 <= i < n)");
+		parser.addArgument("--" + RESUME_OPT).action(Arguments.storeTrue())
+				.help("keep the complete records in the record files and run only the remaining queries");
+		parser.addArgument("--" + METRICS_OPT).type(Integer.class)
+				.metavar("port")
+				.help("serve metrics of the running experiments on http://localhost:<port>/metrics");
 		parser.addArgument(QUERIES_OPT)
 				.type(Arguments.fileType().verifyExists().verifyCanRead())
 				.help("query file");
@@ -117,6 +139,11 @@ public class RunRepeatingExperiments {
 
 		BufferedReader queryReader = null;
 		PrintWriter recordWriter = null;
+		MetricsServer metricsServer = null;
+		// measures also the threads created by the computation
+		final ResourceMeter meter = ResourceMeter.forThreadsStartedLater();
+		final QueryWorker worker = new QueryWorker("query-worker",
+				KILL_DELAY_MILLIS);
 
 		try {
 
@@ -139,6 +166,12 @@ public class RunRepeatingExperiments {
 			LOGGER_.info("seed: {}", seed);
 			final boolean runGc = opt.runGc;
 			LOGGER_.info("runGc: {}", runGc);
+			final Shard shard = opt.shard == null ? Shard.ALL : opt.shard;
+			LOGGER_.info("shard: {}", shard);
+			final boolean resume = opt.resume;
+			LOGGER_.info("resume: {}", resume);
+			final Integer metricsPort = opt.metricsPort;
+			LOGGER_.info("metricsPort: {}", metricsPort);
 			final File queryFile = opt.queryFile;
 			LOGGER_.info("queryFile: {}", queryFile);
 			final String experimentClassName = opt.experimentClassName;
@@ -153,14 +186,28 @@ public class RunRepeatingExperiments {
 			File recordFile = new File(String.format(
 					"%s.%0" + Utils.digitCount(repetitionCount + 1) + "d.csv",
 					recordName, ++runIndex));
-			if (recordFile.exists()) {
-				Utils.recursiveDelete(recordFile);
-			}
 			LOGGER_.info("Run #{}", runIndex);
-			recordWriter = new PrintWriter(recordFile);
+			RunMetrics metrics = new RunMetrics("run-" + runIndex);
+			if (metricsPort != null) {
+				metricsServer = new MetricsServer(metricsPort, metrics);
+				try {
+					metricsServer.start();
+				} catch (final IOException e) {
+					throw new ExperimentException(
+							"Cannot start the metrics server!", e);
+				}
+			}
+			ResumedRecord resumed = resume ? ResumedRecord.open(recordFile)
+					: ResumedRecord.EMPTY;
+			FileOutputStream recordStream = new FileOutputStream(recordFile,
+					resume);
+			recordWriter = new PrintWriter(recordStream);
 			experiment.init(experimentArgs);
-			final List<String> queries = firstRun(experiment, queryFile,
-					timeOutMillis, globalTimeOutMillis, runGc, recordWriter);
+			final List<String> queries = firstRun(experiment, worker, meter,
+					metrics, queryFile, shard, resumed, timeOutMillis,
+					globalTimeOutMillis, runGc,
+					newRecorder(recordFile, recordWriter, recordStream, resumed,
+							resume));
 			experiment.dispose();
 			Utils.closeQuietly(recordWriter);
 
@@ -177,14 +224,20 @@ public class RunRepeatingExperiments {
 				recordFile = new File(String.format("%s.%0"
 						+ Utils.digitCount(repetitionCount + 1) + "d.csv",
 						recordName, ++runIndex));
-				if (recordFile.exists()) {
-					Utils.recursiveDelete(recordFile);
-				}
 				LOGGER_.info("Run #{}", runIndex);
-				recordWriter = new PrintWriter(recordFile);
+				metrics = new RunMetrics("run-" + runIndex);
+				if (metricsServer != null) {
+					metricsServer.setMetrics(metrics);
+				}
+				resumed = resume ? ResumedRecord.open(recordFile)
+						: ResumedRecord.EMPTY;
+				recordStream = new FileOutputStream(recordFile, resume);
+				recordWriter = new PrintWriter(recordStream);
 				experiment.init(experimentArgs);
-				otherRun(experiment, queries, timeOutMillis,
-						globalTimeOutMillis, runGc, recordWriter);
+				otherRun(experiment, worker, meter, metrics, queries, resumed,
+						timeOutMillis, globalTimeOutMillis, runGc,
+						newRecorder(recordFile, recordWriter, recordStream,
+								resumed, resume));
 				experiment.dispose();
 				Utils.closeQuietly(recordWriter);
 			}
@@ -204,6 +257,10 @@ public class RunRepeatingExperiments {
 		} finally {
 			Utils.closeQuietly(queryReader);
 			Utils.closeQuietly(recordWriter);
+			worker.close();
+			if (metricsServer != null) {
+				metricsServer.stop();
+			}
 		}
 
 	}
@@ -245,10 +302,26 @@ public class RunRepeatingExperiments {
 
 	}
 
+	private static Recorder newRecorder(final File recordFile,
+			final PrintWriter recordWriter, final FileOutputStream recordStream,
+			final ResumedRecord resumed, final boolean resume)
+			throws IOException {
+		if (resume) {
+			return new Recorder(recordWriter, resumed.getNames(),
+					recordStream.getFD(), Recorder.getSchemaFile(recordFile),
+					resumed.getRecordCount());
+		}
+		// else
+		return new Recorder(recordWriter);
+	}
+
 	private static List<String> firstRun(
-			final JustificationExperiment experiment, final File queryFile,
-			final long timeOutMillis, final long globalTimeOutMillis,
-			final boolean runGc, final PrintWriter recordWriter)
+			final JustificationExperiment experiment, final QueryWorker worker,
+			final ResourceMeter meter, final RunMetrics metrics,
+			final File queryFile, final Shard shard,
+			final ResumedRecord resumed, final long timeOutMillis,
+			final long globalTimeOutMillis, final boolean runGc,
+			final Recorder recorder)
 			throws IOException, ExperimentException {
 
 		final List<String> queries = new ArrayList<>();
@@ -257,21 +330,40 @@ public class RunRepeatingExperiments {
 		try {
 
 			queryReader = new BufferedReader(new FileReader(queryFile));
+			int queryCount = 0;
+			String line;
+			while ((line = queryReader.readLine()) != null) {
+				if (shard.contains(line) && !resumed.isDone(line)) {
+					queryCount++;
+				}
+			}
+			queryReader.close();
+			metrics.start(queryCount);
 
-			final Recorder recorder = new Recorder(recordWriter);
+			queryReader = new BufferedReader(new FileReader(queryFile));
 
-			final long globalStartTimeMillis = System.currentTimeMillis();
+			// the resumed run used up a part of the global timeout
+			final long globalStartTimeMillis = System.currentTimeMillis()
+					- resumed.getElapsedMillis();
 			final long globalStopTimeMillis = globalTimeOutMillis > 0
 					? globalStartTimeMillis + globalTimeOutMillis
 					: Long.MAX_VALUE;
 
 			boolean didSomeExperimentRun = false;
 			for (int nIter = 0; true; nIter++) {
-				final String query = queryReader.readLine();
+				String query;
+				do {
+					query = queryReader.readLine();
+				} while (query != null && !shard.contains(query));
 				if (query == null) {
 					break;
 				}
 
+				if (resumed.isDone(query)) {
+					queries.add(query);
+					continue;
+				}
+
 				LOGGER_.info("Run number {}", nIter + 1);
 
 				if (globalTimeOutMillis > 0) {
@@ -284,6 +376,7 @@ public class RunRepeatingExperiments {
 					}
 				}
 
+				final RunMetrics.Query running = metrics.queryStarted(query);
 				experiment.before(query);
 
 				final Recorder.RecordBuilder record = recorder.newRecord();
@@ -298,6 +391,7 @@ public class RunRepeatingExperiments {
 
 				final JustificationCounter counter = new JustificationCounter();
 				experiment.addJustificationListener(counter);
+				experiment.addJustificationListener(running);
 
 				final long localStartTimeMillis = System.currentTimeMillis();
 				final long localStopTimeMillis = timeOutMillis > 0
@@ -306,33 +400,30 @@ public class RunRepeatingExperiments {
 
 				final long stopTimeMillis = localStopTimeMillis;
 
+				final TimeOutMonitor monitor = new TimeOutMonitor(
+						stopTimeMillis);
 				final Runnable runnable = new Runnable() {
 					@Override
 					public void run() {
+						meter.start();
 						try {
-							experiment.run(new TimeOutMonitor(stopTimeMillis));
+							experiment.run(monitor);
 						} catch (final ExperimentException e) {
 							throw new RuntimeException(e);
+						} finally {
+							meter.stop();
 						}
 					}
 				};
-				final Thread worker = new Thread(runnable);
 				final long startTimeNanos = System.nanoTime();
-				worker.start();
-				// wait for timeout
-				try {
-					worker.join(timeOutMillis > 0
-							? timeOutMillis + TIMEOUT_DELAY_MILLIS
-							: 0);
-				} catch (final InterruptedException e) {
-					LOGGER_.warn("Waiting for the worker thread interruptet!",
-							e);
-				}
+				worker.run(runnable, timeOutMillis > 0
+						? timeOutMillis + TIMEOUT_DELAY_MILLIS
+						: 0, monitor);
 				final long runTimeNanos = System.nanoTime() - startTimeNanos;
 				experiment.removeJustificationListener(counter);
+				experiment.removeJustificationListener(running);
 				final int nJust = counter.getJustificationCount();
 				didSomeExperimentRun = true;
-				killIfAlive(worker);
 
 				final Runtime runtime = Runtime.getRuntime();
 				final long totalMemory = runtime.totalMemory();
@@ -341,18 +432,22 @@ public class RunRepeatingExperiments {
 						+ (runTimeNanos / NANOS_IN_MILLIS) > stopTimeMillis;
 				record.put("didTimeOut", didTimeOut);
 				record.put("time", runTimeNanos / NANOS_IN_MILLIS);
+				meter.putInto(record);
 				record.put("nJust", nJust);
 				record.put("usedMemory", usedMemory);
 
 				experiment.after();
 
+				record.put(ResumedRecord.GLOBAL_TIME_NAME,
+						System.currentTimeMillis() - globalStartTimeMillis);
 				final Map<String, Object> stats = Stats.copyIntoMap(experiment,
 						new TreeMap<String, Object>());
 				for (final Map.Entry<String, Object> entry : stats.entrySet()) {
 					record.put(shortenStatName(entry.getKey()),
 							entry.getValue());
 				}
-				recorder.flush();
+				recorder.commit();
+				metrics.queryFinished(running, didTimeOut, stats);
 
 				queries.add(query);
 
@@ -367,14 +462,24 @@ public class RunRepeatingExperiments {
 	}
 
 	private static void otherRun(final JustificationExperiment experiment,
-			final List<String> queries, final long timeOutMillis,
-			final long globalTimeOutMillis, final boolean runGc,
-			final PrintWriter recordWriter)
+			final QueryWorker worker, final ResourceMeter meter,
+			final RunMetrics metrics, final List<String> queries,
+			final ResumedRecord resumed,
+			final long timeOutMillis, final long globalTimeOutMillis,
+			final boolean runGc, final Recorder recorder)
 			throws IOException, ExperimentException {
 
-		final Recorder recorder = new Recorder(recordWriter);
+		int queryCount = 0;
+		for (final String query : queries) {
+			if (!resumed.isDone(query)) {
+				queryCount++;
+			}
+		}
+		metrics.start(queryCount);
 
-		final long globalStartTimeMillis = System.currentTimeMillis();
+		// the resumed run used up a part of the global timeout
+		final long globalStartTimeMillis = System.currentTimeMillis()
+				- resumed.getElapsedMillis();
 		final long globalStopTimeMillis = globalTimeOutMillis > 0
 				? globalStartTimeMillis + globalTimeOutMillis
 				: Long.MAX_VALUE;
@@ -385,6 +490,10 @@ public class RunRepeatingExperiments {
 
 			LOGGER_.info("Run number {}", ++nIter);
 
+			if (resumed.isDone(query)) {
+				continue;
+			}
+
 			if (globalTimeOutMillis > 0) {
 				final long globalTimeLeftMillis = globalStopTimeMillis
 						- System.currentTimeMillis();
@@ -395,6 +504,7 @@ public class RunRepeatingExperiments {
 				}
 			}
 
+			final RunMetrics.Query running = metrics.queryStarted(query);
 			experiment.before(query);
 
 			final Recorder.RecordBuilder record = recorder.newRecord();
@@ -409,6 +519,7 @@ public class RunRepeatingExperiments {
 
 			final JustificationCounter counter = new JustificationCounter();
 			experiment.addJustificationListener(counter);
+			experiment.addJustificationListener(running);
 
 			final long localStartTimeMillis = System.currentTimeMillis();
 			final long localStopTimeMillis = timeOutMillis > 0
@@ -417,32 +528,30 @@ public class RunRepeatingExperiments {
 
 			final long stopTimeMillis = localStopTimeMillis;
 
+			final TimeOutMonitor monitor = new TimeOutMonitor(stopTimeMillis);
 			final Runnable runnable = new Runnable() {
 				@Override
 				public void run() {
+					meter.start();
 					try {
-						experiment.run(new TimeOutMonitor(stopTimeMillis));
+						experiment.run(monitor);
 					} catch (final ExperimentException e) {
 						throw new RuntimeException(e);
+					} finally {
+						meter.stop();
 					}
 				}
 			};
-			final Thread worker = new Thread(runnable);
 			final long startTimeNanos = System.nanoTime();
-			worker.start();
-			// wait for timeout
-			try {
-				worker.join(
-						timeOutMillis > 0 ? timeOutMillis + TIMEOUT_DELAY_MILLIS
-								: 0);
-			} catch (final InterruptedException e) {
-				LOGGER_.warn("Waiting for the worker thread interruptet!", e);
-			}
+			worker.run(runnable,
+					timeOutMillis > 0 ? timeOutMillis + TIMEOUT_DELAY_MILLIS
+							: 0,
+					monitor);
 			final long runTimeNanos = System.nanoTime() - startTimeNanos;
 			experiment.removeJustificationListener(counter);
+			experiment.removeJustificationListener(running);
 			final int nJust = counter.getJustificationCount();
 			didSomeExperimentRun = true;
-			killIfAlive(worker);
 
 			final Runtime runtime = Runtime.getRuntime();
 			final long totalMemory = runtime.totalMemory();
@@ -451,36 +560,26 @@ public class RunRepeatingExperiments {
 					+ (runTimeNanos / NANOS_IN_MILLIS) > stopTimeMillis;
 			record.put("didTimeOut", didTimeOut);
 			record.put("time", runTimeNanos / NANOS_IN_MILLIS);
+			meter.putInto(record);
 			record.put("nJust", nJust);
 			record.put("usedMemory", usedMemory);
 
 			experiment.after();
 
+			record.put(ResumedRecord.GLOBAL_TIME_NAME,
+					System.currentTimeMillis() - globalStartTimeMillis);
 			final Map<String, Object> stats = Stats.copyIntoMap(experiment,
 					new TreeMap<String, Object>());
 			for (final Map.Entry<String, Object> entry : stats.entrySet()) {
 				record.put(shortenStatName(entry.getKey()), entry.getValue());
 			}
-			recorder.flush();
+			recorder.commit();
+			metrics.queryFinished(running, didTimeOut, stats);
 
 		}
 
 	}
 
-	/**
-	 * If the specified thread is alive, calls {@link Thread#stop()} on it.
-	 * <strong>This breaks any synchronization with the thread.</strong>
-	 * 
-	 * @param thread
-	 */
-	@SuppressWarnings("deprecation")
-	private static void killIfAlive(final Thread thread) {
-		if (thread.isAlive()) {
-			LOGGER_.info("killing the thread {}", thread.getName());
-			thread.stop();
-		}
-	}
-
 	private static String shortenStatName(final String fullName) {
 		final int lastIndexOfDot = fullName.lastIndexOf('.');
 		if (lastIndexOfDot < 0) {
@@ -503,7 +602,8 @@ public class RunRepeatingExperiments {
 	 * 
 	 * @author Peter Skocovsky
 	 */
-	private static class TimeOutMonitor implements InterruptMonitor {
+	private static class TimeOutMonitor
+			implements InterruptMonitor, QueryWorker.Cancellable {
 
 		private final long stopTimeMillis_;
 
@@ -521,6 +621,11 @@ public class RunRepeatingExperiments {
 			return cancelled;
 		}
 
+		@Override
+		public void cancel() {
+			cancelled = true;
+		}
+
 	}
 
 	private static class JustificationCounter
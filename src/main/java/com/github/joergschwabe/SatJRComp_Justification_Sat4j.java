@@ -18,6 +18,7 @@ import org.sat4j.specs.ContradictionException;
 import org.sat4j.specs.ISolver;
 import org.sat4j.specs.TimeoutException;
 
+import com.github.joergschwabe.PhaseProfiler.Phase;
 import com.google.common.base.Preconditions;
 
 /**
@@ -70,6 +71,7 @@ public class SatJRComp_Justification_Sat4j<C, I extends Inference<? extends C>,
 			
 			idProvider_ = new IdProvider<>();
 
+			PhaseProfiler.start(Phase.TRANSLATION);
 			this.proofTranslator_ = new IntegerProofTranslator<C, I, A>(getProof(), getInferenceJustifier());
 			Proof<Inference<? extends Integer>> translatedProofGetInferences = proofTranslator_
 					.getTranslatedProofDiv(idProvider_);
@@ -83,8 +85,11 @@ public class SatJRComp_Justification_Sat4j<C, I extends Inference<? extends C>,
 
 			Proof<Inference<? extends Integer>> translatedProof = proofTranslator_.getTranslatedProof(idProvider_,
 					query);
+			PhaseProfiler.stop(Phase.TRANSLATION);
 
+			PhaseProfiler.start(Phase.UNFOLDING);
 			Proofs.unfoldRecursively(translatedProof, queryId_, this);
+			PhaseProfiler.stop(Phase.UNFOLDING);
 
 			try {
 				compute();
@@ -101,40 +106,67 @@ public class SatJRComp_Justification_Sat4j<C, I extends Inference<? extends C>,
 
 			ISolver solver = satClauseHandler_.getISolver();
 
-			while (solver.isSatisfiable()) {
+			while (true) {
+				PhaseProfiler.start(Phase.SOLVING);
+				if (!solver.isSatisfiable()) {
+					PhaseProfiler.stop(Phase.SOLVING);
+					break;
+				}
 				int[] list = solver.model();
+				PhaseProfiler.stop(Phase.SOLVING);
 
 				axiomSet = satClauseHandler_.getPositiveOntologieAxioms(list);
 
-				if(satClauseHandler_.isQueryDerivable(axiomSet)) {
+				PhaseProfiler.start(Phase.DERIVABILITY_CHECK);
+				final boolean derivable = satClauseHandler_.isQueryDerivable(axiomSet);
+				PhaseProfiler.stop(Phase.DERIVABILITY_CHECK);
+				if(derivable) {
 					if(axiomSet.isEmpty()) {
+						PhaseProfiler.start(Phase.LISTENER);
 						listener_.newMinimalSubset(new HashSet<A>());
+						PhaseProfiler.stop(Phase.LISTENER);
 						break;
 					}
 					
+					PhaseProfiler.start(Phase.MINIMIZATION);
 					justification_int = satClauseHandler_.computeJustification(axiomSet);
+					PhaseProfiler.stop(Phase.MINIMIZATION);
 
 					try {
+						PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 						satClauseHandler_.pushNegClauseToSolver(justification_int);
+						PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 					} catch (ContradictionException e) {
+						PhaseProfiler.start(Phase.TRANSLATION);
 						justification = satClauseHandler_.translateToAxioms(justification_int);
+						PhaseProfiler.stop(Phase.TRANSLATION);
 
+						PhaseProfiler.start(Phase.LISTENER);
 						listener_.newMinimalSubset(justification);
+						PhaseProfiler.stop(Phase.LISTENER);
 						
 						break;
 					}					
 					
+					PhaseProfiler.start(Phase.TRANSLATION);
 					justification = satClauseHandler_.translateToAxioms(justification_int);
+					PhaseProfiler.stop(Phase.TRANSLATION);
 
+					PhaseProfiler.start(Phase.LISTENER);
 					listener_.newMinimalSubset(justification);
+					PhaseProfiler.stop(Phase.LISTENER);
 				} else {
 					Set<Integer> axiomSetAll = new HashSet<Integer>(idProvider_.getAxiomIds());
 					axiomSetAll.removeAll(axiomSet);
 
+					PhaseProfiler.start(Phase.MINIMIZATION);
 					repair_int = satClauseHandler_.computeMinimalRepair(axiomSetAll);
+					PhaseProfiler.stop(Phase.MINIMIZATION);
 
 					try {
+						PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 						satClauseHandler_.pushPosClauseToSolver(repair_int);
+						PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 					} catch (ContradictionException e) {
 						break;
 					}					
@@ -21,6 +21,7 @@ import org.logicng.solvers.MiniSat;
 import org.logicng.solvers.SATSolver;
 import org.sat4j.specs.ContradictionException;
 
+import com.github.joergschwabe.PhaseProfiler.Phase;
 import com.google.common.base.Preconditions;
 
 /**
@@ -74,6 +75,7 @@ public class SatJRComp_Repair_LogicNg<C, I extends Inference<? extends C>, A>
 			
 			idProvider_ = new IdProvider<>();
 
+			PhaseProfiler.start(Phase.TRANSLATION);
 			this.proofTranslator_ = new IntegerProofTranslator<C, I, A>(getProof(), getInferenceJustifier());
 			Proof<Inference<? extends Integer>> translatedProofGetInferences = proofTranslator_
 					.getTranslatedProofDiv(idProvider_);
@@ -87,11 +89,16 @@ public class SatJRComp_Repair_LogicNg<C, I extends Inference<? extends C>, A>
 
 			Proof<Inference<? extends Integer>> translatedProof = proofTranslator_.getTranslatedProof(idProvider_,
 					query);
+			PhaseProfiler.stop(Phase.TRANSLATION);
 
+			PhaseProfiler.start(Phase.UNFOLDING);
 			Proofs.unfoldRecursively(translatedProof, queryId_, this);
+			PhaseProfiler.stop(Phase.UNFOLDING);
 
 			try {
+				PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 				satClauseHandler_.translateQuery();
+				PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 
 				compute();
 			} catch (Exception e) {
@@ -108,26 +115,47 @@ public class SatJRComp_Repair_LogicNg<C, I extends Inference<? extends C>, A>
 
 			SATSolver solver = satClauseHandler_.getSATSolver();
 
-			while (solver.sat() == Tristate.TRUE) {
+			while (true) {
+				PhaseProfiler.start(Phase.SOLVING);
+				if (solver.sat() != Tristate.TRUE) {
+					PhaseProfiler.stop(Phase.SOLVING);
+					break;
+				}
 				Assignment model = solver.model();
+				PhaseProfiler.stop(Phase.SOLVING);
 
 				axiomSet = satClauseHandler_.getPositiveOntologieAxioms(model);
 
-				if(satClauseHandler_.isQueryDerivable(axiomSet)) {
+				PhaseProfiler.start(Phase.DERIVABILITY_CHECK);
+				final boolean derivable = satClauseHandler_.isQueryDerivable(axiomSet);
+				PhaseProfiler.stop(Phase.DERIVABILITY_CHECK);
+				if(derivable) {
+					PhaseProfiler.start(Phase.MINIMIZATION);
 					minJust_int = satClauseHandler_.computeJustification(axiomSet);
+					PhaseProfiler.stop(Phase.MINIMIZATION);
 
+					PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 					satClauseHandler_.pushNegClauseToSolver(minJust_int);
+					PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 				} else {
 					Set<Integer> axiomSetAll = new HashSet<Integer>(idProvider_.getAxiomIds());
 					axiomSetAll.removeAll(axiomSet);
 					
+					PhaseProfiler.start(Phase.MINIMIZATION);
 					minRepair_int = satClauseHandler_.computeMinimalRepair(axiomSetAll);
+					PhaseProfiler.stop(Phase.MINIMIZATION);
 
+					PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 					satClauseHandler_.pushPosClauseToSolver(minRepair_int);
+					PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 					
+					PhaseProfiler.start(Phase.TRANSLATION);
 					minRepair = satClauseHandler_.translateToAxioms(minRepair_int);
+					PhaseProfiler.stop(Phase.TRANSLATION);
 
+					PhaseProfiler.start(Phase.LISTENER);
 					listener_.newMinimalSubset(minRepair);
+					PhaseProfiler.stop(Phase.LISTENER);
 				}
 
 
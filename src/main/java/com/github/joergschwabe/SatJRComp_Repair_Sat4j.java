@@ -18,6 +18,7 @@ import org.sat4j.specs.ContradictionException;
 import org.sat4j.specs.ISolver;
 import org.sat4j.specs.TimeoutException;
 
+import com.github.joergschwabe.PhaseProfiler.Phase;
 import com.google.common.base.Preconditions;
 
 /**
@@ -70,6 +71,7 @@ public class SatJRComp_Repair_Sat4j<C, I extends Inference<? extends C>, A>
 			
 			idProvider_ = new IdProvider<>();
 
+			PhaseProfiler.start(Phase.TRANSLATION);
 			this.proofTranslator_ = new IntegerProofTranslator<C, I, A>(getProof(), getInferenceJustifier());
 			Proof<Inference<? extends Integer>> translatedProofGetInferences = proofTranslator_
 					.getTranslatedProofDiv(idProvider_);
@@ -83,8 +85,11 @@ public class SatJRComp_Repair_Sat4j<C, I extends Inference<? extends C>, A>
 
 			Proof<Inference<? extends Integer>> translatedProof = proofTranslator_.getTranslatedProof(idProvider_,
 					query);
+			PhaseProfiler.stop(Phase.TRANSLATION);
 
+			PhaseProfiler.start(Phase.UNFOLDING);
 			Proofs.unfoldRecursively(translatedProof, queryId_, this);
+			PhaseProfiler.stop(Phase.UNFOLDING);
 
 			try {
 				compute();
@@ -101,16 +106,29 @@ public class SatJRComp_Repair_Sat4j<C, I extends Inference<? extends C>, A>
 
 			ISolver solver = satClauseHandler_.getISolver();
 
-			while (solver.isSatisfiable()) {
+			while (true) {
+				PhaseProfiler.start(Phase.SOLVING);
+				if (!solver.isSatisfiable()) {
+					PhaseProfiler.stop(Phase.SOLVING);
+					break;
+				}
 				int[] list = solver.model();
+				PhaseProfiler.stop(Phase.SOLVING);
 
 				axiomSet = satClauseHandler_.getPositiveOntologieAxioms(list);
 
-				if(satClauseHandler_.isQueryDerivable(axiomSet)) {
+				PhaseProfiler.start(Phase.DERIVABILITY_CHECK);
+				final boolean derivable = satClauseHandler_.isQueryDerivable(axiomSet);
+				PhaseProfiler.stop(Phase.DERIVABILITY_CHECK);
+				if(derivable) {
+					PhaseProfiler.start(Phase.MINIMIZATION);
 					minJust_int = satClauseHandler_.computeJustification(axiomSet);
+					PhaseProfiler.stop(Phase.MINIMIZATION);
 
 					try {
+						PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 						satClauseHandler_.pushNegClauseToSolver(minJust_int);
+						PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 					} catch (ContradictionException e) {
 						break;
 					}					
@@ -118,21 +136,33 @@ public class SatJRComp_Repair_Sat4j<C, I extends Inference<? extends C>, A>
 					Set<Integer> axiomSetAll = new HashSet<Integer>(idProvider_.getAxiomIds());
 					axiomSetAll.removeAll(axiomSet);
 
+					PhaseProfiler.start(Phase.MINIMIZATION);
 					minRepair_int = satClauseHandler_.computeMinimalRepair(axiomSetAll);
+					PhaseProfiler.stop(Phase.MINIMIZATION);
 
 					try {
+						PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 						satClauseHandler_.pushPosClauseToSolver(minRepair_int);
+						PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 					} catch (ContradictionException e) {
+						PhaseProfiler.start(Phase.TRANSLATION);
 						minRepair = satClauseHandler_.translateToAxioms(minRepair_int);
+						PhaseProfiler.stop(Phase.TRANSLATION);
 
+						PhaseProfiler.start(Phase.LISTENER);
 						listener_.newMinimalSubset(minRepair);
+						PhaseProfiler.stop(Phase.LISTENER);
 						
 						break;
 					}					
 					
+					PhaseProfiler.start(Phase.TRANSLATION);
 					minRepair = satClauseHandler_.translateToAxioms(minRepair_int);
+					PhaseProfiler.stop(Phase.TRANSLATION);
 
+					PhaseProfiler.start(Phase.LISTENER);
 					listener_.newMinimalSubset(minRepair);
+					PhaseProfiler.stop(Phase.LISTENER);
 				}
 
 				if (isInterrupted()) {
@@ -22,6 +22,7 @@ import org.logicng.solvers.MiniSat;
 import org.logicng.solvers.SATSolver;
 import org.sat4j.specs.ContradictionException;
 
+import com.github.joergschwabe.PhaseProfiler.Phase;
 import com.google.common.base.Preconditions;
 
 /**
@@ -76,6 +77,7 @@ public class SatJustificationComp_LogicNg_glucose<C, I extends Inference<? exten
 			
 			idProvider_ = new IdProvider<>();
 
+			PhaseProfiler.start(Phase.TRANSLATION);
 			this.proofTranslator_ = new IntegerProofTranslator<C, I, A>(getProof(), getInferenceJustifier());
 			Proof<Inference<? extends Integer>> translatedProofGetInferences = proofTranslator_
 					.getTranslatedProofDiv(idProvider_);
@@ -89,15 +91,20 @@ public class SatJustificationComp_LogicNg_glucose<C, I extends Inference<? exten
 
 			Proof<Inference<? extends Integer>> translatedProof = proofTranslator_.getTranslatedProof(idProvider_,
 					query);
+			PhaseProfiler.stop(Phase.TRANSLATION);
 
+			PhaseProfiler.start(Phase.UNFOLDING);
 			Proofs.unfoldRecursively(translatedProof, queryId_, this);
+			PhaseProfiler.stop(Phase.UNFOLDING);
 
 			cycleComputator = new CycleComputator(translatedProof, queryId_);
 
 			try {
+				PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 				satClauseHandler_.translateQuery();
 
 				satClauseHandler_.addConclusionInferencesClauses();
+				PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 
 				compute();
 			} catch (Exception e) {
@@ -114,37 +121,62 @@ public class SatJustificationComp_LogicNg_glucose<C, I extends Inference<? exten
 
 			SATSolver solver = satClauseHandler_.getSATSolver();
 
-			while (solver.sat() == Tristate.TRUE) {
+			while (true) {
+				PhaseProfiler.start(Phase.SOLVING);
+				if (solver.sat() != Tristate.TRUE) {
+					PhaseProfiler.stop(Phase.SOLVING);
+					break;
+				}
 				Assignment model = solver.model();
+				PhaseProfiler.stop(Phase.SOLVING);
 
 				axiomSet = satClauseHandler_.getPositiveOntologieAxioms(model);
 
-				if(satClauseHandler_.isQueryDerivable(axiomSet)) {
+				PhaseProfiler.start(Phase.DERIVABILITY_CHECK);
+				final boolean derivable = satClauseHandler_.isQueryDerivable(axiomSet);
+				PhaseProfiler.stop(Phase.DERIVABILITY_CHECK);
+				if(derivable) {
 					if(axiomSet.isEmpty()) {
+						PhaseProfiler.start(Phase.LISTENER);
 						listener_.newMinimalSubset(new HashSet<A>());
+						PhaseProfiler.stop(Phase.LISTENER);
 						break;
 					}
 
+					PhaseProfiler.start(Phase.MINIMIZATION);
 					justification_int = satClauseHandler_.computeJustification(axiomSet);
+					PhaseProfiler.stop(Phase.MINIMIZATION);
 
 					if(justification_int.isEmpty()) {
+						PhaseProfiler.start(Phase.LISTENER);
 						listener_.newMinimalSubset(new HashSet<A>());
+						PhaseProfiler.stop(Phase.LISTENER);
 						break;
 					}
 
+					PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 					satClauseHandler_.pushNegClauseToSolver(justification_int);
+					PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 					
+					PhaseProfiler.start(Phase.TRANSLATION);
 					justification = satClauseHandler_.translateToAxioms(justification_int);
+					PhaseProfiler.stop(Phase.TRANSLATION);
 
+					PhaseProfiler.start(Phase.LISTENER);
 					listener_.newMinimalSubset(justification);
+					PhaseProfiler.stop(Phase.LISTENER);
 				} else {
+					PhaseProfiler.start(Phase.CYCLE_SEARCH);
 					conclusionSet = satClauseHandler_.getConclusionAxioms(model);
 
 					inferenceSet = satClauseHandler_.getPositiveInferences(model);
 
 					Set<Inference<? extends Integer>> cycle = cycleComputator.getCycle(conclusionSet, inferenceSet);
+					PhaseProfiler.stop(Phase.CYCLE_SEARCH);
 					
+					PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 					satClauseHandler_.addCycleClause(cycle);
+					PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 				}
 
 				if (isInterrupted()) {
@@ -157,7 +189,9 @@ public class SatJustificationComp_LogicNg_glucose<C, I extends Inference<? exten
 		public void produce(Inference<? extends Integer> inference) {
 			// translate the inference to SAT
 			try {
+				PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 				satClauseHandler_.addInfImplicationToSolver(inference);
+				PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 				idProvider_.addConclusionInference(inference);
 			} catch (Exception e) {
 				e.printStackTrace();
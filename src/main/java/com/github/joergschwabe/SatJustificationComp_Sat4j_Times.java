@@ -123,6 +123,7 @@ public class SatJustificationComp_Sat4j_Times<C, I extends Inference<? extends C
 			while (true) {
 				monitor.startSatSolver();
 				if (!solver.isSatisfiable()) {
+					monitor.stopSatSolver();
 					break;
 				}
 				int[] list = solver.model();
@@ -134,6 +135,7 @@ public class SatJustificationComp_Sat4j_Times<C, I extends Inference<? extends C
 					monitor.startJustComp();
 					if (axiomSet.isEmpty()) {
 						listener_.newMinimalSubset(new HashSet<A>());
+						monitor.stopJustComp();
 						break;
 					}
 
@@ -145,6 +147,7 @@ public class SatJustificationComp_Sat4j_Times<C, I extends Inference<? extends C
 						justification = satClauseHandler_.translateToAxioms(justification_int);
 
 						listener_.newMinimalSubset(justification);
+						monitor.stopJustComp();
 
 						break;
 					}
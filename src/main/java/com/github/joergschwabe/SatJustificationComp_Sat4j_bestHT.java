@@ -20,6 +20,7 @@ import org.sat4j.specs.ContradictionException;
 import org.sat4j.specs.ISolver;
 import org.sat4j.specs.TimeoutException;
 
+import com.github.joergschwabe.PhaseProfiler.Phase;
 import com.google.common.base.Preconditions;
 
 /**
@@ -73,6 +74,7 @@ public class SatJustificationComp_Sat4j_bestHT<C, I extends Inference<? extends
 			
 			idProvider_ = new IdProvider<>();
 
+			PhaseProfiler.start(Phase.TRANSLATION);
 			this.proofTranslator_ = new IntegerProofTranslator<C, I, A>(getProof(), getInferenceJustifier());
 			Proof<Inference<? extends Integer>> translatedProofGetInferences = proofTranslator_
 					.getTranslatedProofDiv(idProvider_);
@@ -86,15 +88,20 @@ public class SatJustificationComp_Sat4j_bestHT<C, I extends Inference<? extends
 
 			Proof<Inference<? extends Integer>> translatedProof = proofTranslator_.getTranslatedProof(idProvider_,
 					query);
+			PhaseProfiler.stop(Phase.TRANSLATION);
 
+			PhaseProfiler.start(Phase.UNFOLDING);
 			Proofs.unfoldRecursively(translatedProof, queryId_, this);
+			PhaseProfiler.stop(Phase.UNFOLDING);
 
 			cycleComputator = new CycleComputator(translatedProof, queryId_);
 
 			try {
+				PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 				satClauseHandler_.translateQuery();
 
 				satClauseHandler_.addConclusionInferencesClauses();
+				PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 			} catch (ContradictionException e) {
 				return;
 			}
@@ -115,40 +122,67 @@ public class SatJustificationComp_Sat4j_bestHT<C, I extends Inference<? extends
 			Set<Integer> justification_int;
 			Set<A> justification;
 			
-			while (solver.isSatisfiable()) {
+			while (true) {
+				PhaseProfiler.start(Phase.SOLVING);
+				if (!solver.isSatisfiable()) {
+					PhaseProfiler.stop(Phase.SOLVING);
+					break;
+				}
 				int[] list = solver.model();
+				PhaseProfiler.stop(Phase.SOLVING);
 
 				axiomSet = satClauseHandler_.getPositiveOntologieAxioms(list);
 
-				if(satClauseHandler_.isQueryDerivable(axiomSet)) {
+				PhaseProfiler.start(Phase.DERIVABILITY_CHECK);
+				final boolean derivable = satClauseHandler_.isQueryDerivable(axiomSet);
+				PhaseProfiler.stop(Phase.DERIVABILITY_CHECK);
+				if(derivable) {
 					if(axiomSet.isEmpty()) {
+						PhaseProfiler.start(Phase.LISTENER);
 						listener_.newMinimalSubset(new HashSet<A>());
+						PhaseProfiler.stop(Phase.LISTENER);
 						break;
 					}
 					
+					PhaseProfiler.start(Phase.MINIMIZATION);
 					justification_int = satClauseHandler_.computeJustification(axiomSet);
+					PhaseProfiler.stop(Phase.MINIMIZATION);
 
 					try {
+						PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 						satClauseHandler_.pushNegClauseToSolver(justification_int);
+						PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 					} catch (ContradictionException e) {
+						PhaseProfiler.start(Phase.TRANSLATION);
 						justification = satClauseHandler_.translateToAxioms(justification_int);
+						PhaseProfiler.stop(Phase.TRANSLATION);
 
+						PhaseProfiler.start(Phase.LISTENER);
 						listener_.newMinimalSubset(justification);
+						PhaseProfiler.stop(Phase.LISTENER);
 						
 						break;
 					}					
 
+					PhaseProfiler.start(Phase.TRANSLATION);
 					justification = satClauseHandler_.translateToAxioms(justification_int);
+					PhaseProfiler.stop(Phase.TRANSLATION);
 
+					PhaseProfiler.start(Phase.LISTENER);
 					listener_.newMinimalSubset(justification);
+					PhaseProfiler.stop(Phase.LISTENER);
 				} else {
+					PhaseProfiler.start(Phase.CYCLE_SEARCH);
 					conclusionSet = satClauseHandler_.getPositiveConclusions(list);
 
 					inferenceSet = satClauseHandler_.getPositiveInferences(list);
 
 					Set<Inference<? extends Integer>> cycle = cycleComputator.getCycle(conclusionSet, inferenceSet);
+					PhaseProfiler.stop(Phase.CYCLE_SEARCH);
 
+					PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 					satClauseHandler_.addCycleClause(cycle);
+					PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 				}
 
 				if (isInterrupted()) {
@@ -161,7 +195,9 @@ public class SatJustificationComp_Sat4j_bestHT<C, I extends Inference<? extends
 		public void produce(Inference<? extends Integer> inference) {
 			// translate the inference to SAT
 			try {
+				PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 				satClauseHandler_.addInfImplicationToSolver(inference);
+				PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 				idProvider_.addConclusionInference(inference);
 			} catch (Exception e) {
 				e.printStackTrace();
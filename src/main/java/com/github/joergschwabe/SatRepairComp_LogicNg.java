@@ -21,6 +21,7 @@ import org.logicng.solvers.SATSolver;
 import org.sat4j.specs.ContradictionException;
 import org.sat4j.specs.TimeoutException;
 
+import com.github.joergschwabe.PhaseProfiler.Phase;
 import com.google.common.base.Preconditions;
 
 /**
@@ -74,6 +75,7 @@ public class SatRepairComp_LogicNg<C, I extends Inference<? extends C>, A>
 			
 			idProvider_ = new IdProvider<>();
 
+			PhaseProfiler.start(Phase.TRANSLATION);
 			this.proofTranslator_ = new IntegerProofTranslator<C, I, A>(getProof(), getInferenceJustifier());
 			Proof<Inference<? extends Integer>> translatedProofGetInferences = proofTranslator_
 					.getTranslatedProofDiv(idProvider_);
@@ -87,11 +89,16 @@ public class SatRepairComp_LogicNg<C, I extends Inference<? extends C>, A>
 
 			Proof<Inference<? extends Integer>> translatedProof = proofTranslator_.getTranslatedProof(idProvider_,
 					query);
+			PhaseProfiler.stop(Phase.TRANSLATION);
 
+			PhaseProfiler.start(Phase.UNFOLDING);
 			Proofs.unfoldRecursively(translatedProof, queryId_, this);
+			PhaseProfiler.stop(Phase.UNFOLDING);
 
 			try {
+				PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 				satClauseHandler_.translateQuery();
+				PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 
 				compute();
 			} catch (Exception e) {
@@ -105,18 +112,32 @@ public class SatRepairComp_LogicNg<C, I extends Inference<? extends C>, A>
 			Set<Integer> repair_int;
 			Set<A> minRepair;
 
-			while (solver.sat() == Tristate.TRUE) {
+			while (true) {
+				PhaseProfiler.start(Phase.SOLVING);
+				if (solver.sat() != Tristate.TRUE) {
+					PhaseProfiler.stop(Phase.SOLVING);
+					break;
+				}
 				Assignment model = solver.model();
+				PhaseProfiler.stop(Phase.SOLVING);
 
 				repair_int = satClauseHandler_.getPositiveOntologieAxioms(model);
 
+				PhaseProfiler.start(Phase.MINIMIZATION);
 				repair_int = satClauseHandler_.computeMinimalRepair(repair_int);
+				PhaseProfiler.stop(Phase.MINIMIZATION);
 
+				PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 				satClauseHandler_.pushNegClauseToSolver(repair_int);
+				PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 
+				PhaseProfiler.start(Phase.TRANSLATION);
 				minRepair = satClauseHandler_.translateToAxioms(repair_int);
+				PhaseProfiler.stop(Phase.TRANSLATION);
 
+				PhaseProfiler.start(Phase.LISTENER);
 				listener_.newMinimalSubset(minRepair);
+				PhaseProfiler.stop(Phase.LISTENER);
 
 				if (isInterrupted()) {
 					break;
@@ -128,7 +149,9 @@ public class SatRepairComp_LogicNg<C, I extends Inference<? extends C>, A>
 		public void produce(Inference<? extends Integer> inference) {
 			// translate the inference to SAT
 			try {
+				PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 				satClauseHandler_.addInfToSolver(inference);
+				PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 			} catch (Exception e) {
 				e.printStackTrace();
 			}
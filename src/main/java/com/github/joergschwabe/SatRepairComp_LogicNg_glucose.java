@@ -20,6 +20,7 @@ import org.logicng.solvers.MiniSat;
 import org.logicng.solvers.SATSolver;
 import org.sat4j.specs.ContradictionException;
 
+import com.github.joergschwabe.PhaseProfiler.Phase;
 import com.google.common.base.Preconditions;
 
 /**
@@ -72,6 +73,7 @@ public class SatRepairComp_LogicNg_glucose<C, I extends Inference<? extends C>,
 			
 			idProvider_ = new IdProvider<>();
 
+			PhaseProfiler.start(Phase.TRANSLATION);
 			this.proofTranslator_ = new IntegerProofTranslator<C, I, A>(getProof(), getInferenceJustifier());
 			Proof<Inference<? extends Integer>> translatedProofGetInferences = proofTranslator_
 					.getTranslatedProofDiv(idProvider_);
@@ -85,11 +87,16 @@ public class SatRepairComp_LogicNg_glucose<C, I extends Inference<? extends C>,
 
 			Proof<Inference<? extends Integer>> translatedProof = proofTranslator_.getTranslatedProof(idProvider_,
 					query);
+			PhaseProfiler.stop(Phase.TRANSLATION);
 
+			PhaseProfiler.start(Phase.UNFOLDING);
 			Proofs.unfoldRecursively(translatedProof, queryId_, this);
+			PhaseProfiler.stop(Phase.UNFOLDING);
 
 			try {
+				PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 				satClauseHandler_.translateQuery();
+				PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 
 				compute();
 			} catch (Exception e) {
@@ -103,18 +110,32 @@ public class SatRepairComp_LogicNg_glucose<C, I extends Inference<? extends C>,
 			Set<Integer> repair_int;
 			Set<A> minRepair;
 
-			while (solver.sat() == Tristate.TRUE) {
+			while (true) {
+				PhaseProfiler.start(Phase.SOLVING);
+				if (solver.sat() != Tristate.TRUE) {
+					PhaseProfiler.stop(Phase.SOLVING);
+					break;
+				}
 				Assignment model = solver.model();
+				PhaseProfiler.stop(Phase.SOLVING);
 
 				repair_int = satClauseHandler_.getPositiveOntologieAxioms(model);
 
+				PhaseProfiler.start(Phase.MINIMIZATION);
 				repair_int = satClauseHandler_.computeMinimalRepair(repair_int);
+				PhaseProfiler.stop(Phase.MINIMIZATION);
 
+				PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 				satClauseHandler_.pushNegClauseToSolver(repair_int);
+				PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 
+				PhaseProfiler.start(Phase.TRANSLATION);
 				minRepair = satClauseHandler_.translateToAxioms(repair_int);
+				PhaseProfiler.stop(Phase.TRANSLATION);
 
+				PhaseProfiler.start(Phase.LISTENER);
 				listener_.newMinimalSubset(minRepair);
+				PhaseProfiler.stop(Phase.LISTENER);
 
 				if (isInterrupted()) {
 					break;
@@ -126,7 +147,9 @@ public class SatRepairComp_LogicNg_glucose<C, I extends Inference<? extends C>,
 		public void produce(Inference<? extends Integer> inference) {
 			// translate the inference to SAT
 			try {
+				PhaseProfiler.start(Phase.CLAUSE_GENERATION);
 				satClauseHandler_.addInfToSolver(inference);
+				PhaseProfiler.stop(Phase.CLAUSE_GENERATION);
 			} catch (Exception e) {
 				e.printStackTrace();
 			}
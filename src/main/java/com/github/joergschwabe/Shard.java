@@ -0,0 +1,155 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import net.sourceforge.argparse4j.inf.Argument;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.ArgumentType;
+
+/**
+ * One of {@code n} disjoint parts of a query file. A query belongs to the
+ * shard {@code i/n} iff the hash of the query modulo {@code n} is {@code i}.
+ * The hash depends only on the text of the query, so a query is always
+ * assigned to the same shard, no matter on which machine, in which order or
+ * together with which other queries it is processed.
+ * <p>
+ * Shards are written as {@code i/n} where {@code 0 <= i < n}.
+ */
+public class Shard {
+
+	/**
+	 * The shard containing all queries.
+	 */
+	public static final Shard ALL = new Shard(0, 1);
+
+	/**
+	 * Converts arguments of the form {@code i/n} to {@link Shard}s.
+	 */
+	public static final ArgumentType<Shard> ARGUMENT_TYPE = new ArgumentType<Shard>() {
+
+		@Override
+		public Shard convert(final ArgumentParser parser,
+				final Argument arg, final String value)
+				throws ArgumentParserException {
+			try {
+				return parse(value);
+			} catch (final IllegalArgumentException e) {
+				throw new ArgumentParserException(e.getMessage(), e, parser,
+						arg);
+			}
+		}
+
+	};
+
+	private static final HashFunction HASH_FUNCTION_ = Hashing.murmur3_32();
+
+	private final int index_;
+	private final int count_;
+
+	public Shard(final int index, final int count) {
+		if (count < 1) {
+			throw new IllegalArgumentException(
+					"Number of shards must be positive! n=" + count);
+		}
+		if (index < 0 || index >= count) {
+			throw new IllegalArgumentException(
+					"Shard index must be between 0 and " + (count - 1)
+							+ "! i=" + index);
+		}
+		this.index_ = index;
+		this.count_ = count;
+	}
+
+	/**
+	 * @param shard
+	 *            string of the form {@code i/n}
+	 * @return the shard represented by the string
+	 * @throws IllegalArgumentException
+	 *             if the string does not represent a shard
+	 */
+	public static Shard parse(final String shard) {
+		final int slash = shard.indexOf('/');
+		if (slash < 0) {
+			throw new IllegalArgumentException(
+					"Shard must be of the form i/n! shard=" + shard);
+		}
+		// else
+		try {
+			return new Shard(Integer.parseInt(shard.substring(0, slash).trim()),
+					Integer.parseInt(shard.substring(slash + 1).trim()));
+		} catch (final NumberFormatException e) {
+			throw new IllegalArgumentException(
+					"Shard must be of the form i/n! shard=" + shard, e);
+		}
+	}
+
+	/**
+	 * @param query
+	 * @return index of the shard of {@code count} shards to which the query
+	 *         belongs
+	 */
+	public static int indexOf(final String query, final int count) {
+		final int hash = HASH_FUNCTION_
+				.hashString(query, StandardCharsets.UTF_8).asInt();
+		return (hash & Integer.MAX_VALUE) % count;
+	}
+
+	public boolean contains(final String query) {
+		return count_ == 1 || indexOf(query, count_) == index_;
+	}
+
+	public int getIndex() {
+		return index_;
+	}
+
+	public int getCount() {
+		return count_;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * index_ + count_;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (!(obj instanceof Shard)) {
+			return false;
+		}
+		// else
+		final Shard other = (Shard) obj;
+		return index_ == other.index_ && count_ == other.count_;
+	}
+
+	@Override
+	public String toString() {
+		return index_ + "/" + count_;
+	}
+
+}
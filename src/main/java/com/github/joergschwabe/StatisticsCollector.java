@@ -71,6 +71,7 @@ public abstract class StatisticsCollector<O extends StatisticsCollector.Options,
 	public static final String QUERY_AGES_OPT = "qages";
 	public static final String CYCLE_OPT = "cycle";
 	public static final String COMPONENT_OPT = "component";
+	public static final String SHARD_OPT = "shard";
 
 	public static class Options {
 		@Arg(dest = QUERIES_OPT)
@@ -85,6 +86,8 @@ public abstract class StatisticsCollector<O extends StatisticsCollector.Options,
 		public boolean detectCycle;
 		@Arg(dest = COMPONENT_OPT)
 		public boolean countComponents;
+		@Arg(dest = SHARD_OPT)
+		public Shard shard;
 	}
 
 	public final void collectStatistics(final String[] args) {
@@ -104,6 +107,9 @@ public abstract class StatisticsCollector<O extends StatisticsCollector.Options,
 				.help("check whether inferences contain a cycle");
 		parser.addArgument("--" + COMPONENT_OPT).action(Arguments.storeTrue())
 				.help("count strongly connected components in inferences");
+		parser.addArgument("--" + SHARD_OPT).type(Shard.ARGUMENT_TYPE)
+				.metavar("i/n")
+				.help("process only the queries of shard i of n (0 <= i < n)");
 		addArguments(parser);
 
 		BufferedReader conclusionReader = null;
@@ -139,6 +145,8 @@ public abstract class StatisticsCollector<O extends StatisticsCollector.Options,
 			LOGGER_.info("queryAgesFile: {}", opt.queryAgesFile);
 			LOGGER_.info("detectCycle: {}", opt.detectCycle);
 			LOGGER_.info("countComponents: {}", opt.countComponents);
+			final Shard shard = opt.shard == null ? Shard.ALL : opt.shard;
+			LOGGER_.info("shard: {}", shard);
 
 			final ProofProvider<String, C, I, A> proofProvider = init(opt);
 
@@ -158,6 +166,10 @@ public abstract class StatisticsCollector<O extends StatisticsCollector.Options,
 			String line;
 			while ((line = conclusionReader.readLine()) != null) {
 
+				if (!shard.contains(line)) {
+					continue;
+				}
+
 				LOGGER_.info("Collecting statistics for {} ...", line);
 
 				final Recorder.RecordBuilder record = recorder.newRecord();
@@ -0,0 +1,184 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.liveontologies.puli.collections.BloomTrieCollection2;
+import org.liveontologies.puli.collections.Collection2;
+import org.liveontologies.puli.statistics.ResetStats;
+import org.liveontologies.puli.statistics.Stat;
+
+/**
+ * A collection of sets indexed for subset and superset queries, so that
+ * {@link #isMinimal(Set)} and {@link #merge(Set)} do not need to compare the
+ * set with every element of the collection like
+ * {@link Utils#isMinimal(Set, java.util.Collection)} and
+ * {@link Utils#merge(Set, java.util.Collection)}. The index is a
+ * {@link BloomTrieCollection2}.
+ *
+ * @param <J>
+ *            the type of the sets
+ */
+public class SubsetIndex<J extends Set<?>> extends AbstractCollection<J> {
+
+	private static final boolean COLLECT_STATS_ = true;
+
+	/**
+	 * the indexes may be used by several threads, e.g., by
+	 * {@link ParallelBottomUpJustificationComputation}
+	 */
+	private static final AtomicLong STATS_LOOKUP_COUNT_ = new AtomicLong(),
+			STATS_SCAN_COUNT_ = new AtomicLong(),
+			STATS_CANDIDATE_COUNT_ = new AtomicLong();
+
+	/**
+	 * @return how many times the index was asked for subsets or supersets
+	 */
+	@Stat
+	public static long nIndexLookups() {
+		return STATS_LOOKUP_COUNT_.get();
+	}
+
+	/**
+	 * @return how many sets would be compared by a linear scan in the lookups
+	 */
+	@Stat
+	public static long nComparisonsOfLinearScan() {
+		return STATS_SCAN_COUNT_.get();
+	}
+
+	/**
+	 * @return how many subsets or supersets were found by the lookups; all
+	 *         other comparisons of the linear scan were pruned
+	 */
+	@Stat
+	public static long nIndexCandidates() {
+		return STATS_CANDIDATE_COUNT_.get();
+	}
+
+	@ResetStats
+	public static void resetStats() {
+		STATS_LOOKUP_COUNT_.set(0);
+		STATS_SCAN_COUNT_.set(0);
+		STATS_CANDIDATE_COUNT_.set(0);
+	}
+
+	private final Collection2<J> sets_ = new BloomTrieCollection2<>();
+
+	/**
+	 * @param set
+	 * @return {@code true} if the given set is not a superset of any set in
+	 *         this collection
+	 */
+	public boolean isMinimal(final Set<?> set) {
+		if (COLLECT_STATS_) {
+			STATS_LOOKUP_COUNT_.incrementAndGet();
+			STATS_SCAN_COUNT_.addAndGet(sets_.size());
+		}
+		if (sets_.isMinimal(set)) {
+			return true;
+		}
+		// else
+		if (COLLECT_STATS_) {
+			STATS_CANDIDATE_COUNT_.incrementAndGet();
+		}
+		return false;
+	}
+
+	/**
+	 * Adds the given set unless its subset is already contained in this
+	 * collection and removes all proper supersets of the set.
+	 * 
+	 * @param set
+	 * @return {@code true} if the collection is modified as a result of this
+	 *         operation and {@code false} otherwise
+	 * @see Utils#merge(Set, java.util.Collection)
+	 */
+	public boolean merge(final J set) {
+		if (!isMinimal(set)) {
+			return false;
+		}
+		// else
+		removeSupersetsOf(set);
+		sets_.add(set);
+		return true;
+	}
+
+	/**
+	 * Removes all supersets of the given set, including the set itself.
+	 * 
+	 * @param set
+	 * @return how many sets were removed
+	 */
+	public int removeSupersetsOf(final Set<?> set) {
+		if (COLLECT_STATS_) {
+			STATS_LOOKUP_COUNT_.incrementAndGet();
+			STATS_SCAN_COUNT_.addAndGet(sets_.size());
+		}
+		int removed = 0;
+		final Iterator<J> supersets = sets_.superCollectionsOf(set)
+				.iterator();
+		while (supersets.hasNext()) {
+			supersets.next();
+			supersets.remove();
+			removed++;
+		}
+		if (COLLECT_STATS_) {
+			STATS_CANDIDATE_COUNT_.addAndGet(removed);
+		}
+		return removed;
+	}
+
+	/**
+	 * Adds the set without checking whether it is minimal.
+	 */
+	@Override
+	public boolean add(final J set) {
+		return sets_.add(set);
+	}
+
+	@Override
+	public boolean contains(final Object o) {
+		return sets_.contains(o);
+	}
+
+	@Override
+	public Iterator<J> iterator() {
+		return sets_.iterator();
+	}
+
+	@Override
+	public int size() {
+		return sets_.size();
+	}
+
+	@Override
+	public void clear() {
+		sets_.clear();
+	}
+
+}
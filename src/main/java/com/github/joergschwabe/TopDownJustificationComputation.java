@@ -23,11 +23,17 @@ package com.github.joergschwabe;
  */
 
 import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
@@ -47,6 +53,7 @@ import org.liveontologies.puli.statistics.NestedStats;
 import org.liveontologies.puli.statistics.ResetStats;
 import org.liveontologies.puli.statistics.Stat;
 
+import com.github.joergschwabe.PhaseProfiler.Phase;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterators;
@@ -65,11 +72,39 @@ import com.google.common.collect.Iterators;
 public class TopDownJustificationComputation<C, I extends Inference<? extends C>, A>
 		extends MinimalSubsetsFromProofs<C, I, A> {
 
-	private static final TopDownJustificationComputation.Factory<?, ?, ?> FACTORY_ = new Factory<>();
+	/**
+	 * the system property that enables tabling in the factory returned by
+	 * {@link #getFactory()}
+	 */
+	public static final String TABLING_PROPERTY = "pinpointing.topDownTabling";
 
-	@SuppressWarnings("unchecked")
+	private static final TopDownJustificationComputation.Factory<?, ?, ?> FACTORY_ = new Factory<>(
+			false);
+
+	private static final TopDownJustificationComputation.Factory<?, ?, ?> TABLING_FACTORY_ = new Factory<>(
+			true);
+
+	/**
+	 * @return the factory of computations that table the justifications of
+	 *         acyclic conclusions if the system property
+	 *         {@value #TABLING_PROPERTY} is {@code true}
+	 * @see #getFactory(boolean)
+	 */
 	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory() {
-		return (Factory<C, I, A>) FACTORY_;
+		return getFactory(Boolean.getBoolean(TABLING_PROPERTY));
+	}
+
+	/**
+	 * @param tabling
+	 *            whether the justifications of every acyclic conclusion
+	 *            should be computed once and spliced into the jobs instead of
+	 *            expanding the conclusion again
+	 * @return the factory of computations
+	 */
+	@SuppressWarnings("unchecked")
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
+			final boolean tabling) {
+		return (Factory<C, I, A>) (tabling ? TABLING_FACTORY_ : FACTORY_);
 	}
 
 	/**
@@ -77,14 +112,39 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 	 */
 	private final Comparator<C> rank_;
 
+	/**
+	 * whether the justifications of acyclic conclusions are computed once
+	 * and spliced into the jobs instead of expanding the conclusions
+	 */
+	private final boolean tabling_;
+
+	/**
+	 * the minimal justifications of the tabled conclusions
+	 */
+	private final Map<C, List<Set<A>>> tables_ = new HashMap<>();
+
+	/**
+	 * the conclusions for which all acyclic conclusions from which they can
+	 * be derived are tabled
+	 */
+	private final Set<C> explored_ = new HashSet<>();
+
+	/**
+	 * the components of the proof of the last query, used to find acyclic
+	 * conclusions
+	 */
+	private StronglyConnectedComponents<C> components_ = null;
+
 	// Statistics
 	private int producedJobsCount_ = 0, nonMinimalJobsCount_ = 0,
-			expansionCount_ = 0, expandedInferencesCount_ = 0;
+			expansionCount_ = 0, expandedInferencesCount_ = 0,
+			tabledExpansionCount_ = 0, splicedJustificationsCount_ = 0;
 
 	private TopDownJustificationComputation(final Proof<? extends I> proof,
 			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
-			final InterruptMonitor monitor) {
+			final InterruptMonitor monitor, final boolean tabling) {
 		super(proof, justifier, monitor);
+		this.tabling_ = tabling;
 		this.rank_ = new Comparator<C>() {
 			@Override
 			public int compare(final C first, final C second) {
@@ -101,7 +161,7 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 
 	@Override
 	public MinimalSubsetEnumerator<A> newEnumerator(final C query) {
-		return new JustificationEnumerator(query);
+		return new JustificationEnumerator(query, false);
 	}
 
 	private class JustificationEnumerator
@@ -109,6 +169,12 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 
 		private final C conclusion_;
 
+		/**
+		 * whether this enumerator only fills a table; such enumerators use
+		 * the tables but do not compute new ones
+		 */
+		private final boolean tableFilling_;
+
 		/**
 		 * newly computed jobs to be propagated
 		 */
@@ -125,8 +191,11 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 
 		private JobFactory<C, I, A, ?> jobFactory_;
 
-		JustificationEnumerator(final C query) {
+		private PriorityComparator<? super Set<A>, ?> priorityComparator_;
+
+		JustificationEnumerator(final C query, final boolean tableFilling) {
 			this.conclusion_ = query;
+			this.tableFilling_ = tableFilling;
 		}
 
 		@Override
@@ -144,6 +213,12 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 			this.minimalJustifications_.clear();
 			this.jobFactory_ = JobFactory.create(priorityComparator);
 			this.listener_ = listener;
+			this.priorityComparator_ = priorityComparator;
+			if (tabling_ && (components_ == null
+					|| components_.getComponentId(conclusion_) == null)) {
+				components_ = StronglyConnectedComponentsComputation
+						.computeComponents(getProof(), conclusion_);
+			}
 
 			initialize(conclusion_);
 			process();
@@ -159,22 +234,40 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 			JobFactory<C, I, A, ?>.Job job;
 			while ((job = toDoJobs_.poll()) != null) {
 
-				if (minimalJustifications_.isMinimal(job.justification_)
-						&& minimalJobs_.isMinimal(job)) {
+				PhaseProfiler.start(Phase.MINIMIZATION);
+				final boolean isMinimal = minimalJustifications_
+						.isMinimal(job.justification_)
+						&& minimalJobs_.isMinimal(job);
+				PhaseProfiler.stop(Phase.MINIMIZATION);
+				if (isMinimal) {
 					minimalJobs_.add(job);
 					if (job.premises_.isEmpty()) {
 						minimalJustifications_.add(job.justification_);
 						if (listener_ != null) {
+							PhaseProfiler.start(Phase.LISTENER);
 							listener_.newMinimalSubset(job.justification_);
+							PhaseProfiler.stop(Phase.LISTENER);
 						}
 					} else {
-						expansionCount_++;
-						for (final I inf : getInferences(
-								chooseConclusion(job.premises_))) {
-							expandedInferencesCount_++;
-							final JobFactory<C, I, A, ?>.Job newJob = job
-									.expand(inf, getInferenceJustifier());
-							produce(newJob);
+						final C conclusion = chooseConclusion(job.premises_);
+						final List<Set<A>> table = getTable(conclusion);
+						if (table != null) {
+							tabledExpansionCount_++;
+							for (final Set<A> just : table) {
+								splicedJustificationsCount_++;
+								produce(job.expand(conclusion,
+										Collections.<C> emptySet(), just));
+							}
+						} else {
+							expansionCount_++;
+							PhaseProfiler.start(Phase.UNFOLDING);
+							for (final I inf : getInferences(conclusion)) {
+								expandedInferencesCount_++;
+								final JobFactory<C, I, A, ?>.Job newJob = job
+										.expand(inf, getInferenceJustifier());
+								produce(newJob);
+							}
+							PhaseProfiler.stop(Phase.UNFOLDING);
 						}
 					}
 				} else {
@@ -188,6 +281,101 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 			}
 		}
 
+		/**
+		 * @param conclusion
+		 * @return all minimal justifications of the conclusion if it is
+		 *         tabled, computing the missing tables if necessary, or
+		 *         {@code null} if the conclusion should be expanded
+		 */
+		private List<Set<A>> getTable(final C conclusion) {
+			if (!tabling_ || conclusion.equals(conclusion_)
+					|| !isAcyclic(conclusion)) {
+				return null;
+			}
+			// else
+			final List<Set<A>> table = tables_.get(conclusion);
+			if (table != null || tableFilling_) {
+				return table;
+			}
+			// else
+			fillTables(conclusion);
+			return tables_.get(conclusion);
+		}
+
+		/**
+		 * Tables the acyclic conclusions from which the given conclusion can
+		 * be derived, including itself, one after another in the order of
+		 * their components. So every table is filled by an enumeration that
+		 * finds the tables of all acyclic conclusions it expands and does
+		 * not need to nest other enumerations.
+		 */
+		private void fillTables(final C conclusion) {
+			final List<C> toFill = new ArrayList<>();
+			final Set<C> visited = new HashSet<>();
+			final Deque<C> toVisit = new ArrayDeque<>();
+			visited.add(conclusion);
+			toVisit.add(conclusion);
+			C next;
+			while ((next = toVisit.poll()) != null) {
+				if (isAcyclic(next) && !tables_.containsKey(next)) {
+					toFill.add(next);
+				}
+				for (final I inf : getInferences(next)) {
+					for (final C premise : inf.getPremises()) {
+						if (!explored_.contains(premise)
+								&& visited.add(premise)) {
+							toVisit.add(premise);
+						}
+					}
+				}
+			}
+			// children components come first
+			Collections.sort(toFill, new Comparator<C>() {
+				@Override
+				public int compare(final C first, final C second) {
+					return Integer.compare(components_.getComponentId(first),
+							components_.getComponentId(second));
+				}
+			});
+			for (final C toTable : toFill) {
+				final List<Set<A>> justs = new ArrayList<>();
+				new JustificationEnumerator(toTable, true)
+						.enumerate(new Listener<A>() {
+							@Override
+							public void newMinimalSubset(final Set<A> set) {
+								justs.add(set);
+							}
+						}, priorityComparator_);
+				if (isInterrupted()) {
+					return;
+				}
+				// else
+				tables_.put(toTable, justs);
+			}
+			explored_.addAll(visited);
+		}
+
+		/**
+		 * @return {@code true} if the conclusion cannot be used to derive
+		 *         itself, so its justifications are complete once its
+		 *         nested enumeration is finished
+		 */
+		private boolean isAcyclic(final C conclusion) {
+			final Integer componentId = components_
+					.getComponentId(conclusion);
+			if (componentId == null || components_.getComponents()
+					.get(componentId).size() > 1) {
+				return false;
+			}
+			// else
+			for (final I inf : getInferences(conclusion)) {
+				if (inf.getPremises().contains(conclusion)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
 		private C chooseConclusion(final Collection<C> conclusions) {
 			// select the conclusion with the smallest rank
 			C result = null;
@@ -221,12 +409,43 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 		return ((double) expandedInferencesCount_) / expansionCount_;
 	}
 
+	@Stat
+	public int nExpansions() {
+		return expansionCount_;
+	}
+
+	@Stat
+	public int nExpandedInferences() {
+		return expandedInferencesCount_;
+	}
+
+	/**
+	 * @return how many times a tabled conclusion was replaced by its
+	 *         justifications instead of being expanded
+	 */
+	@Stat
+	public int nTabledExpansions() {
+		return tabledExpansionCount_;
+	}
+
+	@Stat
+	public int nSplicedJustifications() {
+		return splicedJustificationsCount_;
+	}
+
+	@Stat
+	public int nTabledConclusions() {
+		return tables_.size();
+	}
+
 	@ResetStats
 	public void resetStats() {
 		producedJobsCount_ = 0;
 		nonMinimalJobsCount_ = 0;
 		expansionCount_ = 0;
 		expandedInferencesCount_ = 0;
+		tabledExpansionCount_ = 0;
+		splicedJustificationsCount_ = 0;
 	}
 
 	@NestedStats
@@ -234,7 +453,10 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 		return BloomTrieCollection2.class;
 	}
 
-	private static class JobFactory<C, I extends Inference<? extends C>, A, P> {
+	/**
+	 * Creates jobs ordered by the priority of their justifications
+	 */
+	static class JobFactory<C, I extends Inference<? extends C>, A, P> {
 
 		private final PriorityComparator<? super Set<A>, P> priorityComparator_;
 
@@ -248,7 +470,7 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 			return new JobFactory<>(priorityComparator);
 		}
 
-		private Job newJob(final C goal) {
+		Job newJob(final C goal) {
 			return new Job(Collections.singleton(goal),
 					Collections.<A> emptySet());
 		}
@@ -260,11 +482,10 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 		 * @author Peter Skocovsky
 		 * @author Yevgeny Kazakov
 		 */
-		private class Job extends AbstractSet<Object>
-				implements Comparable<Job> {
+		class Job extends AbstractSet<Object> implements Comparable<Job> {
 
-			private final Set<C> premises_;
-			private final Set<A> justification_;
+			final Set<C> premises_;
+			final Set<A> justification_;
 			private final P priority_;
 
 			private Job(final Set<C> premises, final Set<A> justification) {
@@ -275,12 +496,36 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 
 			public Job expand(final I inference,
 					final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier) {
+				return expand(inference, justifier.getJustification(inference));
+			}
+
+			/**
+			 * @param inference
+			 * @param toExpand
+			 *            the justification of the inference
+			 * @return the job in which the conclusion of the inference is
+			 *         replaced by its premises and justification
+			 */
+			public Job expand(final I inference,
+					final Set<? extends A> toExpand) {
+				return expand(inference.getConclusion(),
+						inference.getPremises(), toExpand);
+			}
+
+			/**
+			 * @param conclusion
+			 * @param premises
+			 * @param toExpand
+			 * @return the job in which the conclusion is replaced by the
+			 *         premises and the axioms to expand
+			 */
+			public Job expand(final C conclusion,
+					final Collection<? extends C> premises,
+					final Set<? extends A> toExpand) {
 				final Set<C> newPremises = new HashSet<>(premises_);
-				newPremises.remove(inference.getConclusion());
-				newPremises.addAll(inference.getPremises());
+				newPremises.remove(conclusion);
+				newPremises.addAll(premises);
 				Set<A> newJustification = justification_;
-				Set<? extends A> toExpand = justifier
-						.getJustification(inference);
 				if (newJustification.containsAll(toExpand)) {
 					newJustification = justification_;
 				} else {
@@ -382,13 +627,19 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 	private static class Factory<C, I extends Inference<? extends C>, A>
 			implements MinimalSubsetsFromProofs.Factory<C, I, A> {
 
+		private final boolean tabling_;
+
+		Factory(final boolean tabling) {
+			this.tabling_ = tabling;
+		}
+
 		@Override
 		public MinimalSubsetEnumerator.Factory<C, A> create(
 				final Proof<? extends I> proof,
 				final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
 				final InterruptMonitor monitor) {
 			return new TopDownJustificationComputation<>(proof, justifier,
-					monitor);
+					monitor, tabling_);
 		}
 
 	}
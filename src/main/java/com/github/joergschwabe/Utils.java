@@ -26,6 +26,7 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
@@ -114,6 +115,30 @@ public final class Utils {
 		}
 	}
 
+	/**
+	 * @param className
+	 *            the name of a class with a static method {@code getFactory()},
+	 *            like the computations used in the experiments
+	 * @return the factory returned by this method
+	 * @throws IllegalArgumentException
+	 *             if the factory cannot be obtained
+	 */
+	@SuppressWarnings("unchecked")
+	public static <F> F getFactory(final String className) {
+		try {
+			return (F) Class.forName(className).getMethod("getFactory")
+					.invoke(null);
+		} catch (final ClassNotFoundException e) {
+			throw new IllegalArgumentException(e);
+		} catch (final NoSuchMethodException e) {
+			throw new IllegalArgumentException(e);
+		} catch (final IllegalAccessException e) {
+			throw new IllegalArgumentException(e);
+		} catch (final InvocationTargetException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
 	public static String dropExtension(final String fileName) {
 		final int index = fileName.lastIndexOf('.');
 		if (index < 0) {
@@ -190,9 +215,14 @@ public final class Utils {
 	 * @param justs
 	 * @return {@code true} if the given justification is not a superset of any
 	 *         justification in the given collection
+	 * @see SubsetIndex#isMinimal(Set)
 	 */
 	public static <J extends Set<?>> boolean isMinimal(J just,
 			Collection<? extends J> justs) {
+		if (justs instanceof SubsetIndex) {
+			return ((SubsetIndex<?>) justs).isMinimal(just);
+		}
+		// else
 		for (J other : justs) {
 			if (just.containsAll(other)) {
 				return false;
@@ -212,9 +242,15 @@ public final class Utils {
 	 * @param justs
 	 * @return {@code true} if the collection is modified as a result of this
 	 *         operation and {@code false} otherwise
+	 * @see SubsetIndex#merge(Set)
 	 */
+	@SuppressWarnings("unchecked")
 	public static <J extends Set<?>> boolean merge(J just,
 			Collection<J> justs) {
+		if (justs instanceof SubsetIndex) {
+			return ((SubsetIndex<J>) justs).merge(just);
+		}
+		// else
 		int justSize = just.size();
 		final Iterator<J> oldJustIter = justs.iterator();
 		boolean isASubsetOfOld = false;
@@ -251,7 +287,7 @@ public final class Utils {
 		if (first.isEmpty() || second.isEmpty()) {
 			return Collections.emptyList();
 		}
-		List<Justification<C, T>> result = new ArrayList<>(
+		final Collection<Justification<C, T>> result = newJoinResult(
 				first.size() * second.size());
 		for (Justification<C, T> firstSet : first) {
 			for (Justification<C, T> secondSet : second) {
@@ -259,7 +295,7 @@ public final class Utils {
 				merge(union, result);
 			}
 		}
-		return result;
+		return toList(result);
 	}
 
 	/**
@@ -278,7 +314,7 @@ public final class Utils {
 			return Collections.emptyList();
 		}
 
-		List<Justification<C, T>> result = new ArrayList<Justification<C, T>>(
+		final Collection<Justification<C, T>> result = newJoinResult(
 				first.size() * second.size());
 		/*
 		 * If some set from one argument is a superset of something in the other
@@ -307,7 +343,32 @@ public final class Utils {
 			}
 		}
 
-		return result;
+		return toList(result);
+	}
+
+	/**
+	 * Joins with at most this many pairs merge the unions into a list, larger
+	 * ones into a {@link SubsetIndex}, because merging into a list compares
+	 * every union with all unions merged before.
+	 */
+	private static final int JOIN_INDEX_THRESHOLD_ = 64;
+
+	private static <J extends Set<?>> Collection<J> newJoinResult(
+			final int nPairs) {
+		if (nPairs <= JOIN_INDEX_THRESHOLD_) {
+			return new ArrayList<>(nPairs);
+		}
+		// else
+		return new SubsetIndex<>();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <J> List<J> toList(final Collection<J> collection) {
+		if (collection instanceof List) {
+			return (List<J>) collection;
+		}
+		// else
+		return new ArrayList<>(collection);
 	}
 
 	public static class Counter implements Function<Object, Integer> {
@@ -0,0 +1,266 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides when a warm-up reached a steady state. The warm-up repeatedly runs
+ * a sample of queries and reports the running time of each query by
+ * {@link #queryFinished(String, double)}. For each query of the sample, the
+ * coefficient of variation (standard deviation divided by the mean) of its
+ * last few running times is computed. The warm-up converged when every query
+ * of the sample was run enough times and the mean of these coefficients is
+ * below the threshold. Independently of that, the warm-up is over when its
+ * time runs out.
+ * <p>
+ * The outcome of the warm-up can be put into the records of the actual
+ * experiment, so that it is known how stable the measurements were.
+ */
+public class WarmUp {
+
+	public static final String ROUNDS_NAME = "warmUpRounds";
+	public static final String TIME_NAME = "warmUpTime";
+	public static final String CV_NAME = "warmUpCv";
+	public static final String CONVERGED_NAME = "warmUpConverged";
+
+	public static final int DEFAULT_SAMPLE_SIZE = 10;
+	public static final int DEFAULT_WINDOW = 5;
+
+	private final double maxCv_;
+	private final int window_;
+	private final long startTimeMillis_;
+	private final long stopTimeMillis_;
+
+	/**
+	 * the last running times of the queries of the sample, at most
+	 * {@link #window_} of them, in the order in which they were reported
+	 */
+	private final Map<String, List<Double>> times_ = new HashMap<>();
+
+	/**
+	 * how many times the queries of the sample were run
+	 */
+	private final Map<String, Integer> counts_ = new HashMap<>();
+
+	private int rounds_ = 0;
+	private Double cv_ = null;
+	private boolean converged_ = false;
+	private long endTimeMillis_ = -1l;
+
+	/**
+	 * @param sample
+	 *            the queries run during the warm-up
+	 * @param maxCv
+	 *            the warm-up converged when the mean coefficient of variation
+	 *            falls below this value
+	 * @param window
+	 *            how many last running times of a query are used to compute
+	 *            the coefficient of variation, at least 2
+	 * @param timeOutMillis
+	 *            the warm-up is over after this many milliseconds even if it
+	 *            did not converge, if not positive, there is no time limit
+	 */
+	public WarmUp(final Collection<String> sample, final double maxCv,
+			final int window, final long timeOutMillis) {
+		if (window < 2) {
+			throw new IllegalArgumentException(
+					"The window must contain at least 2 running times! window="
+							+ window);
+		}
+		this.maxCv_ = maxCv;
+		this.window_ = window;
+		for (final String query : sample) {
+			times_.put(query, new ArrayList<Double>(window));
+			counts_.put(query, 0);
+		}
+		this.startTimeMillis_ = System.currentTimeMillis();
+		this.stopTimeMillis_ = timeOutMillis > 0
+				? startTimeMillis_ + timeOutMillis
+				: Long.MAX_VALUE;
+	}
+
+	/**
+	 * Selects a stratified sample of queries: the queries are split into
+	 * strata of consecutive queries of equal size and the middle query of
+	 * each stratum is selected. If the queries are ordered by their costs,
+	 * the sample contains cheap as well as expensive queries.
+	 *
+	 * @param queries
+	 * @param size
+	 * @return at most {@code size} queries in the order in which they occur
+	 *         in the provided list
+	 */
+	public static List<String> sample(final List<String> queries,
+			final int size) {
+		if (queries.size() <= size) {
+			return new ArrayList<>(queries);
+		}
+		// else
+		final List<String> sample = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			sample.add(queries.get(
+					(int) ((2l * i + 1) * queries.size() / (2l * size))));
+		}
+		return sample;
+	}
+
+	/**
+	 * @param sample
+	 * @return the list that repeats the queries of the sample over and over,
+	 *         its size is {@link Integer#MAX_VALUE} unless the sample is empty
+	 */
+	public static List<String> repeat(final List<String> sample) {
+		return new AbstractList<String>() {
+
+			@Override
+			public String get(final int index) {
+				return sample.get(index % sample.size());
+			}
+
+			@Override
+			public int size() {
+				return sample.isEmpty() ? 0 : Integer.MAX_VALUE;
+			}
+
+		};
+	}
+
+	/**
+	 * Reports the running time of a query. Queries that are not in the sample
+	 * are ignored.
+	 *
+	 * @param query
+	 * @param timeMillis
+	 * @return whether the warm-up is over
+	 */
+	public synchronized boolean queryFinished(final String query,
+			final double timeMillis) {
+		final List<Double> times = times_.get(query);
+		if (times != null && !isDone()) {
+			if (times.size() == window_) {
+				times.remove(0);
+			}
+			times.add(timeMillis);
+			counts_.put(query, counts_.get(query) + 1);
+			update();
+		}
+		return isDone();
+	}
+
+	private void update() {
+		int rounds = Integer.MAX_VALUE;
+		for (final int count : counts_.values()) {
+			rounds = Math.min(rounds, count);
+		}
+		rounds_ = rounds;
+		if (rounds_ < window_) {
+			return;
+		}
+		// else
+		double sumOfCvs = 0.0;
+		for (final List<Double> times : times_.values()) {
+			double sum = 0.0;
+			for (final double time : times) {
+				sum += time;
+			}
+			final double mean = sum / times.size();
+			double sumOfSquares = 0.0;
+			for (final double time : times) {
+				sumOfSquares += (time - mean) * (time - mean);
+			}
+			final double deviation = Math
+					.sqrt(sumOfSquares / (times.size() - 1));
+			sumOfCvs += mean > 0 ? deviation / mean : 0.0;
+		}
+		cv_ = sumOfCvs / times_.size();
+		converged_ = cv_ < maxCv_;
+	}
+
+	/**
+	 * @return whether the warm-up converged or its time ran out
+	 */
+	public synchronized boolean isDone() {
+		if (endTimeMillis_ >= 0) {
+			return true;
+		}
+		// else
+		final long now = System.currentTimeMillis();
+		if (converged_ || now >= stopTimeMillis_) {
+			endTimeMillis_ = now;
+			return true;
+		}
+		// else
+		return false;
+	}
+
+	/**
+	 * @return whether the mean coefficient of variation fell below the
+	 *         threshold
+	 */
+	public synchronized boolean isConverged() {
+		return converged_;
+	}
+
+	/**
+	 * @return the last mean coefficient of variation, or {@code null} if the
+	 *         queries of the sample were not yet run enough times
+	 */
+	public synchronized Double getCv() {
+		return cv_;
+	}
+
+	/**
+	 * @return how many times all queries of the sample were run
+	 */
+	public synchronized int getRounds() {
+		return rounds_;
+	}
+
+	/**
+	 * @return the milliseconds from the start of the warm-up until it was over
+	 *         or until now if it is not over yet
+	 */
+	public synchronized long getTimeMillis() {
+		return (endTimeMillis_ >= 0 ? endTimeMillis_
+				: System.currentTimeMillis()) - startTimeMillis_;
+	}
+
+	/**
+	 * Puts the outcome of the warm-up into the record.
+	 *
+	 * @param record
+	 */
+	public synchronized void putInto(final Map<String, Object> record) {
+		record.put(ROUNDS_NAME, rounds_);
+		record.put(TIME_NAME, getTimeMillis());
+		record.put(CV_NAME, cv_);
+		record.put(CONVERGED_NAME, converged_);
+	}
+
+}
@@ -44,6 +44,8 @@ import org.liveontologies.puli.statistics.Stats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.joergschwabe.LogHistogram;
+import com.github.joergschwabe.PhaseProfiler;
 import com.github.joergschwabe.RunJustificationExperiments;
 import com.github.joergschwabe.Utils;
 import com.github.joergschwabe.proofs.JustificationCompleteProof;
@@ -63,13 +65,20 @@ public abstract class BaseJustificationExperiment<O extends BaseJustificationExp
 	public static final String INDEX_FILE_NAME = "axiom_index";
 
 	public static final String SAVE_OPT = "s";
+	public static final String ARRIVALS_OPT = "arrivals";
+
+	private static final double NANOS_IN_MICROS = 1000.0d;
+	private static final double MICROS_IN_MILLIS = 1000.0d;
 
 	public static class Options {
 		@Arg(dest = SAVE_OPT)
 		public File outputDir;
+		@Arg(dest = ARRIVALS_OPT)
+		public File arrivalsDir;
 	}
 
 	private File outputDir_;
+	private File arrivalsDir_;
 	private PrintWriter indexWriter_;
 	private Utils.Index<A> axiomIndex_;
 
@@ -92,6 +101,33 @@ public abstract class BaseJustificationExperiment<O extends BaseJustificationExp
 	public String just2Time;
 	@Stat
 	public String justHalfTime;
+	// Distribution of the times when the justifications arrived
+	@Stat
+	public String justTime25;
+	@Stat
+	public String justTime50;
+	@Stat
+	public String justTime75;
+	@Stat
+	public String justTime90;
+	@Stat
+	public String justTime99;
+	@Stat
+	public String justTimeMax;
+	// Distribution of the times between arrivals of two justifications
+	@Stat
+	public String justGapMean;
+	@Stat
+	public String justGap50;
+	@Stat
+	public String justGap99;
+	@Stat
+	public String justGapMax;
+	/**
+	 * {@link LogHistogram#encode()} of the arrival times in microseconds
+	 */
+	@Stat
+	public String justTimeHistogram;
 
 	@Override
 	public final void init(final String[] args) throws ExperimentException {
@@ -100,6 +136,8 @@ public abstract class BaseJustificationExperiment<O extends BaseJustificationExp
 				.newArgumentParser(getClass().getSimpleName());
 		parser.addArgument("-" + SAVE_OPT).type(File.class).help(
 				"if provided, save justification into specified directory");
+		parser.addArgument("-" + ARRIVALS_OPT).type(File.class)
+				.help("if provided, save arrival times and sizes of justifications into specified directory");
 
 		addArguments(parser);
 
@@ -110,6 +148,11 @@ public abstract class BaseJustificationExperiment<O extends BaseJustificationExp
 
 			LOGGER_.info("outputDir: {}", options.outputDir);
 			this.outputDir_ = options.outputDir;
+			LOGGER_.info("arrivalsDir: {}", options.arrivalsDir);
+			this.arrivalsDir_ = options.arrivalsDir;
+			if (arrivalsDir_ != null) {
+				Utils.cleanDir(arrivalsDir_);
+			}
 			if (outputDir_ == null) {
 				this.justificationListener_ = new JustificationCounter();
 				this.indexWriter_ = null;
@@ -194,6 +237,9 @@ public abstract class BaseJustificationExperiment<O extends BaseJustificationExp
 		if (proofProvider_ != null) {
 			Stats.resetStats(proofProvider_);
 		}
+		if (PhaseProfiler.ENABLED) {
+			PhaseProfiler.resetStats();
+		}
 
 		lastQuery_ = query;
 
@@ -237,6 +283,11 @@ public abstract class BaseJustificationExperiment<O extends BaseJustificationExp
 			}
 			justHalfTime = "" + ((justTimes.get(halfIndex) - runStartTimeNanos_)
 					/ RunJustificationExperiments.NANOS_IN_MILLIS);
+			computeArrivalStats(justTimes);
+		}
+
+		if (arrivalsDir_ != null) {
+			saveArrivals(justTimes, justificationListener_.getSizes());
 		}
 
 		if (outputDir_ == null) {
@@ -287,6 +338,15 @@ public abstract class BaseJustificationExperiment<O extends BaseJustificationExp
 		return proofProvider_;
 	}
 
+	/**
+	 * @return {@link PhaseProfiler}, whose phase times stay zero unless it is
+	 *         enabled
+	 */
+	@NestedStats(name = "phases")
+	public static Class<?> getPhaseStats() {
+		return PhaseProfiler.class;
+	}
+
 	private class JustificationCounter
 			implements MinimalSubsetEnumerator.Listener<A> {
 
@@ -380,6 +440,71 @@ public abstract class BaseJustificationExperiment<O extends BaseJustificationExp
 		minJustSizeize_ = maxJustSize_ = 0;
 		firstQuartileJustSize_ = medianJustSize_ = meanJustSize_ = thirdQuartileJustSize_ = 0.0;
 		just1Time = just2Time = justHalfTime = "";
+		justTime25 = justTime50 = justTime75 = justTime90 = justTime99 = "";
+		justTimeMax = "";
+		justGapMean = justGap50 = justGap99 = justGapMax = "";
+		justTimeHistogram = "";
+	}
+
+	private void computeArrivalStats(final List<Long> justTimes) {
+		final LogHistogram times = new LogHistogram();
+		final LogHistogram gaps = new LogHistogram();
+		long previous = runStartTimeNanos_;
+		for (final long time : justTimes) {
+			times.add(toMicros(time - runStartTimeNanos_));
+			gaps.add(toMicros(time - previous));
+			previous = time;
+		}
+
+		justTime25 = "" + toMillis(times.getValueAtPercentile(25));
+		justTime50 = "" + toMillis(times.getValueAtPercentile(50));
+		justTime75 = "" + toMillis(times.getValueAtPercentile(75));
+		justTime90 = "" + toMillis(times.getValueAtPercentile(90));
+		justTime99 = "" + toMillis(times.getValueAtPercentile(99));
+		justTimeMax = "" + toMillis(times.getMax());
+		justTimeHistogram = times.encode();
+
+		// the gaps include the time until the first justification
+		justGapMean = "" + ((previous - runStartTimeNanos_)
+				/ RunJustificationExperiments.NANOS_IN_MILLIS
+				/ justTimes.size());
+		justGap50 = "" + toMillis(gaps.getValueAtPercentile(50));
+		justGap99 = "" + toMillis(gaps.getValueAtPercentile(99));
+		justGapMax = "" + toMillis(gaps.getMax());
+	}
+
+	private static long toMicros(final long nanos) {
+		return Math.max(0l, Math.round(nanos / NANOS_IN_MICROS));
+	}
+
+	private static double toMillis(final long micros) {
+		return micros / MICROS_IN_MILLIS;
+	}
+
+	/**
+	 * Saves one line with the arrival time in milliseconds and the size of
+	 * each justification of the last query.
+	 */
+	private void saveArrivals(final List<Long> justTimes,
+			final List<Integer> justSizes) {
+		PrintWriter out = null;
+		try {
+
+			out = new PrintWriter(
+					new File(arrivalsDir_, Utils.toFileName(lastQuery_)));
+
+			for (int i = 0; i < justTimes.size(); i++) {
+				out.print((justTimes.get(i) - runStartTimeNanos_)
+						/ RunJustificationExperiments.NANOS_IN_MILLIS);
+				out.print(" ");
+				out.println(justSizes.get(i));
+			}
+
+		} catch (final FileNotFoundException e) {
+			LOGGER_.error(e.getMessage(), e);
+		} finally {
+			Utils.closeQuietly(out);
+		}
 	}
 
 	private void computeJustStats(final List<Integer> sizes) {
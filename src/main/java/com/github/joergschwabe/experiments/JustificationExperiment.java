@@ -45,7 +45,9 @@ import org.liveontologies.puli.pinpointing.InterruptMonitor;
  * <p>
  * {@link #run(InterruptMonitor)} may be called on a different thread than the
  * other methods, but it will not be called concurrently with other methods, so
- * implementing classes do not need to ensure thread safety.
+ * implementing classes do not need to ensure thread safety. However, a runner
+ * may create several instances of the same class and use them concurrently on
+ * different threads, so the instances must not share mutable state.
  * 
  * @author Peter Skocovsky
  */
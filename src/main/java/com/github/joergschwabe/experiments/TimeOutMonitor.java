@@ -21,7 +21,9 @@ import org.liveontologies.puli.pinpointing.InterruptMonitor;
 		private int count_ = 0;
 
 		private volatile boolean cancelled = false;
-		private long startSatSolverTime;
+		private long startSatSolverTime_;
+		private long startJustCompTime_;
+		private long startCycleCompTime_;
 
 		public TimeOutMonitor(final long stopTimeMillis,
 				final boolean onlyOneJustification) {
@@ -50,11 +52,11 @@ import org.liveontologies.puli.pinpointing.InterruptMonitor;
 		}
 
 		public void startSatSolver() {
-			startSatSolverTime = System.nanoTime();
+			startSatSolverTime_ = System.nanoTime();
 		}
 
 		public void stopSatSolver() {
-			satSolverTime_ += System.nanoTime()-startSatSolverTime;
+			satSolverTime_ += System.nanoTime()-startSatSolverTime_;
 		}
 
 		public long getSATSolverTime() {
@@ -62,11 +64,11 @@ import org.liveontologies.puli.pinpointing.InterruptMonitor;
 		}
 
 		public void startJustComp() {
-			startSatSolverTime = System.nanoTime();
+			startJustCompTime_ = System.nanoTime();
 		}
 
 		public void stopJustComp() {
-			justCompTime_ += System.nanoTime()-startSatSolverTime;
+			justCompTime_ += System.nanoTime()-startJustCompTime_;
 		}
 
 		public long getJustCompTime() {
@@ -74,11 +76,11 @@ import org.liveontologies.puli.pinpointing.InterruptMonitor;
 		}
 
 		public void startCycleComp() {
-			startSatSolverTime = System.nanoTime();
+			startCycleCompTime_ = System.nanoTime();
 		}
 
 		public void stopCycleComp() {
-			cycleCompTime_ += System.nanoTime()-startSatSolverTime;
+			cycleCompTime_ += System.nanoTime()-startCycleCompTime_;
 		}
 
 		public long getCycleCompTime() {
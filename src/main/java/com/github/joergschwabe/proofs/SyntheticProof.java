@@ -0,0 +1,317 @@
+package com.github.joergschwabe.proofs;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Inferences;
+import org.liveontologies.puli.Proof;
+
+import com.github.joergschwabe.DirectSatEncodingUsingElkCsvQuery;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
+
+/**
+ * A proof generated by {@link SyntheticProofGenerator}. The conclusions and
+ * the axioms are distinct positive integers, so they can be used directly as
+ * the atoms of the encoding written by
+ * {@link #writeDirectSatEncoding(File, String)}.
+ */
+public class SyntheticProof implements Proof<Inference<Integer>>,
+		JustificationCompleteProof<Integer, Inference<Integer>, Integer> {
+
+	/**
+	 * Returned by {@link #getJustificationCount()} when the number of
+	 * justifications is not known.
+	 */
+	public static final long UNKNOWN_COUNT = -1l;
+
+	private final ListMultimap<Integer, Inference<Integer>> inferences_;
+	private final List<Integer> axioms_;
+	private final int query_;
+	private final long justificationCount_;
+
+	private SyntheticProof(
+			final ListMultimap<Integer, Inference<Integer>> inferences,
+			final List<Integer> axioms, final int query,
+			final long justificationCount) {
+		this.inferences_ = inferences;
+		this.axioms_ = axioms;
+		this.query_ = query;
+		this.justificationCount_ = justificationCount;
+	}
+
+	@Override
+	public Collection<? extends Inference<Integer>> getInferences(
+			final Object conclusion) {
+		return inferences_.get((Integer) conclusion);
+	}
+
+	@Override
+	public Integer getQuery() {
+		return query_;
+	}
+
+	@Override
+	public Proof<? extends Inference<Integer>> getProof() {
+		return this;
+	}
+
+	@Override
+	public InferenceJustifier<? super Inference<Integer>, ? extends Set<? extends Integer>> getJustifier() {
+		return JUSTIFIER;
+	}
+
+	/**
+	 * @return the number of justifications of the query, or
+	 *         {@link #UNKNOWN_COUNT} if it is not known or too big
+	 */
+	public long getJustificationCount() {
+		return justificationCount_;
+	}
+
+	public int getInferenceCount() {
+		return inferences_.size();
+	}
+
+	public int getConclusionCount() {
+		return inferences_.keySet().size();
+	}
+
+	/**
+	 * @return the axioms in the order in which they were created
+	 */
+	public List<Integer> getAxioms() {
+		return axioms_;
+	}
+
+	/**
+	 * Writes the files of the encoding of this proof that are read by
+	 * {@link SatProofProvider} and the SAT solvers, in the same layout as
+	 * {@link DirectSatEncodingUsingElkCsvQuery}.
+	 * 
+	 * @param queryDir
+	 *            the directory of the query, {@link SatProofProvider} expects
+	 *            {@link com.github.joergschwabe.Utils#sha1hex(String)
+	 *            Utils.sha1hex(query)}
+	 * @param query
+	 *            the query as written in the query file
+	 * @throws FileNotFoundException
+	 */
+	public void writeDirectSatEncoding(final File queryDir, final String query)
+			throws FileNotFoundException {
+		queryDir.mkdirs();
+		final String prefix = DirectSatEncodingUsingElkCsvQuery.FILE_NAME;
+
+		PrintWriter writer = null;
+		try {
+			writer = new PrintWriter(new File(queryDir,
+					prefix + DirectSatEncodingUsingElkCsvQuery.SUFFIX_CNF));
+			for (final Inference<Integer> inference : inferences_.values()) {
+				for (final Integer axiom : JUSTIFIER
+						.getJustification(inference)) {
+					writer.print(-axiom);
+					writer.print(" ");
+				}
+				for (final Integer premise : inference.getPremises()) {
+					writer.print(-premise);
+					writer.print(" ");
+				}
+				writer.print(inference.getConclusion());
+				writer.println(" 0");
+			}
+			writer.close();
+
+			final int lastAtom = Math.max(
+					inferences_.isEmpty() ? 0
+							: Collections.max(inferences_.keySet()),
+					axioms_.isEmpty() ? 0 : Collections.max(axioms_));
+			writer = new PrintWriter(new File(queryDir,
+					prefix + DirectSatEncodingUsingElkCsvQuery.SUFFIX_H));
+			writer.println("p cnf " + lastAtom + " " + inferences_.size());
+			writer.close();
+
+			writer = new PrintWriter(new File(queryDir,
+					prefix + DirectSatEncodingUsingElkCsvQuery.SUFFIX_Q));
+			writer.println(query_);
+			writer.close();
+
+			writer = new PrintWriter(new File(queryDir, prefix
+					+ DirectSatEncodingUsingElkCsvQuery.SUFFIX_QUESTION));
+			writer.print(-query_);
+			writer.print(" 0");
+			writer.close();
+
+			writer = new PrintWriter(new File(queryDir,
+					prefix + DirectSatEncodingUsingElkCsvQuery.SUFFIX_QUERY));
+			writer.println(query);
+			writer.close();
+
+			final List<Integer> sortedAxioms = new ArrayList<Integer>(axioms_);
+			Collections.sort(sortedAxioms);
+			writer = new PrintWriter(new File(queryDir,
+					prefix + DirectSatEncodingUsingElkCsvQuery.SUFFIX_PPP_G_U));
+			for (final Integer axiom : sortedAxioms) {
+				writer.println(axiom);
+			}
+			writer.close();
+
+			writer = new PrintWriter(new File(queryDir, prefix
+					+ DirectSatEncodingUsingElkCsvQuery.SUFFIX_ASSUMPTIONS));
+			for (final Integer axiom : sortedAxioms) {
+				writer.print(axiom);
+				writer.print(" ");
+			}
+			writer.print("0");
+			writer.close();
+		} finally {
+			if (writer != null) {
+				writer.close();
+			}
+		}
+	}
+
+	public static final InferenceJustifier<Inference<? extends Integer>, ? extends Set<Integer>> JUSTIFIER = new InferenceJustifier<Inference<? extends Integer>, Set<Integer>>() {
+
+		@Override
+		public Set<Integer> getJustification(
+				final Inference<? extends Integer> inference) {
+			if (inference instanceof SyntheticInference) {
+				return ((SyntheticInference) inference).justification_;
+			}
+			// else
+			return Collections.emptySet();
+		}
+
+	};
+
+	/**
+	 * Collects the inferences of a {@link SyntheticProof}. Conclusions and
+	 * axioms are numbered from 1 by the same counter.
+	 */
+	public static class Builder {
+
+		private final ListMultimap<Integer, Inference<Integer>> inferences_ = ArrayListMultimap
+				.create();
+		private final List<Integer> axioms_ = new ArrayList<Integer>();
+		private int nextAtom_ = 1;
+
+		public int newConclusion() {
+			return nextAtom_++;
+		}
+
+		public int newAxiom() {
+			final int axiom = nextAtom_++;
+			axioms_.add(axiom);
+			return axiom;
+		}
+
+		/**
+		 * @return the number of axioms created so far
+		 */
+		public int getAxiomCount() {
+			return axioms_.size();
+		}
+
+		/**
+		 * @param index
+		 *            between 0 and {@link #getAxiomCount()} - 1
+		 * @return the axiom created as index-th
+		 */
+		public int getAxiom(final int index) {
+			return axioms_.get(index);
+		}
+
+		public Builder addInference(final int conclusion,
+				final Collection<Integer> premises,
+				final Collection<Integer> axioms) {
+			inferences_.put(conclusion,
+					new SyntheticInference(conclusion,
+							ImmutableList.copyOf(premises),
+							ImmutableSet.copyOf(axioms)));
+			return this;
+		}
+
+		/**
+		 * @param query
+		 * @param justificationCount
+		 *            the number of justifications of the query, or
+		 *            {@link SyntheticProof#UNKNOWN_COUNT}
+		 * @return the proof with the inferences added so far
+		 */
+		public SyntheticProof build(final int query,
+				final long justificationCount) {
+			return new SyntheticProof(inferences_,
+					Collections.unmodifiableList(axioms_), query,
+					justificationCount);
+		}
+
+	}
+
+	private static class SyntheticInference implements Inference<Integer> {
+
+		private final Integer conclusion_;
+		private final List<Integer> premises_;
+		private final Set<Integer> justification_;
+
+		SyntheticInference(final Integer conclusion,
+				final List<Integer> premises,
+				final Set<Integer> justification) {
+			this.conclusion_ = conclusion;
+			this.premises_ = premises;
+			this.justification_ = justification;
+		}
+
+		@Override
+		public Integer getConclusion() {
+			return conclusion_;
+		}
+
+		@Override
+		public List<? extends Integer> getPremises() {
+			return premises_;
+		}
+
+		@Override
+		public String getName() {
+			return getClass().getSimpleName();
+		}
+
+		@Override
+		public String toString() {
+			return Inferences.toString(this);
+		}
+
+	}
+
+}
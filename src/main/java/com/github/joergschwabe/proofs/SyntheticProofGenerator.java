@@ -0,0 +1,295 @@
+package com.github.joergschwabe.proofs;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates {@link SyntheticProof}s for stress testing of the engines. There
+ * are families of proofs with a known number of justifications and random
+ * proofs with a controllable shape, see {@link Parameters}.
+ */
+public class SyntheticProofGenerator {
+
+	private SyntheticProofGenerator() {
+		// Forbid instantiation of a utility class.
+	}
+
+	/**
+	 * A chain of depth + 1 conclusions, each derived in branching alternative
+	 * ways, each time from the previous conclusion using a different axiom.
+	 * The last conclusion is the query and has branching^(depth + 1)
+	 * justifications of size depth + 1.
+	 * 
+	 * @param depth
+	 * @param branching
+	 * @return the proof
+	 */
+	public static SyntheticProof chain(final int depth, final int branching) {
+		final SyntheticProof.Builder builder = new SyntheticProof.Builder();
+		List<Integer> premises = Collections.emptyList();
+		int conclusion = 0;
+		for (int i = 0; i <= depth; i++) {
+			conclusion = builder.newConclusion();
+			for (int j = 0; j < branching; j++) {
+				builder.addInference(conclusion, premises,
+						Collections.singleton(builder.newAxiom()));
+			}
+			premises = Collections.singletonList(conclusion);
+		}
+		return builder.build(conclusion, power(branching, depth + 1));
+	}
+
+	/**
+	 * The query is derived from factors premises, each of them is derived in
+	 * alternatives ways using a different axiom. The query has
+	 * alternatives^factors justifications of size factors.
+	 * 
+	 * @param factors
+	 * @param alternatives
+	 * @return the proof
+	 */
+	public static SyntheticProof product(final int factors,
+			final int alternatives) {
+		final SyntheticProof.Builder builder = new SyntheticProof.Builder();
+		final List<Integer> premises = new ArrayList<Integer>(factors);
+		for (int i = 0; i < factors; i++) {
+			final int premise = builder.newConclusion();
+			for (int j = 0; j < alternatives; j++) {
+				builder.addInference(premise, Collections.<Integer> emptyList(),
+						Collections.singleton(builder.newAxiom()));
+			}
+			premises.add(premise);
+		}
+		final int query = builder.newConclusion();
+		builder.addInference(query, premises,
+				Collections.<Integer> emptyList());
+		return builder.build(query, power(alternatives, factors));
+	}
+
+	/**
+	 * The query is derived in count alternative ways, each using size
+	 * different axioms. The query has count justifications of size size.
+	 * 
+	 * @param count
+	 * @param size
+	 * @return the proof
+	 */
+	public static SyntheticProof parallel(final int count, final int size) {
+		final SyntheticProof.Builder builder = new SyntheticProof.Builder();
+		final int query = builder.newConclusion();
+		for (int i = 0; i < count; i++) {
+			final List<Integer> axioms = new ArrayList<Integer>(size);
+			for (int j = 0; j < size; j++) {
+				axioms.add(builder.newAxiom());
+			}
+			builder.addInference(query, Collections.<Integer> emptyList(),
+					axioms);
+		}
+		return builder.build(query, count);
+	}
+
+	/**
+	 * A cycle of length conclusions, each derived from the previous one
+	 * without axioms and from its own axiom. All conclusions are in one
+	 * strongly connected component and the query has length justifications of
+	 * size 1.
+	 * 
+	 * @param length
+	 * @return the proof
+	 */
+	public static SyntheticProof cycle(final int length) {
+		final SyntheticProof.Builder builder = new SyntheticProof.Builder();
+		final List<Integer> conclusions = new ArrayList<Integer>(length);
+		for (int i = 0; i < length; i++) {
+			final int conclusion = builder.newConclusion();
+			builder.addInference(conclusion, Collections.<Integer> emptyList(),
+					Collections.singleton(builder.newAxiom()));
+			conclusions.add(conclusion);
+		}
+		for (int i = 0; i < length; i++) {
+			builder.addInference(conclusions.get((i + 1) % length),
+					Collections.singletonList(conclusions.get(i)),
+					Collections.<Integer> emptyList());
+		}
+		return builder.build(conclusions.get(length - 1), length);
+	}
+
+	/**
+	 * The shape of a random proof.
+	 */
+	public static class Parameters {
+		/**
+		 * the number of conclusions
+		 */
+		public int conclusions = 1000;
+		/**
+		 * the number of inferences of each conclusion, not counting the ones
+		 * that close the cycles of a strongly connected component
+		 */
+		public int branching = 2;
+		/**
+		 * the maximal number of premises of an inference
+		 */
+		public int maxPremises = 2;
+		/**
+		 * the maximal number of axioms of an inference, at least one axiom is
+		 * used when there are no premises
+		 */
+		public int maxAxioms = 1;
+		/**
+		 * the probability that an axiom is reused rather than created
+		 */
+		public double axiomSharing = 0.5;
+		/**
+		 * the mean size of the strongly connected components, which are
+		 * geometrically distributed; 1 means no cycles
+		 */
+		public double meanSccSize = 1.0;
+		/**
+		 * the probability that a premise is taken from the strongly connected
+		 * component of the conclusion rather than from an earlier one
+		 */
+		public double cycleDensity = 0.5;
+	}
+
+	/**
+	 * Generates a random proof. The conclusions are split into strongly
+	 * connected components and each conclusion has one inference whose
+	 * premises come from earlier components, so that every conclusion is
+	 * derivable. The query is the last conclusion. The number of its
+	 * justifications is not known.
+	 * 
+	 * @param parameters
+	 * @param random
+	 * @return the proof
+	 */
+	public static SyntheticProof random(final Parameters parameters,
+			final Random random) {
+		if (parameters.conclusions < 1) {
+			throw new IllegalArgumentException(
+					"There must be some conclusions! conclusions="
+							+ parameters.conclusions);
+		}
+		if (parameters.branching < 1) {
+			throw new IllegalArgumentException(
+					"Conclusions must have some inferences! branching="
+							+ parameters.branching);
+		}
+		// else
+		final SyntheticProof.Builder builder = new SyntheticProof.Builder();
+		final List<Integer> conclusions = new ArrayList<Integer>(
+				parameters.conclusions);
+		final double continueScc = parameters.meanSccSize <= 1.0 ? 0.0
+				: 1.0 - 1.0 / parameters.meanSccSize;
+
+		int sccStart = 0;
+		while (sccStart < parameters.conclusions) {
+			int sccSize = 1;
+			while (sccStart + sccSize < parameters.conclusions
+					&& random.nextDouble() < continueScc) {
+				sccSize++;
+			}
+			for (int i = 0; i < sccSize; i++) {
+				conclusions.add(builder.newConclusion());
+			}
+
+			for (int i = sccStart; i < sccStart + sccSize; i++) {
+				final int conclusion = conclusions.get(i);
+				for (int j = 0; j < parameters.branching; j++) {
+					// the first inference grounds the conclusion
+					final int sameSccPremises = j == 0 || sccSize == 1 ? 0
+							: sccSize;
+					final Set<Integer> premises = new LinkedHashSet<Integer>();
+					final int premiseCount = sccStart + sameSccPremises == 0
+							? 0
+							: random.nextInt(parameters.maxPremises + 1);
+					for (int k = 0; k < premiseCount; k++) {
+						final int premiseIndex;
+						if (sccStart == 0 || (sameSccPremises > 0
+								&& random.nextDouble() < parameters.cycleDensity)) {
+							premiseIndex = sccStart
+									+ random.nextInt(sameSccPremises);
+						} else {
+							premiseIndex = random.nextInt(sccStart);
+						}
+						if (premiseIndex != i) {
+							premises.add(conclusions.get(premiseIndex));
+						}
+					}
+					final int minAxioms = premises.isEmpty() ? 1 : 0;
+					final int axiomCount = minAxioms + random.nextInt(
+							Math.max(parameters.maxAxioms, minAxioms)
+									- minAxioms + 1);
+					final Set<Integer> axioms = new LinkedHashSet<Integer>();
+					for (int k = 0; k < axiomCount; k++) {
+						if (builder.getAxiomCount() > 0 && random
+								.nextDouble() < parameters.axiomSharing) {
+							axioms.add(builder.getAxiom(
+									random.nextInt(builder.getAxiomCount())));
+						} else {
+							axioms.add(builder.newAxiom());
+						}
+					}
+					builder.addInference(conclusion, premises, axioms);
+				}
+			}
+
+			// make the component strongly connected
+			if (sccSize > 1) {
+				for (int i = sccStart; i < sccStart + sccSize; i++) {
+					final int next = i + 1 < sccStart + sccSize ? i + 1
+							: sccStart;
+					builder.addInference(conclusions.get(next),
+							Collections.singletonList(conclusions.get(i)),
+							Collections.<Integer> emptyList());
+				}
+			}
+
+			sccStart += sccSize;
+		}
+
+		return builder.build(conclusions.get(conclusions.size() - 1),
+				SyntheticProof.UNKNOWN_COUNT);
+	}
+
+	/**
+	 * @return base^exponent or {@link SyntheticProof#UNKNOWN_COUNT} if it
+	 *         does not fit into a long
+	 */
+	private static long power(final int base, final int exponent) {
+		long result = 1l;
+		for (int i = 0; i < exponent; i++) {
+			if (base != 0 && result > Long.MAX_VALUE / base) {
+				return SyntheticProof.UNKNOWN_COUNT;
+			}
+			result *= base;
+		}
+		return result;
+	}
+
+}
@@ -22,10 +22,15 @@ package com.github.joergschwabe.proofs.adapters;
  * #L%
  */
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import org.liveontologies.puli.Delegator;
@@ -34,9 +39,6 @@ import org.liveontologies.puli.InferenceJustifier;
 import org.liveontologies.puli.Inferences;
 import org.liveontologies.puli.Proof;
 
-import com.google.common.base.Function;
-import com.google.common.collect.Collections2;
-
 /**
  * A proof containing inferences with at most two premises, obtained from
  * original proof by binarization. Premises and conclusions of the binarized
@@ -45,6 +47,12 @@ import com.google.common.collect.Collections2;
  * axioms in justificaiton of inferences, then using the same justification one
  * can derive the conlcusion {@code [C]}, that is, the singleton list of
  * {@code [C]}.
+ * <p>
+ * The lists are hash-consed: every list is created only once by prepending an
+ * element to the (already created) list of the remaining elements, so the
+ * inferences with the same suffixes of premises share them, and two lists
+ * created by the same adapter are equal only if they are identical. The
+ * binarized inferences are created once for each list and then cached.
  * 
  * @author Yevgeny Kazakov
  *
@@ -59,45 +67,221 @@ class BinarizedProofAdapter<C, I extends Inference<? extends C>>
 
 	private final Proof<? extends I> original_;
 
+	/**
+	 * the singleton lists created so far
+	 */
+	private final Map<Object, ConsList<C>> singletons_ = new HashMap<Object, ConsList<C>>();
+
 	BinarizedProofAdapter(final Proof<? extends I> original) {
 		this.original_ = original;
 	}
 
 	@Override
-	public Collection<? extends Inference<List<C>>> getInferences(
+	public synchronized Collection<? extends Inference<List<C>>> getInferences(
 			final Object conclusion) {
 		if (conclusion instanceof List<?>) {
 			List<?> conclusionList = (List<?>) conclusion;
-			switch (conclusionList.size()) {
-			case 0:
+			if (conclusionList.isEmpty()) {
 				return Collections.emptyList();
-			case 1:
-				Object member = conclusionList.get(0);
-				return Collections2.transform(original_.getInferences(member),
-						ToBinaryInference.<C, I> get());
-			default:
-				List<C> originalConclusions = new ArrayList<C>(
-						conclusionList.size());
-				for (int i = 0; i < conclusionList.size(); i++) {
-					C originalConclusion = null;
-					for (I inf : original_
-							.getInferences(conclusionList.get(i))) {
-						originalConclusion = inf.getConclusion();
-						break;
-					}
-					if (originalConclusion == null) {
-						return Collections.emptySet();
+			}
+			// else
+			return getInferences(intern(conclusionList));
+		}
+		// else
+		return Collections.emptySet();
+	}
+
+	private Collection<? extends Inference<List<C>>> getInferences(
+			final ConsList<C> conclusion) {
+		if (conclusion.inferences_ != null) {
+			return conclusion.inferences_;
+		}
+		// else
+		if (conclusion.tail_ == null) {
+			final List<Inference<List<C>>> result = new ArrayList<Inference<List<C>>>();
+			for (I inf : original_.getInferences(conclusion.head_)) {
+				result.add(new BinaryInferenceAdapter<C, I>(inf, conclusion,
+						intern(inf.getPremises())));
+			}
+			conclusion.inferences_ = result;
+		} else if (getInferences(singleton(conclusion.head_)).isEmpty()
+				|| getInferences(conclusion.tail_).isEmpty()) {
+			conclusion.inferences_ = Collections.emptySet();
+		} else {
+			conclusion.inferences_ = Collections.singleton(
+					new BinaryListInference<C>(conclusion,
+							singleton(conclusion.head_)));
+		}
+		return conclusion.inferences_;
+	}
+
+	/**
+	 * @param elements
+	 * @return the list created by this adapter equal to the given list or
+	 *         {@code null} if the given list is empty
+	 */
+	@SuppressWarnings("unchecked")
+	private ConsList<C> intern(final List<?> elements) {
+		if (elements instanceof ConsList<?>
+				&& ((ConsList<?>) elements).owner_ == this) {
+			return (ConsList<C>) elements;
+		}
+		// else
+		ConsList<C> result = null;
+		for (int i = elements.size() - 1; i >= 0; i--) {
+			result = cons((C) elements.get(i), result);
+		}
+		return result;
+	}
+
+	private ConsList<C> singleton(final C element) {
+		ConsList<C> result = singletons_.get(element);
+		if (result == null) {
+			result = new ConsList<C>(this, element, null);
+			singletons_.put(element, result);
+		}
+		return result;
+	}
+
+	private ConsList<C> cons(final C head, final ConsList<C> tail) {
+		if (tail == null) {
+			return singleton(head);
+		}
+		// else
+		if (tail.extensions_ == null) {
+			tail.extensions_ = new HashMap<Object, ConsList<C>>(2);
+		}
+		ConsList<C> result = tail.extensions_.get(head);
+		if (result == null) {
+			result = new ConsList<C>(this, head, tail);
+			tail.extensions_.put(head, result);
+		}
+		return result;
+	}
+
+	/**
+	 * A non-empty list consisting of the first element and the list of the
+	 * remaining elements, if there are any. The hash code is computed as
+	 * specified by {@link List#hashCode()}, so the list can be compared with
+	 * other lists.
+	 *
+	 * @param <C>
+	 */
+	private static class ConsList<C> extends AbstractList<C> {
+
+		private final BinarizedProofAdapter<C, ?> owner_;
+
+		private final C head_;
+
+		/**
+		 * the list of the remaining elements or {@code null} if this is a
+		 * singleton list
+		 */
+		private final ConsList<C> tail_;
+
+		private final int size_;
+
+		/**
+		 * 31 to the power of {@link #size_}
+		 */
+		private final int power_;
+
+		private final int hash_;
+
+		/**
+		 * the lists obtained by prepending elements to this list
+		 */
+		private Map<Object, ConsList<C>> extensions_ = null;
+
+		/**
+		 * the cached binarized inferences producing this list
+		 */
+		private Collection<? extends Inference<List<C>>> inferences_ = null;
+
+		ConsList(final BinarizedProofAdapter<C, ?> owner, final C head,
+				final ConsList<C> tail) {
+			this.owner_ = owner;
+			this.head_ = head;
+			this.tail_ = tail;
+			if (tail == null) {
+				this.size_ = 1;
+				this.power_ = 31;
+				this.hash_ = 31 + head.hashCode();
+			} else {
+				this.size_ = tail.size_ + 1;
+				this.power_ = 31 * tail.power_;
+				this.hash_ = tail.power_ * (30 + head.hashCode())
+						+ tail.hash_;
+			}
+		}
+
+		@Override
+		public C get(final int index) {
+			if (index < 0 || index >= size_) {
+				throw new IndexOutOfBoundsException("Index: " + index);
+			}
+			// else
+			ConsList<C> list = this;
+			for (int i = 0; i < index; i++) {
+				list = list.tail_;
+			}
+			return list.head_;
+		}
+
+		@Override
+		public int size() {
+			return size_;
+		}
+
+		@Override
+		public Iterator<C> iterator() {
+			return new Iterator<C>() {
+
+				private ConsList<C> next_ = ConsList.this;
+
+				@Override
+				public boolean hasNext() {
+					return next_ != null;
+				}
+
+				@Override
+				public C next() {
+					if (next_ == null) {
+						throw new NoSuchElementException();
 					}
 					// else
-					originalConclusions.add(originalConclusion);
+					final C result = next_.head_;
+					next_ = next_.tail_;
+					return result;
 				}
-				Inference<List<C>> inf = new BinaryListInference<C>(
-						originalConclusions);
-				return Collections.singleton(inf);
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+
+			};
+		}
+
+		@Override
+		public int hashCode() {
+			return hash_;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (this == o) {
+				return true;
+			}
+			// else
+			if (o instanceof ConsList<?> && ((ConsList<?>) o).owner_ == owner_) {
+				return false;
 			}
+			// else
+			return o instanceof List<?> && hash_ == o.hashCode()
+					&& super.equals(o);
 		}
-		// else
-		return Collections.emptySet();
+
 	}
 
 	/**
@@ -111,11 +295,18 @@ class BinarizedProofAdapter<C, I extends Inference<? extends C>>
 	private static class BinaryListInference<C> extends Delegator<List<C>>
 			implements Inference<List<C>> {
 
-		public BinaryListInference(final List<C> conclusion) {
+		private final List<? extends List<C>> premises_;
+
+		BinaryListInference(final ConsList<C> conclusion,
+				final ConsList<C> first) {
 			super(conclusion);
-			if (conclusion.size() <= 1) {
+			if (conclusion.tail_ == null) {
 				throw new IllegalArgumentException();
 			}
+			List<List<C>> premises = new ArrayList<List<C>>(2);
+			premises.add(first);
+			premises.add(conclusion.tail_);
+			this.premises_ = premises;
 		}
 
 		@Override
@@ -125,10 +316,7 @@ class BinarizedProofAdapter<C, I extends Inference<? extends C>>
 
 		@Override
 		public List<? extends List<C>> getPremises() {
-			List<List<C>> result = new ArrayList<List<C>>(2);
-			result.add(Collections.singletonList(getDelegate().get(0)));
-			result.add(getDelegate().subList(1, getDelegate().size()));
-			return result;
+			return premises_;
 		}
 
 		@Override
@@ -143,62 +331,46 @@ class BinarizedProofAdapter<C, I extends Inference<? extends C>>
 
 	}
 
-	private static class ToBinaryInference<C, I extends Inference<? extends C>>
-			implements Function<I, Inference<List<C>>> {
-
-		private static final ToBinaryInference<?, ?> INSTANCE_ = new ToBinaryInference<>();
-
-		@Override
-		public Inference<List<C>> apply(final I input) {
-			return new BinaryInferenceAdapter<C, I>(input);
-		}
-
-		@SuppressWarnings("unchecked")
-		static <C, I extends Inference<? extends C>> Function<I, Inference<List<C>>> get() {
-			return (ToBinaryInference<C, I>) INSTANCE_;
-		}
-
-	}
-
 	private static class BinaryInferenceAdapter<C, I extends Inference<? extends C>>
 			extends Delegator<I> implements Inference<List<C>> {
 
-		BinaryInferenceAdapter(final I original) {
+		private final List<C> conclusion_;
+
+		private final List<? extends List<C>> premises_;
+
+		/**
+		 * @param original
+		 * @param conclusion
+		 *            the singleton list of the conclusion of the original
+		 *            inference
+		 * @param premises
+		 *            the list of premises of the original inference or
+		 *            {@code null} if there are none
+		 */
+		BinaryInferenceAdapter(final I original, final ConsList<C> conclusion,
+				final ConsList<C> premises) {
 			super(original);
+			this.conclusion_ = conclusion;
+			if (premises == null) {
+				this.premises_ = Collections.emptyList();
+			} else if (premises.tail_ == null) {
+				this.premises_ = Collections.singletonList(premises);
+			} else {
+				List<List<C>> result = new ArrayList<List<C>>(2);
+				result.add(premises.owner_.singleton(premises.head_));
+				result.add(premises.tail_);
+				this.premises_ = result;
+			}
 		}
 
 		@Override
 		public List<C> getConclusion() {
-			return Collections.singletonList((C) getDelegate().getConclusion());
+			return conclusion_;
 		}
 
 		@Override
 		public List<? extends List<C>> getPremises() {
-			List<? extends C> originalPremises = getDelegate().getPremises();
-			int originalPremiseCount = originalPremises.size();
-			switch (originalPremiseCount) {
-			case 0:
-				return Collections.emptyList();
-			case 1:
-				return Collections.singletonList(
-						Collections.<C> singletonList(originalPremises.get(0)));
-			default:
-				List<C> firstPremise = null, secondPremise = new ArrayList<C>(
-						originalPremiseCount - 1);
-				boolean first = true;
-				for (C premise : originalPremises) {
-					if (first) {
-						first = false;
-						firstPremise = Collections.singletonList(premise);
-					} else {
-						secondPremise.add(premise);
-					}
-				}
-				List<List<C>> result = new ArrayList<List<C>>(2);
-				result.add(firstPremise);
-				result.add(secondPremise);
-				return result;
-			}
+			return premises_;
 		}
 
 		@Override
@@ -0,0 +1,152 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ColumnarRecordTest {
+
+	@Rule
+	public final TemporaryFolder folder_ = new TemporaryFolder();
+
+	private static Map<String, Object> record(final Object... namesAndValues) {
+		final Map<String, Object> record = new LinkedHashMap<>();
+		for (int i = 0; i < namesAndValues.length; i += 2) {
+			record.put((String) namesAndValues[i], namesAndValues[i + 1]);
+		}
+		return record;
+	}
+
+	private static List<Map<String, Object>> records() {
+		final List<Map<String, Object>> records = new ArrayList<>();
+		records.add(record("query", "q0", "time", 1.5, "count", 3,
+				"done", true));
+		records.add(record("query", "q1", "time", 0.0, "count", -300000L,
+				"done", false, "error", null));
+		records.add(record("query", "q\"2\"", "count", Long.MAX_VALUE,
+				"done", true, "mixed", 1));
+		records.add(record("query", "q3", "time", 2.25, "mixed", "x",
+				"other", Arrays.asList(1, 2)));
+		records.add(record("query", "q4"));
+		return records;
+	}
+
+	private static void assertReads(final List<Map<String, Object>> records,
+			final ColumnarRecordReader reader) throws IOException {
+		for (final Map<String, Object> expected : records) {
+			final Map<String, String> read = reader.next();
+			Assert.assertNotNull(read);
+			for (final Map.Entry<String, Object> entry : expected
+					.entrySet()) {
+				final String value = read.get(entry.getKey());
+				if (entry.getValue() == null) {
+					Assert.assertTrue(value == null || "null".equals(value));
+				} else {
+					Assert.assertEquals(
+							Recorder.valueToString(entry.getValue()), value);
+				}
+			}
+			for (final Map.Entry<String, String> entry : read.entrySet()) {
+				if (expected.get(entry.getKey()) == null) {
+					Assert.assertEquals("null", entry.getValue());
+				}
+			}
+		}
+		Assert.assertNull(reader.next());
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		for (int blockSize = 1; blockSize <= 6; blockSize++) {
+			final List<Map<String, Object>> records = records();
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			final ColumnarRecordWriter writer = new ColumnarRecordWriter(
+					bytes, blockSize);
+			for (final Map<String, Object> record : records) {
+				writer.write(record);
+			}
+			writer.close();
+
+			final ColumnarRecordReader reader = new ColumnarRecordReader(
+					new ByteArrayInputStream(bytes.toByteArray()));
+			try {
+				assertReads(records, reader);
+			} finally {
+				reader.close();
+			}
+		}
+	}
+
+	@Test
+	public void testFlushWritesPartialBlock() throws IOException {
+		final List<Map<String, Object>> records = records();
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final ColumnarRecordWriter writer = new ColumnarRecordWriter(bytes);
+		writer.write(records.get(0));
+		writer.flush();
+
+		final ColumnarRecordReader reader = new ColumnarRecordReader(
+				new ByteArrayInputStream(bytes.toByteArray()));
+		try {
+			assertReads(records.subList(0, 1), reader);
+		} finally {
+			reader.close();
+		}
+		writer.close();
+	}
+
+	@Test
+	public void testReadNames() throws IOException {
+		final File file = folder_.newFile("record.prec");
+		final ColumnarRecordWriter writer = new ColumnarRecordWriter(
+				new FileOutputStream(file), 2);
+		for (final Map<String, Object> record : records()) {
+			writer.write(record);
+		}
+		writer.close();
+
+		Assert.assertEquals(Arrays.asList("query", "time", "count", "done",
+				"mixed", "other"), ColumnarRecordReader.readNames(file));
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotColumnar() throws IOException {
+		new ColumnarRecordReader(
+				new ByteArrayInputStream("query,time\n".getBytes("UTF-8")));
+	}
+
+}
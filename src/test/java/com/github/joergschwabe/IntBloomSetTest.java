@@ -0,0 +1,144 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntBloomSetTest {
+
+	private static final String CONCLUSION = "C";
+
+	private static Set<Integer> set(final Integer... elements) {
+		return new HashSet<>(Arrays.asList(elements));
+	}
+
+	private static Justification<String, Integer> just(
+			final Set<Integer> elements) {
+		return BloomSet.create(CONCLUSION, elements);
+	}
+
+	private static Set<Integer> randomSet(final Random random,
+			final int maxSize, final int range) {
+		final Set<Integer> result = new HashSet<>();
+		final int size = random.nextInt(maxSize + 1);
+		for (int i = 0; i < size; i++) {
+			result.add(random.nextInt(range) - range / 4);
+		}
+		return result;
+	}
+
+	@Test
+	public void testCreate() {
+		Assert.assertTrue(just(set(3, 1, 2)) instanceof IntBloomSet);
+		Assert.assertTrue(BloomSet.create(CONCLUSION, set(3, 1),
+				set(1, 2)) instanceof IntBloomSet);
+		Assert.assertTrue(BloomSet.create(CONCLUSION,
+				Collections.emptySet()) instanceof BloomSet);
+		Assert.assertTrue(BloomSet.create(CONCLUSION,
+				Arrays.asList("a", "b")) instanceof BloomSet);
+		Assert.assertEquals(set(1, 2, 3),
+				BloomSet.create(CONCLUSION, set(3, 1), set(1, 2)));
+		Assert.assertEquals(CONCLUSION, just(set(1)).getConclusion());
+		Assert.assertEquals("D", just(set(1)).copyTo("D").getConclusion());
+	}
+
+	@Test
+	public void testAgreesWithHashSet() {
+		final Random random = new Random(3);
+		for (int round = 0; round < 2000; round++) {
+			// large sets to get filters of different widths
+			final int maxSize = round % 2 == 0 ? 8 : 150;
+			final Set<Integer> first = randomSet(random, maxSize, 200);
+			final Set<Integer> second = random.nextBoolean()
+					? randomSet(random, maxSize, 200)
+					: new HashSet<>(first);
+			if (random.nextBoolean() && !second.isEmpty()) {
+				second.remove(second.iterator().next());
+			}
+			final Justification<String, Integer> firstJust = just(first);
+			final Justification<String, Integer> secondJust = just(second);
+
+			// equality and hash code
+			Assert.assertEquals(first, firstJust);
+			Assert.assertEquals(firstJust, first);
+			Assert.assertEquals(first.hashCode(), firstJust.hashCode());
+			Assert.assertEquals(first.equals(second),
+					firstJust.equals(secondJust));
+
+			// subset tests
+			Assert.assertEquals(first.containsAll(second),
+					firstJust.containsAll(secondJust));
+			Assert.assertEquals(first.containsAll(second),
+					firstJust.containsAll(second));
+			for (int e = -60; e < 160; e += 7) {
+				Assert.assertEquals(first.contains(e), firstJust.contains(e));
+			}
+
+			// merge
+			final Set<Integer> union = new HashSet<>(first);
+			union.addAll(second);
+			final Justification<String, Integer> merged = firstJust
+					.addElements(secondJust);
+			Assert.assertEquals(union, merged);
+			Assert.assertEquals(union, firstJust.addElements(second));
+			Assert.assertEquals(union.hashCode(), merged.hashCode());
+			Assert.assertEquals(CONCLUSION, merged.getConclusion());
+
+			// removal
+			final Set<Integer> difference = new HashSet<>(first);
+			difference.removeAll(second);
+			Assert.assertEquals(difference,
+					firstJust.removeElements(secondJust));
+		}
+	}
+
+	@Test
+	public void testIterationIsSorted() {
+		final Justification<String, Integer> just = just(set(5, -1, 3, 0));
+		Assert.assertEquals(Arrays.asList(-1, 0, 3, 5),
+				Arrays.asList(just.toArray(new Integer[0])));
+		Assert.assertFalse(just.contains("5"));
+	}
+
+	@Test
+	public void testStatistics() {
+		BloomSet.resetStatistics();
+		final Justification<String, Integer> large = just(set(1, 2, 3, 4));
+		Assert.assertFalse(just(set(1)).containsAll(large));
+		Assert.assertTrue(large.containsAll(just(set(2, 4))));
+		Assert.assertEquals(2, BloomSet.containsAllCount());
+		Assert.assertEquals(1, BloomSet.containsAllPositive());
+		Assert.assertEquals(1, BloomSet.containsAllSizeFiltered());
+		Assert.assertEquals(1, BloomSet.containsAllMerged());
+		BloomSet.resetStatistics();
+		Assert.assertEquals(0, BloomSet.containsAllCount());
+	}
+
+}
@@ -0,0 +1,124 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Proof;
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.liveontologies.puli.pinpointing.MinimalSubsetCollector;
+import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
+
+/**
+ * Runs several proofs with the same conclusions through one factory of
+ * {@link MinPremisesBottomUp} with a {@link JustificationCache}.
+ */
+public class JustificationCacheTest {
+
+	private String oldMaxWeight_;
+
+	@Before
+	public void enableCache() {
+		oldMaxWeight_ = System.setProperty(
+				JustificationCache.MAX_WEIGHT_PROPERTY, "100000");
+	}
+
+	@After
+	public void restoreCache() {
+		if (oldMaxWeight_ == null) {
+			System.clearProperty(JustificationCache.MAX_WEIGHT_PROPERTY);
+		} else {
+			System.setProperty(JustificationCache.MAX_WEIGHT_PROPERTY,
+					oldMaxWeight_);
+		}
+	}
+
+	private static <C, I extends Inference<? extends C>, A> Set<Set<? extends A>> justify(
+			final MinimalSubsetsFromProofs.Factory<C, I, A> factory,
+			final Proof<? extends I> proof,
+			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			final C query) {
+		final Set<Set<? extends A>> result = new HashSet<Set<? extends A>>();
+		factory.create(proof, justifier, InterruptMonitor.DUMMY)
+				.newEnumerator(query)
+				.enumerate(new MinimalSubsetCollector<A>(result));
+		return result;
+	}
+
+	private static ProofAndJustifierBuilder<String, Integer> chain(
+			final int axiom) {
+		final ProofAndJustifierBuilder<String, Integer> builder = new ProofAndJustifierBuilder<String, Integer>();
+		builder.conclusion("A").axiom(axiom).add();
+		builder.conclusion("B").premise("A").axiom(0).add();
+		return builder;
+	}
+
+	@Test
+	public void testDifferentProofs() {
+		final MinimalSubsetsFromProofs.Factory<String, JustifiedInference<String, Integer>, Integer> cached = MinPremisesBottomUp
+				.getFactory();
+		final MinimalSubsetsFromProofs.Factory<String, JustifiedInference<String, Integer>, Integer> uncached = BottomUpJustificationComputation
+				.getFactory();
+		for (int axiom = 1; axiom <= 3; axiom++) {
+			final ProofAndJustifierBuilder<String, Integer> builder = chain(
+					axiom);
+			final Proof<? extends JustifiedInference<String, Integer>> proof = builder
+					.build();
+			for (final String query : new String[] { "A", "B" }) {
+				Assert.assertEquals(
+						justify(uncached, proof, builder.buildJustifier(),
+								query),
+						justify(cached, proof, builder.buildJustifier(),
+								query));
+			}
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testInputs() throws Exception {
+		final MinimalSubsetsFromProofs.Factory cached = MinPremisesBottomUp
+				.getFactory();
+		final MinimalSubsetsFromProofs.Factory uncached = BottomUpJustificationComputation
+				.getFactory();
+		// the inputs use the same names of conclusions
+		for (final EnumeratorTestInput input : BaseEnumeratorTest
+				.getEnumeratorTestInputs(
+						JustificationEnumeratorTest.TEST_INPUT_SUBPKG)) {
+			final Set<Set<?>> expected = justify(uncached, input.getProof(),
+					input.getJustifier(), input.getQuery());
+			Assert.assertEquals(new HashSet<Object>(input.getExpectedResult()),
+					expected);
+			Assert.assertEquals(expected, justify(cached, input.getProof(),
+					input.getJustifier(), input.getQuery()));
+		}
+	}
+
+}
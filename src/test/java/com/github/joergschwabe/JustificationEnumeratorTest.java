@@ -40,6 +40,13 @@ public class JustificationEnumeratorTest<C, I extends Inference<? extends C>, A>
 	public static List<MinimalSubsetsFromProofs.Factory<?, ?, ?>> getJustificationEnumeratorFactories() {
 		final List<MinimalSubsetsFromProofs.Factory<?, ?, ?>> factories = new ArrayList<MinimalSubsetsFromProofs.Factory<?, ?, ?>>();
 		factories.add(ResolutionJustificationComputation.getFactory());
+		factories.add(BottomUpJustificationComputation.getFactory());
+		factories.add(MinPremisesBottomUp.getFactory());
+		factories.add(ParallelBottomUpJustificationComputation.getFactory());
+		factories.add(HybridJustificationComputation.getFactory());
+		factories.add(DecomposedJustificationComputation.getFactory());
+		factories.add(BinarizedJustificationComputation.getFactory(
+				BottomUpJustificationComputation.<List<Object>, Inference<List<Object>>, Object> getFactory()));
 		return factories;
 	}
 
@@ -0,0 +1,142 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LogHistogramTest {
+
+	private static final double PRECISION = 1.0 / LogHistogram.SUB_BUCKETS;
+
+	private static long exactPercentile(final long[] sorted,
+			final double percentile) {
+		final int rank = Math.max(1,
+				(int) Math.ceil(percentile / 100.0 * sorted.length));
+		return sorted[rank - 1];
+	}
+
+	private static void assertClose(final long expected, final long actual) {
+		Assert.assertTrue("expected " + expected + " but was " + actual,
+				actual >= expected && actual <= expected * (1 + PRECISION));
+	}
+
+	@Test
+	public void testEmpty() {
+		final LogHistogram histogram = new LogHistogram();
+		Assert.assertEquals(0, histogram.getTotalCount());
+		Assert.assertEquals(-1, histogram.getMin());
+		Assert.assertEquals(-1, histogram.getMax());
+		Assert.assertEquals(-1, histogram.getValueAtPercentile(50));
+		Assert.assertEquals(0, histogram.getCountAtOrBelow(100));
+	}
+
+	@Test
+	public void testSmallValuesAreExact() {
+		final LogHistogram histogram = new LogHistogram();
+		for (int i = 0; i < LogHistogram.SUB_BUCKETS; i++) {
+			histogram.add(i);
+		}
+		Assert.assertEquals(0, histogram.getValueAtPercentile(0));
+		Assert.assertEquals(LogHistogram.SUB_BUCKETS / 2 - 1,
+				histogram.getValueAtPercentile(50));
+		Assert.assertEquals(LogHistogram.SUB_BUCKETS - 1,
+				histogram.getValueAtPercentile(100));
+		Assert.assertEquals(10, histogram.getCountAtOrBelow(9));
+	}
+
+	@Test
+	public void testPercentiles() {
+		final Random random = new Random(42);
+		final long[] values = new long[10000];
+		final LogHistogram histogram = new LogHistogram();
+		for (int i = 0; i < values.length; i++) {
+			// spread over several orders of magnitude
+			values[i] = (long) Math.exp(random.nextDouble() * 20);
+			histogram.add(values[i]);
+		}
+		Arrays.sort(values);
+
+		Assert.assertEquals(values.length, histogram.getTotalCount());
+		Assert.assertEquals(values[0], histogram.getMin());
+		Assert.assertEquals(values[values.length - 1], histogram.getMax());
+		for (final double percentile : new double[] { 0, 1, 10, 25, 50, 75,
+				90, 99, 99.9, 100 }) {
+			assertClose(exactPercentile(values, percentile),
+					histogram.getValueAtPercentile(percentile));
+		}
+		Assert.assertEquals(values[values.length - 1],
+				histogram.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void testBuckets() {
+		for (long value = 0; value < 1000000; value += 1 + value / 7) {
+			final int index = LogHistogram.bucketIndex(value);
+			final long highest = LogHistogram.highestValueInBucket(index);
+			assertClose(value, highest);
+			Assert.assertEquals(index, LogHistogram.bucketIndex(highest));
+			Assert.assertEquals(index + 1,
+					LogHistogram.bucketIndex(highest + 1));
+		}
+	}
+
+	@Test
+	public void testEncodeAndMerge() {
+		final LogHistogram first = new LogHistogram();
+		final LogHistogram second = new LogHistogram();
+		final LogHistogram all = new LogHistogram();
+		for (long value = 1; value < 100000; value *= 3) {
+			first.add(value);
+			second.add(value + 5, 2);
+			all.add(value);
+			all.add(value + 5, 2);
+		}
+
+		final LogHistogram decoded = LogHistogram.decode(first.encode());
+		Assert.assertEquals(first.encode(), decoded.encode());
+		Assert.assertEquals(first.getMin(), decoded.getMin());
+		Assert.assertEquals(first.getMax(), decoded.getMax());
+
+		decoded.add(second);
+		Assert.assertEquals(all.encode(), decoded.encode());
+		Assert.assertEquals(all.getValueAtPercentile(50),
+				decoded.getValueAtPercentile(50));
+		Assert.assertEquals(new LogHistogram().encode(),
+				LogHistogram.decode(new LogHistogram().encode()).encode());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeValue() {
+		new LogHistogram().add(-1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidEncoding() {
+		LogHistogram.decode("0:5;x");
+	}
+
+}
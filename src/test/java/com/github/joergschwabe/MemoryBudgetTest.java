@@ -0,0 +1,76 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MemoryBudgetTest {
+
+	private static final int BUDGET_BYTES = 8 << 20;
+
+	private static final long WAIT_MILLIS = 10000l;
+
+	@Test
+	public void testExceeded() throws InterruptedException {
+		final MemoryBudget budget = new MemoryBudget(BUDGET_BYTES);
+		try {
+			final MemoryBudget.Query query = budget.queryStarted();
+			final List<byte[]> retained = new ArrayList<>();
+			for (int i = 0; i < 4 * BUDGET_BYTES / (1 << 20); i++) {
+				retained.add(new byte[1 << 20]);
+			}
+			final long stopMillis = System.currentTimeMillis() + WAIT_MILLIS;
+			while (!query.isExceeded()
+					&& System.currentTimeMillis() < stopMillis) {
+				System.gc();
+				Thread.sleep(MemoryBudget.CHECK_INTERVAL_MILLIS);
+			}
+			Assert.assertTrue(query.isExceeded());
+			Assert.assertEquals(4 * BUDGET_BYTES / (1 << 20), retained.size());
+			budget.queryFinished(query);
+		} finally {
+			budget.dispose();
+		}
+	}
+
+	@Test
+	public void testNotExceeded() throws InterruptedException {
+		final MemoryBudget budget = new MemoryBudget(Long.MAX_VALUE);
+		try {
+			final MemoryBudget.Query query = budget.queryStarted();
+			final byte[] garbage = new byte[4 * BUDGET_BYTES];
+			System.gc();
+			Thread.sleep(MemoryBudget.CHECK_INTERVAL_MILLIS);
+			Assert.assertFalse(query.isExceeded());
+			Assert.assertEquals(4 * BUDGET_BYTES, garbage.length);
+			budget.queryFinished(query);
+		} finally {
+			budget.dispose();
+		}
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MergeRecordsTest {
+
+	@Rule
+	public final TemporaryFolder folder_ = new TemporaryFolder();
+
+	private static void write(final File file, final String... lines)
+			throws IOException {
+		final PrintWriter writer = new PrintWriter(new FileWriter(file));
+		try {
+			for (final String line : lines) {
+				writer.println(line);
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static List<String> read(final File file) throws IOException {
+		final List<String> lines = new ArrayList<>();
+		final BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		} finally {
+			reader.close();
+		}
+		return lines;
+	}
+
+	@Test
+	public void testNamesFromSchemaFiles() throws IOException {
+		final File first = folder_.newFile("first.csv");
+		write(first, "query,time", "\"q1\",1", "\"q2\",2,42");
+		write(Recorder.getSchemaFile(first), "record,name", "1,\"late\"");
+		final File second = folder_.newFile("second.csv");
+		write(second, "query,size", "\"q3\",7");
+		final File output = new File(folder_.getRoot(), "merged.csv");
+
+		MergeRecords.main(new String[] { output.getPath(), first.getPath(),
+				second.getPath() });
+
+		Assert.assertEquals(Arrays.asList("query,time,late,size",
+				"\"q1\",1,null,null", "\"q2\",2,42,null",
+				"\"q3\",null,null,7"), read(output));
+	}
+
+	@Test
+	public void testOrderOfQueryFile() throws IOException {
+		final File first = folder_.newFile("first.csv");
+		write(first, "query,time", "\"q1\",1", "\"q2\",2");
+		final File second = folder_.newFile("second.csv");
+		write(second, "query,time", "\"q3\",3");
+		write(Recorder.getSchemaFile(second), "record,name", "0,size");
+		final File queries = folder_.newFile("queries.txt");
+		write(queries, "q2", "q3", "q1");
+		final File output = new File(folder_.getRoot(), "merged.csv");
+
+		MergeRecords.main(new String[] { output.getPath(), first.getPath(),
+				second.getPath(), "--" + MergeRecords.QUERIES_OPT,
+				queries.getPath() });
+
+		Assert.assertEquals(Arrays.asList("query,time,size",
+				"\"q2\",2,null", "\"q3\",3,null", "\"q1\",1,null"),
+				read(output));
+	}
+
+}
@@ -0,0 +1,215 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class QuerySchedulerTest {
+
+	@Rule
+	public final TemporaryFolder folder_ = new TemporaryFolder();
+
+	private static String query(final int i) {
+		return "SubClassOf(<A" + i + "> <B>)";
+	}
+
+	/**
+	 * @return a cost file in which the cost of {@code query(i)} is
+	 *         {@code costs[i]}
+	 */
+	private File costFile(final double... costs) throws IOException {
+		final File file = folder_.newFile();
+		final PrintWriter writer = new PrintWriter(new FileWriter(file));
+		try {
+			writer.println("query,time");
+			for (int i = 0; i < costs.length; i++) {
+				writer.println("\"" + query(i) + "\"," + costs[i]);
+			}
+		} finally {
+			writer.close();
+		}
+		return file;
+	}
+
+	private static List<String> queries(final int count) {
+		final List<String> queries = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			queries.add(query(i));
+		}
+		return queries;
+	}
+
+	@Test
+	public void testCosts() throws IOException {
+		final QueryScheduler scheduler = QueryScheduler.create(
+				QueryScheduler.ORDER_SHORTEST, costFile(5, 1, 3), null);
+		Assert.assertEquals(5, scheduler.getCost(query(0)), 0);
+		Assert.assertEquals(1, scheduler.getCost(query(1)), 0);
+		// the median of the known costs
+		Assert.assertEquals(3, scheduler.getCost(query(7)), 0);
+		Assert.assertEquals(0, QueryScheduler.FILE_ORDER.getCost(query(0)),
+				0);
+	}
+
+	@Test
+	public void testSchedule() throws IOException {
+		final File costFile = costFile(5, 1, 3, 4, 2);
+		final List<String> queries = queries(5);
+		Assert.assertEquals(queries,
+				QueryScheduler.create(QueryScheduler.ORDER_FILE, costFile, null)
+						.schedule(queries));
+		Assert.assertEquals(
+				Arrays.asList(query(1), query(4), query(2), query(3),
+						query(0)),
+				QueryScheduler.create(QueryScheduler.ORDER_SHORTEST, costFile,
+						null).schedule(queries));
+		Assert.assertEquals(
+				Arrays.asList(query(0), query(3), query(2), query(4),
+						query(1)),
+				QueryScheduler.create(QueryScheduler.ORDER_LONGEST, costFile,
+						null).schedule(queries));
+		Assert.assertEquals(
+				Arrays.asList(query(1), query(0), query(4), query(3),
+						query(2)),
+				QueryScheduler.create(QueryScheduler.ORDER_INTERLEAVED,
+						costFile, null).schedule(queries));
+	}
+
+	@Test
+	public void testShardsAreBalanced() throws IOException {
+		final int count = 200;
+		final int shardCount = 4;
+		final Random random = new Random(7);
+		final double[] costs = new double[count];
+		double maxCost = 0;
+		for (int i = 0; i < count; i++) {
+			// a few expensive queries among many cheap ones
+			costs[i] = i % 20 == 0 ? 1000 * random.nextDouble()
+					: random.nextDouble();
+			maxCost = Math.max(maxCost, costs[i]);
+		}
+		final QueryScheduler scheduler = QueryScheduler.create(
+				QueryScheduler.ORDER_FILE, costFile(costs), null);
+		final List<String> queries = queries(count);
+		final List<String> shuffled = new ArrayList<>(queries);
+		Collections.shuffle(shuffled, random);
+
+		final Set<String> selected = new HashSet<>();
+		double minLoad = Double.MAX_VALUE;
+		double maxLoad = 0;
+		for (int i = 0; i < shardCount; i++) {
+			final Shard shard = new Shard(i, shardCount);
+			final List<String> shardQueries = scheduler.select(queries,
+					shard);
+			// in the order of the query file
+			final List<String> expectedOrder = new ArrayList<>(queries);
+			expectedOrder.retainAll(shardQueries);
+			Assert.assertEquals(expectedOrder, shardQueries);
+			// independent of the order of the query file
+			Assert.assertEquals(new HashSet<>(shardQueries),
+					new HashSet<>(scheduler.select(shuffled, shard)));
+			double load = 0;
+			for (final String query : shardQueries) {
+				Assert.assertTrue(selected.add(query));
+				load += scheduler.getCost(query);
+			}
+			minLoad = Math.min(minLoad, load);
+			maxLoad = Math.max(maxLoad, load);
+		}
+		Assert.assertEquals(count, selected.size());
+		Assert.assertTrue(maxLoad - minLoad <= maxCost);
+	}
+
+	@Test
+	public void testShardsWithoutCosts() {
+		final List<String> queries = queries(50);
+		final Shard shard = new Shard(1, 3);
+		final List<String> expected = new ArrayList<>();
+		for (final String query : queries) {
+			if (shard.contains(query)) {
+				expected.add(query);
+			}
+		}
+		Assert.assertEquals(expected,
+				QueryScheduler.FILE_ORDER.select(queries, shard));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testOrderWithoutCosts() throws IOException {
+		QueryScheduler.create(QueryScheduler.ORDER_SHORTEST, null, null);
+	}
+
+	@Test
+	public void testCostsFromSchemaFile() throws IOException {
+		final File costFile = folder_.newFile("costs.csv");
+		PrintWriter writer = new PrintWriter(new FileWriter(costFile));
+		try {
+			writer.println("query");
+			writer.println("\"" + query(0) + "\"");
+			writer.println("\"" + query(1) + "\",2,20");
+			writer.println("\"" + query(2) + "\",3,30");
+		} finally {
+			writer.close();
+		}
+		writer = new PrintWriter(
+				new FileWriter(Recorder.getSchemaFile(costFile)));
+		try {
+			writer.println("record,name");
+			writer.println("1,size");
+			writer.println("1," + QueryScheduler.INFERENCES_NAME);
+		} finally {
+			writer.close();
+		}
+		QueryScheduler scheduler = QueryScheduler.create(
+				QueryScheduler.ORDER_SHORTEST, costFile, "size");
+		Assert.assertEquals(2, scheduler.getCost(query(1)), 0);
+		Assert.assertEquals(3, scheduler.getCost(query(2)), 0);
+		// estimated from the number of inferences
+		scheduler = QueryScheduler.create(QueryScheduler.ORDER_SHORTEST,
+				costFile, null);
+		Assert.assertTrue(
+				scheduler.getCost(query(1)) < scheduler.getCost(query(2)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMissingCostColumn() throws IOException {
+		QueryScheduler.create(QueryScheduler.ORDER_SHORTEST, costFile(1, 2),
+				"size");
+	}
+
+}
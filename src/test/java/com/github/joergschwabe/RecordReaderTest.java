@@ -0,0 +1,122 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RecordReaderTest {
+
+	@Rule
+	public final TemporaryFolder folder_ = new TemporaryFolder();
+
+	private static void write(final File file, final String... lines)
+			throws IOException {
+		final PrintWriter writer = new PrintWriter(new FileWriter(file));
+		try {
+			for (final String line : lines) {
+				writer.println(line);
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	@Test
+	public void testNamesFromSchemaFile() throws IOException {
+		final File recordFile = folder_.newFile("record.csv");
+		write(recordFile, "query,time", "q0,1", "q1,2,x", "q2,3,y,z");
+		write(Recorder.getSchemaFile(recordFile), "record,name", "1,a",
+				"2,\"b\"");
+
+		final RecordReader reader = new RecordReader(recordFile);
+		try {
+			Assert.assertEquals(Arrays.asList("query", "time"),
+					reader.getNames());
+			Assert.assertEquals(Arrays.asList("query", "time", "a", "b"),
+					reader.getAllNames());
+
+			Map<String, String> record = reader.next();
+			Assert.assertEquals(Arrays.asList("query", "time"),
+					reader.getNames());
+			Assert.assertEquals("1", record.get("time"));
+			Assert.assertFalse(record.containsKey("a"));
+
+			record = reader.next();
+			Assert.assertEquals(Arrays.asList("query", "time", "a"),
+					reader.getNames());
+			Assert.assertEquals("x", record.get("a"));
+
+			record = reader.next();
+			Assert.assertEquals(Arrays.asList("query", "time", "a", "b"),
+					reader.getNames());
+			Assert.assertEquals("y", record.get("a"));
+			Assert.assertEquals("z", record.get("b"));
+
+			Assert.assertNull(reader.next());
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testReadsWhatRecorderWrites() throws IOException {
+		final File recordFile = folder_.newFile("record.csv");
+		final PrintWriter output = new PrintWriter(new FileWriter(recordFile));
+		final Recorder recorder = new Recorder(output,
+				Recorder.getSchemaFile(recordFile));
+		Recorder.RecordBuilder record = recorder.newRecord();
+		record.put("query", "q0");
+		record.put("time", 1);
+		recorder.commit();
+		record = recorder.newRecord();
+		record.put("query", "q1");
+		record.put("time", 2);
+		record.put("extra", "x");
+		recorder.commit();
+		output.close();
+
+		final RecordReader reader = new RecordReader(recordFile);
+		try {
+			Map<String, String> read = reader.next();
+			Assert.assertEquals("q0", RecordReader.unquote(read.get("query")));
+			Assert.assertFalse(read.containsKey("extra"));
+			read = reader.next();
+			Assert.assertEquals("q1", RecordReader.unquote(read.get("query")));
+			Assert.assertEquals("x", RecordReader.unquote(read.get("extra")));
+			Assert.assertNull(reader.next());
+		} finally {
+			reader.close();
+		}
+	}
+
+}
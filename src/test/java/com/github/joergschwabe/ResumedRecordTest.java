@@ -0,0 +1,147 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResumedRecordTest {
+
+	@Rule
+	public final TemporaryFolder folder_ = new TemporaryFolder();
+
+	private static void write(final File file, final String... lines)
+			throws IOException {
+		final PrintWriter writer = new PrintWriter(new FileWriter(file));
+		try {
+			for (final String line : lines) {
+				writer.println(line);
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	@Test
+	public void testMissingFile() throws IOException {
+		final File recordFile = new File(folder_.getRoot(), "record.csv");
+		Assert.assertSame(ResumedRecord.EMPTY,
+				ResumedRecord.open(recordFile));
+		Assert.assertFalse(recordFile.exists());
+	}
+
+	@Test
+	public void testDropsIncompleteRecords() throws IOException {
+		final File recordFile = folder_.newFile("record.csv");
+		write(recordFile, "query,time,size", "\"q0\",10,1", "\"q1\",20",
+				"\"q2\",30,3", "\"q3\"");
+
+		final ResumedRecord resumed = ResumedRecord.open(recordFile);
+		Assert.assertEquals(Arrays.asList("query", "time", "size"),
+				resumed.getNames());
+		Assert.assertEquals(2, resumed.getRecordCount());
+		Assert.assertEquals(2, resumed.getDoneCount());
+		Assert.assertTrue(resumed.isDone("q0"));
+		Assert.assertFalse(resumed.isDone("q1"));
+		Assert.assertTrue(resumed.isDone("q2"));
+		Assert.assertFalse(resumed.isDone("q3"));
+		Assert.assertEquals(40, resumed.getElapsedMillis());
+
+		final RecordReader reader = new RecordReader(recordFile);
+		try {
+			Assert.assertEquals("1", reader.next().get("size"));
+			Assert.assertEquals("3", reader.next().get("size"));
+			Assert.assertNull(reader.next());
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testGlobalTime() throws IOException {
+		final File recordFile = folder_.newFile("record.csv");
+		write(recordFile, "query,time,globalTime", "\"q0\",10,15",
+				"\"q1\",20,40", "\"q2\",30");
+
+		final ResumedRecord resumed = ResumedRecord.open(recordFile);
+		Assert.assertEquals(2, resumed.getRecordCount());
+		Assert.assertEquals(40, resumed.getElapsedMillis());
+	}
+
+	@Test
+	public void testAppendsNewNamesToSchema() throws IOException {
+		final File recordFile = folder_.newFile("record.csv");
+		final File schemaFile = Recorder.getSchemaFile(recordFile);
+		// "a" is introduced by the incomplete record "q1"
+		write(recordFile, "query,time", "\"q0\",10", "\"q1\",20", "\"q2\",30,x");
+		write(schemaFile, "record,name", "1,\"a\"");
+
+		final ResumedRecord resumed = ResumedRecord.open(recordFile);
+		Assert.assertEquals(Arrays.asList("query", "time", "a"),
+				resumed.getNames());
+		Assert.assertEquals(2, resumed.getRecordCount());
+		Assert.assertFalse(resumed.isDone("q1"));
+
+		final FileOutputStream recordStream = new FileOutputStream(recordFile,
+				true);
+		final PrintWriter output = new PrintWriter(recordStream);
+		final Recorder recorder = new Recorder(output, resumed.getNames(),
+				recordStream.getFD(), schemaFile, resumed.getRecordCount());
+		Recorder.RecordBuilder record = recorder.newRecord();
+		record.put("query", "q1");
+		record.put("time", 20);
+		record.put("a", "y");
+		record.put("b", "z");
+		recorder.commit();
+		output.close();
+
+		final RecordReader reader = new RecordReader(recordFile);
+		try {
+			Map<String, String> read = reader.next();
+			Assert.assertEquals("\"q0\"", read.get("query"));
+			Assert.assertFalse(read.containsKey("a"));
+			read = reader.next();
+			Assert.assertEquals("\"q2\"", read.get("query"));
+			Assert.assertEquals("x", read.get("a"));
+			Assert.assertFalse(read.containsKey("b"));
+			read = reader.next();
+			Assert.assertEquals("\"q1\"", read.get("query"));
+			Assert.assertEquals("y", RecordReader.unquote(read.get("a")));
+			Assert.assertEquals("z", RecordReader.unquote(read.get("b")));
+			Assert.assertNull(reader.next());
+		} finally {
+			reader.close();
+		}
+	}
+
+}
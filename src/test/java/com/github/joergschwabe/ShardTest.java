@@ -0,0 +1,97 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ShardTest {
+
+	private static List<String> queries(final int count) {
+		final List<String> result = new ArrayList<String>(count);
+		for (int i = 0; i < count; i++) {
+			result.add("SubClassOf(<A" + i + "> <B" + (i * 7 % 13) + ">)");
+		}
+		return result;
+	}
+
+	@Test
+	public void testIndexOfIsStableAndInRange() {
+		for (final String query : queries(200)) {
+			for (int count = 1; count <= 7; count++) {
+				final int index = Shard.indexOf(query, count);
+				Assert.assertTrue(0 <= index && index < count);
+				Assert.assertEquals(index, Shard.indexOf(query, count));
+			}
+		}
+	}
+
+	@Test
+	public void testShardsPartitionQueries() {
+		final int count = 4;
+		final List<String> queries = queries(400);
+		final int[] sizes = new int[count];
+		for (final String query : queries) {
+			int containing = 0;
+			for (int i = 0; i < count; i++) {
+				if (new Shard(i, count).contains(query)) {
+					containing++;
+					sizes[i]++;
+				}
+			}
+			Assert.assertEquals(1, containing);
+		}
+		for (final int size : sizes) {
+			// murmur3 spreads the queries roughly evenly
+			Assert.assertTrue("size " + size, size > 50 && size < 150);
+		}
+	}
+
+	@Test
+	public void testAllContainsEverything() {
+		for (final String query : queries(20)) {
+			Assert.assertTrue(Shard.ALL.contains(query));
+		}
+	}
+
+	@Test
+	public void testParse() {
+		Assert.assertEquals(new Shard(2, 5), Shard.parse("2/5"));
+		Assert.assertEquals(new Shard(0, 1), Shard.parse(" 0 / 1 "));
+		Assert.assertEquals("3/4", Shard.parse("3/4").toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseIndexOutOfRange() {
+		Shard.parse("5/5");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseMissingSlash() {
+		Shard.parse("3");
+	}
+
+}
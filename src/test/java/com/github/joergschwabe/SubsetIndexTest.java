@@ -0,0 +1,97 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SubsetIndexTest {
+
+	private static Set<Integer> set(final Integer... elements) {
+		return new HashSet<>(Arrays.asList(elements));
+	}
+
+	@Test
+	public void testMerge() {
+		final SubsetIndex<Set<Integer>> index = new SubsetIndex<>();
+		Assert.assertTrue(index.merge(set(1, 2, 3)));
+		Assert.assertTrue(index.merge(set(2, 4)));
+		// a superset
+		Assert.assertFalse(index.merge(set(1, 2, 3, 5)));
+		// the same set
+		Assert.assertFalse(index.merge(set(2, 4)));
+		Assert.assertEquals(2, index.size());
+		// removes the superset {1, 2, 3}
+		Assert.assertTrue(index.merge(set(1, 3)));
+		Assert.assertEquals(new HashSet<>(Arrays.asList(set(2, 4), set(1, 3))),
+				new HashSet<>(index));
+		// removes both
+		Assert.assertTrue(index.merge(Collections.<Integer> emptySet()));
+		Assert.assertEquals(1, index.size());
+		Assert.assertFalse(index.merge(set(7)));
+	}
+
+	@Test
+	public void testIsMinimal() {
+		final SubsetIndex<Set<Integer>> index = new SubsetIndex<>();
+		Assert.assertTrue(index.isMinimal(set(1)));
+		index.add(set(1, 2));
+		index.add(set(3));
+		Assert.assertTrue(index.isMinimal(set(1)));
+		Assert.assertTrue(index.isMinimal(set(2, 4)));
+		Assert.assertFalse(index.isMinimal(set(1, 2)));
+		Assert.assertFalse(index.isMinimal(set(1, 2, 4)));
+		Assert.assertFalse(index.isMinimal(set(3, 4)));
+		Assert.assertEquals(1, index.removeSupersetsOf(set(2)));
+		Assert.assertTrue(index.isMinimal(set(1, 2)));
+	}
+
+	@Test
+	public void testAgreesWithLinearScan() {
+		final Random random = new Random(17);
+		for (int round = 0; round < 20; round++) {
+			final SubsetIndex<Set<Integer>> index = new SubsetIndex<>();
+			final List<Set<Integer>> list = new ArrayList<>();
+			for (int i = 0; i < 300; i++) {
+				final Set<Integer> set = new HashSet<>();
+				final int size = 1 + random.nextInt(6);
+				for (int j = 0; j < size; j++) {
+					set.add(random.nextInt(12));
+				}
+				Assert.assertEquals(Utils.isMinimal(set, list),
+						index.isMinimal(set));
+				Assert.assertEquals(Utils.merge(set, list), index.merge(set));
+				Assert.assertEquals(new HashSet<>(list), new HashSet<>(index));
+			}
+		}
+	}
+
+}
@@ -39,6 +39,8 @@ public class TopDownJustificationTest<C, I extends Inference<? extends C>, A>
 	public static List<MinimalSubsetsFromProofs.Factory<?, ?, ?>> getJustificationEnumeratorFactories() {
 		final List<MinimalSubsetsFromProofs.Factory<?, ?, ?>> factories = new ArrayList<MinimalSubsetsFromProofs.Factory<?, ?, ?>>();
 		factories.add(TopDownJustificationComputation.getFactory());
+		factories.add(TopDownJustificationComputation.getFactory(true));
+		factories.add(ParallelTopDownJustificationComputation.getFactory());
 		return factories;
 	}
 
@@ -0,0 +1,48 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.joergschwabe.input;
+
+import com.github.joergschwabe.ProofAndJustifierBuilder;
+
+public abstract class UnderivablePremise
+		extends BaseEnumeratorTestInput<String, Integer> {
+
+	private static ProofAndJustifierBuilder<String, Integer> getBuilder() {
+
+		final ProofAndJustifierBuilder<String, Integer> builder = new ProofAndJustifierBuilder<String, Integer>();
+
+		builder.conclusion("A").premise("B").premise("C").add();
+		builder.conclusion("C").premise("A").premise("C").axiom(0).axiom(1).add();
+
+		return builder;
+	}
+
+	public UnderivablePremise() {
+		super(getBuilder());
+	}
+
+	@Override
+	public String getQuery() {
+		return "A";
+	}
+
+}
@@ -0,0 +1,113 @@
+package com.github.joergschwabe.proofs.adapters;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.liveontologies.puli.BaseProof;
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.Inferences;
+import org.liveontologies.puli.Proof;
+
+public class BinarizedProofAdapterTest {
+
+	@SafeVarargs
+	private static Proof<Inference<List<String>>> binarize(
+			final Inference<String>... inferences) {
+		final BaseProof<Inference<String>> proof = new BaseProof<Inference<String>>();
+		for (final Inference<String> inference : inferences) {
+			proof.produce(inference);
+		}
+		return Proofs.<String, Inference<String>> binarize(proof);
+	}
+
+	private static Inference<String> inference(final String conclusion,
+			final String... premises) {
+		return Inferences.create("inf", conclusion, Arrays.asList(premises));
+	}
+
+	/**
+	 * @return all lists reachable from the singleton list of the query
+	 */
+	private static Set<List<String>> getLists(
+			final Proof<Inference<List<String>>> proof, final String query) {
+		final Set<List<String>> result = new HashSet<List<String>>();
+		final Deque<List<String>> todo = new ArrayDeque<List<String>>();
+		todo.add(Collections.singletonList(query));
+		while (!todo.isEmpty()) {
+			final List<String> list = todo.poll();
+			for (final Inference<List<String>> inf : proof
+					.getInferences(list)) {
+				if (result.add(inf.getConclusion())) {
+					todo.addAll(inf.getPremises());
+				}
+			}
+		}
+		return result;
+	}
+
+	@Test
+	public void testHashCodeAsArrayList() {
+		final Proof<Inference<List<String>>> proof = binarize(
+				inference("A", "B", "C", "D", "E"), inference("B"),
+				inference("C", "D"), inference("D"), inference("E", "A"),
+				inference("E"));
+		final Set<List<String>> lists = getLists(proof, "A");
+		assertEquals(7, lists.size());
+		for (final List<String> list : lists) {
+			final List<String> copy = new ArrayList<String>(list);
+			assertEquals(copy.hashCode(), list.hashCode());
+			assertEquals(copy, list);
+			assertEquals(list, copy);
+		}
+	}
+
+	@Test
+	public void testListsAreShared() {
+		final Proof<Inference<List<String>>> proof = binarize(
+				inference("A", "B", "C", "D"), inference("B", "E", "C", "D"),
+				inference("C"), inference("D"), inference("E"));
+		final List<String> fromA = proof
+				.getInferences(Collections.singletonList("A")).iterator()
+				.next().getPremises().get(1);
+		final List<String> fromB = proof
+				.getInferences(Collections.singletonList("B")).iterator()
+				.next().getPremises().get(1);
+		assertEquals(Arrays.asList("C", "D"), fromA);
+		assertSame(fromA, fromB);
+		assertSame(fromA, proof.getInferences(Arrays.asList("C", "D"))
+				.iterator().next().getConclusion());
+	}
+
+}